@@ -0,0 +1,26 @@
+package app.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Plain JMH command line, except that the GC profiler is on by default so every
+ * result carries its allocation rate ({@code gc.alloc.rate.norm} is the per-operation figure to watch).
+ * Passing any {@code -prof} replaces the default.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = Arrays.asList(args);
+        if (!arguments.contains("-prof")) {
+            String[] withGcProfiler = Arrays.copyOf(args, args.length + 2);
+            withGcProfiler[args.length] = "-prof";
+            withGcProfiler[args.length + 1] = "gc";
+            args = withGcProfiler;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,75 @@
+package app.benchmark;
+
+import app.benchmark.SubtitleFixtures.Mix;
+import app.model.SubtitleEntry;
+import app.service.RuleEngine;
+import app.service.RulePack;
+import app.service.SubtitleCleanerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SubtitleCleanerService#removeSdh(List)} and {@link SubtitleCleanerService#removeSpam(List)} on parsed entries,
+ * for each content mix, with the default rule pack and with every bundled pack loaded at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CleanBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    @Param({"PLAIN", "SDH_HEAVY", "SPAM_HEAVY"})
+    Mix mix;
+
+    private List<SubtitleEntry> entries;
+    private RuleEngine allPacks;
+
+    @Setup
+    public void setUp() throws IOException {
+        entries = SubtitleFixtures.entries(cues, mix);
+        List<RulePack> packs = new ArrayList<>();
+        for (String name : RulePack.BUNDLED) {
+            packs.add(RulePack.bundled(name));
+        }
+        allPacks = RuleEngine.compile(packs);
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> removeSdh() {
+        return SubtitleCleanerService.removeSdh(entries);
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> removeSpam() {
+        return SubtitleCleanerService.removeSpam(entries);
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> removeSdhAllPacks() {
+        return SubtitleCleanerService.removeSdh(entries, allPacks);
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> removeSpamAllPacks() {
+        return SubtitleCleanerService.removeSpam(entries, allPacks);
+    }
+}
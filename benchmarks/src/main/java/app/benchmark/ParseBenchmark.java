@@ -0,0 +1,62 @@
+package app.benchmark;
+
+import app.benchmark.SubtitleFixtures.Mix;
+import app.model.SubtitleEntry;
+import app.service.SubtitleParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SubtitleParserService#parseFile(File)} end to end: charset detection, decoding and cue parsing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    @Param({"UTF-8", "windows-1250", "UTF-16"})
+    String encoding;
+
+    private Path directory;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        SubtitleFixtures.quietLogging();
+        directory = SubtitleFixtures.createTempDirectory();
+        file = SubtitleFixtures.write(directory, cues, Mix.PLAIN, Charset.forName(encoding)).toFile();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SubtitleFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> parseFile() throws IOException {
+        return SubtitleParserService.parseFile(file);
+    }
+}
@@ -0,0 +1,78 @@
+package app.benchmark;
+
+import app.benchmark.SubtitleFixtures.Mix;
+import app.model.FrameRate;
+import app.model.SubtitleEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-entry retiming over a whole parsed file: {@link SubtitleEntry#shiftBySeconds(double)} and
+ * {@link SubtitleEntry#convertFrameRate(FrameRate.Ratio)}, plus the column kernel
+ * {@link FrameRate.Ratio#apply(long[], int, int)} over the start and end timestamps. One operation is one pass
+ * over every cue; the kernel variant includes copying the pristine timestamps into its work arrays.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetimeBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    private List<SubtitleEntry> entries;
+    private FrameRate.Ratio conversionRatio;
+    private long[] startMillis;
+    private long[] endMillis;
+    private long[] workStart;
+    private long[] workEnd;
+
+    @Setup
+    public void setUp() {
+        entries = SubtitleFixtures.entries(cues, Mix.PLAIN);
+        conversionRatio = FrameRate.ratio(FrameRate.FPS_23_976, FrameRate.FPS_25);
+        startMillis = entries.stream().mapToLong(entry -> entry.start().toMillis()).toArray();
+        endMillis = entries.stream().mapToLong(entry -> entry.end().toMillis()).toArray();
+        workStart = new long[cues];
+        workEnd = new long[cues];
+    }
+
+    @Benchmark
+    public void shiftBySeconds(Blackhole blackhole) {
+        for (SubtitleEntry entry : entries) {
+            blackhole.consume(entry.shiftBySeconds(2.5));
+        }
+    }
+
+    @Benchmark
+    public void convertFrameRate(Blackhole blackhole) {
+        for (SubtitleEntry entry : entries) {
+            blackhole.consume(entry.convertFrameRate(conversionRatio));
+        }
+    }
+
+    @Benchmark
+    public long[] convertFrameRateKernel() {
+        System.arraycopy(startMillis, 0, workStart, 0, cues);
+        System.arraycopy(endMillis, 0, workEnd, 0, cues);
+        conversionRatio.apply(workStart, 0, cues);
+        conversionRatio.apply(workEnd, 0, cues);
+        return workEnd;
+    }
+}
@@ -0,0 +1,155 @@
+package app.benchmark;
+
+import app.model.SubtitleEntry;
+import app.service.SubtitleParserService;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic synthetic SRT content for the benchmarks. Cue texts are drawn from small pools of dialog, SDH and
+ * spam lines in proportions set by {@link Mix}; dialog carries Polish diacritics so single-byte encodings go through
+ * real charset detection rather than the ASCII shortcut.
+ */
+public final class SubtitleFixtures {
+
+    public enum Mix {
+        /** Almost only dialog — the common case, little to clean. */
+        PLAIN(2, 1),
+        /** A broadcast rip with closed captions: speaker labels, sound cues and music on a large share of cues. */
+        SDH_HEAVY(45, 2),
+        /** A scraped release littered with site adverts. */
+        SPAM_HEAVY(5, 20);
+
+        private final int sdhPercent;
+        private final int spamPercent;
+
+        Mix(int sdhPercent, int spamPercent) {
+            this.sdhPercent = sdhPercent;
+            this.spamPercent = spamPercent;
+        }
+    }
+
+    private static final String[] DIALOG = {
+            "Where were you last night?",
+            "Nie wiem, o czym mówisz.",
+            "Zażółć gęślą jaźń, powiedział.",
+            "We need to leave before sunrise.",
+            "- Did you hear that?\n- Hear what?",
+            "Przepraszam, że się spóźniłem.",
+            "<i>This is the last time I'm asking.</i>",
+            "I'll be right back.\nDon't move."
+    };
+
+    private static final String[] SDH = {
+            "[door slams]",
+            "(LAUGHING)",
+            "JOHN: Where are you going?",
+            "♪ ♪",
+            "<i>(sighs)</i>",
+            "- [man] Hey, wait!\n- MARY: What now?",
+            "( CRYING )",
+            "[GIRL] MARY: Słyszysz mnie?",
+            "We should go (thunder rumbling) now.",
+            "♪ Sweet home Alabama ♪"
+    };
+
+    private static final String[] SPAM = {
+            "Downloaded from www.opensubtitles.org",
+            "Subtitles by http://addic7ed.com",
+            "Support us and become VIP member\nhttps://subscene.com"
+    };
+
+    private static final long SEED = 20_250_101L;
+    private static final int AVERAGE_CUE_LENGTH = 80;
+
+    private SubtitleFixtures() {
+    }
+
+    /**
+     * Builds {@code cues} SRT blocks. The same arguments always produce the same text.
+     */
+    public static String generate(int cues, Mix mix) {
+        Random random = new Random(SEED);
+        StringBuilder sb = new StringBuilder(cues * AVERAGE_CUE_LENGTH);
+        long start = 1_000;
+        for (int i = 1; i <= cues; i++) {
+            long end = start + 1_000 + random.nextInt(3_000);
+            sb.append(i).append('\n');
+            appendTime(sb, start);
+            sb.append(" --> ");
+            appendTime(sb, end);
+            sb.append('\n').append(pickText(random, mix)).append("\n\n");
+            start = end + 100 + random.nextInt(900);
+        }
+        return sb.toString();
+    }
+
+    private static String pickText(Random random, Mix mix) {
+        int roll = random.nextInt(100);
+        if (roll < mix.spamPercent) {
+            return SPAM[random.nextInt(SPAM.length)];
+        }
+        if (roll < mix.spamPercent + mix.sdhPercent) {
+            return SDH[random.nextInt(SDH.length)];
+        }
+        return DIALOG[random.nextInt(DIALOG.length)];
+    }
+
+    private static void appendTime(StringBuilder sb, long millis) {
+        sb.append("%02d:%02d:%02d,%03d".formatted(millis / 3_600_000, millis / 60_000 % 60, millis / 1_000 % 60, millis % 1_000));
+    }
+
+    /**
+     * Writes the generated content to {@code directory} in the given encoding and returns the file.
+     * Charsets that mark byte order (such as {@code UTF-16}) get their BOM from the encoder; characters the charset
+     * cannot represent (♪ in windows-1250) are replaced rather than failing.
+     */
+    public static Path write(Path directory, int cues, Mix mix, Charset charset) throws IOException {
+        Path file = directory.resolve("synthetic-%d-%s-%s.srt".formatted(cues, mix, charset.name()));
+        Files.write(file, generate(cues, mix).getBytes(charset));
+        return file;
+    }
+
+    /**
+     * Parses the generated content in memory, skipping file I/O and charset detection.
+     */
+    public static List<SubtitleEntry> entries(int cues, Mix mix) {
+        try (Stream<SubtitleEntry> entries = SubtitleParserService.stream(new StringReader(generate(cues, mix)))) {
+            return entries.toList();
+        }
+    }
+
+    public static Path createTempDirectory() throws IOException {
+        return Files.createTempDirectory("subtitle-sync-bench");
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * The parser logs the detected charset on every file; keep that out of the measurement and the output.
+     */
+    public static void quietLogging() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+}
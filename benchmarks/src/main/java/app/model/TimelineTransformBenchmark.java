@@ -0,0 +1,89 @@
+package app.model;
+
+import app.benchmark.SubtitleFixtures;
+import app.benchmark.SubtitleFixtures.Mix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimelineTransform} over packed start/end columns: the SIMD kernel against the scalar loop, both on
+ * the same million-cue timeline. Lives in {@code app.model} because {@code applyScalar} is package-private.
+ * Forks with {@code jdk.incubator.vector} so {@code vector} really takes the SIMD path; each operation first
+ * restores the pristine timestamps, which both variants pay equally.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class TimelineTransformBenchmark {
+
+    public enum Operation {
+        SHIFT(TimelineTransform.shift(-2_500)),
+        SCALE(TimelineTransform.scale(FrameRate.ratio(FrameRate.FPS_25, FrameRate.FPS_23_976))),
+        SCALE_SHIFT_CLAMP(new TimelineTransform(FrameRate.ratio(FrameRate.FPS_23_976, FrameRate.FPS_25), -2_500, true));
+
+        final TimelineTransform transform;
+
+        Operation(TimelineTransform transform) {
+            this.transform = transform;
+        }
+    }
+
+    @Param({"1000000"})
+    int cues;
+
+    @Param
+    Operation operation;
+
+    private long[] startMillis;
+    private long[] endMillis;
+    private long[] workStart;
+    private long[] workEnd;
+
+    @Setup
+    public void setUp() {
+        if (!TimelineTransform.VectorSupport.AVAILABLE) {
+            throw new IllegalStateException("jdk.incubator.vector is not available in the benchmark JVM");
+        }
+        List<SubtitleEntry> entries = SubtitleFixtures.entries(cues, Mix.PLAIN);
+        startMillis = entries.stream().mapToLong(entry -> entry.start().toMillis()).toArray();
+        endMillis = entries.stream().mapToLong(entry -> entry.end().toMillis()).toArray();
+        workStart = new long[cues];
+        workEnd = new long[cues];
+    }
+
+    @Benchmark
+    public long[] vector() {
+        reset();
+        operation.transform.apply(workStart, 0, cues);
+        operation.transform.apply(workEnd, 0, cues);
+        return workEnd;
+    }
+
+    @Benchmark
+    public long[] scalar() {
+        reset();
+        operation.transform.applyScalar(workStart, 0, cues);
+        operation.transform.applyScalar(workEnd, 0, cues);
+        return workEnd;
+    }
+
+    private void reset() {
+        System.arraycopy(startMillis, 0, workStart, 0, cues);
+        System.arraycopy(endMillis, 0, workEnd, 0, cues);
+    }
+}
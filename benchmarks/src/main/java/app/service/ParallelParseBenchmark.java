@@ -0,0 +1,68 @@
+package app.service;
+
+import app.benchmark.SubtitleFixtures;
+import app.benchmark.SubtitleFixtures.Mix;
+import app.model.SubtitleEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential {@link SrtReader} against {@link ParallelSrtParser} on the same in-memory bytes, across input sizes
+ * around {@link ParallelSrtParser#PARALLEL_THRESHOLD_BYTES}; the reported {@code bytes} parameter is approximate.
+ * Lives in {@code app.service} because both are package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelParseBenchmark {
+
+    // Roughly 64 KiB, 256 KiB, 1 MiB, 4 MiB and 16 MiB of plain dialog
+    @Param({"600", "2400", "9600", "38400", "153600"})
+    int cues;
+
+    @Param({"UTF-8", "UTF-16"})
+    String encoding;
+
+    private ByteBuffer content;
+    private Charset charset;
+
+    @Setup
+    public void setUp() {
+        SubtitleFixtures.quietLogging();
+        charset = Charset.forName(encoding);
+        content = ByteBuffer.wrap(SubtitleFixtures.generate(cues, Mix.PLAIN).getBytes(charset));
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> sequential() throws IOException {
+        List<SubtitleEntry> entries = new ArrayList<>();
+        try (SrtReader reader = SrtReader.of(content.duplicate(), charset)) {
+            reader.forEachRemaining(entries::add);
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public List<SubtitleEntry> parallel() throws IOException {
+        return ParallelSrtParser.parse(content.duplicate(), charset);
+    }
+}
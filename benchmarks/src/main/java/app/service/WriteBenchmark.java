@@ -0,0 +1,85 @@
+package app.service;
+
+import app.benchmark.SubtitleFixtures;
+import app.benchmark.SubtitleFixtures.Mix;
+import app.model.SubtitleEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output side: {@code SubtitleService.writeSrt}, {@link SrtWriter} on its own without the file system, and
+ * {@link SubtitleChangesLogWriter#write(File, SubtitleChanges)}.
+ * Lives in {@code app.service} because both are package-private. The changes come from cleaning an SDH-heavy
+ * file, so the log has plenty of removed and modified entries to render.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    private final SubtitleService subtitleService = new SubtitleService();
+
+    private Path directory;
+    private List<SubtitleEntry> entries;
+    private SubtitleChanges changes;
+    private File srtFile;
+    private File changesLogFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = SubtitleFixtures.createTempDirectory();
+        entries = SubtitleFixtures.entries(cues, Mix.SDH_HEAVY);
+        File inputFile = directory.resolve("input.srt").toFile();
+        changes = subtitleService.cleanSubtitles(new StringReader(SubtitleFixtures.generate(cues, Mix.SDH_HEAVY)),
+                Writer.nullWriter(), inputFile, true, true);
+        srtFile = directory.resolve("output.srt").toFile();
+        changesLogFile = directory.resolve("output.changes.txt").toFile();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SubtitleFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void writeSrt() throws IOException {
+        subtitleService.writeSrt(srtFile, entries);
+    }
+
+    @Benchmark
+    public void encodeSrt() throws IOException {
+        try (SrtWriter writer = SrtWriter.to(OutputStream.nullOutputStream())) {
+            writer.writeAll(entries.iterator());
+        }
+    }
+
+    @Benchmark
+    public void writeChangesLog() throws IOException {
+        SubtitleChangesLogWriter.write(changesLogFile, changes);
+    }
+}
@@ -0,0 +1,733 @@
+package app;
+
+import app.model.FrameRate;
+import app.model.TimeMap;
+import app.server.SubtitleServer;
+import app.service.Alignment;
+import app.service.BatchOperation;
+import app.service.BatchProgressListener;
+import app.service.BatchResult;
+import app.service.ChangeCounts;
+import app.service.ChangesLogFormat;
+import app.service.ChangesSink;
+import app.service.CleanResult;
+import app.service.CodecOptions;
+import app.service.ProgressListener;
+import app.service.ResultCache;
+import app.service.RuleEngine;
+import app.service.RulePack;
+import app.service.SrtWriter;
+import app.service.SubtitleBatchService;
+import app.service.SubtitleCodec;
+import app.service.SubtitleCodecs;
+import app.service.SubtitleFormat;
+import app.service.SubtitleParserService;
+import app.service.SubtitleService;
+import app.service.VideoMetadataService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Headless entry point for scripted and server-side runs. Only touches the service layer, so neither AWT nor Swing
+ * is ever loaded. Subtitles are read from a file, a directory (batch mode) or stdin ({@code -}) and written next to
+ * the input, to {@code --output} or to stdout ({@code -o -}); diagnostics always go to stderr.
+ */
+public class SubtitleSyncCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String STDIO = "-";
+    private static final int DEFAULT_PORT = 8080;
+    // Local-only unless asked otherwise: the server has no authentication
+    private static final String DEFAULT_BIND_ADDRESS = "127.0.0.1";
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final Set<String> FLAGS = Set.of("--sdh", "--spam", "--verbose");
+    // Options taking a value; anything else starting with '-' is a usage error, not an option eating the next argument
+    private static final Set<String> VALUE_OPTIONS = Set.of("--output", "--format", "--fps", "--encoding",
+            "--changes-log", "--changes-format", "--rules", "--glob", "--jobs", "--queue", "--max-upload", "--cache",
+            "--cache-size", "--offset", "--from", "--to", "--anchors", "--reference", "--port", "--bind");
+
+    private static final String USAGE = """
+            Usage: subtitle-sync <command> [options] [INPUT]
+
+            Commands:
+              shift    --offset SECONDS            shift all subtitles by SECONDS (may be negative)
+              convert  --from FPS --to FPS         convert timing between frame rates (e.g. 25, 23.976, 24000/1001)
+              clean    [--sdh] [--spam]            remove SDH and/or spam entries (both when none given)
+              sync     --anchors 'SUB=TRUE ...'    fix offset and drift from anchors, each a subtitle time and the
+                                                   time it should show at (e.g. '00:01:02,500=00:01:04,000 5400=5411.2')
+              align    --reference FILE            fix offset and drift by matching correctly timed subtitles of
+                                                   the same film (e.g. another language); INPUT must be a file
+              transcode --format FMT               rewrite in another format, timing and text unchanged
+              serve    [--port N] [--bind ADDR]    run a local HTTP server with POST /shift, /convert, /clean and
+                                                   /detect-fps and GET /metrics; runs until stopped
+
+            INPUT is a subtitle file, a directory (batch mode) or '-' for stdin (the default). Files are read in
+            the format their extension names (SRT when unknown), stdin in the format its content looks like.
+            Formats: srt, vtt (WebVTT), ass (ASS/SSA), microdvd (.sub).
+
+            Time spent per stage (charset detection, parsing, SDH and spam matching, changes log, writing) is
+            recorded as app.SubtitleStage JFR events whenever a recording enables them, and as JMX statistics
+            under app.subtitlesync when run with -Dsubtitle-sync.metrics=true.
+
+            Options:
+              -o, --output FILE     write to FILE ('-' for stdout); defaults to a file next to the input,
+                                    or stdout when reading stdin
+              --format FMT          output format; defaults to the output file's extension, else the input's
+              --fps FPS             frame rate for MicroDVD input without a header and for MicroDVD output
+              --encoding CHARSET    input charset; detected for files, UTF-8 for stdin
+              --changes-log FILE    clean only: where to write the changes log when streaming
+              --changes-format FMT  clean only: changes log format, 'text' (default) or 'jsonl' (JSON Lines)
+              --rules PACKS         clean and serve: comma-separated spam and speaker label rule packs, each a
+                                    bundled name (default, de, en, es, fr, pl, watermarks) or a .rules file (default: default)
+              --glob PATTERN        batch only: files to process (default: *.srt, e.g. '*.{srt,vtt}')
+              --jobs N              batch and serve: number of parallel workers (default: CPU count)
+              --queue N             serve only: requests that may wait for a worker before the server answers
+                                    429 (default: 64)
+              --max-upload MB       serve only: largest video /detect-fps accepts, above it the server
+                                    answers 413 (default: 2048)
+              --cache DIR           keep results in DIR and reuse them for inputs with the same content and
+                                    options, across runs and processes; stdin is never cached
+              --cache-size MB       bound of the --cache directory, least recently used results go first
+                                    (default: 1024)
+              --verbose             log progress and diagnostics to stderr
+              -h, --help            show this help
+            """;
+
+    private final SubtitleService subtitleService;
+    private final InputStream stdin;
+    private final PrintStream stdout;
+    private final PrintStream stderr;
+
+    SubtitleSyncCli(SubtitleService subtitleService, InputStream stdin, PrintStream stdout, PrintStream stderr) {
+        this.subtitleService = subtitleService;
+        this.stdin = stdin;
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    public static void main(String[] args) {
+        int exitCode = new SubtitleSyncCli(new SubtitleService(), System.in, System.out, System.err).run(args);
+        System.exit(exitCode);
+    }
+
+    int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println("Error: " + e.getMessage());
+            stderr.print(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.help()) {
+            stdout.print(USAGE);
+            return EXIT_OK;
+        }
+        if (!options.has("--verbose")) {
+            Logger.getLogger("").setLevel(Level.WARNING);
+        }
+
+        try {
+            Command command = Command.from(options);
+            SubtitleService service = subtitleService;
+            Optional<ResultCache> cache = options.cache();
+            if (cache.isPresent()) {
+                service = service.withCache(cache.get());
+            }
+            // Compiled once here; batch workers and server requests all share the engine
+            Optional<RuleEngine> rules = options.rules();
+            if (rules.isPresent()) {
+                service = service.withRules(rules.get());
+            }
+            SubtitleSyncCli cli = service == subtitleService ? this : new SubtitleSyncCli(service, stdin, stdout, stderr);
+            File input = options.input().map(File::new).orElse(null);
+            if (input != null && input.isDirectory()) {
+                return cli.runBatch(command, input, options);
+            }
+            return command.execute(cli, input, options);
+        } catch (IllegalArgumentException e) {
+            stderr.println("Error: " + e.getMessage());
+            return e instanceof UsageException ? EXIT_USAGE : EXIT_FAILURE;
+        } catch (IOException e) {
+            stderr.println("Failed to process input: " + e.getMessage());
+            return EXIT_FAILURE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stderr.println("Interrupted");
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int shift(File input, Options options) throws IOException {
+        double offsetSeconds = options.requiredDouble("--offset");
+        if (input != null && options.output().isEmpty()) {
+            SubtitleFormat outputFormat = outputFormat(SubtitleFormat.of(input), options);
+            stdout.println(subtitleService.createShiftedSubtitles(input, outputFormat, offsetSeconds, ProgressListener.NONE));
+            return EXIT_OK;
+        }
+        try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+            SubtitleFormat inputFormat = inputFormat(input, reader, options);
+            subtitleService.shiftSubtitles(reader, output.writer(), inputFormat, outputFormat(inputFormat, options), offsetSeconds);
+            output.commit();
+        }
+        return EXIT_OK;
+    }
+
+    private int convert(File input, Options options) throws IOException {
+        FrameRate from = options.frameRate("--from");
+        FrameRate to = options.frameRate("--to");
+        if (input != null && options.output().isEmpty()) {
+            SubtitleFormat outputFormat = outputFormat(SubtitleFormat.of(input), options);
+            stdout.println(subtitleService.createFrameRateConvertedSubtitles(input, outputFormat, from, to, ProgressListener.NONE));
+            return EXIT_OK;
+        }
+        try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+            SubtitleFormat inputFormat = inputFormat(input, reader, options);
+            subtitleService.convertFrameRate(reader, output.writer(), inputFormat, outputFormat(inputFormat, options), from, to);
+            output.commit();
+        }
+        return EXIT_OK;
+    }
+
+    private int sync(File input, Options options) throws IOException {
+        TimeMap timeMap = options.timeMap();
+        if (input != null && options.output().isEmpty()) {
+            SubtitleFormat outputFormat = outputFormat(SubtitleFormat.of(input), options);
+            stdout.println(subtitleService.createSyncedSubtitles(input, outputFormat, timeMap, ProgressListener.NONE));
+            return EXIT_OK;
+        }
+        try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+            SubtitleFormat inputFormat = inputFormat(input, reader, options);
+            subtitleService.syncSubtitles(reader, output.writer(), inputFormat, outputFormat(inputFormat, options), timeMap);
+            output.commit();
+        }
+        return EXIT_OK;
+    }
+
+    private int align(File input, Options options) throws IOException {
+        File reference = new File(options.value("--reference")
+                .orElseThrow(() -> new UsageException("Missing required option --reference")));
+        if (input == null) {
+            throw new UsageException("align needs an input file, not stdin");
+        }
+        Alignment alignment = subtitleService.alignSubtitles(reference, input);
+        stderr.println("Aligned: " + alignment);
+        if (options.output().isEmpty()) {
+            stdout.println(subtitleService.createAlignedSubtitles(input, outputFormat(SubtitleFormat.of(input), options), alignment));
+            return EXIT_OK;
+        }
+        try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+            SubtitleFormat inputFormat = inputFormat(input, reader, options);
+            subtitleService.alignSubtitles(reader, output.writer(), inputFormat, outputFormat(inputFormat, options), alignment);
+            output.commit();
+        }
+        return EXIT_OK;
+    }
+
+    private int transcode(File input, Options options) throws IOException {
+        if (options.value("--format").isEmpty() && options.output().filter(path -> !STDIO.equals(path)).isEmpty()) {
+            throw new UsageException("Missing required option --format");
+        }
+        if (input != null && options.output().isEmpty()) {
+            stdout.println(subtitleService.createTranscodedSubtitles(input, outputFormat(SubtitleFormat.of(input), options)));
+            return EXIT_OK;
+        }
+        try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+            SubtitleFormat inputFormat = inputFormat(input, reader, options);
+            subtitleService.transcodeSubtitles(reader, output.writer(), inputFormat, outputFormat(inputFormat, options));
+            output.commit();
+        }
+        return EXIT_OK;
+    }
+
+    private int clean(File input, Options options) throws IOException {
+        boolean removeSdh = options.removeSdh();
+        boolean removeSpam = options.removeSpam();
+        ChangesLogFormat changesLogFormat = options.changesLogFormat();
+        if (input != null && options.output().isEmpty()) {
+            CleanResult result = subtitleService.createCleanedSubtitles(input, outputFormat(SubtitleFormat.of(input), options),
+                    removeSdh, removeSpam, changesLogFormat, ProgressListener.NONE);
+            result.outputFile().ifPresent(stdout::println);
+            stderr.printf("Removed %d SDH and %d spam entries, modified %d; changes log: %s%n",
+                    result.sdhRemoved(), result.spamRemoved(), result.modified(), result.changesFile());
+            return EXIT_OK;
+        }
+
+        Optional<String> changesLog = options.value("--changes-log");
+        File source = input != null ? input : new File("<stdin>");
+        ChangeCounts counts;
+        try (ChangesSink changes = changesLog.isPresent()
+                ? changesLogFormat.open(new File(changesLog.get()), source, removeSdh, removeSpam)
+                : ChangesSink.NONE) {
+            try (BufferedReader reader = openInput(input, options); Output output = openOutput(options)) {
+                SubtitleFormat inputFormat = inputFormat(input, reader, options);
+                counts = subtitleService.cleanSubtitles(reader, output.writer(), inputFormat, outputFormat(inputFormat, options),
+                        removeSdh, removeSpam, changes);
+                output.commit();
+            }
+            File output = options.output().filter(path -> !STDIO.equals(path)).map(File::new).orElse(new File("<stdout>"));
+            changes.finish(Optional.of(output), counts);
+        }
+        stderr.printf("Removed %d entries, modified %d%n", counts.removed(), counts.modified());
+        return EXIT_OK;
+    }
+
+    private int serve(File input, Options options) throws IOException, InterruptedException {
+        if (input != null || options.output().isPresent()) {
+            throw new UsageException("serve does not take an input or output");
+        }
+        int port = options.value("--port").map(Options::parsePort).orElse(DEFAULT_PORT);
+        String bind = options.value("--bind").orElse(DEFAULT_BIND_ADDRESS);
+        int jobs = options.value("--jobs").map(Options::parsePositiveInt).orElse(Runtime.getRuntime().availableProcessors());
+        int queue = options.value("--queue").map(Options::parseNonNegativeInt).orElse(DEFAULT_QUEUE_CAPACITY);
+        long maxUploadBytes = options.value("--max-upload")
+                .map(size -> Options.parsePositiveInt(size) * 1024L * 1024)
+                .orElse(SubtitleServer.Config.DEFAULT_MAX_UPLOAD_BYTES);
+
+        SubtitleServer.Config config = new SubtitleServer.Config(new InetSocketAddress(bind, port), jobs, queue,
+                VideoMetadataService.DEFAULT_FFPROBE, maxUploadBytes);
+        SubtitleServer server = SubtitleServer.start(subtitleService, config);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        stderr.println("Listening on " + server.uri());
+        server.awaitTermination();
+        return EXIT_OK;
+    }
+
+    private int runBatch(Command command, File directory, Options options) throws IOException, InterruptedException {
+        if (options.output().isPresent()) {
+            throw new UsageException("--output cannot be used with a directory input");
+        }
+        int jobs = options.value("--jobs").map(Options::parsePositiveInt).orElse(Runtime.getRuntime().availableProcessors());
+        SubtitleBatchService batchService = new SubtitleBatchService(subtitleService, jobs);
+        BatchProgressListener listener = options.has("--verbose")
+                ? progress -> stderr.printf("[%d/%d] %s (%.1f files/s)%n", progress.completed(), progress.total(),
+                progress.lastFile(), progress.filesPerSecond())
+                : BatchProgressListener.NONE;
+
+        String glob = options.value("--glob").orElse(SubtitleBatchService.DEFAULT_GLOB);
+        BatchResult result = batchService.process(directory.toPath(), glob, command.toBatchOperation(options), listener);
+
+        result.succeeded().forEach(fileResult -> fileResult.outputFile().ifPresent(stdout::println));
+        result.failed().forEach(failure ->
+                stderr.println("Failed: " + failure.inputFile() + " - " + failure.error().getMessage()));
+        stderr.printf("Processed %d files, %d failed, in %.1f s%n",
+                result.total(), result.failed().size(), result.elapsed().toMillis() / 1000.0);
+        return result.hasFailures() ? EXIT_FAILURE : EXIT_OK;
+    }
+
+    // The input file's extension or, for stdin, what its start looks like; --fps for a frame-based format
+    private SubtitleFormat inputFormat(File input, BufferedReader reader, Options options) throws IOException {
+        SubtitleFormat format = input != null ? SubtitleFormat.of(input) : SubtitleFormat.detect(reader);
+        return options.frameRate().map(format::withFrameRate).orElse(format);
+    }
+
+    // --format, else the output file's extension when it names a format, else the input's format
+    private static SubtitleFormat outputFormat(SubtitleFormat inputFormat, Options options) {
+        SubtitleFormat format = options.format()
+                .or(() -> options.output().filter(path -> !STDIO.equals(path)).flatMap(SubtitleSyncCli::formatOfExtension))
+                .orElseGet(() -> new SubtitleFormat(inputFormat.codec(), CodecOptions.DEFAULT));
+        return options.frameRate().map(format::withFrameRate).orElse(format);
+    }
+
+    private static Optional<SubtitleFormat> formatOfExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot < 0
+                ? Optional.empty()
+                : SubtitleCodecs.forExtension(path.substring(dot + 1)).map(codec -> new SubtitleFormat(codec, CodecOptions.DEFAULT));
+    }
+
+    private BufferedReader openInput(File input, Options options) throws IOException {
+        Optional<Charset> encoding = options.value("--encoding").map(Charset::forName);
+        if (input == null) {
+            return new BufferedReader(new InputStreamReader(stdin, encoding.orElse(StandardCharsets.UTF_8)));
+        }
+        return encoding.isPresent()
+                ? Files.newBufferedReader(input.toPath(), encoding.get())
+                : SubtitleParserService.openReader(input);
+    }
+
+    private Output openOutput(Options options) throws IOException {
+        String output = options.output().orElse(STDIO);
+        if (STDIO.equals(output)) {
+            // Never close stdout itself — only flush what was written
+            return new Output(new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }, null, null);
+        }
+        Path target = Path.of(output);
+        Path temporary = SrtWriter.createTemporary(target);
+        try {
+            return new Output(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8), temporary, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Where a streaming command writes: stdout, or a temporary file next to {@code -o FILE} that replaces the file
+     * only on {@link #commit()}, like the file operations' output. Closing without a commit drops the temporary file,
+     * so a failed run leaves an existing file untouched.
+     */
+    private static final class Output implements Closeable {
+        private final Writer writer;
+        private final Path temporary;
+        private final Path target;
+        private boolean committed;
+
+        Output(Writer writer, Path temporary, Path target) {
+            this.writer = writer;
+            this.temporary = temporary;
+            this.target = target;
+        }
+
+        Writer writer() {
+            return writer;
+        }
+
+        void commit() throws IOException {
+            writer.close();
+            if (temporary != null) {
+                SrtWriter.moveIntoPlace(temporary, target);
+            }
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                writer.close();
+            } finally {
+                if (temporary != null) {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        }
+    }
+
+    private enum Command {
+        SHIFT {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.shift(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                return new BatchOperation.Shift(options.requiredDouble("--offset"), options.batchOutputFormat());
+            }
+        },
+        CONVERT {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.convert(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                return new BatchOperation.FrameRateConversion(options.frameRate("--from"), options.frameRate("--to"),
+                        options.batchOutputFormat());
+            }
+        },
+        CLEAN {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.clean(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                return new BatchOperation.Clean(options.removeSdh(), options.removeSpam(), options.changesLogFormat(),
+                        options.batchOutputFormat());
+            }
+        },
+        SYNC {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.sync(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                return new BatchOperation.Sync(options.timeMap(), options.batchOutputFormat());
+            }
+        },
+        ALIGN {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.align(input, options);
+            }
+
+            // Every target needs its own reference, so there is nothing to fan out over a directory
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                throw new UsageException("align does not support a directory input");
+            }
+        },
+        SERVE {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException, InterruptedException {
+                return cli.serve(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                throw new UsageException("serve does not take an input");
+            }
+        },
+        TRANSCODE {
+            @Override
+            int execute(SubtitleSyncCli cli, File input, Options options) throws IOException {
+                return cli.transcode(input, options);
+            }
+
+            @Override
+            BatchOperation toBatchOperation(Options options) {
+                return new BatchOperation.Transcode(options.batchOutputFormat()
+                        .orElseThrow(() -> new UsageException("Missing required option --format")));
+            }
+        };
+
+        abstract int execute(SubtitleSyncCli cli, File input, Options options) throws IOException, InterruptedException;
+
+        abstract BatchOperation toBatchOperation(Options options);
+
+        static Command from(Options options) {
+            try {
+                return valueOf(options.command().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new UsageException("Unknown command: " + options.command());
+            }
+        }
+    }
+
+    private record Options(String command, Map<String, String> values, List<String> positional, boolean help) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            List<String> positional = new ArrayList<>();
+            boolean help = false;
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-h") || arg.equals("--help")) {
+                    help = true;
+                } else if (FLAGS.contains(arg)) {
+                    values.put(arg, "true");
+                } else if (arg.startsWith("-") && !arg.equals(STDIO)) {
+                    String name = arg.equals("-o") ? "--output" : arg;
+                    if (!VALUE_OPTIONS.contains(name)) {
+                        throw new UsageException("Unknown option: " + arg);
+                    }
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + arg);
+                    }
+                    values.put(name, args[++i]);
+                } else {
+                    positional.add(arg);
+                }
+            }
+            if (help) {
+                return new Options("", values, positional, true);
+            }
+            if (positional.isEmpty()) {
+                throw new IllegalArgumentException("Missing command");
+            }
+            if (positional.size() > 2) {
+                throw new IllegalArgumentException("Unexpected argument: " + positional.get(2));
+            }
+            return new Options(positional.getFirst(), values, positional, false);
+        }
+
+        Optional<String> input() {
+            return positional.size() > 1 && !STDIO.equals(positional.get(1))
+                    ? Optional.of(positional.get(1))
+                    : Optional.empty();
+        }
+
+        Optional<String> output() {
+            return value("--output");
+        }
+
+        Optional<String> value(String name) {
+            return Optional.ofNullable(values.get(name));
+        }
+
+        boolean has(String flag) {
+            return values.containsKey(flag);
+        }
+
+        // --cache DIR, bounded by --cache-size MB
+        Optional<ResultCache> cache() {
+            if (has("--cache-size") && !has("--cache")) {
+                throw new UsageException("--cache-size needs --cache");
+            }
+            long maxBytes = value("--cache-size")
+                    .map(size -> parsePositiveInt(size) * 1024L * 1024)
+                    .orElse(ResultCache.DEFAULT_MAX_BYTES);
+            return value("--cache").map(directory -> new ResultCache(Path.of(directory), maxBytes));
+        }
+
+        // --rules PACKS, compiled into one engine in the order given
+        Optional<RuleEngine> rules() throws IOException {
+            Optional<String> value = value("--rules");
+            if (value.isEmpty()) {
+                return Optional.empty();
+            }
+            List<RulePack> packs = new ArrayList<>();
+            try {
+                for (String pack : value.get().split(",")) {
+                    if (!pack.isBlank()) {
+                        packs.add(RulePack.resolve(pack.strip()));
+                    }
+                }
+                if (packs.isEmpty()) {
+                    throw new UsageException("--rules needs at least one rule pack");
+                }
+                return Optional.of(RuleEngine.compile(packs));
+            } catch (IllegalArgumentException e) {
+                throw e instanceof UsageException ? e : new UsageException(e.getMessage());
+            }
+        }
+
+        ChangesLogFormat changesLogFormat() {
+            try {
+                return value("--changes-format").map(ChangesLogFormat::parse).orElse(ChangesLogFormat.TEXT);
+            } catch (IllegalArgumentException e) {
+                throw new UsageException(e.getMessage());
+            }
+        }
+
+        // No explicit option means both, mirroring the GUI defaults
+        boolean removeSdh() {
+            return has("--sdh") || !has("--spam");
+        }
+
+        boolean removeSpam() {
+            return has("--spam") || !has("--sdh");
+        }
+
+        double requiredDouble(String name) {
+            String value = value(name).orElseThrow(() -> new UsageException("Missing required option " + name));
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new UsageException("Invalid number for " + name + ": " + value);
+            }
+        }
+
+        Optional<SubtitleFormat> format() {
+            try {
+                return value("--format").map(SubtitleFormat::parse);
+            } catch (IllegalArgumentException e) {
+                throw new UsageException(e.getMessage() + " (supported: "
+                        + SubtitleCodecs.all().stream().map(SubtitleCodec::name).collect(Collectors.joining(", ")) + ")");
+            }
+        }
+
+        // --fps, for frame-based formats
+        Optional<FrameRate> frameRate() {
+            return has("--fps") ? Optional.of(frameRate("--fps")) : Optional.empty();
+        }
+
+        // In batch mode each output keeps its input's format unless --format names one
+        Optional<SubtitleFormat> batchOutputFormat() {
+            return format().map(format -> frameRate().map(format::withFrameRate).orElse(format));
+        }
+
+        FrameRate frameRate(String name) {
+            String value = value(name).orElseThrow(() -> new UsageException("Missing required option " + name));
+            try {
+                return FrameRate.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new UsageException(e.getMessage());
+            }
+        }
+
+        // Anchors are separated by whitespace or ';' since SRT timestamps contain commas
+        TimeMap timeMap() {
+            String value = value("--anchors").orElseThrow(() -> new UsageException("Missing required option --anchors"));
+            try {
+                List<TimeMap.Anchor> anchors = new ArrayList<>();
+                for (String anchor : value.trim().split("[\\s;]+")) {
+                    if (!anchor.isEmpty()) {
+                        anchors.add(TimeMap.Anchor.parse(anchor));
+                    }
+                }
+                return TimeMap.fit(anchors);
+            } catch (IllegalArgumentException e) {
+                throw new UsageException(e.getMessage());
+            }
+        }
+
+        static int parseNonNegativeInt(String value) {
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed >= 0) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new UsageException("Expected a number of zero or more, got: " + value);
+        }
+
+        static int parsePort(String value) {
+            int port = parseNonNegativeInt(value);
+            if (port > 65_535) {
+                throw new UsageException("Invalid port: " + value);
+            }
+            return port;
+        }
+
+        static int parsePositiveInt(String value) {
+            try {
+                int parsed = Integer.parseInt(value);
+                if (parsed > 0) {
+                    return parsed;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new UsageException("Expected a positive number, got: " + value);
+        }
+    }
+
+    private static class UsageException extends IllegalArgumentException {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+}
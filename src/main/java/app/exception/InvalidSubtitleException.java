@@ -4,6 +4,7 @@ import lombok.Builder;
 import org.apache.commons.lang3.StringUtils;
 
 import java.time.Duration;
+import java.util.OptionalInt;
 
 @Builder
 public class InvalidSubtitleException extends IllegalArgumentException {
@@ -14,16 +15,36 @@ public class InvalidSubtitleException extends IllegalArgumentException {
     private final String subtitleText;
     private final String baseMessage;
     private final Throwable originalCause;
+    private final Integer lineNumber;
 
     private InvalidSubtitleException(Integer subtitleIndex, Duration startTime, Duration endTime,
-                                     String subtitleText, String baseMessage, Throwable originalCause) {
-        super(buildDetailedMessage(baseMessage, subtitleIndex, startTime, endTime, subtitleText), originalCause);
+                                     String subtitleText, String baseMessage, Throwable originalCause,
+                                     Integer lineNumber) {
+        super(buildDetailedMessage(baseMessage, subtitleIndex, startTime, endTime, subtitleText, lineNumber), originalCause);
         this.subtitleIndex = subtitleIndex;
         this.startTime = startTime;
         this.endTime = endTime;
         this.subtitleText = subtitleText;
         this.baseMessage = baseMessage;
         this.originalCause = originalCause;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * 1-based line of the input where the offending cue starts, when the error came from parsing a file or stream.
+     */
+    public OptionalInt getLineNumber() {
+        return lineNumber == null ? OptionalInt.empty() : OptionalInt.of(lineNumber);
+    }
+
+    /**
+     * The same error, located at the given line of the input.
+     */
+    public InvalidSubtitleException atLine(int lineNumber) {
+        InvalidSubtitleException located = new InvalidSubtitleException(subtitleIndex, startTime, endTime,
+                subtitleText, baseMessage, originalCause, lineNumber);
+        located.setStackTrace(getStackTrace());
+        return located;
     }
 
     public static InvalidSubtitleException invalidIndex(int index, Duration start, Duration end, String text) {
@@ -116,13 +137,26 @@ public class InvalidSubtitleException extends IllegalArgumentException {
                 .build();
     }
 
+    public static InvalidSubtitleException malformedLine(String format, String line) {
+        return InvalidSubtitleException.builder()
+                .baseMessage("Invalid " + format + " line: " + line)
+                .build();
+    }
+
+    public static InvalidSubtitleException missingFrameRate(String format) {
+        return InvalidSubtitleException.builder()
+                .baseMessage(format + " subtitles are timed in frames, but the file declares no frame rate and none was given")
+                .build();
+    }
+
     public static InvalidSubtitleException undetectableCharset(String fileName) {
         return InvalidSubtitleException.builder()
                 .baseMessage("Could not detect charset for file: " + fileName + ". The file may be corrupted or use an unsupported encoding.")
                 .build();
     }
 
-    private static String buildDetailedMessage(String baseMessage, Integer subtitleIndex, Duration startTime, Duration endTime, String subtitleText) {
+    private static String buildDetailedMessage(String baseMessage, Integer subtitleIndex, Duration startTime, Duration endTime,
+                                               String subtitleText, Integer lineNumber) {
         StringBuilder sb = new StringBuilder();
 
         if (subtitleIndex != null) {
@@ -150,6 +184,10 @@ public class InvalidSubtitleException extends IllegalArgumentException {
             sb.append(" Text: \"").append(preview.replace("\n", "\\n")).append("\"");
         }
 
+        if (lineNumber != null) {
+            sb.append(" (line ").append(lineNumber).append(")");
+        }
+
         return sb.toString();
     }
 
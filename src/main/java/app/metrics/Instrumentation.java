@@ -0,0 +1,86 @@
+package app.metrics;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Switch and registry for the cumulative per-stage statistics. They are off by default and turned on with
+ * {@code -D}{@value #PROPERTY}{@code =true} or {@link #setStatisticsEnabled}; the first time they are, each stage's
+ * {@link StageStatisticsMXBean} is registered with the platform MBean server. JFR stage events need no switch here:
+ * they are recorded whenever a recording enables {@code app.SubtitleStage}.
+ */
+@Log
+@UtilityClass
+public class Instrumentation {
+
+    public static final String PROPERTY = "subtitle-sync.metrics";
+
+    static final String DOMAIN = "app.subtitlesync";
+
+    private static final Map<Stage, StageStatistics> STATISTICS = createStatistics();
+
+    private static volatile boolean statisticsEnabled;
+    // Guarded by the class
+    private static boolean registered;
+
+    static {
+        if (Boolean.getBoolean(PROPERTY)) {
+            setStatisticsEnabled(true);
+        }
+    }
+
+    private static Map<Stage, StageStatistics> createStatistics() {
+        Map<Stage, StageStatistics> statistics = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            statistics.put(stage, new StageStatistics());
+        }
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    public static boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Starts or stops collecting; figures collected so far are kept either way.
+     */
+    public static synchronized void setStatisticsEnabled(boolean enabled) {
+        if (enabled && !registered) {
+            register();
+            registered = true;
+        }
+        statisticsEnabled = enabled;
+    }
+
+    public static StageStatisticsMXBean statistics(Stage stage) {
+        return STATISTICS.get(stage);
+    }
+
+    static void record(Stage stage, long elapsedNanos, long bytes, long cues) {
+        STATISTICS.get(stage).record(elapsedNanos, bytes, cues);
+    }
+
+    static ObjectName objectName(Stage stage) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Stage,name=" + stage.label());
+    }
+
+    // A failed registration only costs the JMX view; the figures are still collected
+    private static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Map.Entry<Stage, StageStatistics> entry : STATISTICS.entrySet()) {
+            try {
+                server.registerMBean(entry.getValue(), objectName(entry.getKey()));
+            } catch (JMException e) {
+                log.warning(() -> "Could not register statistics of stage %s: %s".formatted(entry.getKey().label(), e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package app.metrics;
+
+/**
+ * Steps of the subtitle pipeline that are timed separately. In a streaming pass parsing, matching, logging and
+ * writing interleave cue by cue; each stage then counts only the time spent in its own calls.
+ */
+public enum Stage {
+
+    CHARSET_DETECTION("charset-detection"),
+    /** Decoding a whole file to text up front, for formats not parsed straight from bytes as SRT is. */
+    DECODING("decoding"),
+    PARSING("parsing"),
+    SDH_MATCHING("sdh-matching"),
+    SPAM_MATCHING("spam-matching"),
+    /** Recording removed and modified cues and finishing the changes log, in any of its formats. */
+    CHANGES_LOG("changes-log"),
+    WRITING("writing");
+
+    private final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * The name in JFR events and JMX object names.
+     */
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,41 @@
+package app.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One stage of one file. The event spans the whole pass the stage took part in; {@link #activeTime} is the part
+ * of it spent in the stage itself.
+ */
+@Name(StageEvent.NAME)
+@Label("Subtitle Stage")
+@Category("Subtitle Sync")
+@Description("Time spent in one stage of processing a subtitle file")
+@StackTrace(false)
+class StageEvent extends Event {
+
+    static final String NAME = "app.SubtitleStage";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("File")
+    String file;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Cues")
+    long cues;
+
+    @Label("Active Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long activeTime;
+}
@@ -0,0 +1,64 @@
+package app.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class StageStatistics implements StageStatisticsMXBean {
+
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder cues = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void record(long elapsedNanos, long byteCount, long cueCount) {
+        bytes.add(byteCount);
+        cues.add(cueCount);
+        totalNanos.add(elapsedNanos);
+        latency.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    @Override
+    public long getRuns() {
+        return latency.snapshot().count();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getCues() {
+        return cues.sum();
+    }
+
+    @Override
+    public long getTotalMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(totalNanos.sum());
+    }
+
+    @Override
+    public long getMeanMicros() {
+        return latency.snapshot().mean();
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.snapshot().p50();
+    }
+
+    @Override
+    public long getP95Micros() {
+        return latency.snapshot().p95();
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.snapshot().p99();
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.snapshot().max();
+    }
+}
@@ -0,0 +1,26 @@
+package app.metrics;
+
+/**
+ * Cumulative figures of one {@link Stage} since statistics were first enabled, under
+ * {@code app.subtitlesync:type=Stage,name=<label>}. Times are in microseconds, one sample per file and stage.
+ */
+public interface StageStatisticsMXBean {
+
+    long getRuns();
+
+    long getBytes();
+
+    long getCues();
+
+    long getTotalMicros();
+
+    long getMeanMicros();
+
+    long getP50Micros();
+
+    long getP95Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+}
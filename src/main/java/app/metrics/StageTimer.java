@@ -0,0 +1,100 @@
+package app.metrics;
+
+/**
+ * Times one {@link Stage} of one file, for the JMX statistics of {@link Instrumentation} and a JFR
+ * {@code app.SubtitleStage} event. When neither is on, {@link #start} and {@link #startSliced} hand out a shared
+ * inert timer, so instrumented code costs a field check and no clock reads; code that would have to wrap a
+ * reader or sink for the timer can ask {@link #isOff()} and skip the wrapper.
+ * <p>
+ * A timer belongs to the thread running the pass and is not thread-safe.
+ */
+public final class StageTimer {
+
+    private static final StageTimer OFF = new StageTimer(null, null, false);
+
+    private final Stage stage;
+    // Begun at the start of the pass; null when JFR is not recording stage events
+    private final StageEvent event;
+    private final boolean sliced;
+    private final long started;
+    private long activeNanos;
+
+    private StageTimer(Stage stage, StageEvent event, boolean sliced) {
+        this.stage = stage;
+        this.event = event;
+        this.sliced = sliced;
+        this.started = stage == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * A timer whose stage runs from now until {@link #stop}.
+     */
+    public static StageTimer start(Stage stage) {
+        return start(stage, false);
+    }
+
+    /**
+     * A timer for a stage interleaved with others: only the time between each {@link #enter()} and its
+     * {@link #exit(long)} counts.
+     */
+    public static StageTimer startSliced(Stage stage) {
+        return start(stage, true);
+    }
+
+    private static StageTimer start(Stage stage, boolean sliced) {
+        StageEvent event = new StageEvent();
+        boolean recorded = event.isEnabled();
+        if (!recorded && !Instrumentation.isStatisticsEnabled()) {
+            return OFF;
+        }
+        if (recorded) {
+            event.begin();
+        }
+        return new StageTimer(stage, recorded ? event : null, sliced);
+    }
+
+    public boolean isOff() {
+        return stage == null;
+    }
+
+    /**
+     * Opens a slice; pass the result to {@link #exit(long)}.
+     */
+    public long enter() {
+        return stage == null ? 0 : System.nanoTime();
+    }
+
+    public void exit(long entered) {
+        if (stage != null) {
+            activeNanos += System.nanoTime() - entered;
+        }
+    }
+
+    /**
+     * Records the stage. Call it once, when the pass is over; a timer that is never stopped records nothing.
+     *
+     * @param file  the file processed, or null for a stream
+     * @param bytes its size, or 0 when unknown
+     * @param cues  cues the stage handled
+     */
+    public void stop(String file, long bytes, long cues) {
+        if (stage == null) {
+            return;
+        }
+        long elapsed = sliced ? activeNanos : System.nanoTime() - started;
+        if (Instrumentation.isStatisticsEnabled()) {
+            Instrumentation.record(stage, elapsed, bytes, cues);
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.label();
+                event.file = file;
+                event.bytes = bytes;
+                event.cues = cues;
+                event.activeTime = elapsed;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package app.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable index over cue time ranges for QC-style questions — which cues are showing at a time or during a range,
+ * which cues overlap each other, how large the gaps between them are — without scanning the whole track.
+ * Cues are half-open {@code [start, end)} ranges, so a zero-length cue never shows; results are rows of the source
+ * track or list.
+ * <p>
+ * Cues are kept sorted by start, plus a centered interval tree for stabbing queries: each node holds the cues that
+ * contain its center, once ordered by start and once by end, so a query walks one root-to-leaf path and stops
+ * scanning each node's cues at the first miss. Point and range queries cost O(log n + k) for k results (plus
+ * sorting those k rows); gap queries search a sorted gap array. The index copies the timestamps it is built from,
+ * so later edits to the track do not affect it.
+ */
+public final class CueIntervalIndex {
+
+    private static final int NONE = -1;
+
+    // Cues in start order: position -> start, end, source row
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] rows;
+
+    // Centered interval tree; node cue lists are slices of byStart/byEnd
+    private final long[] centers;
+    private final int[] left;
+    private final int[] right;
+    private final int[] sliceFrom;
+    private final int[] sliceTo;
+    private final int[] byStart;
+    private final int[] byEnd;
+    private final int root;
+
+    // Gaps between covered stretches, shortest first
+    private final long[] gapMillis;
+    private final int[] gapBefore;
+    private final int[] gapAfter;
+    private final GapStatistics gapStatistics;
+
+    private CueIntervalIndex(long[] sourceStarts, long[] sourceEnds) {
+        int n = sourceStarts.length;
+        for (int i = 0; i < n; i++) {
+            if (sourceEnds[i] < sourceStarts[i]) {
+                throw new IllegalArgumentException("Cue at row " + i + " ends before it starts");
+            }
+        }
+        rows = startOrder(sourceStarts, sourceEnds);
+        starts = new long[n];
+        ends = new long[n];
+        for (int position = 0; position < n; position++) {
+            starts[position] = sourceStarts[rows[position]];
+            ends[position] = sourceEnds[rows[position]];
+        }
+
+        centers = new long[n];
+        left = new int[n];
+        right = new int[n];
+        sliceFrom = new int[n];
+        sliceTo = new int[n];
+        byStart = new int[n];
+        byEnd = new int[n];
+        TreeBuilder builder = new TreeBuilder();
+        root = builder.build(IntStream.range(0, n).toArray());
+
+        List<long[]> gaps = new ArrayList<>();
+        int coveredUntil = NONE;
+        for (int position = 0; position < n; position++) {
+            if (coveredUntil != NONE && starts[position] > ends[coveredUntil]) {
+                gaps.add(new long[]{starts[position] - ends[coveredUntil], coveredUntil, position});
+            }
+            if (coveredUntil == NONE || ends[position] > ends[coveredUntil]) {
+                coveredUntil = position;
+            }
+        }
+        gaps.sort(Comparator.comparingLong(gap -> gap[0]));
+        gapMillis = new long[gaps.size()];
+        gapBefore = new int[gaps.size()];
+        gapAfter = new int[gaps.size()];
+        for (int i = 0; i < gaps.size(); i++) {
+            gapMillis[i] = gaps.get(i)[0];
+            gapBefore[i] = rows[(int) gaps.get(i)[1]];
+            gapAfter[i] = rows[(int) gaps.get(i)[2]];
+        }
+        gapStatistics = summarise(gapMillis);
+    }
+
+    public static CueIntervalIndex of(SubtitleTrack track) {
+        long[] starts = new long[track.size()];
+        long[] ends = new long[track.size()];
+        for (int row = 0; row < track.size(); row++) {
+            starts[row] = track.startMillis(row);
+            ends[row] = track.endMillis(row);
+        }
+        return new CueIntervalIndex(starts, ends);
+    }
+
+    public static CueIntervalIndex of(List<SubtitleEntry> entries) {
+        long[] starts = new long[entries.size()];
+        long[] ends = new long[entries.size()];
+        for (int row = 0; row < entries.size(); row++) {
+            starts[row] = entries.get(row).start().toMillis();
+            ends[row] = entries.get(row).end().toMillis();
+        }
+        return new CueIntervalIndex(starts, ends);
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Rows of the cues showing at the given time, in start order.
+     */
+    public int[] activeAt(long millis) {
+        IntBuffer hits = new IntBuffer();
+        stab(millis, hits);
+        return hits.toSortedRows();
+    }
+
+    /**
+     * Rows of the cues showing at any time within {@code [fromMillis, toMillis)}, in start order.
+     *
+     * @throws IllegalArgumentException when the range is empty
+     */
+    public int[] overlapping(long fromMillis, long toMillis) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Empty time range: " + fromMillis + " - " + toMillis);
+        }
+        // Cues already showing at the start of the range, then those starting inside it
+        IntBuffer hits = new IntBuffer();
+        stab(fromMillis, hits);
+        int[] result = hits.toSortedPositions();
+        int first = firstStartAbove(fromMillis);
+        int last = firstStartAtLeast(toMillis);
+        int[] merged = Arrays.copyOf(result, result.length + Math.max(0, last - first));
+        int count = result.length;
+        for (int position = first; position < last; position++) {
+            if (ends[position] > starts[position]) {
+                merged[count++] = position;
+            }
+        }
+        return toRows(Arrays.copyOf(merged, count));
+    }
+
+    /**
+     * Every pair of cues that show at the same time, in start order of the earlier cue.
+     */
+    public List<Overlap> overlaps() {
+        List<Overlap> overlaps = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            int last = firstStartAtLeast(ends[i]);
+            for (int j = i + 1; j < last; j++) {
+                long overlap = Math.min(ends[i], ends[j]) - starts[j];
+                if (overlap > 0) {
+                    overlaps.add(new Overlap(rows[i], rows[j], overlap));
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    public boolean hasOverlaps() {
+        long coveredUntil = Long.MIN_VALUE;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] < coveredUntil && ends[i] > starts[i]) {
+                return true;
+            }
+            coveredUntil = Math.max(coveredUntil, ends[i]);
+        }
+        return false;
+    }
+
+    /**
+     * Gaps between stretches covered by cues that are shorter than the given length, shortest first.
+     * Touching cues leave no gap; overlapping cues are one covered stretch.
+     */
+    public List<Gap> gapsShorterThan(long millis) {
+        int count = firstAtLeast(gapMillis, millis);
+        List<Gap> gaps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            gaps.add(new Gap(gapBefore[i], gapAfter[i], gapMillis[i]));
+        }
+        return gaps;
+    }
+
+    public GapStatistics gapStatistics() {
+        return gapStatistics;
+    }
+
+    private static GapStatistics summarise(long[] gapMillis) {
+        if (gapMillis.length == 0) {
+            return new GapStatistics(0, 0, 0, 0, 0);
+        }
+        long total = 0;
+        for (long gap : gapMillis) {
+            total += gap;
+        }
+        int count = gapMillis.length;
+        long median = count % 2 == 1
+                ? gapMillis[count / 2]
+                : (gapMillis[count / 2 - 1] + gapMillis[count / 2]) / 2;
+        return new GapStatistics(count, gapMillis[0], gapMillis[count - 1], median, (double) total / count);
+    }
+
+    /**
+     * Collects positions of cues with {@code start <= millis < end}. Every cue stored at a node contains the center,
+     * so left of it only starts can miss and right of it only ends; cues in the other subtree cannot contain millis.
+     */
+    private void stab(long millis, IntBuffer hits) {
+        int node = root;
+        while (node != NONE) {
+            if (millis < centers[node]) {
+                for (int k = sliceFrom[node]; k < sliceTo[node] && starts[byStart[k]] <= millis; k++) {
+                    hits.add(byStart[k]);
+                }
+                node = left[node];
+            } else {
+                for (int k = sliceFrom[node]; k < sliceTo[node] && ends[byEnd[k]] > millis; k++) {
+                    hits.add(byEnd[k]);
+                }
+                node = right[node];
+            }
+        }
+    }
+
+    private int firstStartAbove(long millis) {
+        return millis == Long.MAX_VALUE ? starts.length : firstAtLeast(starts, millis + 1);
+    }
+
+    private int firstStartAtLeast(long millis) {
+        return firstAtLeast(starts, millis);
+    }
+
+    // Lower bound in an ascending array
+    private static int firstAtLeast(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int[] toRows(int[] positions) {
+        int[] result = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = rows[positions[i]];
+        }
+        return result;
+    }
+
+    // Rows ordered by start, then end; tracks are nearly always in order already, which skips the sort
+    private static int[] startOrder(long[] starts, long[] ends) {
+        int n = starts.length;
+        boolean ordered = true;
+        for (int i = 1; i < n && ordered; i++) {
+            ordered = starts[i] > starts[i - 1] || starts[i] == starts[i - 1] && ends[i] >= ends[i - 1];
+        }
+        if (ordered) {
+            return IntStream.range(0, n).toArray();
+        }
+        return IntStream.range(0, n).boxed()
+                .sorted(Comparator.<Integer>comparingLong(row -> starts[row]).thenComparingLong(row -> ends[row]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Two cues showing at the same time; firstRow starts no later than secondRow.
+     */
+    public record Overlap(int firstRow, int secondRow, long overlapMillis) {
+    }
+
+    /**
+     * Time with no cue showing, between the end of beforeRow and the start of afterRow.
+     */
+    public record Gap(int beforeRow, int afterRow, long millis) {
+    }
+
+    /**
+     * Summary of all gaps; the millisecond fields are zero when there are none.
+     */
+    public record GapStatistics(int count, long minMillis, long maxMillis, long medianMillis, double meanMillis) {
+    }
+
+    private final class TreeBuilder {
+
+        private int nodes;
+        private int slices;
+
+        /**
+         * Builds the subtree over the given positions (ascending, so in start order) and returns its node.
+         * The center is the middle cue's start, so each side gets at most half the cues and the depth is O(log n).
+         */
+        int build(int[] positions) {
+            if (positions.length == 0) {
+                return NONE;
+            }
+            long center = starts[positions[positions.length / 2]];
+            int[] before = new int[positions.length];
+            int[] after = new int[positions.length];
+            int beforeCount = 0;
+            int afterCount = 0;
+            int node = nodes++;
+            centers[node] = center;
+            sliceFrom[node] = slices;
+            for (int position : positions) {
+                if (ends[position] <= center && starts[position] < center) {
+                    before[beforeCount++] = position;
+                } else if (starts[position] > center) {
+                    after[afterCount++] = position;
+                } else {
+                    byStart[slices++] = position;
+                }
+            }
+            sliceTo[node] = slices;
+            sortByEndDescending(sliceFrom[node], sliceTo[node]);
+
+            left[node] = build(Arrays.copyOf(before, beforeCount));
+            right[node] = build(Arrays.copyOf(after, afterCount));
+            return node;
+        }
+
+        private void sortByEndDescending(int from, int to) {
+            int[] slice = IntStream.range(from, to).map(k -> byStart[k]).boxed()
+                    .sorted(Comparator.<Integer>comparingLong(position -> ends[position]).reversed())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            System.arraycopy(slice, 0, byEnd, from, slice.length);
+        }
+    }
+
+    /**
+     * Growable int list for query hits.
+     */
+    private final class IntBuffer {
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedPositions() {
+            int[] positions = Arrays.copyOf(values, size);
+            Arrays.sort(positions);
+            return positions;
+        }
+
+        int[] toSortedRows() {
+            return toRows(toSortedPositions());
+        }
+    }
+}
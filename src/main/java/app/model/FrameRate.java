@@ -1,29 +1,133 @@
 package app.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
 
-@AllArgsConstructor
-public enum FrameRate {
-    FPS_23_976("23.976", new BigDecimal("23.976"), "film movies"),
-    FPS_24("24", new BigDecimal("24.000"), "film movies"),
-    FPS_25("25", new BigDecimal("25.000"), "European TV"),
-    FPS_29_97("29.97", new BigDecimal("29.970"), "American TV"),
-    FPS_30("30", new BigDecimal("30.000"), "American TV"),
-    FPS_50("50", new BigDecimal("50.000"), "European HD TV"),
-    FPS_59_94("59.94", new BigDecimal("59.940"), "American HD TV"),
-    FPS_60("60", new BigDecimal("60.000"), "games, sports");
+/**
+ * Frame rate as an exact fraction of frames per second. The NTSC family is 1001-based (23.976 is 24000/1001),
+ * so converting between rates never accumulates decimal approximation error, however long the film.
+ * The common rates are constants; {@link #of(long, long)} and {@link #parse(String)} also accept custom ones.
+ */
+public final class FrameRate {
 
-    private final String name;
+    public static final FrameRate FPS_23_976 = new FrameRate("23.976", 24000, 1001, "film movies");
+    public static final FrameRate FPS_24 = new FrameRate("24", 24, 1, "film movies");
+    public static final FrameRate FPS_25 = new FrameRate("25", 25, 1, "European TV");
+    public static final FrameRate FPS_29_97 = new FrameRate("29.97", 30000, 1001, "American TV");
+    public static final FrameRate FPS_30 = new FrameRate("30", 30, 1, "American TV");
+    public static final FrameRate FPS_50 = new FrameRate("50", 50, 1, "European HD TV");
+    public static final FrameRate FPS_59_94 = new FrameRate("59.94", 60000, 1001, "American HD TV");
+    public static final FrameRate FPS_60 = new FrameRate("60", 60, 1, "games, sports");
+
+    private static final List<FrameRate> STANDARD = List.of(
+            FPS_23_976, FPS_24, FPS_25, FPS_29_97, FPS_30, FPS_50, FPS_59_94, FPS_60);
 
-    @Getter
-    private final BigDecimal preciseValue;
+    private static final String CUSTOM_DESCRIPTION = "custom";
 
+    private final String name;
+    private final long numerator;
+    private final long denominator;
     private final String description;
 
+    private FrameRate(String name, long numerator, long denominator, String description) {
+        this.name = name;
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.description = description;
+    }
+
+    /**
+     * The common rates, in the order the UI lists them.
+     */
+    public static FrameRate[] values() {
+        return STANDARD.toArray(FrameRate[]::new);
+    }
+
+    /**
+     * Frame rate of numerator/denominator frames per second; returns the matching constant for a common rate.
+     *
+     * @throws IllegalArgumentException when the rate is not positive
+     */
+    public static FrameRate of(long numerator, long denominator) {
+        if (numerator <= 0 || denominator <= 0) {
+            throw new IllegalArgumentException("Unsupported frame rate: " + numerator + "/" + denominator);
+        }
+        long gcd = gcd(numerator, denominator);
+        long num = numerator / gcd;
+        long den = denominator / gcd;
+        for (FrameRate frameRate : STANDARD) {
+            if (frameRate.numerator == num && frameRate.denominator == den) {
+                return frameRate;
+            }
+        }
+        String name = BigDecimal.valueOf(num)
+                .divide(BigDecimal.valueOf(den), 3, RoundingMode.HALF_UP)
+                .stripTrailingZeros()
+                .toPlainString();
+        return new FrameRate(name, num, den, CUSTOM_DESCRIPTION);
+    }
+
+    /**
+     * Resolves a frame rate from a display name ("23.976"), a decimal value ("29.970", "12.5") or an exact fraction
+     * as printed by ffprobe ("24000/1001"). Decimal values of the common NTSC rates resolve to their 1001-based form.
+     *
+     * @throws IllegalArgumentException when the value is not a positive frame rate
+     */
+    public static FrameRate parse(String value) {
+        String trimmed = value == null ? "" : value.trim();
+        for (FrameRate frameRate : STANDARD) {
+            if (frameRate.name.equals(trimmed)) {
+                return frameRate;
+            }
+        }
+        try {
+            int slash = trimmed.indexOf('/');
+            if (slash >= 0) {
+                return of(Long.parseLong(trimmed.substring(0, slash).trim()),
+                        Long.parseLong(trimmed.substring(slash + 1).trim()));
+            }
+            BigDecimal numeric = new BigDecimal(trimmed);
+            for (FrameRate frameRate : STANDARD) {
+                if (new BigDecimal(frameRate.name).compareTo(numeric) == 0) {
+                    return frameRate;
+                }
+            }
+            BigDecimal exact = numeric.stripTrailingZeros();
+            int scale = Math.max(0, exact.scale());
+            BigInteger num = exact.movePointRight(scale).toBigIntegerExact();
+            return of(num.longValueExact(), BigInteger.TEN.pow(scale).longValueExact());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            // NumberFormatException included; fall through to the error below
+        }
+        throw new IllegalArgumentException("Unsupported frame rate: " + value);
+    }
+
+    /**
+     * Display name, a plain decimal such as "23.976" or "25".
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getNumerator() {
+        return numerator;
+    }
+
+    public long getDenominator() {
+        return denominator;
+    }
+
+    public double doubleValue() {
+        return (double) numerator / denominator;
+    }
+
+    public boolean isCustom() {
+        return !STANDARD.contains(this);
+    }
+
     public String getNameWithDescription() {
         return "%s (%s)".formatted(name, description);
     }
@@ -32,12 +136,139 @@ public enum FrameRate {
         return "%s fps".formatted(name);
     }
 
+    /**
+     * Exact numerator/denominator form, e.g. "24000/1001"; {@link #parse(String)} reads it back.
+     */
+    public String toRationalString() {
+        return numerator + "/" + denominator;
+    }
+
+    /**
+     * Time at which the frame starts, rounded half-up to the millisecond: {@code frame * 1000 / fps}.
+     * Negative frames clamp to zero.
+     */
+    public long frameToMillis(long frame) {
+        return Ratio.of(Math.multiplyExact(1000, denominator), numerator).apply(frame);
+    }
+
+    /**
+     * Frame nearest to the given time, rounding half-up: {@code millis * fps / 1000}. The inverse of
+     * {@link #frameToMillis(long)} for every frame, as long as a frame lasts more than a millisecond.
+     */
+    public long millisToFrame(long millis) {
+        return Ratio.of(numerator, Math.multiplyExact(1000, denominator)).apply(millis);
+    }
+
+    /**
+     * Timestamp rescale for subtitles timed against {@code from} that must play at {@code to}:
+     * {@code millis * from / to}.
+     */
+    public static Ratio ratio(FrameRate from, FrameRate to) {
+        return Ratio.of(
+                Math.multiplyExact(from.numerator, to.denominator),
+                Math.multiplyExact(from.denominator, to.numerator));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FrameRate other && numerator == other.numerator && denominator == other.denominator;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(numerator, denominator);
+    }
+
     @Override
     public String toString() {
         return getNameWithDescription();
     }
 
-    public static BigDecimal getPreciseConversionRatio(FrameRate from, FrameRate to) {
-        return from.getPreciseValue().divide(to.getPreciseValue(), 10, RoundingMode.HALF_UP);
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Exact positive scale factor numerator/denominator applied to millisecond timestamps, rounding half-up to
+     * the nearest millisecond. Negative inputs clamp to zero. The array kernel is a tight loop of multiply, add
+     * and divide by a loop-invariant, with a wide-arithmetic path only for values that could overflow.
+     */
+    public record Ratio(long numerator, long denominator) {
+
+        // Keeps 2 * term within a long, so the kernel's doubled terms never overflow
+        private static final long MAX_TERM = Long.MAX_VALUE / 4;
+
+        /** 1/1, which leaves times unchanged. */
+        public static final Ratio IDENTITY = new Ratio(1, 1);
+
+        public Ratio {
+            if (numerator <= 0 || denominator <= 0) {
+                throw new IllegalArgumentException("Ratio must be positive, got: " + numerator + "/" + denominator);
+            }
+            if (numerator > MAX_TERM || denominator > MAX_TERM) {
+                throw new IllegalArgumentException("Ratio terms too large: " + numerator + "/" + denominator);
+            }
+        }
+
+        static Ratio of(long numerator, long denominator) {
+            long gcd = gcd(numerator, denominator);
+            return new Ratio(numerator / gcd, denominator / gcd);
+        }
+
+        public boolean isIdentity() {
+            return numerator == denominator;
+        }
+
+        public long apply(long millis) {
+            if (millis <= 0) {
+                return 0;
+            }
+            if (millis <= maxFastMillis()) {
+                return (2 * millis * numerator + denominator) / (2 * denominator);
+            }
+            return applyWide(millis);
+        }
+
+        /**
+         * Rescales {@code values[from, to)} in place.
+         */
+        public void apply(long[] values, int from, int to) {
+            Objects.checkFromToIndex(from, to, values.length);
+            long maxFast = maxFastMillis();
+            long max = 0;
+            for (int i = from; i < to; i++) {
+                max = Math.max(max, values[i]);
+            }
+            if (max > maxFast) {
+                for (int i = from; i < to; i++) {
+                    values[i] = apply(values[i]);
+                }
+                return;
+            }
+
+            long twiceNumerator = 2 * numerator;
+            long twiceDenominator = 2 * denominator;
+            for (int i = from; i < to; i++) {
+                values[i] = (Math.max(0, values[i]) * twiceNumerator + denominator) / twiceDenominator;
+            }
+        }
+
+        // Largest millis for which 2 * millis * numerator + denominator stays within a long
+        private long maxFastMillis() {
+            return (Long.MAX_VALUE - denominator) / 2 / numerator;
+        }
+
+        private long applyWide(long millis) {
+            return BigInteger.valueOf(millis)
+                    .multiply(BigInteger.valueOf(2 * numerator))
+                    .add(BigInteger.valueOf(denominator))
+                    .divide(BigInteger.valueOf(2 * denominator))
+                    .longValueExact();
+        }
     }
 }
@@ -3,11 +3,7 @@ package app.model;
 import app.exception.InvalidSubtitleException;
 import org.apache.commons.lang3.StringUtils;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public record SubtitleEntry(int index, Duration start, Duration end, String text) {
 
@@ -50,74 +46,61 @@ public record SubtitleEntry(int index, Duration start, Duration end, String text
             throw InvalidSubtitleException.emptyTimeline(index, text);
         }
 
-        Pattern pattern = Pattern.compile("(\\d{2}):(\\d{2}):(\\d{2}),(\\d{3})");
-        Matcher m = pattern.matcher(timeLine);
-        Duration start = Duration.ZERO;
-        Duration end = Duration.ZERO;
+        long[] millis = new long[2];
+        int found = TimestampCodec.parseTimeline(timeLine, millis);
 
-        if (m.find()) {
-            start = toDuration(m);
-        } else {
+        if (found == 0) {
             throw InvalidSubtitleException.invalidTimelineFormat(index, timeLine, text);
         }
 
-        if (m.find()) {
-            end = toDuration(m);
-        } else {
+        Duration start = Duration.ofMillis(millis[0]);
+        if (found == 1) {
             throw InvalidSubtitleException.missingEndTime(index, timeLine, start, text);
         }
 
-        return new SubtitleEntry(index, start, end, StringUtils.trim(text));
+        return new SubtitleEntry(index, start, Duration.ofMillis(millis[1]), StringUtils.trim(text));
     }
 
-    private static Duration toDuration(Matcher m) {
-        try {
-            return Duration.ofHours(Integer.parseInt(m.group(1)))
-                    .plusMinutes(Integer.parseInt(m.group(2)))
-                    .plusSeconds(Integer.parseInt(m.group(3)))
-                    .plusMillis(Integer.parseInt(m.group(4)));
-        } catch (NumberFormatException e) {
-            throw InvalidSubtitleException.invalidTimeFormat(m.group(), e);
-        }
+    public SubtitleEntry shiftBySeconds(double seconds) {
+        return shiftByMillis((long) (seconds * 1000));
     }
 
-    public SubtitleEntry shiftBySeconds(double seconds) {
-        Duration shift = Duration.ofMillis((long) (seconds * 1000));
+    /**
+     * Moves both timestamps by the offset, clamping at zero.
+     */
+    public SubtitleEntry shiftByMillis(long millis) {
+        Duration shift = Duration.ofMillis(millis);
         Duration newStart = start.plus(shift).isNegative() ? Duration.ZERO : start.plus(shift);
         Duration newEnd = end.plus(shift).isNegative() ? Duration.ZERO : end.plus(shift);
         return new SubtitleEntry(index, newStart, newEnd, text);
     }
 
-    public SubtitleEntry convertFrameRate(BigDecimal conversionRatio) {
-        BigDecimal startMillisBD = BigDecimal.valueOf(start.toMillis())
-                .multiply(conversionRatio)
-                .setScale(3, RoundingMode.HALF_UP);
-        BigDecimal endMillisBD = BigDecimal.valueOf(end.toMillis())
-                .multiply(conversionRatio)
-                .setScale(3, RoundingMode.HALF_UP);
-
-        long startMillis = Math.max(0, startMillisBD.longValue());
-        long endMillis = Math.max(0, endMillisBD.longValue());
-
-        Duration newStart = Duration.ofMillis(startMillis);
-        Duration newEnd = Duration.ofMillis(endMillis);
+    /**
+     * Rescales both timestamps by the exact frame rate ratio, rounding half-up to the millisecond.
+     */
+    public SubtitleEntry convertFrameRate(FrameRate.Ratio conversionRatio) {
+        Duration newStart = Duration.ofMillis(conversionRatio.apply(start.toMillis()));
+        Duration newEnd = Duration.ofMillis(conversionRatio.apply(end.toMillis()));
+        return new SubtitleEntry(index, newStart, newEnd, text);
+    }
 
+    /**
+     * Moves both timestamps through the anchor-fitted time map.
+     */
+    public SubtitleEntry remap(TimeMap timeMap) {
+        Duration newStart = Duration.ofMillis(timeMap.apply(start.toMillis()));
+        Duration newEnd = Duration.ofMillis(timeMap.apply(end.toMillis()));
         return new SubtitleEntry(index, newStart, newEnd, text);
     }
 
     public String toSrtBlock() {
-        return "%d\n%s\n%s".formatted(index, formattedTimeline(), text);
+        StringBuilder sb = new StringBuilder(32 + text.length())
+                .append(index).append('\n');
+        TimestampCodec.appendTimeline(sb, start.toMillis(), end.toMillis());
+        return sb.append('\n').append(text).toString();
     }
 
     public String formattedTimeline() {
-        return formatTime(start) + " --> " + formatTime(end);
-    }
-
-    private String formatTime(Duration duration) {
-        return String.format("%02d:%02d:%02d,%03d",
-                duration.toHours(),
-                duration.toMinutesPart(),
-                duration.toSecondsPart(),
-                duration.toMillisPart());
+        return TimestampCodec.appendTimeline(new StringBuilder(29), start.toMillis(), end.toMillis()).toString();
     }
 }
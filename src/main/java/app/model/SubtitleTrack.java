@@ -0,0 +1,171 @@
+package app.model;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Column-oriented subtitle timeline: cue indices, start/end millis and texts kept in parallel arrays.
+ * Bulk shift/scale/clamp rewrite the arrays in place, so retiming a track allocates nothing per cue.
+ * {@link SubtitleEntry} instances are only materialised on demand, as a view over a single row.
+ */
+public final class SubtitleTrack {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] index;
+    private long[] startMillis;
+    private long[] endMillis;
+    private String[] text;
+    private int size;
+
+    public SubtitleTrack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SubtitleTrack(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        index = new int[capacity];
+        startMillis = new long[capacity];
+        endMillis = new long[capacity];
+        text = new String[capacity];
+    }
+
+    public static SubtitleTrack of(Iterable<SubtitleEntry> entries) {
+        SubtitleTrack track = entries instanceof List<SubtitleEntry> list
+                ? new SubtitleTrack(list.size())
+                : new SubtitleTrack();
+        entries.forEach(track::add);
+        return track;
+    }
+
+    public void add(SubtitleEntry entry) {
+        add(entry.index(), entry.start().toMillis(), entry.end().toMillis(), entry.text());
+    }
+
+    public void add(int cueIndex, long start, long end, String cueText) {
+        if (size == index.length) {
+            grow();
+        }
+        index[size] = cueIndex;
+        startMillis[size] = start;
+        endMillis[size] = end;
+        text[size] = cueText;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = index.length * 2;
+        index = Arrays.copyOf(index, capacity);
+        startMillis = Arrays.copyOf(startMillis, capacity);
+        endMillis = Arrays.copyOf(endMillis, capacity);
+        text = Arrays.copyOf(text, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int index(int row) {
+        return index[checkRow(row)];
+    }
+
+    public long startMillis(int row) {
+        return startMillis[checkRow(row)];
+    }
+
+    public long endMillis(int row) {
+        return endMillis[checkRow(row)];
+    }
+
+    public String text(int row) {
+        return text[checkRow(row)];
+    }
+
+    public void setText(int row, String cueText) {
+        text[checkRow(row)] = cueText;
+    }
+
+    /**
+     * Materialises one row as a validated {@link SubtitleEntry}.
+     */
+    public SubtitleEntry entry(int row) {
+        checkRow(row);
+        return new SubtitleEntry(index[row], Duration.ofMillis(startMillis[row]), Duration.ofMillis(endMillis[row]), text[row]);
+    }
+
+    /**
+     * Read-only list view; each {@code get} materialises the row, nothing is copied up front.
+     */
+    public List<SubtitleEntry> asEntries() {
+        return new AbstractList<>() {
+            @Override
+            public SubtitleEntry get(int row) {
+                return entry(row);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Moves every cue by the given amount. Does not clamp — combine with {@link #clampToZero()}.
+     */
+    public void shift(long deltaMillis) {
+        for (int i = 0; i < size; i++) {
+            startMillis[i] += deltaMillis;
+            endMillis[i] += deltaMillis;
+        }
+    }
+
+    /**
+     * Track-wide equivalent of {@link SubtitleEntry#shiftBySeconds(double)}: same millisecond truncation, same clamping.
+     */
+    public void shiftBySeconds(double seconds) {
+        transform(TimelineTransform.shift((long) (seconds * 1000)));
+    }
+
+    public void clampToZero() {
+        for (int i = 0; i < size; i++) {
+            startMillis[i] = Math.max(0, startMillis[i]);
+            endMillis[i] = Math.max(0, endMillis[i]);
+        }
+    }
+
+    /**
+     * Track-wide equivalent of {@link SubtitleEntry#convertFrameRate(FrameRate.Ratio)}, producing identical millis.
+     * Each timestamp column is rescaled in one pass of {@link TimelineTransform}'s kernel.
+     */
+    public void scale(FrameRate.Ratio conversionRatio) {
+        transform(TimelineTransform.scale(conversionRatio));
+    }
+
+    /**
+     * Applies the transform to every start and end timestamp, one column at a time.
+     */
+    public void transform(TimelineTransform transform) {
+        transform.apply(startMillis, 0, size);
+        transform.apply(endMillis, 0, size);
+    }
+
+    /**
+     * Track-wide equivalent of {@link SubtitleEntry#remap(TimeMap)}: fixes offset and drift in one pass per column.
+     */
+    public void remap(TimeMap timeMap) {
+        timeMap.apply(startMillis, 0, size);
+        timeMap.apply(endMillis, 0, size);
+    }
+
+    private int checkRow(int row) {
+        return Objects.checkIndex(row, size);
+    }
+}
@@ -0,0 +1,209 @@
+package app.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Piecewise-linear retiming fitted from anchor pairs (subtitle time → true time). One anchor is a constant offset,
+ * two an affine map correcting offset and drift together, more a chain of linear segments for edits that drift
+ * differently along the film. Before the first and after the last anchor the outer segments are extrapolated.
+ * Results round half-up to the millisecond and clamp at zero.
+ * <p>
+ * Segment boundaries are kept in a sorted array and found by binary search; {@link #apply(long[], int, int)}
+ * first checks the segment of the previous value, so an ordered timeline column costs one comparison per value.
+ */
+public final class TimeMap {
+
+    private final long[] sourceMillis;
+    private final long[] targetMillis;
+    // Per segment i (anchors i and i + 1): slope numerator[i] / denominator[i], reduced
+    private final long[] numerators;
+    private final long[] denominators;
+
+    private TimeMap(long[] sourceMillis, long[] targetMillis) {
+        this.sourceMillis = sourceMillis;
+        this.targetMillis = targetMillis;
+        int segments = Math.max(1, sourceMillis.length - 1);
+        this.numerators = new long[segments];
+        this.denominators = new long[segments];
+        if (sourceMillis.length == 1) {
+            numerators[0] = 1;
+            denominators[0] = 1;
+            return;
+        }
+        for (int i = 0; i < segments; i++) {
+            long num = targetMillis[i + 1] - targetMillis[i];
+            long den = sourceMillis[i + 1] - sourceMillis[i];
+            long gcd = gcd(num, den);
+            numerators[i] = num / gcd;
+            denominators[i] = den / gcd;
+        }
+    }
+
+    /**
+     * Fits the map through the anchors, in any order.
+     *
+     * @throws IllegalArgumentException when there are no anchors, two share a subtitle time, or the anchors would
+     *                                  reorder subtitles (true time must grow with subtitle time)
+     */
+    public static TimeMap fit(List<Anchor> anchors) {
+        if (anchors.isEmpty()) {
+            throw new IllegalArgumentException("At least one anchor is required");
+        }
+        List<Anchor> sorted = new ArrayList<>(anchors);
+        sorted.sort(Comparator.comparingLong(Anchor::subtitleMillis));
+        long[] source = new long[sorted.size()];
+        long[] target = new long[sorted.size()];
+        for (int i = 0; i < source.length; i++) {
+            Anchor anchor = sorted.get(i);
+            source[i] = anchor.subtitleMillis();
+            target[i] = anchor.targetMillis();
+            if (i > 0 && source[i] == source[i - 1]) {
+                throw new IllegalArgumentException("Two anchors share the subtitle time " + anchor.subtitleMillis() + " ms");
+            }
+            if (i > 0 && target[i] <= target[i - 1]) {
+                throw new IllegalArgumentException("Anchors would reorder subtitles: " + sorted.get(i - 1) + " and " + anchor);
+            }
+        }
+        return new TimeMap(source, target);
+    }
+
+    public static TimeMap fit(Anchor... anchors) {
+        return fit(List.of(anchors));
+    }
+
+    public List<Anchor> anchors() {
+        List<Anchor> anchors = new ArrayList<>(sourceMillis.length);
+        for (int i = 0; i < sourceMillis.length; i++) {
+            anchors.add(new Anchor(sourceMillis[i], targetMillis[i]));
+        }
+        return List.copyOf(anchors);
+    }
+
+    public int segmentCount() {
+        return numerators.length;
+    }
+
+    public long apply(long millis) {
+        return applySegment(segmentOf(millis), millis);
+    }
+
+    /**
+     * Maps {@code values[from, to)} in place. Allocates nothing.
+     */
+    public void apply(long[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        int segment = 0;
+        for (int i = from; i < to; i++) {
+            long millis = values[i];
+            if (!inSegment(segment, millis)) {
+                segment = segmentOf(millis);
+            }
+            values[i] = applySegment(segment, millis);
+        }
+    }
+
+    // Segment i covers [source[i], source[i + 1]); the outer segments extend to infinity
+    private boolean inSegment(int segment, long millis) {
+        int last = numerators.length - 1;
+        return (segment == 0 || millis >= sourceMillis[segment])
+                && (segment == last || millis < sourceMillis[segment + 1]);
+    }
+
+    private int segmentOf(long millis) {
+        int position = Arrays.binarySearch(sourceMillis, millis);
+        int anchor = position >= 0 ? position : -position - 2;
+        return Math.clamp(anchor, 0, numerators.length - 1);
+    }
+
+    private long applySegment(int segment, long millis) {
+        long delta = millis - sourceMillis[segment];
+        long num = numerators[segment];
+        long den = denominators[segment];
+        long mapped;
+        try {
+            long twice = Math.multiplyExact(Math.multiplyExact(delta, num), 2L);
+            mapped = Math.addExact(targetMillis[segment], Math.floorDiv(Math.addExact(twice, den), 2 * den));
+        } catch (ArithmeticException e) {
+            mapped = applyWide(segment, delta);
+        }
+        return Math.max(0, mapped);
+    }
+
+    private long applyWide(int segment, long delta) {
+        BigInteger den = BigInteger.valueOf(denominators[segment]);
+        BigInteger[] division = BigInteger.valueOf(delta)
+                .multiply(BigInteger.valueOf(numerators[segment]))
+                .shiftLeft(1)
+                .add(den)
+                .divideAndRemainder(den.shiftLeft(1));
+        // Floor, like Math.floorDiv, for negative deltas before the first anchor
+        BigInteger quotient = division[1].signum() < 0 ? division[0].subtract(BigInteger.ONE) : division[0];
+        BigInteger mapped = quotient.add(BigInteger.valueOf(targetMillis[segment]));
+        return mapped.bitLength() < Long.SIZE ? mapped.longValue() : mapped.signum() > 0 ? Long.MAX_VALUE : 0;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return Math.abs(a);
+    }
+
+    @Override
+    public String toString() {
+        return "TimeMap" + anchors();
+    }
+
+    /**
+     * A subtitle timestamp and the time it should actually be shown at, both in millis.
+     */
+    public record Anchor(long subtitleMillis, long targetMillis) {
+
+        public Anchor {
+            if (subtitleMillis < 0 || targetMillis < 0) {
+                throw new IllegalArgumentException("Anchor times must not be negative: " + subtitleMillis + " -> " + targetMillis);
+            }
+        }
+
+        /**
+         * Parses {@code SUBTITLE=TRUE}, each side an SRT timestamp ({@code 00:01:02,500}) or seconds ({@code 62.5}).
+         *
+         * @throws IllegalArgumentException when the value is not in that form
+         */
+        public static Anchor parse(String value) {
+            int separator = value.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Anchor must be SUBTITLE=TRUE, got: " + value);
+            }
+            return new Anchor(parseTime(value.substring(0, separator)), parseTime(value.substring(separator + 1)));
+        }
+
+        private static long parseTime(String value) {
+            String trimmed = value.trim();
+            if (trimmed.indexOf(':') >= 0) {
+                return TimestampCodec.parseTime(trimmed);
+            }
+            try {
+                double seconds = Double.parseDouble(trimmed);
+                if (Double.isFinite(seconds)) {
+                    return Math.round(seconds * 1000);
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Invalid anchor time: " + value);
+        }
+
+        @Override
+        public String toString() {
+            return subtitleMillis + " ms -> " + targetMillis + " ms";
+        }
+    }
+}
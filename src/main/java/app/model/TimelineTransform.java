@@ -0,0 +1,75 @@
+package app.model;
+
+import java.util.Objects;
+
+/**
+ * Affine retiming of millisecond timestamps: scale by an exact ratio, add an offset, optionally clamp at zero —
+ * in that order. A non-identity scale treats negative timestamps as zero, like {@link FrameRate.Ratio#apply(long)}.
+ * <p>
+ * {@link #apply(long[], int, int)} rewrites a packed timeline column in place. When the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} it uses SIMD lanes; otherwise, or for timestamps too large for the
+ * vector path's exact double division, the scalar loop. Both produce identical results.
+ */
+public record TimelineTransform(FrameRate.Ratio scale, long offsetMillis, boolean clampToZero) {
+
+    public TimelineTransform {
+        Objects.requireNonNull(scale, "scale");
+    }
+
+    /**
+     * Moves every timestamp by the offset and clamps at zero, as {@link SubtitleEntry#shiftBySeconds(double)} does.
+     */
+    public static TimelineTransform shift(long offsetMillis) {
+        return new TimelineTransform(FrameRate.Ratio.IDENTITY, offsetMillis, true);
+    }
+
+    /**
+     * Rescales every timestamp, as {@link SubtitleEntry#convertFrameRate(FrameRate.Ratio)} does.
+     */
+    public static TimelineTransform scale(FrameRate.Ratio ratio) {
+        return new TimelineTransform(ratio, 0, false);
+    }
+
+    public long apply(long millis) {
+        long scaled = scale.isIdentity() ? millis : scale.apply(millis);
+        long shifted = scaled + offsetMillis;
+        return clampToZero ? Math.max(0, shifted) : shifted;
+    }
+
+    /**
+     * Transforms {@code values[from, to)} in place.
+     */
+    public void apply(long[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        if (VectorSupport.AVAILABLE) {
+            VectorTimelineKernel.apply(this, values, from, to);
+        } else {
+            applyScalar(values, from, to);
+        }
+    }
+
+    // Package-private so tests and the benchmark can compare it with the vector kernel
+    void applyScalar(long[] values, int from, int to) {
+        if (!scale.isIdentity()) {
+            scale.apply(values, from, to);
+        }
+        if (offsetMillis != 0 || clampToZero) {
+            long offset = offsetMillis;
+            long floor = clampToZero ? 0 : Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                values[i] = Math.max(floor, values[i] + offset);
+            }
+        }
+    }
+
+    /**
+     * Whether the incubating Vector API is present; {@link VectorTimelineKernel} is only loaded when it is.
+     */
+    static final class VectorSupport {
+        static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                && !Boolean.getBoolean("subtitle-sync.vector.disabled");
+
+        private VectorSupport() {
+        }
+    }
+}
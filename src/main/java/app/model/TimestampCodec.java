@@ -0,0 +1,212 @@
+package app.model;
+
+import app.exception.InvalidSubtitleException;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Hand-rolled reader/writer for SRT timestamps ({@code HH:MM:SS,mmm}) working directly on millis.
+ * Parsing mirrors the former {@code (\d{2}):(\d{2}):(\d{2}),(\d{3})} regex search — timestamps may sit anywhere
+ * in the line and trailing characters are ignored — but additionally accepts {@code .} as the millisecond
+ * separator and hours wider than two digits.
+ */
+@UtilityClass
+public class TimestampCodec {
+
+    public static final String ARROW = " --> ";
+
+    // "HH:MM:SS,mmm" with the minimal two hour digits
+    private static final int MIN_TIMESTAMP_LENGTH = 12;
+    // Hours must fit into an int, like the Integer.parseInt based parser did
+    private static final int MAX_HOUR_DIGITS = 9;
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+
+    /**
+     * Finds up to two timestamps in the timeline and stores them, in millis, in {@code millis[0]} and {@code millis[1]}.
+     *
+     * @return how many timestamps were found (0, 1 or 2)
+     * @throws InvalidSubtitleException when a timestamp's hour field does not fit into an int
+     */
+    public int parseTimeline(CharSequence line, long[] millis) {
+        int position = 0;
+        for (int found = 0; found < 2; found++) {
+            position = find(line, position, millis, found);
+            if (position < 0) {
+                return found;
+            }
+        }
+        return 2;
+    }
+
+    /**
+     * Parses a value that is exactly one timestamp, e.g. {@code 01:02:03,456}; surrounding whitespace is ignored.
+     *
+     * @throws InvalidSubtitleException when the value is anything else
+     */
+    public long parseTime(CharSequence value) {
+        String trimmed = value.toString().trim();
+        long[] millis = new long[1];
+        // Anchored at the start: unlike a timeline, nothing may precede the timestamp
+        if (matchAt(trimmed, 0, digitRunEnd(trimmed, 0), millis, 0) != trimmed.length()) {
+            throw InvalidSubtitleException.invalidTimeFormat(trimmed, null);
+        }
+        return millis[0];
+    }
+
+    /**
+     * Scans for the next timestamp starting at {@code from}; on success stores it in {@code millis[slot]}
+     * and returns the position just past it, otherwise returns -1.
+     */
+    private int find(CharSequence s, int from, long[] millis, int slot) {
+        int length = s.length();
+        int i = from;
+        while (i <= length - MIN_TIMESTAMP_LENGTH) {
+            if (!isDigit(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            int hoursEnd = digitRunEnd(s, i);
+            int end = matchAt(s, i, hoursEnd, millis, slot);
+            if (end >= 0) {
+                return end;
+            }
+            // A match can never start inside a digit run once the whole run failed, so resume after it
+            i = hoursEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches a timestamp whose hours are the digits {@code [start, hoursEnd)}; on success stores it in
+     * {@code millis[slot]} and returns the position just past it, otherwise returns -1.
+     */
+    private int matchAt(CharSequence s, int start, int hoursEnd, long[] millis, int slot) {
+        int end = matchRest(s, hoursEnd);
+        if (hoursEnd - start < 2 || end < 0) {
+            return -1;
+        }
+        if (hoursEnd - start > MAX_HOUR_DIGITS) {
+            throw InvalidSubtitleException.invalidTimeFormat(s.subSequence(start, end).toString(),
+                    new NumberFormatException("Hour value out of range"));
+        }
+        long hours = digits(s, start, hoursEnd);
+        if (hours > Integer.MAX_VALUE) {
+            throw InvalidSubtitleException.invalidTimeFormat(s.subSequence(start, end).toString(),
+                    new NumberFormatException("Hour value out of range"));
+        }
+        millis[slot] = hours * MILLIS_PER_HOUR
+                + digits(s, hoursEnd + 1, hoursEnd + 3) * MILLIS_PER_MINUTE
+                + digits(s, hoursEnd + 4, hoursEnd + 6) * MILLIS_PER_SECOND
+                + digits(s, hoursEnd + 7, hoursEnd + 10);
+        return end;
+    }
+
+    private int digitRunEnd(CharSequence s, int from) {
+        int end = from;
+        while (end < s.length() && isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Matches ":MM:SS,mmm" (or ".mmm") at {@code p}; returns the position past the millis or -1.
+     */
+    private int matchRest(CharSequence s, int p) {
+        if (p + 10 > s.length()) {
+            return -1;
+        }
+        if (s.charAt(p) != ':' || !isDigit(s.charAt(p + 1)) || !isDigit(s.charAt(p + 2))
+                || s.charAt(p + 3) != ':' || !isDigit(s.charAt(p + 4)) || !isDigit(s.charAt(p + 5))) {
+            return -1;
+        }
+        char separator = s.charAt(p + 6);
+        if ((separator != ',' && separator != '.')
+                || !isDigit(s.charAt(p + 7)) || !isDigit(s.charAt(p + 8)) || !isDigit(s.charAt(p + 9))) {
+            return -1;
+        }
+        return p + 10;
+    }
+
+    private long digits(CharSequence s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public StringBuilder appendTimeline(StringBuilder sb, long startMillis, long endMillis) {
+        appendTime(sb, startMillis);
+        sb.append(ARROW);
+        return appendTime(sb, endMillis);
+    }
+
+    /**
+     * Appends {@code HH:MM:SS,mmm}; hours widen beyond two digits when needed. Expects a non-negative value.
+     */
+    public StringBuilder appendTime(StringBuilder sb, long millis) {
+        long hours = millis / MILLIS_PER_HOUR;
+        if (hours < 100) {
+            appendTwoDigits(sb, (int) hours);
+        } else {
+            sb.append(hours);
+        }
+        sb.append(':');
+        appendTwoDigits(sb, (int) (millis / MILLIS_PER_MINUTE % 60));
+        sb.append(':');
+        appendTwoDigits(sb, (int) (millis / MILLIS_PER_SECOND % 60));
+        sb.append(',');
+        int fraction = (int) (millis % MILLIS_PER_SECOND);
+        sb.append((char) ('0' + fraction / 100))
+                .append((char) ('0' + fraction / 10 % 10))
+                .append((char) ('0' + fraction % 10));
+        return sb;
+    }
+
+    private void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Writes {@code HH:MM:SS,mmm} into {@code buffer} at {@code offset} and returns the offset past the last char.
+     * The buffer needs room for 12 chars, plus one per extra hour digit above 99 hours.
+     */
+    public int writeTime(long millis, char[] buffer, int offset) {
+        long hours = millis / MILLIS_PER_HOUR;
+        int p = offset;
+        if (hours < 100) {
+            p = writeTwoDigits(buffer, p, (int) hours);
+        } else {
+            int width = (int) Math.log10(hours) + 1;
+            long rest = hours;
+            for (int i = p + width - 1; i >= p; i--) {
+                buffer[i] = (char) ('0' + rest % 10);
+                rest /= 10;
+            }
+            p += width;
+        }
+        buffer[p++] = ':';
+        p = writeTwoDigits(buffer, p, (int) (millis / MILLIS_PER_MINUTE % 60));
+        buffer[p++] = ':';
+        p = writeTwoDigits(buffer, p, (int) (millis / MILLIS_PER_SECOND % 60));
+        buffer[p++] = ',';
+        int fraction = (int) (millis % MILLIS_PER_SECOND);
+        buffer[p++] = (char) ('0' + fraction / 100);
+        buffer[p++] = (char) ('0' + fraction / 10 % 10);
+        buffer[p++] = (char) ('0' + fraction % 10);
+        return p;
+    }
+
+    private int writeTwoDigits(char[] buffer, int p, int value) {
+        buffer[p] = (char) ('0' + value / 10);
+        buffer[p + 1] = (char) ('0' + value % 10);
+        return p + 2;
+    }
+}
@@ -0,0 +1,66 @@
+package app.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.experimental.UtilityClass;
+
+/**
+ * SIMD implementation of {@link TimelineTransform#apply(long[], int, int)} on {@code jdk.incubator.vector}.
+ * Only referenced once {@link TimelineTransform.VectorSupport#AVAILABLE} confirmed the module is present.
+ * <p>
+ * There is no vector long division, so the half-up rescale {@code (2·t·num + den) / (2·den)} divides in doubles:
+ * the dividend is exact below 2^53, the truncated quotient is then off by at most one, and one multiply-subtract
+ * of the remainder corrects it. Chunks holding larger timestamps take the scalar path.
+ */
+@UtilityClass
+class VectorTimelineKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    void apply(TimelineTransform transform, long[] values, int from, int to) {
+        FrameRate.Ratio scale = transform.scale();
+        boolean scaled = !scale.isIdentity();
+        long twiceNumerator = 2 * scale.numerator();
+        long twiceDenominator = 2 * scale.denominator();
+        long denominator = scale.denominator();
+        // Largest timestamp whose dividend stays exactly representable as a double
+        long maxExact = (MAX_EXACT_DOUBLE - denominator) / twiceNumerator;
+        double twiceDenominatorAsDouble = twiceDenominator;
+        long offset = transform.offsetMillis();
+        boolean clamp = transform.clampToZero();
+
+        int i = from;
+        int upperBound = from + LONGS.loopBound(to - from);
+        for (; i < upperBound; i += LONGS.length()) {
+            LongVector v = LongVector.fromArray(LONGS, values, i);
+            if (scaled) {
+                v = v.max(0);
+                if (v.compare(VectorOperators.GT, maxExact).anyTrue()) {
+                    transform.applyScalar(values, i, i + LONGS.length());
+                    continue;
+                }
+                LongVector dividend = v.mul(twiceNumerator).add(denominator);
+                DoubleVector quotient = ((DoubleVector) dividend.convert(VectorOperators.L2D, 0)).div(twiceDenominatorAsDouble);
+                LongVector q = (LongVector) quotient.convert(VectorOperators.D2L, 0);
+                LongVector remainder = dividend.sub(q.mul(twiceDenominator));
+                VectorMask<Long> tooHigh = remainder.compare(VectorOperators.LT, 0);
+                VectorMask<Long> tooLow = remainder.compare(VectorOperators.GE, twiceDenominator);
+                v = q.sub(1, tooHigh).add(1, tooLow);
+            }
+            if (offset != 0) {
+                v = v.add(offset);
+            }
+            if (clamp) {
+                v = v.max(0);
+            }
+            v.intoArray(values, i);
+        }
+        if (i < to) {
+            transform.applyScalar(values, i, to);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package app.presenter;
+
+import app.service.ProgressListener;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs presenter work away from the UI thread. Tasks execute on the worker executor; progress, completion,
+ * failure and cancellation are handed to the UI executor — the Swing EDT in the app — so callbacks may touch
+ * the view directly. Kept free of Swing types so the presenter stays testable with plain executors.
+ */
+public class BackgroundTasks {
+
+    // Smallest progress change worth a hop to the UI thread
+    private static final double PROGRESS_STEP = 0.01;
+
+    private final Executor worker;
+    private final Executor ui;
+
+    public BackgroundTasks(Executor worker, Executor ui) {
+        this.worker = worker;
+        this.ui = ui;
+    }
+
+    /**
+     * One daemon worker thread, so a pending task never keeps the JVM alive after the window closes.
+     */
+    public static BackgroundTasks withWorkerThread(Executor ui) {
+        ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subtitle-sync-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new BackgroundTasks(worker, ui);
+    }
+
+    /**
+     * Work to run in the background. It should pass the listener on to the service call; the listener throws
+     * {@link CancellationException} once the task has been cancelled.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(ProgressListener progress) throws Exception;
+    }
+
+    /**
+     * UI-thread side of a task. Exactly one of {@link #onSuccess}, {@link #onFailure} or {@link #onCancelled}
+     * runs, followed by {@link #onFinished}.
+     */
+    public interface Callbacks<T> {
+        void onProgress(double fraction);
+
+        void onSuccess(T result);
+
+        void onFailure(Exception error);
+
+        void onCancelled();
+
+        void onFinished();
+    }
+
+    /**
+     * Handle to a submitted task.
+     */
+    public interface Handle {
+        /**
+         * Requests cancellation: the task is interrupted and its result, if it still produces one, is dropped.
+         */
+        void cancel();
+    }
+
+    public <T> Handle submit(Task<T> task, Callbacks<T> callbacks) {
+        RunningTask<T> running = new RunningTask<>(task, callbacks);
+        worker.execute(running::execute);
+        return running;
+    }
+
+    private final class RunningTask<T> implements Handle {
+        private final Task<T> task;
+        private final Callbacks<T> callbacks;
+        private volatile boolean cancelled;
+        private Thread thread;
+        private double lastProgress = Double.NaN;
+
+        private RunningTask(Task<T> task, Callbacks<T> callbacks) {
+            this.task = task;
+            this.callbacks = callbacks;
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        private void execute() {
+            if (!start()) {
+                ui.execute(this::deliverCancelled);
+                return;
+            }
+            try {
+                T result = task.run(this::reportProgress);
+                ui.execute(() -> {
+                    if (cancelled) {
+                        deliverCancelled();
+                    } else {
+                        callbacks.onSuccess(result);
+                        callbacks.onFinished();
+                    }
+                });
+            } catch (Exception e) {
+                ui.execute(() -> {
+                    if (cancelled || e instanceof CancellationException) {
+                        deliverCancelled();
+                    } else {
+                        callbacks.onFailure(e);
+                        callbacks.onFinished();
+                    }
+                });
+            } finally {
+                finish();
+            }
+        }
+
+        private synchronized boolean start() {
+            if (cancelled) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        private synchronized void finish() {
+            thread = null;
+            // A late cancel must not leak its interrupt into the next task on this worker
+            Thread.interrupted();
+        }
+
+        private void reportProgress(double fraction) {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (Math.abs(fraction - lastProgress) < PROGRESS_STEP) {
+                return;
+            }
+            lastProgress = fraction;
+            ui.execute(() -> {
+                if (!cancelled) {
+                    callbacks.onProgress(fraction);
+                }
+            });
+        }
+
+        private void deliverCancelled() {
+            callbacks.onCancelled();
+            callbacks.onFinished();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package app.presenter;
 
 import app.model.FrameRate;
+import app.service.ChangesLogFormat;
 import app.service.CleanResult;
 import app.service.SubtitleService;
 import app.service.VideoMetadataService;
@@ -10,7 +11,7 @@ import lombok.extern.java.Log;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 @Log
@@ -20,6 +21,11 @@ public class SubtitleSyncPresenter {
     private final SubtitleSyncView view;
     private final SubtitleService subtitleService;
     private final VideoMetadataService videoMetadataService;
+    private final BackgroundTasks backgroundTasks;
+
+    // Only touched on the UI thread
+    private boolean busy;
+    private BackgroundTasks.Handle runningTask;
 
     public void onSubtitleFileSelected() {
         view.chooseSubtitleFile().ifPresent(file ->
@@ -34,14 +40,14 @@ public class SubtitleSyncPresenter {
             return;
         }
 
-        try {
-            double offsetSeconds = view.getOffsetSeconds();
-            File outputFile = subtitleService.createShiftedSubtitles(subtitleFile, offsetSeconds);
-            view.showSuccess("Shifted subtitles saved as:\n" + outputFile.getName());
-        } catch (Exception ex) {
-            log.log(Level.SEVERE, "Failed to process file while shifting subtitles: " + subtitleFile, ex);
-            view.showError("Failed to process file: " + ex.getMessage());
-        }
+        double offsetSeconds = view.getOffsetSeconds();
+        runInBackground(
+                progress -> subtitleService.createShiftedSubtitles(subtitleFile, offsetSeconds, progress),
+                outputFile -> view.showSuccess("Shifted subtitles saved as:\n" + outputFile.getName()),
+                ex -> {
+                    log.log(Level.SEVERE, "Failed to process file while shifting subtitles: " + subtitleFile, ex);
+                    view.showError("Failed to process file: " + ex.getMessage());
+                });
     }
 
     public void onFrameRateConversion() {
@@ -54,48 +60,58 @@ public class SubtitleSyncPresenter {
         FrameRate fromFrameRate = view.getFromFrameRate();
         FrameRate toFrameRate = view.getToFrameRate();
 
-        if (fromFrameRate == toFrameRate) {
+        if (fromFrameRate.equals(toFrameRate)) {
             view.showError("Source and target frame rate are identical.");
             return;
         }
 
-        try {
-            File outputFile = subtitleService.createFrameRateConvertedSubtitles(
-                    subtitleFile, fromFrameRate, toFrameRate);
-            view.showSuccess("Converted subtitles saved as:\n" + outputFile.getName());
-        } catch (IllegalArgumentException ex) {
-            log.log(Level.WARNING, "Parameter error during frame rate conversion for file: " + subtitleFile, ex);
-            view.showError("Parameter error: " + ex.getMessage());
-        } catch (IOException ex) {
-            log.log(Level.SEVERE, "IO error during frame rate conversion for file: " + subtitleFile, ex);
-            view.showError("Failed to process file: " + ex.getMessage());
-        } catch (Exception ex) {
-            log.log(Level.SEVERE, "Unexpected error during frame rate conversion for file: " + subtitleFile, ex);
-            view.showError("An unexpected error occurred: " + ex.getMessage());
-        }
+        runInBackground(
+                progress -> subtitleService.createFrameRateConvertedSubtitles(
+                        subtitleFile, fromFrameRate, toFrameRate, progress),
+                outputFile -> view.showSuccess("Converted subtitles saved as:\n" + outputFile.getName()),
+                ex -> {
+                    if (ex instanceof IllegalArgumentException) {
+                        log.log(Level.WARNING, "Parameter error during frame rate conversion for file: " + subtitleFile, ex);
+                        view.showError("Parameter error: " + ex.getMessage());
+                    } else if (ex instanceof IOException) {
+                        log.log(Level.SEVERE, "IO error during frame rate conversion for file: " + subtitleFile, ex);
+                        view.showError("Failed to process file: " + ex.getMessage());
+                    } else {
+                        log.log(Level.SEVERE, "Unexpected error during frame rate conversion for file: " + subtitleFile, ex);
+                        view.showError("An unexpected error occurred: " + ex.getMessage());
+                    }
+                });
     }
 
     public void onDetectFrameRateFromVideo() {
-        view.chooseVideoFile().ifPresent(videoFile -> {
-            view.setBusy(true);
-            try {
-                Optional<FrameRate> detectedFrameRate = videoMetadataService.detectFrameRate(videoFile);
-
-                if (detectedFrameRate.isPresent()) {
-                    view.setToFrameRate(detectedFrameRate.get());
-                    view.showSuccess("Frame rate detected: " +
-                            detectedFrameRate.get().getNameWithDescription());
-                } else {
-                    view.showError("Failed to detect frame rate from video file.\n" +
-                            "Possible reasons:\n" +
-                            "- Unsupported file format\n" +
-                            "- Corrupted metadata\n" +
-                            "- Missing frame rate information in file");
-                }
-            } finally {
-                view.setBusy(false);
-            }
-        });
+        view.chooseVideoFile().ifPresent(videoFile -> runInBackground(
+                progress -> videoMetadataService.detectFrameRate(videoFile),
+                detectedFrameRate -> {
+                    if (detectedFrameRate.isPresent()) {
+                        view.setToFrameRate(detectedFrameRate.get());
+                        view.showSuccess("Frame rate detected: " +
+                                detectedFrameRate.get().getNameWithDescription());
+                    } else {
+                        view.showError("Failed to detect frame rate from video file.\n" +
+                                "Possible reasons:\n" +
+                                "- Unsupported file format\n" +
+                                "- Corrupted metadata\n" +
+                                "- Missing frame rate information in file");
+                    }
+                },
+                ex -> {
+                    log.log(Level.SEVERE, "Failed to detect frame rate from video file: " + videoFile, ex);
+                    view.showError("Failed to detect frame rate: " + ex.getMessage());
+                }));
+    }
+
+    /**
+     * Cancels the running operation, if any. Its partial output is removed and no result is shown.
+     */
+    public void onCancelTask() {
+        if (runningTask != null) {
+            runningTask.cancel();
+        }
     }
 
     public void onOffsetChanged() {
@@ -116,12 +132,59 @@ public class SubtitleSyncPresenter {
             return;
         }
 
-        try {
-            CleanResult result = subtitleService.createCleanedSubtitles(subtitleFile, removeSdh, removeSpam);
-            view.showSuccess(buildCleaningSummary(result, removeSdh, removeSpam));
-        } catch (Exception ex) {
-            log.log(Level.SEVERE, "Failed to clean subtitles for file: " + subtitleFile, ex);
-            view.showError("Failed to process file: " + ex.getMessage());
+        runInBackground(
+                progress -> subtitleService.createCleanedSubtitles(
+                        subtitleFile, removeSdh, removeSpam, ChangesLogFormat.TEXT, progress),
+                result -> view.showSuccess(buildCleaningSummary(result, removeSdh, removeSpam)),
+                ex -> {
+                    log.log(Level.SEVERE, "Failed to clean subtitles for file: " + subtitleFile, ex);
+                    view.showError("Failed to process file: " + ex.getMessage());
+                });
+    }
+
+    /**
+     * Runs one operation at a time off the UI thread. The view stays busy, with progress, until the task
+     * succeeds, fails or is cancelled; all callbacks arrive on the UI thread.
+     */
+    private <T> void runInBackground(BackgroundTasks.Task<T> task, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        if (busy) {
+            view.showError("Another operation is still running.");
+            return;
+        }
+
+        busy = true;
+        view.setBusy(true);
+        BackgroundTasks.Handle handle = backgroundTasks.submit(task, new BackgroundTasks.Callbacks<>() {
+            @Override
+            public void onProgress(double fraction) {
+                view.showProgress(fraction);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                onSuccess.accept(result);
+            }
+
+            @Override
+            public void onFailure(Exception error) {
+                onFailure.accept(error);
+            }
+
+            @Override
+            public void onCancelled() {
+                log.info("Operation cancelled by user");
+            }
+
+            @Override
+            public void onFinished() {
+                busy = false;
+                runningTask = null;
+                view.setBusy(false);
+            }
+        });
+        // With inline executors the task has already finished by now
+        if (busy) {
+            runningTask = handle;
         }
     }
 
@@ -0,0 +1,72 @@
+package app.server;
+
+import app.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency distribution of one endpoint. Latency runs from admission to the end of the response,
+ * time spent queued for a worker included; rejected requests are only counted.
+ */
+public class EndpointMetrics {
+
+    private final String name;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    EndpointMetrics(String name) {
+        this.name = name;
+    }
+
+    void recordCompleted(int status, long elapsedNanos) {
+        (status < 400 ? succeeded : failed).increment();
+        latency.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long succeeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * Requests answered with an error status, whether the client or the server was at fault.
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * Requests turned away with 429 because every worker was busy and the queue was full.
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    void appendJson(StringBuilder sb) {
+        LatencyHistogram.Snapshot snapshot = latency();
+        sb.append("{\"succeeded\":").append(succeeded())
+                .append(",\"failed\":").append(failed())
+                .append(",\"rejected\":").append(rejected())
+                .append(",\"latencyMicros\":{\"count\":").append(snapshot.count())
+                .append(",\"mean\":").append(snapshot.mean())
+                .append(",\"p50\":").append(snapshot.p50())
+                .append(",\"p95\":").append(snapshot.p95())
+                .append(",\"p99\":").append(snapshot.p99())
+                .append(",\"max\":").append(snapshot.max())
+                .append("}}");
+    }
+}
@@ -0,0 +1,586 @@
+package app.server;
+
+import app.model.FrameRate;
+import app.model.SubtitleEntry;
+import app.service.ChangeCounts;
+import app.service.ChangesSink;
+import app.service.CodecOptions;
+import app.service.FrameRateProbe;
+import app.service.SubtitleChanges.RemovalReason;
+import app.service.SubtitleFormat;
+import app.service.SubtitleService;
+import app.service.VideoMetadataService;
+import app.util.JsonText;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.java.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * Local HTTP front end to {@link SubtitleService}, for callers that would otherwise start a JVM per file. Each
+ * subtitle endpoint takes the subtitles as the raw POST body and streams the result back as the body of the
+ * response, through the same single pass the CLI uses:
+ * <ul>
+ *     <li>{@code POST /shift?offset=SECONDS}</li>
+ *     <li>{@code POST /convert?from=FPS&to=FPS}</li>
+ *     <li>{@code POST /clean[?sdh=true&spam=true]} — removal counts in {@code X-Removed-Sdh},
+ *     {@code X-Removed-Spam} and {@code X-Modified}</li>
+ *     <li>{@code POST /detect-fps} — the body is a video of at most {@link Config#maxUploadBytes()}, answered with
+ *     what ffprobe reports as JSON; a larger one gets 413</li>
+ *     <li>{@code GET /metrics} — per-endpoint counts and latency percentiles as JSON</li>
+ * </ul>
+ * The subtitle endpoints also take {@code format} (output format), {@code input-format} (detected from the body
+ * when absent) and {@code fps} (for MicroDVD); the body charset comes from the {@code Content-Type}, UTF-8 by
+ * default, and the response is always UTF-8.
+ * <p>
+ * Requests run on virtual threads, at most {@link Config#workers()} at once; up to {@link Config#queueCapacity()}
+ * more wait for a worker and anything beyond that is turned away with 429 right away, so a burst cannot pile up
+ * unbounded work. The first {@value #RESPONSE_BUFFER_BYTES} bytes of a response are held back, so a bad input
+ * found early still gets a 400; a failure after that can only cut the chunked response short.
+ */
+@Log
+public class SubtitleServer implements Closeable {
+
+    static final int RESPONSE_BUFFER_BYTES = 64 * 1024;
+
+    // How long close() lets admitted requests finish
+    private static final int STOP_DELAY_SECONDS = 2;
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final String JSON = "application/json";
+
+    /**
+     * @param address        where to listen; port 0 picks a free one
+     * @param workers        requests processed at once
+     * @param queueCapacity  requests that may wait for a worker before new ones are rejected
+     * @param ffprobe        ffprobe executable for {@code /detect-fps}
+     * @param maxUploadBytes largest video {@code /detect-fps} stores for probing
+     */
+    public record Config(InetSocketAddress address, int workers, int queueCapacity, String ffprobe,
+                         long maxUploadBytes) {
+
+        public static final long DEFAULT_MAX_UPLOAD_BYTES = 2048L * 1024 * 1024;
+
+        public Config(InetSocketAddress address, int workers, int queueCapacity, String ffprobe) {
+            this(address, workers, queueCapacity, ffprobe, DEFAULT_MAX_UPLOAD_BYTES);
+        }
+
+        public Config {
+            Objects.requireNonNull(address, "address");
+            Objects.requireNonNull(ffprobe, "ffprobe");
+            if (workers < 1) {
+                throw new IllegalArgumentException("Worker count must be positive, got: " + workers);
+            }
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException("Queue capacity must not be negative, got: " + queueCapacity);
+            }
+            if (maxUploadBytes < 1) {
+                throw new IllegalArgumentException("Upload limit must be positive, got: " + maxUploadBytes);
+            }
+        }
+    }
+
+    private final SubtitleService subtitleService;
+    private final VideoMetadataService videoMetadataService;
+    private final Path uploadDirectory;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int workers;
+    private final long maxUploadBytes;
+    // Admitted requests, running or waiting; its size is workers plus the queue capacity
+    private final int capacity;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final Map<String, EndpointMetrics> metrics = new LinkedHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private SubtitleServer(SubtitleService subtitleService, Config config) throws IOException {
+        this.subtitleService = subtitleService;
+        this.workers = config.workers();
+        this.maxUploadBytes = config.maxUploadBytes();
+        this.capacity = config.workers() + config.queueCapacity();
+        this.admitted = new Semaphore(capacity);
+        this.running = new Semaphore(config.workers());
+        // Uploaded videos get fresh names, so their probe results are cached next to them and dropped with them
+        this.uploadDirectory = Files.createTempDirectory("subtitle-sync-server");
+        this.videoMetadataService = new VideoMetadataService(config.ffprobe(), uploadDirectory.resolve("ffprobe-cache.tsv"),
+                config.workers());
+        this.server = HttpServer.create(config.address(), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        post("/shift", this::shift);
+        post("/convert", this::convert);
+        post("/clean", this::clean);
+        post("/detect-fps", this::detectFrameRate);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    respond(exchange, 405, TEXT, "Method not allowed\n");
+                    return;
+                }
+                respond(exchange, 200, JSON, metricsJson());
+            }
+        });
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                respond(exchange, 404, TEXT, "Not found: " + exchange.getRequestURI().getPath() + "\n");
+            }
+        });
+    }
+
+    /**
+     * Binds and starts serving; {@link #close()} stops it.
+     */
+    public static SubtitleServer start(SubtitleService subtitleService, Config config) throws IOException {
+        SubtitleServer subtitleServer = new SubtitleServer(subtitleService, config);
+        subtitleServer.server.start();
+        log.info(() -> "Listening on " + subtitleServer.uri());
+        return subtitleServer;
+    }
+
+    public URI uri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+
+    /**
+     * Metrics per endpoint path, e.g. {@code /shift}, in registration order.
+     */
+    public Map<String, EndpointMetrics> metrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Blocks until the server has been closed.
+     */
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting connections, gives running requests a moment to finish and removes uploaded videos.
+     */
+    @Override
+    public void close() {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        try {
+            // Taking every permit turns new requests away and waits out the admitted ones; HttpServer.stop on its
+            // own may sit out its whole delay even when nothing is running
+            admitted.tryAcquire(capacity, STOP_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            server.stop(0);
+            executor.close();
+            deleteUploads();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private void deleteUploads() {
+        try (Stream<Path> paths = Files.walk(uploadDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to remove upload directory: " + uploadDirectory, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * Registers a POST endpoint behind admission control: a request either gets one of the admission permits or
+     * is rejected at once, then waits for a worker. Failures before the response is committed become an error
+     * status; after that the connection is dropped so the client sees a truncated response, not a short one.
+     */
+    private void post(String path, Endpoint endpoint) {
+        EndpointMetrics endpointMetrics = new EndpointMetrics(path);
+        metrics.put(path, endpointMetrics);
+        server.createContext(path, exchange -> {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                try (exchange) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    respond(exchange, 405, TEXT, "Method not allowed\n");
+                }
+                return;
+            }
+            if (!admitted.tryAcquire()) {
+                endpointMetrics.recordRejected();
+                try (exchange) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    respond(exchange, 429, TEXT, "Too many requests\n");
+                }
+                return;
+            }
+            long startNanos = System.nanoTime();
+            int status = 500;
+            try {
+                running.acquire();
+                try {
+                    endpoint.handle(exchange, parameters(exchange.getRequestURI()));
+                    status = exchange.getResponseCode();
+                } finally {
+                    running.release();
+                }
+            } catch (IllegalArgumentException e) {
+                // Bad parameters and invalid subtitles
+                status = fail(exchange, 400, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = fail(exchange, 503, "Server is shutting down");
+            } catch (IOException | RuntimeException e) {
+                log.log(Level.WARNING, "Request to " + path + " failed", e);
+                status = fail(exchange, 500, "Failed to process request: " + e.getMessage());
+            } finally {
+                admitted.release();
+                endpointMetrics.recordCompleted(status, System.nanoTime() - startNanos);
+            }
+            // Not reached when fail() aborts: the server then drops the connection instead of ending the response
+            exchange.close();
+        });
+    }
+
+    // Reports the failure while the status is still open; otherwise throws, so that the server drops the connection
+    private int fail(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            throw new IllegalStateException("Response already committed, aborting: " + message);
+        }
+        try {
+            respond(exchange, status, TEXT, message + "\n");
+        } catch (IOException e) {
+            log.log(Level.FINE, "Could not send error response", e);
+        }
+        return status;
+    }
+
+    private void shift(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        double offsetSeconds = requiredDouble(parameters, "offset");
+        streamSubtitles(exchange, parameters, Map::of, (reader, writer, inputFormat, outputFormat) ->
+                subtitleService.shiftSubtitles(reader, writer, inputFormat, outputFormat, offsetSeconds));
+    }
+
+    private void convert(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        FrameRate from = FrameRate.parse(required(parameters, "from"));
+        FrameRate to = FrameRate.parse(required(parameters, "to"));
+        streamSubtitles(exchange, parameters, Map::of, (reader, writer, inputFormat, outputFormat) ->
+                subtitleService.convertFrameRate(reader, writer, inputFormat, outputFormat, from, to));
+    }
+
+    // Like the CLI, no option means both
+    private void clean(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        boolean removeSdh = flag(parameters, "sdh").orElse(!parameters.containsKey("spam"));
+        boolean removeSpam = flag(parameters, "spam").orElse(!parameters.containsKey("sdh"));
+        ChangeCounter counter = new ChangeCounter();
+        // Cleaning writes only once the pass is over, so the counts are complete by the time headers go out
+        streamSubtitles(exchange, parameters, counter::headers, (reader, writer, inputFormat, outputFormat) ->
+                subtitleService.cleanSubtitles(reader, writer, inputFormat, outputFormat, removeSdh, removeSpam, counter));
+    }
+
+    // The video has to be stored for ffprobe, so unlike the streamed subtitles its size is bounded
+    private void detectFrameRate(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && Long.parseLong(contentLength.strip()) > maxUploadBytes) {
+            respondTooLarge(exchange);
+            return;
+        }
+        Path video = Files.createTempFile(uploadDirectory, "upload", ".video");
+        try {
+            try (InputStream body = exchange.getRequestBody()) {
+                if (!copyAtMost(body, video, maxUploadBytes)) {
+                    respondTooLarge(exchange);
+                    return;
+                }
+            }
+            Optional<FrameRateProbe> probe = videoMetadataService.probe(video.toFile());
+            if (probe.isEmpty()) {
+                respond(exchange, 422, TEXT, "No frame rate found in the video\n");
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"rawFrameRate\":");
+            JsonText.appendString(json, probe.get().rawFrameRate());
+            json.append(",\"frameRate\":");
+            probe.get().frameRate().ifPresentOrElse(rate -> JsonText.appendString(json, rate.getName()),
+                    () -> json.append("null"));
+            respond(exchange, 200, JSON, json.append("}\n").toString());
+        } finally {
+            Files.deleteIfExists(video);
+        }
+    }
+
+    private void respondTooLarge(HttpExchange exchange) throws IOException {
+        // The rest of the body is not read, so the connection cannot be reused
+        exchange.getResponseHeaders().set("Connection", "close");
+        respond(exchange, 413, TEXT, "Upload larger than " + maxUploadBytes + " bytes\n");
+    }
+
+    // Stops as soon as the body turns out to be larger than maxBytes and returns false
+    private static boolean copyAtMost(InputStream in, Path target, long maxBytes) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long copied = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxBytes) {
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface SubtitlePass {
+        void run(BufferedReader reader, Writer writer, SubtitleFormat inputFormat, SubtitleFormat outputFormat)
+                throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface HeaderSource {
+        Map<String, String> headers();
+    }
+
+    private void streamSubtitles(HttpExchange exchange, Map<String, String> parameters, HeaderSource extraHeaders,
+                                 SubtitlePass pass) throws IOException {
+        Optional<FrameRate> fps = Optional.ofNullable(parameters.get("fps")).map(FrameRate::parse);
+        Optional<SubtitleFormat> requestedInput = Optional.ofNullable(parameters.get("input-format")).map(SubtitleFormat::parse);
+        Optional<SubtitleFormat> requestedOutput = Optional.ofNullable(parameters.get("format")).map(SubtitleFormat::parse);
+        Charset charset = requestCharset(exchange.getRequestHeaders());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), charset))) {
+            SubtitleFormat detected = requestedInput.isPresent() ? requestedInput.get() : SubtitleFormat.detect(reader);
+            SubtitleFormat inputFormat = fps.map(detected::withFrameRate).orElse(detected);
+            SubtitleFormat format = requestedOutput.orElseGet(() -> new SubtitleFormat(inputFormat.codec(), CodecOptions.DEFAULT));
+            SubtitleFormat outputFormat = fps.map(format::withFrameRate).orElse(format);
+
+            DeferredResponse response = new DeferredResponse(exchange, () -> {
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Type", TEXT);
+                headers.set("X-Subtitle-Format", outputFormat.toString());
+                extraHeaders.headers().forEach(headers::set);
+            });
+            Writer writer = new BufferedWriter(new OutputStreamWriter(response, StandardCharsets.UTF_8));
+            pass.run(reader, writer, inputFormat, outputFormat);
+            writer.flush();
+            response.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Charset requestCharset(Headers headers) {
+        String contentType = headers.getFirst("Content-Type");
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] pair = parameter.strip().split("=", 2);
+                if (pair.length == 2 && pair[0].equalsIgnoreCase("charset")) {
+                    return Charset.forName(pair[1].strip().replace("\"", ""));
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private String metricsJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"running\":").append(workers - running.availablePermits())
+                .append(",\"endpoints\":{");
+        boolean first = true;
+        for (EndpointMetrics endpoint : metrics.values()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            JsonText.appendString(json, endpoint.name());
+            json.append(':');
+            endpoint.appendJson(json);
+        }
+        return json.append("}}\n").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static Map<String, String> parameters(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.putIfAbsent(name, value);
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing required parameter " + name);
+        }
+        return value;
+    }
+
+    private static double requiredDouble(Map<String, String> parameters, String name) {
+        String value = required(parameters, name);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + value);
+        }
+    }
+
+    // A bare ?sdh counts as true
+    private static Optional<Boolean> flag(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return Optional.empty();
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "", "true", "1", "yes" -> Optional.of(true);
+            case "false", "0", "no" -> Optional.of(false);
+            default -> throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+        };
+    }
+
+    /**
+     * Response body that holds back its first {@link #RESPONSE_BUFFER_BYTES} bytes. If the whole response fits,
+     * it is sent with a fixed length once finished; otherwise the status is committed on overflow and the rest is
+     * streamed chunked.
+     */
+    private static final class DeferredResponse extends OutputStream {
+
+        private final HttpExchange exchange;
+        private final Runnable beforeCommit;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream body;
+
+        DeferredResponse(HttpExchange exchange, Runnable beforeCommit) {
+            this.exchange = exchange;
+            this.beforeCommit = beforeCommit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (body != null) {
+                body.write(bytes, offset, length);
+                return;
+            }
+            pending.write(bytes, offset, length);
+            if (pending.size() > RESPONSE_BUFFER_BYTES) {
+                commit(0);
+            }
+        }
+
+        void finish() throws IOException {
+            if (body == null) {
+                commit(pending.size() == 0 ? -1 : pending.size());
+            }
+            body.close();
+        }
+
+        private void commit(long length) throws IOException {
+            beforeCommit.run();
+            exchange.sendResponseHeaders(200, length);
+            body = exchange.getResponseBody();
+            pending.writeTo(body);
+            pending.reset();
+        }
+    }
+
+    // Totals of a cleaning pass, as it reports them entry by entry
+    private static final class ChangeCounter implements ChangesSink {
+
+        private int sdhRemoved;
+        private int spamRemoved;
+        private int modified;
+
+        @Override
+        public void removed(SubtitleEntry entry, RemovalReason reason) {
+            if (reason == RemovalReason.SDH) {
+                sdhRemoved++;
+            } else {
+                spamRemoved++;
+            }
+        }
+
+        @Override
+        public void modified(SubtitleEntry before, SubtitleEntry after) {
+            modified++;
+        }
+
+        @Override
+        public void finish(Optional<File> outputFile, ChangeCounts counts) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        Map<String, String> headers() {
+            return Map.of("X-Removed-Sdh", Integer.toString(sdhRemoved),
+                    "X-Removed-Spam", Integer.toString(spamRemoved),
+                    "X-Modified", Integer.toString(modified));
+        }
+    }
+}
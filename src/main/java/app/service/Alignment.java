@@ -0,0 +1,38 @@
+package app.service;
+
+import app.model.FrameRate;
+import app.model.TimelineTransform;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Retiming that lines a target track up with a reference: an optional frame rate conversion for drift, then a
+ * shift by offsetMillis, clamping at zero — the same steps as the FPS-conversion and shift operations.
+ * score is the normalised overlap of cue activity after retiming, from 0 (nothing shared) to 1 (identical).
+ */
+public record Alignment(Optional<BatchOperation.FrameRateConversion> frameRateConversion, long offsetMillis,
+                        double score) {
+
+    public Alignment {
+        Objects.requireNonNull(frameRateConversion, "frameRateConversion");
+    }
+
+    public FrameRate.Ratio ratio() {
+        return frameRateConversion.map(conversion -> FrameRate.ratio(conversion.from(), conversion.to()))
+                .orElse(FrameRate.Ratio.IDENTITY);
+    }
+
+    public TimelineTransform toTransform() {
+        return new TimelineTransform(ratio(), offsetMillis, true);
+    }
+
+    @Override
+    public String toString() {
+        String drift = frameRateConversion
+                .map(conversion -> conversion.from().getNameWithFpsSuffix() + " -> " + conversion.to().getNameWithFpsSuffix())
+                .orElse("no drift");
+        return String.format(Locale.ROOT, "offset %+.3f s, %s (score %.2f)", offsetMillis / 1000.0, drift, score);
+    }
+}
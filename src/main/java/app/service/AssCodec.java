@@ -0,0 +1,282 @@
+package app.service;
+
+import app.exception.InvalidSubtitleException;
+import app.model.SubtitleEntry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Advanced SubStation Alpha, and SubStation Alpha v4 on input. Reading takes the Dialogue lines of the
+ * {@code [Events]} section in file order, locating Start, End and Text through its Format line; Comment lines,
+ * other sections and dialogue left blank by its markup are skipped. {@code \N} becomes a line break, the italic,
+ * bold and underline overrides become style tags and every other override is dropped.
+ * Writing produces an ASS v4+ script with a single Default style, timed in centiseconds.
+ */
+public class AssCodec implements SubtitleCodec {
+
+    private static final String FORMAT = "ASS";
+    private static final String EVENTS = "[events]";
+
+    // Field layout when an [Events] section has no Format line
+    private static final List<String> DEFAULT_EVENT_FORMAT =
+            List.of("layer", "start", "end", "style", "name", "marginl", "marginr", "marginv", "effect", "text");
+
+    private static final String HEADER = """
+            [Script Info]
+            ScriptType: v4.00+
+            PlayResX: 384
+            PlayResY: 288
+            WrapStyle: 0
+
+            [V4+ Styles]
+            Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, OutlineColour, BackColour, Bold, Italic, \
+            Underline, StrikeOut, ScaleX, ScaleY, Spacing, Angle, BorderStyle, Outline, Shadow, Alignment, MarginL, \
+            MarginR, MarginV, Encoding
+            Style: Default,Arial,20,&H00FFFFFF,&H000000FF,&H00000000,&H00000000,0,0,0,0,100,100,0,0,1,2,2,2,10,10,10,1
+
+            [Events]
+            Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text
+            """;
+
+    @Override
+    public String name() {
+        return "ass";
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("ass", "ssa");
+    }
+
+    @Override
+    public boolean recognizes(String head) {
+        String text = head.startsWith("\uFEFF") ? head.substring(1) : head;
+        return text.stripLeading().toLowerCase(Locale.ROOT).startsWith("[script info]");
+    }
+
+    @Override
+    public CueReader newReader(Reader input, CodecOptions options) {
+        return new AssReader(input);
+    }
+
+    @Override
+    public CueWriter newWriter(Writer output, CodecOptions options) throws IOException {
+        output.write(HEADER);
+        StringBuilder line = new StringBuilder(128);
+        return new CueWriter() {
+            @Override
+            public void write(SubtitleEntry entry) throws IOException {
+                line.setLength(0);
+                line.append("Dialogue: 0,");
+                appendTime(line, entry.start().toMillis()).append(',');
+                appendTime(line, entry.end().toMillis()).append(",Default,,0,0,0,,");
+                appendText(line, entry.text()).append('\n');
+                output.append(line);
+            }
+
+            @Override
+            public void finish() throws IOException {
+                output.flush();
+            }
+        };
+    }
+
+    /**
+     * Appends {@code H:MM:SS.CC}, rounding half-up to the centisecond.
+     */
+    static StringBuilder appendTime(StringBuilder sb, long millis) {
+        long centis = (millis + 5) / 10;
+        long seconds = centis / 100;
+        sb.append(seconds / 3600).append(':');
+        appendTwoDigits(sb, seconds / 60 % 60).append(':');
+        appendTwoDigits(sb, seconds % 60).append('.');
+        return appendTwoDigits(sb, centis % 100);
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder sb, long value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Parses {@code H:MM:SS.CC}; a fraction of one to three digits is read as a decimal fraction of a second.
+     *
+     * @return the millis, or -1 when the value is not an ASS timestamp
+     */
+    static long parseTime(String value) {
+        String[] parts = value.strip().split(":", -1);
+        if (parts.length != 3) {
+            return -1;
+        }
+        int dot = parts[2].indexOf('.');
+        String wholeSeconds = dot < 0 ? parts[2] : parts[2].substring(0, dot);
+        String fraction = dot < 0 ? "" : parts[2].substring(dot + 1);
+        long hours = digits(parts[0]);
+        long minutes = digits(parts[1]);
+        long seconds = digits(wholeSeconds);
+        long fractionDigits = fraction.isEmpty() ? 0 : digits(fraction);
+        if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59
+                || fractionDigits < 0 || fraction.length() > 3) {
+            return -1;
+        }
+        long millis = fractionDigits * (fraction.length() == 1 ? 100 : fraction.length() == 2 ? 10 : 1);
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    private static long digits(String value) {
+        if (value.isEmpty() || value.length() > 9) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Dialogue text to cue text: line breaks, hard spaces and style overrides mapped, other override blocks dropped.
+     */
+    static String toCueText(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                int close = text.indexOf('}', i);
+                if (close < 0) {
+                    break;
+                }
+                appendStyleOverrides(result, text, i + 1, close);
+                i = close + 1;
+            } else if (c == '\\' && i + 1 < text.length() && "Nnh".indexOf(text.charAt(i + 1)) >= 0) {
+                result.append(text.charAt(i + 1) == 'h' ? ' ' : '\n');
+                i += 2;
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return CueMarkup.tidyLines(result);
+    }
+
+    // i1 -> <i>, i0 or a bare i -> </i>, likewise for bold and underline; weights such as b700 count as bold
+    private static void appendStyleOverrides(StringBuilder result, String text, int from, int to) {
+        int i = text.indexOf('\\', from);
+        while (i >= 0 && i < to) {
+            int next = text.indexOf('\\', i + 1);
+            int end = next < 0 || next > to ? to : next;
+            String override = text.substring(i + 1, end).strip();
+            if (override.length() >= 1 && "ibu".indexOf(override.charAt(0)) >= 0
+                    && override.substring(1).chars().allMatch(Character::isDigit)) {
+                char style = override.charAt(0);
+                boolean on = override.length() > 1 && !override.substring(1).equals("0");
+                result.append(on ? "<" : "</").append(style).append('>');
+            }
+            i = next;
+        }
+    }
+
+    /**
+     * Cue text to dialogue text: line breaks as {@code \N}, style tags as overrides, other tags dropped.
+     */
+    static StringBuilder appendText(StringBuilder sb, String text) {
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '<' ? CueMarkup.tagEnd(text, i) : -1;
+            if (end >= 0) {
+                String name = CueMarkup.tagName(text, i, end);
+                if (CueMarkup.isStyle(name)) {
+                    boolean closing = name.startsWith("/");
+                    sb.append("{\\").append(name.charAt(name.length() - 1)).append(closing ? '0' : '1').append('}');
+                }
+                i = end + 1;
+                continue;
+            }
+            if (c == '\n') {
+                sb.append("\\N");
+            } else if (c != '\r') {
+                sb.append(c);
+            }
+            i++;
+        }
+        return sb;
+    }
+
+    private static final class AssReader extends TextCueReader {
+
+        private boolean inEvents;
+        private List<String> format = DEFAULT_EVENT_FORMAT;
+
+        AssReader(Reader input) {
+            super(input);
+        }
+
+        @Override
+        protected SubtitleEntry readEntry() {
+            String line;
+            while ((line = readLine()) != null) {
+                String trimmed = line.strip();
+                if (trimmed.startsWith("[")) {
+                    inEvents = trimmed.toLowerCase(Locale.ROOT).equals(EVENTS);
+                    format = DEFAULT_EVENT_FORMAT;
+                    continue;
+                }
+                if (!inEvents) {
+                    continue;
+                }
+                if (startsWithField(trimmed, "Format:")) {
+                    String fields = trimmed.substring("Format:".length()).toLowerCase(Locale.ROOT).replace(" ", "");
+                    format = List.of(fields.split(","));
+                    if (!format.contains("start") || !format.contains("end") || !"text".equals(format.getLast())) {
+                        throw InvalidSubtitleException.malformedLine(FORMAT, line).atLine(lineNumber());
+                    }
+                    continue;
+                }
+                if (!startsWithField(trimmed, "Dialogue:")) {
+                    continue;
+                }
+                SubtitleEntry entry = parseDialogue(line, trimmed.substring("Dialogue:".length()));
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private static boolean startsWithField(String line, String field) {
+            return line.regionMatches(true, 0, field, 0, field.length());
+        }
+
+        // Null for dialogue whose text is empty once markup is removed, e.g. a drawing
+        private SubtitleEntry parseDialogue(String line, String values) {
+            String[] fields = values.stripLeading().split(",", format.size());
+            if (fields.length < format.size()) {
+                throw InvalidSubtitleException.malformedLine(FORMAT, line).atLine(lineNumber());
+            }
+            long start = parseTime(fields[format.indexOf("start")]);
+            long end = parseTime(fields[format.indexOf("end")]);
+            if (start < 0 || end < 0) {
+                throw InvalidSubtitleException.malformedLine(FORMAT, line).atLine(lineNumber());
+            }
+            String text = toCueText(fields[fields.length - 1]);
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new SubtitleEntry(nextIndex(), Duration.ofMillis(start), Duration.ofMillis(end), text);
+            } catch (InvalidSubtitleException e) {
+                throw e.atLine(lineNumber());
+            }
+        }
+    }
+}
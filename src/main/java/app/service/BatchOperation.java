@@ -0,0 +1,117 @@
+package app.service;
+
+import app.model.FrameRate;
+import app.model.TimeMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A single-file operation that {@link SubtitleBatchService} fans out over many inputs.
+ * Each variant delegates to the matching {@link SubtitleService} call, writing each output in the given format or,
+ * when none is given, in the format of its input.
+ */
+public sealed interface BatchOperation {
+
+    /**
+     * Processes one input file.
+     *
+     * @return the written output, or empty when the operation decided nothing needed writing
+     */
+    Optional<File> apply(SubtitleService service, File inputFile) throws IOException;
+
+    private static SubtitleFormat outputFormat(Optional<SubtitleFormat> outputFormat, File inputFile) {
+        return outputFormat.orElseGet(() -> SubtitleFormat.of(inputFile));
+    }
+
+    record Shift(double offsetSeconds, Optional<SubtitleFormat> outputFormat) implements BatchOperation {
+        public Shift {
+            Objects.requireNonNull(outputFormat, "outputFormat");
+        }
+
+        public Shift(double offsetSeconds) {
+            this(offsetSeconds, Optional.empty());
+        }
+
+        @Override
+        public Optional<File> apply(SubtitleService service, File inputFile) throws IOException {
+            return Optional.of(service.createShiftedSubtitles(inputFile, BatchOperation.outputFormat(outputFormat, inputFile),
+                    offsetSeconds, ProgressListener.NONE));
+        }
+    }
+
+    record FrameRateConversion(FrameRate from, FrameRate to, Optional<SubtitleFormat> outputFormat)
+            implements BatchOperation {
+        public FrameRateConversion {
+            if (from.equals(to)) {
+                throw new IllegalArgumentException("Source and target frame rate are identical");
+            }
+            Objects.requireNonNull(outputFormat, "outputFormat");
+        }
+
+        public FrameRateConversion(FrameRate from, FrameRate to) {
+            this(from, to, Optional.empty());
+        }
+
+        @Override
+        public Optional<File> apply(SubtitleService service, File inputFile) throws IOException {
+            return Optional.of(service.createFrameRateConvertedSubtitles(inputFile,
+                    BatchOperation.outputFormat(outputFormat, inputFile), from, to, ProgressListener.NONE));
+        }
+    }
+
+    record Sync(TimeMap timeMap, Optional<SubtitleFormat> outputFormat) implements BatchOperation {
+        public Sync {
+            Objects.requireNonNull(timeMap, "timeMap");
+            Objects.requireNonNull(outputFormat, "outputFormat");
+        }
+
+        public Sync(TimeMap timeMap) {
+            this(timeMap, Optional.empty());
+        }
+
+        @Override
+        public Optional<File> apply(SubtitleService service, File inputFile) throws IOException {
+            return Optional.of(service.createSyncedSubtitles(inputFile, BatchOperation.outputFormat(outputFormat, inputFile),
+                    timeMap, ProgressListener.NONE));
+        }
+    }
+
+    record Clean(boolean removeSdh, boolean removeSpam, ChangesLogFormat changesLogFormat,
+                 Optional<SubtitleFormat> outputFormat) implements BatchOperation {
+        public Clean {
+            if (!removeSdh && !removeSpam) {
+                throw new IllegalArgumentException("At least one cleaning option must be selected");
+            }
+            Objects.requireNonNull(changesLogFormat, "changesLogFormat");
+            Objects.requireNonNull(outputFormat, "outputFormat");
+        }
+
+        public Clean(boolean removeSdh, boolean removeSpam, ChangesLogFormat changesLogFormat) {
+            this(removeSdh, removeSpam, changesLogFormat, Optional.empty());
+        }
+
+        public Clean(boolean removeSdh, boolean removeSpam) {
+            this(removeSdh, removeSpam, ChangesLogFormat.TEXT);
+        }
+
+        @Override
+        public Optional<File> apply(SubtitleService service, File inputFile) throws IOException {
+            return service.createCleanedSubtitles(inputFile, BatchOperation.outputFormat(outputFormat, inputFile),
+                    removeSdh, removeSpam, changesLogFormat, ProgressListener.NONE).outputFile();
+        }
+    }
+
+    record Transcode(SubtitleFormat outputFormat) implements BatchOperation {
+        public Transcode {
+            Objects.requireNonNull(outputFormat, "outputFormat");
+        }
+
+        @Override
+        public Optional<File> apply(SubtitleService service, File inputFile) throws IOException {
+            return Optional.of(service.createTranscodedSubtitles(inputFile, outputFormat));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package app.service;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * Snapshot reported after every processed file of a batch run.
+ *
+ * @param lastFile the file whose completion triggered this report
+ */
+public record BatchProgress(File lastFile, int completed, int failed, int total, Duration elapsed) {
+
+    public int remaining() {
+        return total - completed;
+    }
+
+    public double filesPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? 0 : completed * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,15 @@
+package app.service;
+
+/**
+ * Receives {@link BatchProgress} updates. Called on the thread that runs
+ * {@link SubtitleBatchService#process(java.util.List, BatchOperation, BatchProgressListener)}, once per finished file;
+ * a UI that runs the batch in the background still has to hand each update over to its own thread.
+ */
+@FunctionalInterface
+public interface BatchProgressListener {
+
+    BatchProgressListener NONE = progress -> {
+    };
+
+    void onProgress(BatchProgress progress);
+}
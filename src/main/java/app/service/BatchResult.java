@@ -0,0 +1,30 @@
+package app.service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Aggregated outcome of a {@link SubtitleBatchService} run. Both lists follow the input file order,
+ * regardless of the order in which workers finished.
+ */
+public record BatchResult(List<FileResult> succeeded, List<FileFailure> failed, Duration elapsed) {
+
+    public int total() {
+        return succeeded.size() + failed.size();
+    }
+
+    public boolean hasFailures() {
+        return !failed.isEmpty();
+    }
+
+    /**
+     * outputFile is empty when the operation skipped writing (e.g. cleaning found nothing to clean).
+     */
+    public record FileResult(File inputFile, Optional<File> outputFile, Duration elapsed) {
+    }
+
+    public record FileFailure(File inputFile, Exception error) {
+    }
+}
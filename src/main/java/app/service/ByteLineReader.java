@@ -0,0 +1,117 @@
+package app.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits raw file bytes into lines without decoding the whole file first. Only valid for ASCII-compatible
+ * charsets (UTF-8 and single-byte codepages), where CR and LF bytes can only ever mean line breaks.
+ * Line boundaries follow {@link java.io.BufferedReader#readLine()}: LF, CR or CR LF.
+ * <p>
+ * Pure-ASCII lines — cue numbers, timelines, most English dialog — are turned into strings with a plain byte copy;
+ * only lines with non-ASCII bytes go through the charset decoder, which reports malformed input just like
+ * {@link java.nio.file.Files#newBufferedReader} does.
+ */
+final class ByteLineReader implements SrtReader.LineSource {
+
+    private static final Map<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<>();
+
+    private final ByteBuffer content;
+    private final CharsetDecoder decoder;
+    private final int start;
+    private final int limit;
+    private int position;
+    // Copy target for lines of direct (memory-mapped) buffers, which have no backing array
+    private byte[] scratch = new byte[0];
+
+    ByteLineReader(ByteBuffer content, Charset charset) {
+        if (!supports(charset)) {
+            throw new IllegalArgumentException("Charset is not ASCII-compatible: " + charset);
+        }
+        this.content = content;
+        this.decoder = charset.newDecoder();
+        this.start = content.position();
+        this.position = start;
+        this.limit = content.limit();
+    }
+
+    static boolean supports(Charset charset) {
+        return ASCII_COMPATIBLE.computeIfAbsent(charset, ByteLineReader::isAsciiCompatible);
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        String decoded = new String(ascii, charset);
+        return decoded.equals(new String(ascii, StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (position >= limit) {
+            return null;
+        }
+        int start = position;
+        int end = start;
+        int highBits = 0;
+        byte b = 0;
+        while (end < limit) {
+            b = content.get(end);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            highBits |= b;
+            end++;
+        }
+
+        position = end;
+        if (end < limit) {
+            position++;
+            if (b == '\r' && position < limit && content.get(position) == '\n') {
+                position++;
+            }
+        }
+        return decode(start, end - start, highBits < 0);
+    }
+
+    @Override
+    public double progress() {
+        return limit == start ? 1 : (double) (position - start) / (limit - start);
+    }
+
+    private String decode(int start, int length, boolean nonAscii) throws IOException {
+        if (length == 0) {
+            return "";
+        }
+        if (nonAscii) {
+            return decoder.decode(content.slice(start, length)).toString();
+        }
+        if (content.hasArray()) {
+            return new String(content.array(), content.arrayOffset() + start, length, StandardCharsets.ISO_8859_1);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        content.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release: the buffer is owned by the caller, and mapped buffers are unmapped by the GC
+    }
+}
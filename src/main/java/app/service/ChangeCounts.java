@@ -0,0 +1,30 @@
+package app.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Totals of a cleaning pass. Removals cover entries dropped entirely; modified covers entries whose text changed.
+ * ruleHits counts, per {@code pack/id}, the spam removals and speaker label strips each cleaning rule made; rules
+ * that never matched are left out.
+ */
+public record ChangeCounts(int sdhRemoved, int spamRemoved, int modified, int unchanged, Map<String, Integer> ruleHits) {
+
+    public ChangeCounts {
+        // Kept in rule order for the reports
+        ruleHits = Collections.unmodifiableMap(new LinkedHashMap<>(ruleHits));
+    }
+
+    public ChangeCounts(int sdhRemoved, int spamRemoved, int modified, int unchanged) {
+        this(sdhRemoved, spamRemoved, modified, unchanged, Map.of());
+    }
+
+    public int removed() {
+        return sdhRemoved + spamRemoved;
+    }
+
+    public boolean hasChanges() {
+        return removed() > 0 || modified > 0;
+    }
+}
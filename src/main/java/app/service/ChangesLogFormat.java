@@ -0,0 +1,59 @@
+package app.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Layout of the changes log written next to cleaned subtitles.
+ */
+public enum ChangesLogFormat {
+    /** Human-readable report: header, summary, then removed and modified entries. */
+    TEXT("text", ".log"),
+    /** One JSON object per line — header, entry events in input order, summary last — for machine ingestion. */
+    JSON_LINES("jsonl", ".jsonl");
+
+    private final String name;
+    private final String extension;
+
+    ChangesLogFormat(String name, String extension) {
+        this.name = name;
+        this.extension = extension;
+    }
+
+    /**
+     * Log file for the given cleaned output, e.g. {@code movie_cleaned_changes.log}.
+     */
+    public File fileFor(File outputFile) {
+        String fileName = outputFile.getName();
+        int dotIndex = fileName.lastIndexOf('.');
+        String baseName = (dotIndex == -1) ? fileName : fileName.substring(0, dotIndex);
+        return new File(outputFile.getParentFile(), baseName + "_changes" + extension);
+    }
+
+    /**
+     * Opens a sink writing this format to {@code destination}. The file is complete only after
+     * {@link ChangesSink#finish}; the caller must close the sink.
+     */
+    public ChangesSink open(File destination, File inputFile, boolean removeSdh, boolean removeSpam) throws IOException {
+        return switch (this) {
+            case TEXT -> new SubtitleChangesLogWriter(destination, inputFile, removeSdh, removeSpam);
+            case JSON_LINES -> new JsonLinesChangesLogWriter(destination, inputFile, removeSdh, removeSpam);
+        };
+    }
+
+    public static ChangesLogFormat parse(String value) {
+        String normalized = value.toLowerCase(Locale.ROOT);
+        for (ChangesLogFormat format : values()) {
+            if (format.name.equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported changes log format: " + value);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
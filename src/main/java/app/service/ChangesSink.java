@@ -0,0 +1,47 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+import app.service.SubtitleChanges.RemovalReason;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Receives the outcome of a cleaning pass entry by entry, as it happens, so a report never has to hold the whole
+ * diff in memory. Events arrive in input order; {@link #finish} delivers the totals once the pass is over.
+ * Closing a sink that was never finished discards whatever it had written so far.
+ */
+public interface ChangesSink extends Closeable {
+
+    /** Ignores all changes, for callers that only need the totals. */
+    ChangesSink NONE = new ChangesSink() {
+        @Override
+        public void removed(SubtitleEntry entry, RemovalReason reason) {
+        }
+
+        @Override
+        public void modified(SubtitleEntry before, SubtitleEntry after) {
+        }
+
+        @Override
+        public void finish(Optional<File> outputFile, ChangeCounts counts) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    void removed(SubtitleEntry entry, RemovalReason reason) throws IOException;
+
+    void modified(SubtitleEntry before, SubtitleEntry after) throws IOException;
+
+    /**
+     * Completes the report.
+     *
+     * @param outputFile the cleaned subtitles, or empty when none were written
+     */
+    void finish(Optional<File> outputFile, ChangeCounts counts) throws IOException;
+}
@@ -0,0 +1,43 @@
+package app.service;
+
+/**
+ * One line of a {@link RulePack}. Spam rules remove every entry they match anywhere in its text; speaker rules strip
+ * the label they match at the start of a line, as part of SDH cleaning.
+ *
+ * @param id      unique within its pack; reported as {@code pack/id}
+ * @param pattern literal text for keywords (matched as whole words, ignoring case), a regular expression otherwise
+ */
+public record CleaningRule(String id, Target target, Kind kind, String pattern) {
+
+    public enum Target {
+        SPAM("spam"),
+        SPEAKER("speaker");
+
+        private final String name;
+
+        Target(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public enum Kind {
+        KEYWORD("keyword"),
+        REGEX("regex");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
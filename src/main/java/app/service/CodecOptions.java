@@ -0,0 +1,25 @@
+package app.service;
+
+import app.model.FrameRate;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Settings a {@link SubtitleCodec} may need beyond the text itself.
+ *
+ * @param frameRate frame rate for frame-based formats (MicroDVD); a rate declared in the file takes precedence
+ *                  when reading
+ */
+public record CodecOptions(Optional<FrameRate> frameRate) {
+
+    public static final CodecOptions DEFAULT = new CodecOptions(Optional.empty());
+
+    public CodecOptions {
+        Objects.requireNonNull(frameRate, "frameRate");
+    }
+
+    public static CodecOptions withFrameRate(FrameRate frameRate) {
+        return new CodecOptions(Optional.of(frameRate));
+    }
+}
@@ -0,0 +1,101 @@
+package app.service;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+
+/**
+ * Helpers for the SRT-style markup cues carry between formats: {@code <i>}, {@code <b>}, {@code <u>} and their
+ * closing tags, plus whatever other tags a source left in, such as {@code <font color=...>}.
+ */
+@UtilityClass
+class CueMarkup {
+
+    /**
+     * End of the tag starting at {@code from} (the index of its {@code >}), or -1 when the {@code <} there does not
+     * open a tag: a tag is {@code <name ...>} or {@code </name>} with a letter after the optional slash.
+     */
+    static int tagEnd(CharSequence text, int from) {
+        int nameStart = from + 1 < text.length() && text.charAt(from + 1) == '/' ? from + 2 : from + 1;
+        if (text.charAt(from) != '<' || nameStart >= text.length() || !Character.isLetter(text.charAt(nameStart))) {
+            return -1;
+        }
+        for (int i = nameStart + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '>') {
+                return i;
+            }
+            if (c == '<' || c == '\n') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lower-case name of the tag in {@code [from, end]}, with a leading slash for a closing tag: {@code "i"},
+     * {@code "/i"}, {@code "font"}.
+     */
+    static String tagName(CharSequence text, int from, int end) {
+        int i = from + 1;
+        StringBuilder name = new StringBuilder(4);
+        if (text.charAt(i) == '/') {
+            name.append('/');
+            i++;
+        }
+        while (i < end && Character.isLetterOrDigit(text.charAt(i))) {
+            name.append(text.charAt(i++));
+        }
+        return name.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether the tag name is one of the styles every format here can express: i, b or u, opening or closing.
+     */
+    static boolean isStyle(String name) {
+        String style = name.startsWith("/") ? name.substring(1) : name;
+        return style.equals("i") || style.equals("b") || style.equals("u");
+    }
+
+    /**
+     * Removes every tag that is not a basic style.
+     */
+    static String keepStyles(String text) {
+        if (text.indexOf('<') < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            int end = text.charAt(i) == '<' ? tagEnd(text, i) : -1;
+            if (end < 0) {
+                result.append(text.charAt(i++));
+                continue;
+            }
+            String name = tagName(text, i, end);
+            if (isStyle(name)) {
+                result.append('<').append(name).append('>');
+            }
+            i = end + 1;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Trims each line and drops empty ones, so markup that only produced whitespace or doubled line breaks cannot
+     * leave a blank line, which would end the cue in SRT and WebVTT.
+     */
+    static String tidyLines(CharSequence text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (String line : text.toString().split("\n")) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty()) {
+                if (!result.isEmpty()) {
+                    result.append('\n');
+                }
+                result.append(trimmed);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package app.service;
+
+import app.model.FrameRate;
+import app.model.SubtitleEntry;
+
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Pull-based reader of one subtitle format: one cue per {@link #next()}, so memory use does not grow with the
+ * input. Invalid cues throw {@link app.exception.InvalidSubtitleException}, I/O failures
+ * {@link UncheckedIOException}.
+ */
+public interface CueReader extends Iterator<SubtitleEntry>, Closeable {
+
+    /**
+     * Reports progress to the listener every few hundred cues; readers that cannot tell how far they are report
+     * a negative fraction.
+     */
+    CueReader withProgress(ProgressListener listener);
+
+    /**
+     * Frame rate the input itself declares, e.g. in a MicroDVD header; may read ahead to find it.
+     */
+    default Optional<FrameRate> declaredFrameRate() {
+        return Optional.empty();
+    }
+}
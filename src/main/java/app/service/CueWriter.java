@@ -0,0 +1,19 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+
+import java.io.IOException;
+
+/**
+ * Push-based writer of one subtitle format over a {@link java.io.Writer} owned by the caller. Any header is written
+ * when the writer is created, so an empty input still gives a valid file.
+ */
+public interface CueWriter {
+
+    void write(SubtitleEntry entry) throws IOException;
+
+    /**
+     * Writes any trailer and flushes; the underlying writer stays open.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,90 @@
+package app.service;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * In-place iterative radix-2 complex FFT over split real/imaginary arrays, just enough for cross-correlating
+ * subtitle activity signals. Lengths must be powers of two.
+ */
+@UtilityClass
+class Fft {
+
+    static int paddedLength(int minimum) {
+        int length = Integer.highestOneBit(Math.max(1, minimum));
+        return length < minimum ? length << 1 : length;
+    }
+
+    static void forward(double[] re, double[] im) {
+        transform(re, im, false);
+    }
+
+    /**
+     * Inverse transform, including the 1/n scaling.
+     */
+    static void inverse(double[] re, double[] im) {
+        transform(re, im, true);
+        double scale = 1.0 / re.length;
+        for (int i = 0; i < re.length; i++) {
+            re[i] *= scale;
+            im[i] *= scale;
+        }
+    }
+
+    /**
+     * Cross-correlation spectrum of two transformed signals: {@code a * conj(b)}, written into {@code a}.
+     * After {@link #inverse} element k holds {@code sum_i a[i] * b[i - k]}, negative lags wrapping to the end.
+     */
+    static void multiplyConjugate(double[] aRe, double[] aIm, double[] bRe, double[] bIm) {
+        for (int i = 0; i < aRe.length; i++) {
+            double re = aRe[i] * bRe[i] + aIm[i] * bIm[i];
+            double im = aIm[i] * bRe[i] - aRe[i] * bIm[i];
+            aRe[i] = re;
+            aIm[i] = im;
+        }
+    }
+
+    private static void transform(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+        if (Integer.bitCount(n) != 1 || im.length != n) {
+            throw new IllegalArgumentException("FFT length must be a power of two, got: " + n);
+        }
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int length = 2; length <= n; length <<= 1) {
+            double angle = (inverse ? 2 : -2) * Math.PI / length;
+            double stepRe = Math.cos(angle);
+            double stepIm = Math.sin(angle);
+            int half = length >> 1;
+            for (int start = 0; start < n; start += length) {
+                double wRe = 1;
+                double wIm = 0;
+                for (int k = 0; k < half; k++) {
+                    int a = start + k;
+                    int b = a + half;
+                    double tRe = re[b] * wRe - im[b] * wIm;
+                    double tIm = re[b] * wIm + im[b] * wRe;
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                    double nextRe = wRe * stepRe - wIm * stepIm;
+                    wIm = wRe * stepIm + wIm * stepRe;
+                    wRe = nextRe;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package app.service;
+
+import app.model.FrameRate;
+
+import java.util.Optional;
+
+/**
+ * What ffprobe reported for a video's first stream. rawFrameRate is the r_frame_rate value as printed
+ * (e.g. "24000/1001"); frameRate is empty when it is not close to any supported rate.
+ */
+public record FrameRateProbe(String rawFrameRate, Optional<FrameRate> frameRate) {
+}
@@ -0,0 +1,148 @@
+package app.service;
+
+import app.model.FrameRate;
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * On-disk memo of ffprobe results, keyed by a video's absolute path, size and modification time — touching or
+ * replacing the video invalidates its entry. The file is append-only, one tab-separated line per probe
+ * ({@code size  mtime  frameRate  raw  path}, path last so it may contain tabs); the last line for a key wins.
+ * Lines are appended with a single write, so several processes can share the file. Unreadable lines are skipped.
+ */
+@Log
+class FrameRateProbeCache {
+
+    // Rewrite the file once superseded lines outnumber live ones by this factor
+    private static final int COMPACTION_FACTOR = 2;
+    private static final String NO_FRAME_RATE = "-";
+
+    private final Path file;
+    private volatile Map<Key, FrameRateProbe> entries;
+
+    FrameRateProbeCache(Path file) {
+        this.file = file;
+    }
+
+    record Key(String path, long size, long modifiedMillis) {
+
+        static Optional<Key> of(Path video) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(video, BasicFileAttributes.class);
+                String path = video.toAbsolutePath().normalize().toString();
+                if (path.indexOf('\n') >= 0 || path.indexOf('\r') >= 0) {
+                    return Optional.empty();
+                }
+                return Optional.of(new Key(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    Optional<FrameRateProbe> get(Key key) {
+        return Optional.ofNullable(entries().get(key));
+    }
+
+    void put(Key key, FrameRateProbe probe) {
+        entries().put(key, probe);
+        String line = toLine(key, probe) + System.lineSeparator();
+        try {
+            Files.createDirectories(file.getParent());
+            synchronized (this) {
+                Files.writeString(file, line, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            }
+        } catch (IOException e) {
+            // The cache is an optimisation; a read-only home directory must not break detection
+            log.log(Level.WARNING, "Failed to update ffprobe cache: " + file, e);
+        }
+    }
+
+    private Map<Key, FrameRateProbe> entries() {
+        Map<Key, FrameRateProbe> loaded = entries;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = entries;
+                if (loaded == null) {
+                    loaded = load();
+                    entries = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Key, FrameRateProbe> load() {
+        Map<Key, FrameRateProbe> loaded = new ConcurrentHashMap<>();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return loaded;
+        } catch (IOException | UncheckedIOException e) {
+            log.log(Level.WARNING, "Ignoring unreadable ffprobe cache: " + file, e);
+            return loaded;
+        }
+
+        for (String line : lines) {
+            parseLine(line, loaded);
+        }
+        if (lines.size() > COMPACTION_FACTOR * Math.max(loaded.size(), 16)) {
+            compact(loaded);
+        }
+        return loaded;
+    }
+
+    private static String toLine(Key key, FrameRateProbe probe) {
+        return "%d\t%d\t%s\t%s\t%s".formatted(key.size(), key.modifiedMillis(),
+                probe.frameRate().map(FrameRate::toRationalString).orElse(NO_FRAME_RATE), probe.rawFrameRate(), key.path());
+    }
+
+    private static void parseLine(String line, Map<Key, FrameRateProbe> target) {
+        String[] fields = line.split("\t", 5);
+        if (fields.length != 5 || fields[3].isEmpty()) {
+            return;
+        }
+        try {
+            Key key = new Key(fields[4], Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+            Optional<FrameRate> frameRate = NO_FRAME_RATE.equals(fields[2])
+                    ? Optional.empty()
+                    : Optional.of(FrameRate.parse(fields[2]));
+            target.put(key, new FrameRateProbe(fields[3], frameRate));
+        } catch (IllegalArgumentException e) {
+            // Damaged line or a frame rate this version no longer knows — probe again instead
+        }
+    }
+
+    private void compact(Map<Key, FrameRateProbe> live) {
+        List<String> lines = new ArrayList<>(live.size());
+        live.forEach((key, probe) -> lines.add(toLine(key, probe)));
+        try {
+            Path temp = Files.createTempFile(file.getParent(), ".ffprobe-cache-", ".tmp");
+            try {
+                Files.write(temp, lines, StandardCharsets.UTF_8);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to compact ffprobe cache: " + file, e);
+        }
+    }
+}
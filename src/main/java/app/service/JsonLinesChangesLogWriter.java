@@ -0,0 +1,116 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+import app.model.TimestampCodec;
+import app.service.SubtitleChanges.RemovalReason;
+import app.util.JsonText;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Machine-readable changes log ({@link ChangesLogFormat#JSON_LINES}): one JSON object per line, each tagged with
+ * a {@code type}. A {@code header} line comes first, then one {@code removed} or {@code modified} line per event in
+ * input order, and a closing {@code summary} line with the output name, totals and per-rule hits. Nothing needs
+ * buffering, so every event goes straight to the file.
+ */
+class JsonLinesChangesLogWriter implements ChangesSink {
+
+    private final File destination;
+    private final Writer out;
+    // Reused to render each line before it is handed to the writer
+    private final StringBuilder line = new StringBuilder(128);
+    private boolean finished;
+
+    JsonLinesChangesLogWriter(File destination, File inputFile, boolean removeSdh, boolean removeSpam) throws IOException {
+        this.destination = destination;
+        this.out = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8);
+
+        line.setLength(0);
+        line.append("{\"type\":\"header\",\"input\":");
+        JsonText.appendString(line, inputFile.getName());
+        line.append(",\"removeSdh\":").append(removeSdh)
+                .append(",\"removeSpam\":").append(removeSpam)
+                .append("}\n");
+        writeLine();
+    }
+
+    @Override
+    public void removed(SubtitleEntry entry, RemovalReason reason) throws IOException {
+        startEntry("removed", entry);
+        line.append(",\"reason\":\"").append(reason.name()).append("\",\"text\":");
+        JsonText.appendString(line, entry.text());
+        line.append("}\n");
+        writeLine();
+    }
+
+    @Override
+    public void modified(SubtitleEntry before, SubtitleEntry after) throws IOException {
+        startEntry("modified", before);
+        line.append(",\"before\":");
+        JsonText.appendString(line, before.text());
+        line.append(",\"after\":");
+        JsonText.appendString(line, after.text());
+        line.append("}\n");
+        writeLine();
+    }
+
+    private void startEntry(String type, SubtitleEntry entry) {
+        long startMillis = entry.start().toMillis();
+        long endMillis = entry.end().toMillis();
+        line.setLength(0);
+        line.append("{\"type\":\"").append(type).append("\",\"index\":").append(entry.index())
+                .append(",\"startMillis\":").append(startMillis)
+                .append(",\"endMillis\":").append(endMillis)
+                .append(",\"start\":\"");
+        TimestampCodec.appendTime(line, startMillis).append("\",\"end\":\"");
+        TimestampCodec.appendTime(line, endMillis).append('"');
+    }
+
+    @Override
+    public void finish(Optional<File> outputFile, ChangeCounts counts) throws IOException {
+        line.setLength(0);
+        line.append("{\"type\":\"summary\",\"output\":");
+        if (outputFile.isPresent()) {
+            JsonText.appendString(line, outputFile.get().getName());
+        } else {
+            line.append("null");
+        }
+        line.append(",\"removedSdh\":").append(counts.sdhRemoved())
+                .append(",\"removedSpam\":").append(counts.spamRemoved())
+                .append(",\"modified\":").append(counts.modified())
+                .append(",\"unchanged\":").append(counts.unchanged())
+                .append(",\"ruleHits\":{");
+        String separator = "";
+        for (Map.Entry<String, Integer> hit : counts.ruleHits().entrySet()) {
+            line.append(separator);
+            JsonText.appendString(line, hit.getKey());
+            line.append(':').append(hit.getValue());
+            separator = ",";
+        }
+        line.append("}}\n");
+        writeLine();
+        out.flush();
+        finished = true;
+    }
+
+    private void writeLine() throws IOException {
+        out.append(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            if (!finished) {
+                Files.deleteIfExists(destination.toPath());
+            }
+        }
+    }
+}
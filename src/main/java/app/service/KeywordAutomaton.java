@@ -0,0 +1,188 @@
+package app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over literal keywords, so any number of them is found in one left-to-right pass over the
+ * text. Matching folds case char by char with {@link Character#toLowerCase(char)} and only accepts whole-word hits:
+ * a keyword edge that is a letter or digit must not continue into another letter or digit of the text.
+ * <p>
+ * The trie is built with maps once and then flattened into sorted parallel arrays; the automaton is immutable and
+ * safe to share between threads.
+ */
+final class KeywordAutomaton {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // Edges of state s are edgeLabels/edgeTargets[edgeStart[s] .. edgeStart[s + 1]), sorted by label
+    private final int[] edgeStart;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    // Keyword ending at the state itself, and the nearest state on the failure chain that ends one
+    private final int[] outputKeyword;
+    private final int[] outputLink;
+    private final int[] keywordLengths;
+    private final int maxKeywordLength;
+
+    /**
+     * @param keywords non-empty keywords; a match reports the keyword's index in this list
+     */
+    KeywordAutomaton(List<String> keywords) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        trie.add(new HashMap<>());
+        ends.add(NONE);
+        keywordLengths = new int[keywords.size()];
+
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword must not be empty");
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    ends.add(NONE);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            // The first of several identical keywords wins
+            if (ends.get(state) == NONE) {
+                ends.set(state, k);
+            }
+            keywordLengths[k] = keyword.length();
+        }
+        maxKeywordLength = Arrays.stream(keywordLengths).max().orElse(0);
+
+        int states = trie.size();
+        edgeStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            edgeStart[s + 1] = edgeStart[s] + trie.get(s).size();
+        }
+        edgeLabels = new char[edgeStart[states]];
+        edgeTargets = new int[edgeStart[states]];
+        for (int s = 0; s < states; s++) {
+            Character[] labels = trie.get(s).keySet().toArray(new Character[0]);
+            Arrays.sort(labels);
+            for (int i = 0; i < labels.length; i++) {
+                edgeLabels[edgeStart[s] + i] = labels[i];
+                edgeTargets[edgeStart[s] + i] = trie.get(s).get(labels[i]);
+            }
+        }
+
+        outputKeyword = ends.stream().mapToInt(Integer::intValue).toArray();
+        failure = new int[states];
+        outputLink = new int[states];
+        outputLink[ROOT] = NONE;
+
+        // Breadth first, so a state's failure target is always finished before the state itself
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            failure[edgeTargets[e]] = ROOT;
+            outputLink[edgeTargets[e]] = NONE;
+            queue.add(edgeTargets[e]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                int fallback = failure[state];
+                int target;
+                while ((target = next(fallback, edgeLabels[e])) == NONE && fallback != ROOT) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = target == NONE ? ROOT : target;
+                outputLink[child] = outputKeyword[failure[child]] != NONE ? failure[child] : outputLink[failure[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * The whole-word keyword match that starts first in {@code text}, or null when there is none. Among keywords
+     * starting at the same position the longest wins. Scanning goes on past the first match only as long as a
+     * longer keyword could still start before it.
+     */
+    Match firstMatch(CharSequence text) {
+        int state = ROOT;
+        Match first = null;
+        for (int i = 0; i < text.length(); i++) {
+            // Whatever ends here or later starts at i + 1 - maxKeywordLength or later
+            if (first != null && i + 1 - maxKeywordLength > first.start()) {
+                break;
+            }
+            char c = Character.toLowerCase(text.charAt(i));
+            int target;
+            while ((target = next(state, c)) == NONE && state != ROOT) {
+                state = failure[state];
+            }
+            state = target == NONE ? ROOT : target;
+
+            int end = i + 1;
+            // The output chain runs from the longest keyword ending here to the shortest
+            for (int s = outputKeyword[state] != NONE ? state : outputLink[state]; s != NONE; s = outputLink[s]) {
+                int keyword = outputKeyword[s];
+                int start = end - keywordLengths[keyword];
+                if (isWholeWord(text, start, end)) {
+                    if (first == null || start < first.start()
+                            || start == first.start() && keywordLengths[keyword] > keywordLengths[first.keyword()]) {
+                        first = new Match(keyword, start);
+                    }
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    boolean isEmpty() {
+        return edgeLabels.length == 0;
+    }
+
+    private int next(int state, char c) {
+        int from = edgeStart[state];
+        int to = edgeStart[state + 1] - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            char label = edgeLabels[middle];
+            if (label < c) {
+                from = middle + 1;
+            } else if (label > c) {
+                to = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean isWholeWord(CharSequence text, int start, int end) {
+        boolean startsClean = start == 0 || !isWordChar(text.charAt(start)) || !isWordChar(text.charAt(start - 1));
+        boolean endsClean = end == text.length() || !isWordChar(text.charAt(end - 1)) || !isWordChar(text.charAt(end));
+        return startsClean && endsClean;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * @param keyword index of the keyword in the list the automaton was built from
+     * @param start   where the match starts in the text
+     */
+    record Match(int keyword, int start) {
+    }
+}
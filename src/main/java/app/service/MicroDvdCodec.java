@@ -0,0 +1,266 @@
+package app.service;
+
+import app.exception.InvalidSubtitleException;
+import app.model.FrameRate;
+import app.model.SubtitleEntry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MicroDVD, {@code {start}{end}text} with times in frames and {@code |} between lines. Frames are converted with
+ * {@link FrameRate}: the rate a {@code {1}{1}23.976} header declares, otherwise the one in {@link CodecOptions}.
+ * The {@code y}/{@code Y} italic, bold and underline codes become style tags, for one line or the whole cue; colour,
+ * font, size and position codes are dropped. Writing needs a frame rate and declares it in such a header.
+ */
+public class MicroDvdCodec implements SubtitleCodec {
+
+    private static final String FORMAT = "MicroDVD";
+
+    private static final Pattern CUE = Pattern.compile("\\{(\\d{1,12})}\\{(\\d{1,12})}(.*)");
+    private static final Pattern CONTROL_CODE = Pattern.compile("\\{([A-Za-z]):([^}]*)}");
+    private static final String STYLES = "ibu";
+
+    @Override
+    public String name() {
+        return "microdvd";
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("sub");
+    }
+
+    @Override
+    public boolean recognizes(String head) {
+        String text = head.startsWith("\uFEFF") ? head.substring(1) : head;
+        String firstLine = text.stripLeading().split("\r?\n|\r", 2)[0];
+        return CUE.matcher(firstLine.strip()).matches();
+    }
+
+    @Override
+    public CueReader newReader(Reader input, CodecOptions options) {
+        return new MicroDvdReader(input, options.frameRate());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the options carry no frame rate
+     */
+    @Override
+    public CueWriter newWriter(Writer output, CodecOptions options) throws IOException {
+        FrameRate frameRate = options.frameRate()
+                .orElseThrow(() -> new IllegalArgumentException("Writing MicroDVD subtitles needs a frame rate"));
+        output.write("{1}{1}" + frameRate.getName() + "\n");
+        StringBuilder line = new StringBuilder(128);
+        return new CueWriter() {
+            @Override
+            public void write(SubtitleEntry entry) throws IOException {
+                line.setLength(0);
+                line.append('{').append(frameRate.millisToFrame(entry.start().toMillis()))
+                        .append("}{").append(frameRate.millisToFrame(entry.end().toMillis())).append('}');
+                appendText(line, entry.text()).append('\n');
+                output.append(line);
+            }
+
+            @Override
+            public void finish() throws IOException {
+                output.flush();
+            }
+        };
+    }
+
+    /**
+     * Cue text to MicroDVD text: a line wrapped whole in style tags gets the matching {@code {y:...}} code, other
+     * tags are dropped and lines are joined with {@code |}.
+     */
+    static StringBuilder appendText(StringBuilder sb, String text) {
+        String[] lines = text.split("\n");
+        for (int n = 0; n < lines.length; n++) {
+            if (n > 0) {
+                sb.append('|');
+            }
+            String line = lines[n].strip();
+            StringBuilder styles = new StringBuilder();
+            String wrapped;
+            while ((wrapped = unwrap(line)) != null) {
+                styles.append(styles.isEmpty() ? "" : ",").append(Character.toLowerCase(line.charAt(1)));
+                line = wrapped;
+            }
+            if (!styles.isEmpty()) {
+                sb.append("{y:").append(styles).append('}');
+            }
+            appendWithoutTags(sb, line);
+        }
+        return sb;
+    }
+
+    // The inside of <x>...</x> for a style x, when that pair wraps the whole line and nothing else of that style
+    private static String unwrap(String line) {
+        if (line.length() < 7 || line.charAt(0) != '<' || line.charAt(2) != '>'
+                || STYLES.indexOf(Character.toLowerCase(line.charAt(1))) < 0) {
+            return null;
+        }
+        char style = Character.toLowerCase(line.charAt(1));
+        String inner = line.substring(3, line.length() - 4);
+        String closing = line.substring(line.length() - 4);
+        if (!closing.equalsIgnoreCase("</" + style + ">") || inner.toLowerCase(Locale.ROOT).contains("<" + style + ">")
+                || inner.toLowerCase(Locale.ROOT).contains("</" + style + ">")) {
+            return null;
+        }
+        return inner;
+    }
+
+    private static void appendWithoutTags(StringBuilder sb, String text) {
+        int i = 0;
+        while (i < text.length()) {
+            int end = text.charAt(i) == '<' ? CueMarkup.tagEnd(text, i) : -1;
+            if (end >= 0) {
+                i = end + 1;
+            } else {
+                sb.append(text.charAt(i++));
+            }
+        }
+    }
+
+    /**
+     * MicroDVD text to cue text: {@code |} to line breaks, style codes to tags, every other code dropped.
+     */
+    static String toCueText(String text) {
+        StringBuilder cueStyles = new StringBuilder();
+        String rest = text;
+        Matcher leading;
+        // Upper-case codes before the first line apply to the whole cue
+        while ((leading = CONTROL_CODE.matcher(rest)).lookingAt() && Character.isUpperCase(leading.group(1).charAt(0))) {
+            collectStyles(leading, cueStyles);
+            rest = rest.substring(leading.end());
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        for (String line : rest.split("\\|", -1)) {
+            StringBuilder lineStyles = new StringBuilder();
+            Matcher code = CONTROL_CODE.matcher(line);
+            StringBuilder plain = new StringBuilder(line.length());
+            int last = 0;
+            while (code.find()) {
+                plain.append(line, last, code.start());
+                collectStyles(code, Character.isUpperCase(code.group(1).charAt(0)) ? cueStyles : lineStyles);
+                last = code.end();
+            }
+            plain.append(line, last, line.length());
+            if (!result.isEmpty()) {
+                result.append('\n');
+            }
+            result.append(wrap(lineStyles, plain.toString().strip()));
+        }
+        return CueMarkup.tidyLines(wrap(cueStyles, CueMarkup.tidyLines(result)));
+    }
+
+    // The i, b and u values of a y or Y code, e.g. {y:i,b}
+    private static void collectStyles(Matcher code, StringBuilder styles) {
+        if (Character.toLowerCase(code.group(1).charAt(0)) != 'y') {
+            return;
+        }
+        for (String value : code.group(2).split(",")) {
+            String style = value.strip().toLowerCase(Locale.ROOT);
+            if (style.length() == 1 && STYLES.contains(style) && styles.indexOf(style) < 0) {
+                styles.append(style);
+            }
+        }
+    }
+
+    private static String wrap(CharSequence styles, String text) {
+        if (styles.isEmpty() || text.isEmpty()) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + 8 * styles.length());
+        for (int i = 0; i < styles.length(); i++) {
+            result.append('<').append(styles.charAt(i)).append('>');
+        }
+        result.append(text);
+        for (int i = styles.length() - 1; i >= 0; i--) {
+            result.append("</").append(styles.charAt(i)).append('>');
+        }
+        return result.toString();
+    }
+
+    private static final class MicroDvdReader extends TextCueReader {
+
+        private final Optional<FrameRate> givenFrameRate;
+        private Optional<FrameRate> declaredFrameRate = Optional.empty();
+        private boolean headerChecked;
+
+        MicroDvdReader(Reader input, Optional<FrameRate> givenFrameRate) {
+            super(input);
+            this.givenFrameRate = givenFrameRate;
+        }
+
+        @Override
+        public Optional<FrameRate> declaredFrameRate() {
+            checkHeader();
+            return declaredFrameRate;
+        }
+
+        // A first cue at frame 0 or 1 whose text is a frame rate declares the rate rather than showing it
+        private void checkHeader() {
+            if (headerChecked) {
+                return;
+            }
+            headerChecked = true;
+            String line = nextNonBlankLine();
+            if (line == null) {
+                return;
+            }
+            Matcher cue = CUE.matcher(line.strip());
+            if (cue.matches() && Long.parseLong(cue.group(1)) <= 1 && Long.parseLong(cue.group(2)) <= 1) {
+                try {
+                    declaredFrameRate = Optional.of(FrameRate.parse(cue.group(3).strip()));
+                    return;
+                } catch (IllegalArgumentException e) {
+                    // ordinary text, not a frame rate
+                }
+            }
+            pushBack(line);
+        }
+
+        @Override
+        protected SubtitleEntry readEntry() {
+            checkHeader();
+            String line;
+            while ((line = nextNonBlankLine()) != null) {
+                FrameRate frameRate = declaredFrameRate.or(() -> givenFrameRate)
+                        .orElseThrow(() -> InvalidSubtitleException.missingFrameRate(FORMAT).atLine(lineNumber()));
+                Matcher cue = CUE.matcher(line.strip());
+                if (!cue.matches()) {
+                    throw InvalidSubtitleException.malformedLine(FORMAT, line).atLine(lineNumber());
+                }
+                String text = toCueText(cue.group(3));
+                if (text.isEmpty()) {
+                    continue;
+                }
+                long start = frameRate.frameToMillis(Long.parseLong(cue.group(1)));
+                long end = frameRate.frameToMillis(Long.parseLong(cue.group(2)));
+                try {
+                    return new SubtitleEntry(nextIndex(), Duration.ofMillis(start), Duration.ofMillis(end), text);
+                } catch (InvalidSubtitleException e) {
+                    throw e.atLine(lineNumber());
+                }
+            }
+            return null;
+        }
+
+        private String nextNonBlankLine() {
+            String line;
+            while ((line = readLine()) != null && line.isBlank()) {
+                // skipped
+            }
+            return line;
+        }
+    }
+}
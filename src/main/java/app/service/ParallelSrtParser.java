@@ -0,0 +1,243 @@
+package app.service;
+
+import app.exception.InvalidSubtitleException;
+import app.model.SubtitleEntry;
+import lombok.experimental.UtilityClass;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses large inputs in chunks on a {@link ForkJoinPool}. The content is cut only right after a blank line that
+ * cannot be a cue's timeline, where the sequential parser is always between blocks, so every chunk parses exactly
+ * as that stretch of the whole input would and the concatenated results are identical to {@link SrtReader}'s.
+ * <p>
+ * ASCII-compatible charsets are split and parsed straight on the bytes; others are decoded once and split on the
+ * chars. Chunks count their own lines, and errors are moved to the line they have in the whole input.
+ */
+@UtilityClass
+class ParallelSrtParser {
+
+    static final String THRESHOLD_PROPERTY = "subtitle-sync.parallel.threshold";
+
+    /**
+     * Smallest input worth splitting, {@value #THRESHOLD_PROPERTY} bytes or 1 MiB. The default is a conservative
+     * guess rather than a measured crossover, which depends on the machine: run {@code ParallelParseBenchmark}
+     * there and set the property to the size where the parallel parse starts to win.
+     */
+    static final int PARALLEL_THRESHOLD_BYTES = Integer.getInteger(THRESHOLD_PROPERTY, 1024 * 1024);
+
+    // Smallest chunk handed to a worker
+    static final int MIN_CHUNK_BYTES = 256 * 1024;
+
+    /**
+     * Whether {@link #parse(ByteBuffer, Charset)} can pay off for content of this size: never on a common pool
+     * with a single worker, where the chunks would only be parsed one after another.
+     */
+    static boolean worthSplitting(long size) {
+        return worthSplitting(size, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    static boolean worthSplitting(long size, int parallelism) {
+        return parallelism > 1 && size >= PARALLEL_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Parses the whole content on the common pool.
+     *
+     * @throws IOException when a charset that has to be decoded up front cannot decode the content
+     */
+    static List<SubtitleEntry> parse(ByteBuffer content, Charset charset) throws IOException {
+        return parse(content, charset, ForkJoinPool.commonPool(), chunkSize(content.remaining()));
+    }
+
+    static List<SubtitleEntry> parse(ByteBuffer content, Charset charset, ForkJoinPool pool, int chunkSize)
+            throws IOException {
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        if (ByteLineReader.supports(charset)) {
+            ByteBuffer bytes = content.slice();
+            Units units = i -> bytes.get(i) & 0xFF;
+            for (int[] range : split(units, bytes.limit(), chunkSize)) {
+                ByteBuffer slice = bytes.slice(range[0], range[1] - range[0]);
+                boolean first = range[0] == 0;
+                tasks.add(pool.submit(() -> parseChunk(new SrtReader(new ByteLineReader(slice, charset), first))));
+            }
+        } else {
+            CharBuffer chars = charset.newDecoder().decode(content.duplicate());
+            char[] array = chars.array();
+            int offset = chars.arrayOffset() + chars.position();
+            Units units = i -> array[offset + i];
+            for (int[] range : split(units, chars.remaining(), chunkSize)) {
+                CharArrayReader reader = new CharArrayReader(array, offset + range[0], range[1] - range[0]);
+                boolean first = range[0] == 0;
+                tasks.add(pool.submit(() ->
+                        parseChunk(new SrtReader(SrtReader.readerLines(new BufferedReader(reader)), first))));
+            }
+        }
+        return collect(tasks);
+    }
+
+    private static int chunkSize(int length) {
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        // A few chunks per worker evens out chunks that happen to parse slower
+        return Math.max(MIN_CHUNK_BYTES, length / Math.max(1, 4 * workers));
+    }
+
+    /**
+     * Joins the chunks in input order. The first failure in input order is the one the sequential parser would
+     * have hit, so that is the one reported; the chunks after it are cancelled.
+     */
+    private static List<SubtitleEntry> collect(List<ForkJoinTask<Chunk>> tasks) {
+        List<SubtitleEntry> entries = new ArrayList<>();
+        int linesBefore = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Chunk chunk = tasks.get(i).join();
+            if (chunk.failure() != null) {
+                tasks.subList(i + 1, tasks.size()).forEach(task -> task.cancel(false));
+                throw relocate(chunk.failure(), linesBefore);
+            }
+            entries.addAll(chunk.entries());
+            linesBefore += chunk.lines();
+        }
+        return entries;
+    }
+
+    private static RuntimeException relocate(RuntimeException failure, int linesBefore) {
+        if (failure instanceof InvalidSubtitleException invalid && invalid.getLineNumber().isPresent()) {
+            return invalid.atLine(invalid.getLineNumber().getAsInt() + linesBefore);
+        }
+        return failure;
+    }
+
+    private static Chunk parseChunk(SrtReader reader) {
+        List<SubtitleEntry> entries = new ArrayList<>();
+        try (reader) {
+            reader.forEachRemaining(entries::add);
+            return new Chunk(entries, reader.linesRead(), null);
+        } catch (IOException e) {
+            return new Chunk(entries, reader.linesRead(), new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            return new Chunk(entries, reader.linesRead(), e);
+        }
+    }
+
+    private record Chunk(List<SubtitleEntry> entries, int lines, RuntimeException failure) {
+    }
+
+    /**
+     * Code unit at an index: a byte (0-255) or a char. Only ASCII values are ever interpreted.
+     */
+    @FunctionalInterface
+    interface Units {
+        int at(int index);
+    }
+
+    /**
+     * Cuts {@code [0, length)} into consecutive {@code [from, to)} ranges of roughly chunkSize units, each later
+     * one starting at a safe boundary.
+     */
+    static List<int[]> split(Units units, int length, int chunkSize) {
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        while (from < length) {
+            int to = from + chunkSize >= length ? length : boundaryAfter(units, length, from + chunkSize);
+            ranges.add(new int[]{from, to});
+            from = to;
+        }
+        return ranges;
+    }
+
+    /**
+     * First safe chunk start at or after the position: the line after a blank line whose preceding line cannot
+     * be a cue number. The sequential parser is between blocks there — the blank line either ended a cue's text or
+     * was skipped while looking for the next cue; it cannot be a timeline, as only the line after a cue number is.
+     *
+     * @return the boundary, or length when there is none
+     */
+    static int boundaryAfter(Units units, int length, int position) {
+        int line = nextLineStart(units, length, position);
+        if (line >= length) {
+            return length;
+        }
+        int end = lineEnd(units, length, line);
+        boolean previousSafe = isBlank(units, line, end) || cannotBeNumber(units, line, end);
+        line = afterTerminator(units, length, end);
+        while (line < length) {
+            end = lineEnd(units, length, line);
+            boolean blank = isBlank(units, line, end);
+            int next = afterTerminator(units, length, end);
+            if (blank && previousSafe) {
+                return next;
+            }
+            previousSafe = blank || cannotBeNumber(units, line, end);
+            line = next;
+        }
+        return length;
+    }
+
+    // Start of the first line that begins at or after position
+    private static int nextLineStart(Units units, int length, int position) {
+        if (position == 0) {
+            return 0;
+        }
+        int previous = units.at(position - 1);
+        if (previous == '\n' || previous == '\r' && units.at(position) != '\n') {
+            return position;
+        }
+        return afterTerminator(units, length, lineEnd(units, length, position));
+    }
+
+    private static int lineEnd(Units units, int length, int from) {
+        int i = from;
+        while (i < length) {
+            int unit = units.at(i);
+            if (unit == '\n' || unit == '\r') {
+                return i;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    // Line breaks are LF, CR or CR LF, as for BufferedReader.readLine()
+    private static int afterTerminator(Units units, int length, int end) {
+        if (end >= length) {
+            return length;
+        }
+        if (units.at(end) == '\r' && end + 1 < length && units.at(end + 1) == '\n') {
+            return end + 2;
+        }
+        return end + 1;
+    }
+
+    // Blank as StringUtils.isBlank sees it; a non-ASCII unit never counts as blank, which only skips a boundary
+    private static boolean isBlank(Units units, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int unit = units.at(i);
+            if (unit >= 0x80 || !Character.isWhitespace(unit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A printable ASCII non-digit survives StringUtils.trim and fails StringUtils.isNumeric
+    private static boolean cannotBeNumber(Units units, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int unit = units.at(i);
+            if (unit > ' ' && unit < 0x80 && (unit < '0' || unit > '9')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package app.service;
+
+/**
+ * Receives how far a single-file operation has got. Called on the thread doing the work, every few hundred cues.
+ * Throwing {@link java.util.concurrent.CancellationException} from it aborts the operation; partially written
+ * output is then removed as for any other failure.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    ProgressListener NONE = fraction -> {
+    };
+
+    /**
+     * @param fraction share of the input consumed so far, from 0 to 1, or negative when the input size is unknown
+     */
+    void onProgress(double fraction);
+}
@@ -0,0 +1,346 @@
+package app.service;
+
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of operation results on disk, which any number of processes may share. An entry is keyed
+ * by a SHA-256 over the input bytes and a description of the operation, its parameters and formats, so a renamed
+ * or copied input still hits while any change to its content misses. Each entry holds files by role, e.g. the
+ * output and the changes log, plus a few numbers such as the cleaning counts.
+ * <p>
+ * Entries live in {@code <root>/v1/entries/<first two hex digits>/<key>/}. They are assembled under
+ * {@code <root>/v1/tmp} and published with an atomic rename, so an entry that can be seen is complete and
+ * concurrent writers of the same key simply lose the race; evicted entries are renamed away before they are
+ * deleted. An entry's modification time is its last use, touched on every hit: once the cache outgrows its bound,
+ * the least recently used entries go until it is back under {@value #EVICTION_TARGET_PERCENT}% of it.
+ * <p>
+ * Hits are hard-linked into place where the file system allows it and copied otherwise. Each cached file's size and
+ * modification time are recorded with the entry, so one edited in place through a link is noticed and dropped.
+ * Failures of the cache itself are logged and treated as misses: it must never break an operation.
+ */
+@Log
+public class ResultCache {
+
+    // Part of every key; bump it whenever any output or changes log would be written differently
+    static final String VERSION = "v1";
+
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final int EVICTION_TARGET_PERCENT = 90;
+    // Assembly directories left behind by a crashed process are removed once this old
+    private static final Duration ABANDONED_AFTER = Duration.ofHours(1);
+    private static final String METADATA = "entry.properties";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path entries;
+    private final Path temporary;
+    private final long maxBytes;
+    // Bytes in use as this process believes; negative until first measured. Other processes make it drift, which
+    // the next eviction scan corrects
+    private final AtomicLong usedBytes = new AtomicLong(-1);
+
+    public ResultCache(Path root, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, got: " + maxBytes);
+        }
+        this.entries = root.resolve(VERSION).resolve("entries");
+        this.temporary = root.resolve(VERSION).resolve("tmp");
+        this.maxBytes = maxBytes;
+    }
+
+    public record Key(String hash) {
+
+        @Override
+        public String toString() {
+            return hash;
+        }
+    }
+
+    /**
+     * Hashes the input's bytes together with the description, which must name the operation and everything else
+     * its results depend on.
+     */
+    public Key key(Path input, String description) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update((VERSION + '\n' + description + '\n').getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+        }
+        return new Key(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every Java platform", e);
+        }
+    }
+
+    /**
+     * Puts the entry's files in place of the targets with the same roles, replacing what is there.
+     *
+     * @return the entry's numbers, or empty on a miss — including an entry with a role the targets lack or a
+     * cached file that was changed; only a failure while linking leaves some targets replaced already
+     */
+    public Optional<Map<String, Long>> restore(Key key, Map<String, Path> targets) {
+        Path entry = entryDirectory(key);
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(entry.resolve(METADATA))) {
+            metadata.load(in);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            log.log(Level.WARNING, "Dropping unreadable cache entry: " + entry, e);
+            remove(entry);
+            return Optional.empty();
+        }
+
+        try {
+            Map<String, Long> values = new HashMap<>();
+            Map<Path, Path> links = new HashMap<>();
+            for (String name : metadata.stringPropertyNames()) {
+                if (name.startsWith("value.")) {
+                    values.put(name.substring("value.".length()), Long.parseLong(metadata.getProperty(name)));
+                } else if (name.startsWith("file.") && name.endsWith(".size")) {
+                    String role = name.substring("file.".length(), name.length() - ".size".length());
+                    Path target = targets.get(role);
+                    if (target == null) {
+                        return Optional.empty();
+                    }
+                    Path cached = entry.resolve(role);
+                    if (!isUnchanged(cached, metadata, role)) {
+                        log.warning(() -> "Dropping cache entry whose %s was modified: %s".formatted(role, entry));
+                        remove(entry);
+                        return Optional.empty();
+                    }
+                    links.put(cached, target);
+                }
+            }
+            for (Map.Entry<Path, Path> link : links.entrySet()) {
+                linkOrCopy(link.getKey(), link.getValue());
+            }
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+            return Optional.of(values);
+        } catch (NoSuchFileException e) {
+            // Evicted by another process meanwhile
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            log.log(Level.WARNING, "Failed to restore cache entry: " + entry, e);
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isUnchanged(Path cached, Properties metadata, String role) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(cached, BasicFileAttributes.class);
+        return attributes.size() == Long.parseLong(metadata.getProperty("file." + role + ".size"))
+                && attributes.lastModifiedTime().toMillis() == Long.parseLong(metadata.getProperty("file." + role + ".modified"));
+    }
+
+    /**
+     * Records the files, by role, and numbers as the entry for the key, unless another process got there first.
+     * The files are linked into the cache where possible, so they must not be changed in place afterwards.
+     */
+    public void store(Key key, Map<String, Path> files, Map<String, Long> values) {
+        Path assembly = null;
+        try {
+            Files.createDirectories(temporary);
+            assembly = Files.createTempDirectory(temporary, key.hash() + "-");
+            Properties metadata = new Properties();
+            long size = 0;
+            for (Map.Entry<String, Path> file : files.entrySet()) {
+                Path cached = assembly.resolve(file.getKey());
+                linkOrCopy(file.getValue(), cached);
+                BasicFileAttributes attributes = Files.readAttributes(cached, BasicFileAttributes.class);
+                metadata.setProperty("file." + file.getKey() + ".size", Long.toString(attributes.size()));
+                metadata.setProperty("file." + file.getKey() + ".modified",
+                        Long.toString(attributes.lastModifiedTime().toMillis()));
+                size += attributes.size();
+            }
+            values.forEach((name, value) -> metadata.setProperty("value." + name, Long.toString(value)));
+            try (OutputStream out = Files.newOutputStream(assembly.resolve(METADATA))) {
+                metadata.store(out, null);
+            }
+
+            Path entry = entryDirectory(key);
+            Files.createDirectories(entry.getParent());
+            try {
+                Files.move(assembly, entry, StandardCopyOption.ATOMIC_MOVE);
+                assembly = null;
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                return;
+            }
+            if (usedBytes.get() < 0 || usedBytes.addAndGet(size) > maxBytes) {
+                evict();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.log(Level.WARNING, "Failed to store cache entry " + key, e);
+        } finally {
+            if (assembly != null) {
+                deleteRecursively(assembly);
+            }
+        }
+    }
+
+    Path entryDirectory(Key key) {
+        return entries.resolve(key.hash().substring(0, 2)).resolve(key.hash());
+    }
+
+    // Through a temporary sibling, so the target is replaced in one step and never seen half-copied
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        Path staging = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try {
+                Files.createLink(staging, source);
+            } catch (NoSuchFileException e) {
+                throw e;
+            } catch (UnsupportedOperationException | IOException e) {
+                // Another file system, or one without hard links
+                Files.copy(source, staging);
+            }
+            SrtWriter.moveIntoPlace(staging, target);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    /**
+     * Measures the cache and, when it is over its bound, removes the least recently used entries. Also clears
+     * assembly directories abandoned by crashed processes.
+     */
+    synchronized void evict() {
+        List<EntryUsage> usages = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> shards = list(entries)) {
+            for (Path shard : (Iterable<Path>) shards::iterator) {
+                try (Stream<Path> entriesOfShard = list(shard)) {
+                    for (Path entry : (Iterable<Path>) entriesOfShard::iterator) {
+                        EntryUsage usage = usage(entry);
+                        usages.add(usage);
+                        total += usage.bytes();
+                    }
+                }
+            }
+        }
+
+        long target = (long) (maxBytes * (EVICTION_TARGET_PERCENT / 100.0));
+        if (total > maxBytes) {
+            usages.sort(Comparator.comparing(EntryUsage::lastUsed));
+            for (EntryUsage usage : usages) {
+                if (total <= target) {
+                    break;
+                }
+                remove(usage.entry());
+                total -= usage.bytes();
+            }
+        }
+        usedBytes.set(total);
+        removeAbandonedAssemblies();
+    }
+
+    private record EntryUsage(Path entry, FileTime lastUsed, long bytes) {
+    }
+
+    private static EntryUsage usage(Path entry) {
+        long bytes = 0;
+        FileTime lastUsed = FileTime.fromMillis(0);
+        try {
+            lastUsed = Files.getLastModifiedTime(entry);
+            try (Stream<Path> files = list(entry)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    bytes += Files.size(file);
+                }
+            }
+        } catch (IOException e) {
+            // Removed meanwhile: counts as empty and long unused
+        }
+        return new EntryUsage(entry, lastUsed, bytes);
+    }
+
+    private void removeAbandonedAssemblies() {
+        Instant cutoff = Instant.now().minus(ABANDONED_AFTER);
+        try (Stream<Path> assemblies = list(temporary)) {
+            for (Path assembly : (Iterable<Path>) assemblies::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(assembly).toInstant().isBefore(cutoff)) {
+                        deleteRecursively(assembly);
+                    }
+                } catch (IOException e) {
+                    // Removed meanwhile
+                }
+            }
+        }
+    }
+
+    // Renamed out of the entries first, so no reader ever finds it half deleted
+    private void remove(Path entry) {
+        try {
+            Files.createDirectories(temporary);
+            Path doomed = temporary.resolve("evicted-" + UUID.randomUUID());
+            Files.move(entry, doomed, StandardCopyOption.ATOMIC_MOVE);
+            deleteRecursively(doomed);
+        } catch (NoSuchFileException e) {
+            // Already removed by another process
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to remove cache entry: " + entry, e);
+        }
+    }
+
+    private static Stream<Path> list(Path directory) {
+        try {
+            return Files.list(directory);
+        } catch (NoSuchFileException e) {
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException | UncheckedIOException e) {
+            log.log(Level.WARNING, "Failed to delete cache directory: " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package app.service;
+
+import app.service.CleaningRule.Kind;
+import app.service.CleaningRule.Target;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Rule packs compiled once into three matchers, so a cue costs the same few passes however many rules are loaded:
+ * spam keywords go into one {@link KeywordAutomaton}, and spam regexes and speaker regexes each into one alternation
+ * with a capturing group per rule that tells which rule matched. The engine is immutable and shared by every
+ * cleaning pass and thread; hits are counted per pass in a {@link Hits}.
+ * <p>
+ * Rules are reported as {@code pack/id}. A spam removal counts towards the one rule whose match starts first in the
+ * text, however the matches overlap; a longer keyword wins a tie with a shorter one, a keyword wins a tie with a
+ * regex, and between regexes the one loaded first.
+ */
+public final class RuleEngine {
+
+    private static final int NO_RULE = -1;
+
+    private final List<String> ruleIds;
+    private final KeywordAutomaton spamKeywords;
+    private final int[] spamKeywordRules;
+    private final RegexAlternation spamRegexes;
+    private final RegexAlternation speakerRegexes;
+    private final String fingerprint;
+
+    private RuleEngine(List<RulePack> packs) {
+        List<String> ids = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordRules = new ArrayList<>();
+        List<CleaningRule> spamRegexRules = new ArrayList<>();
+        List<Integer> spamRegexIndexes = new ArrayList<>();
+        List<CleaningRule> speakerRules = new ArrayList<>();
+        List<Integer> speakerIndexes = new ArrayList<>();
+        StringBuilder canonical = new StringBuilder();
+        Set<String> names = new HashSet<>();
+
+        for (RulePack pack : packs) {
+            if (!names.add(pack.name())) {
+                throw new IllegalArgumentException("Rule pack loaded twice: " + pack.name());
+            }
+            for (CleaningRule rule : pack.rules()) {
+                int index = ids.size();
+                ids.add(pack.name() + "/" + rule.id());
+                if (rule.target() == Target.SPEAKER) {
+                    speakerRules.add(rule);
+                    speakerIndexes.add(index);
+                } else if (rule.kind() == Kind.KEYWORD) {
+                    keywords.add(rule.pattern());
+                    keywordRules.add(index);
+                } else {
+                    spamRegexRules.add(rule);
+                    spamRegexIndexes.add(index);
+                }
+                canonical.append(ids.get(index)).append('\t').append(rule.target()).append('\t')
+                        .append(rule.kind()).append('\t').append(rule.pattern()).append('\n');
+            }
+        }
+
+        this.ruleIds = List.copyOf(ids);
+        this.spamKeywords = new KeywordAutomaton(keywords);
+        this.spamKeywordRules = keywordRules.stream().mapToInt(Integer::intValue).toArray();
+        this.spamRegexes = RegexAlternation.of(spamRegexRules, spamRegexIndexes);
+        this.speakerRegexes = RegexAlternation.of(speakerRules, speakerIndexes);
+        this.fingerprint = sha256(canonical.toString());
+    }
+
+    /**
+     * Compiles the packs in order. Fails on a pack given twice and on regexes that cannot share one pattern,
+     * e.g. two rules declaring the same named group.
+     */
+    public static RuleEngine compile(List<RulePack> packs) {
+        return new RuleEngine(packs);
+    }
+
+    /** The bundled {@code default} pack, compiled on first use. */
+    public static RuleEngine defaultEngine() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /** {@code pack/id} of every rule, in load order. */
+    public List<String> ruleIds() {
+        return ruleIds;
+    }
+
+    /** Hash of the compiled rules; equal for engines that clean identically. */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public Hits newHits() {
+        return new Hits();
+    }
+
+    public boolean isSpam(CharSequence text) {
+        return spamRule(text) != NO_RULE;
+    }
+
+    /**
+     * Index into {@link #ruleIds()} of the spam rule that matches the text, or -1 when it is clean.
+     */
+    public int spamRule(CharSequence text) {
+        KeywordAutomaton.Match keyword = spamKeywords.isEmpty() ? null : spamKeywords.firstMatch(text);
+        if (spamRegexes == null) {
+            return keyword == null ? NO_RULE : spamKeywordRules[keyword.keyword()];
+        }
+        Matcher matcher = spamRegexes.pattern().matcher(text);
+        if (matcher.find() && (keyword == null || matcher.start() < keyword.start())) {
+            return spamRegexes.matchedRule(matcher);
+        }
+        return keyword == null ? NO_RULE : spamKeywordRules[keyword.keyword()];
+    }
+
+    /**
+     * Strips a speaker label from the start of each line — after a dialog dash and an opening italic tag — and
+     * counts each strip. Returns {@code text} itself when no rule matched.
+     */
+    public String stripSpeakerLabels(String text, Hits hits) {
+        if (speakerRegexes == null) {
+            return text;
+        }
+        Matcher matcher = speakerRegexes.pattern().matcher(text);
+        StringBuilder result = null;
+        int copied = 0;
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int labelStart = labelStart(text, lineStart, lineEnd);
+            matcher.region(labelStart, lineEnd);
+            if (matcher.lookingAt() && matcher.end() > labelStart) {
+                hits.record(speakerRegexes.matchedRule(matcher));
+                if (result == null) {
+                    result = new StringBuilder(text.length());
+                }
+                result.append(text, copied, labelStart);
+                copied = matcher.end();
+            }
+            lineStart = lineEnd + 1;
+        }
+        return result == null ? text : result.append(text, copied, text.length()).toString();
+    }
+
+    // Past "-", the whitespace after it and "<i>"
+    private static int labelStart(String text, int lineStart, int lineEnd) {
+        int p = lineStart;
+        if (p < lineEnd && text.charAt(p) == '-') {
+            p++;
+            while (p < lineEnd && Character.isWhitespace(text.charAt(p))) {
+                p++;
+            }
+        }
+        if (text.startsWith("<i>", p) && p + 3 <= lineEnd) {
+            p += 3;
+        }
+        return p;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Hit counters of one cleaning pass. Not thread-safe: each pass owns its own.
+     */
+    public final class Hits {
+
+        private final int[] counts = new int[ruleIds.size()];
+
+        public void record(int rule) {
+            counts[rule]++;
+        }
+
+        /** Rules that matched at least once, in load order. */
+        public Map<String, Integer> toMap() {
+            Map<String, Integer> hits = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    hits.put(ruleIds.get(i), counts[i]);
+                }
+            }
+            return Collections.unmodifiableMap(hits);
+        }
+    }
+
+    /**
+     * Regex rules joined as {@code (r1)|(r2)|...}. Each rule's own groups follow its wrapping group, so the wrapping
+     * groups' numbers are worked out from the rules' group counts.
+     */
+    private record RegexAlternation(Pattern pattern, int[] groups, int[] rules) {
+
+        static RegexAlternation of(List<CleaningRule> regexRules, List<Integer> ruleIndexes) {
+            if (regexRules.isEmpty()) {
+                return null;
+            }
+            StringBuilder alternation = new StringBuilder();
+            int[] groups = new int[regexRules.size()];
+            int group = 1;
+            for (int i = 0; i < regexRules.size(); i++) {
+                String regex = regexRules.get(i).pattern();
+                if (i > 0) {
+                    alternation.append('|');
+                }
+                alternation.append('(').append(regex).append(')');
+                groups[i] = group;
+                group += 1 + Pattern.compile(regex).matcher("").groupCount();
+            }
+            try {
+                return new RegexAlternation(Pattern.compile(alternation.toString()), groups,
+                        ruleIndexes.stream().mapToInt(Integer::intValue).toArray());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Regex rules cannot be combined: " + e.getDescription());
+            }
+        }
+
+        int matchedRule(Matcher matcher) {
+            for (int i = 0; i < groups.length; i++) {
+                if (matcher.start(groups[i]) >= 0) {
+                    return rules[i];
+                }
+            }
+            throw new IllegalStateException("Match without a rule group");
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final RuleEngine INSTANCE = load();
+
+        private static RuleEngine load() {
+            try {
+                return compile(List.of(RulePack.bundled("default")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
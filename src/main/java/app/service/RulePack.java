@@ -0,0 +1,151 @@
+package app.service;
+
+import app.service.CleaningRule.Kind;
+import app.service.CleaningRule.Target;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Named list of cleaning rules, read from a UTF-8 {@code .rules} file with one rule per line:
+ * <pre>
+ * # comment
+ * spam    keyword  synced-by  Synced by
+ * spam    regex    url        (?:https?://|www\.)\S+
+ * speaker regex    narrator   Narrator:\s*
+ * </pre>
+ * Each line holds the target, the kind and the id, separated by whitespace; the rest of the line is the pattern.
+ * Speaker rules must be regexes. Packs are only read and checked here — {@link RuleEngine} compiles them.
+ */
+public record RulePack(String name, List<CleaningRule> rules) {
+
+    /** Packs shipped in the jar under {@code rules/}; {@code default} is the one used when none is chosen. */
+    public static final List<String> BUNDLED = List.of("default", "de", "en", "es", "fr", "pl", "watermarks");
+    public static final String EXTENSION = ".rules";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("\\s+");
+
+    public RulePack {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid rule pack name: " + name);
+        }
+        rules = List.copyOf(rules);
+    }
+
+    /**
+     * A bundled pack name, or the path of a {@code .rules} file.
+     */
+    public static RulePack resolve(String nameOrPath) throws IOException {
+        if (nameOrPath.endsWith(EXTENSION) || nameOrPath.indexOf('/') >= 0 || nameOrPath.indexOf('\\') >= 0) {
+            return load(Path.of(nameOrPath));
+        }
+        return bundled(nameOrPath);
+    }
+
+    public static RulePack bundled(String name) throws IOException {
+        if (!BUNDLED.contains(name)) {
+            throw new IllegalArgumentException("Unknown rule pack: " + name + " (bundled: " + String.join(", ", BUNDLED) + ")");
+        }
+        try (InputStream in = RulePack.class.getResourceAsStream("/rules/" + name + EXTENSION)) {
+            if (in == null) {
+                throw new IOException("Bundled rule pack is missing: " + name);
+            }
+            return parse(name, new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Reads a pack named after the file, without its {@code .rules} extension.
+     */
+    public static RulePack load(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(name, reader);
+        }
+    }
+
+    public static RulePack parse(String name, Reader reader) throws IOException {
+        List<CleaningRule> rules = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String where = name + EXTENSION + ":" + lineNumber + ": ";
+            String[] fields = FIELD_SEPARATOR.split(trimmed, 4);
+            if (fields.length < 4) {
+                throw new IllegalArgumentException(where + "expected '<target> <kind> <id> <pattern>'");
+            }
+            Target target = parseTarget(fields[0], where);
+            Kind kind = parseKind(fields[1], where);
+            String id = fields[2];
+            String pattern = fields[3];
+            if (!NAME.matcher(id).matches()) {
+                throw new IllegalArgumentException(where + "invalid rule id: " + id);
+            }
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException(where + "duplicate rule id: " + id);
+            }
+            if (kind == Kind.REGEX) {
+                checkRegex(pattern, where);
+            } else if (target == Target.SPEAKER) {
+                throw new IllegalArgumentException(where + "speaker rules must be regexes");
+            }
+            rules.add(new CleaningRule(id, target, kind, pattern));
+        }
+        return new RulePack(name, rules);
+    }
+
+    private static Target parseTarget(String value, String where) {
+        try {
+            return Target.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + "unknown target: " + value + " (expected spam or speaker)");
+        }
+    }
+
+    private static Kind parseKind(String value, String where) {
+        try {
+            return Kind.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + "unknown kind: " + value + " (expected keyword or regex)");
+        }
+    }
+
+    // Rules are merged into one alternation, where a numbered back reference would point at another rule's group
+    private static void checkRegex(String regex, String where) {
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException(where + "invalid regex: " + e.getDescription());
+        }
+        for (int i = 0; i < regex.length() - 1; i++) {
+            if (regex.charAt(i) == '\\') {
+                char escaped = regex.charAt(++i);
+                if (escaped >= '1' && escaped <= '9') {
+                    throw new IllegalArgumentException(where + "numbered back references are not supported, use \\k<name>");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package app.service;
+
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Hand-written SDH recogniser. Each rule below is a direct scanner for what used to be a regex
+ * (the original pattern is quoted next to it), so a line is classified and cleaned in a few linear passes
+ * without {@code java.util.regex} and without splitting the cue text into arrays and lists.
+ * <p>
+ * "Whitespace" inside the rules means the ASCII set {@code [ \t\n\x0B\f\r]}, as {@code \s} did.
+ */
+@UtilityClass
+class SdhScanner {
+
+    private static final char MUSIC_NOTE = '♪';
+    private static final String ITALIC_OPEN = "<i>";
+    private static final String ITALIC_CLOSE = "</i>";
+
+    /**
+     * Cleans a whole cue text line by line. Returns the remaining text — empty when nothing but SDH was left.
+     */
+    public String cleanText(String text) {
+        // Both joins are built side by side: dash prefixes are restored only when more than one line survives
+        StringBuilder withDashes = new StringBuilder(text.length());
+        StringBuilder withoutDashes = new StringBuilder(text.length());
+        int kept = 0;
+
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int dashEnd = dashPrefixEnd(text, lineStart, lineEnd);
+            String processed = processLine(text.substring(dashEnd, lineEnd));
+            if (StringUtils.isNotBlank(processed)) {
+                if (kept++ > 0) {
+                    withDashes.append('\n');
+                    withoutDashes.append('\n');
+                }
+                withDashes.append(text, lineStart, dashEnd).append(processed);
+                withoutDashes.append(processed);
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        return (kept > 1 ? withDashes : withoutDashes).toString();
+    }
+
+    // ^-\s*
+    private int dashPrefixEnd(String text, int lineStart, int lineEnd) {
+        if (lineStart < lineEnd && text.charAt(lineStart) == '-') {
+            return Math.min(skipWhitespace(text, lineStart + 1), lineEnd);
+        }
+        return lineStart;
+    }
+
+    private String processLine(String withoutDash) {
+        if (isOnlySdhContent(withoutDash)) {
+            return "";
+        }
+
+        String cleaned = cleanLine(withoutDash);
+
+        // Cleaning may leave residual SDH (e.g. decorative ♪♪, an uppercase [SOUND] after speaker strip) — drop those too
+        if (isOnlySdhContent(cleaned)) {
+            return "";
+        }
+
+        return cleaned;
+    }
+
+    public boolean isOnlySdhContent(String line) {
+        String cleaned = removeItalicTags(line).trim();
+
+        if (StringUtils.isBlank(cleaned)) {
+            return true;
+        }
+
+        // Quoted text indicates song info (title/lyrics), not SDH — never strip those entries
+        if (cleaned.indexOf('"') >= 0) {
+            return false;
+        }
+
+        return isSoundDescriptionInParens(cleaned)
+                || isSoundDescriptionInBrackets(cleaned)
+                || isOnlyMusicSymbols(cleaned);
+    }
+
+    /**
+     * {@code ^\s*\(?\s*\([^)]+\)\s*\)?\s*$} on a trimmed line. Optional outer ( ) tolerate real-world malformed SDH
+     * like "( CRYING )" wrapped in extra parens or "(MUSIC ♪))". On a trimmed line this reduces to: opens with '(',
+     * the first ')' encloses at least one char, and at most one more ')' follows, with only whitespace around it.
+     */
+    private boolean isSoundDescriptionInParens(String line) {
+        if (line.charAt(0) != '(') {
+            return false;
+        }
+        int close = line.indexOf(')', 1);
+        if (close < 2) {
+            return false;
+        }
+        int p = skipWhitespace(line, close + 1);
+        if (p < line.length() && line.charAt(p) == ')') {
+            p = skipWhitespace(line, p + 1);
+        }
+        return p == line.length();
+    }
+
+    // ^\s*\[\s*[^]]+\s*]\s*$ on a trimmed line: '[', at least one char, then the first ']' ends the line
+    private boolean isSoundDescriptionInBrackets(String line) {
+        if (line.charAt(0) != '[') {
+            return false;
+        }
+        int close = line.indexOf(']', 1);
+        return close >= 2 && skipWhitespace(line, close + 1) == line.length();
+    }
+
+    // ^[\s♪]+$
+    private boolean isOnlyMusicSymbols(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c != MUSIC_NOTE && !isWhitespace(c)) {
+                return false;
+            }
+        }
+        return !line.isEmpty();
+    }
+
+    public String cleanLine(String line) {
+        // Process italic-wrapped lines transparently so patterns can match the inner text.
+        // Only trim/rewrap when something actually changed, otherwise preserve original whitespace.
+        if (isItalicWrapped(line)) {
+            String originalInner = line.substring(ITALIC_OPEN.length(), line.length() - ITALIC_CLOSE.length());
+            String cleanedInner = applyPatterns(originalInner);
+            if (cleanedInner.equals(originalInner)) {
+                return line;
+            }
+            String trimmed = cleanedInner.trim();
+            return trimmed.isBlank() ? "" : ITALIC_OPEN + trimmed + ITALIC_CLOSE;
+        }
+        return applyPatterns(line).trim();
+    }
+
+    // ^<i>(.*)</i>$ — '.' does not cross line terminators
+    private boolean isItalicWrapped(String line) {
+        int innerEnd = line.length() - ITALIC_CLOSE.length();
+        if (innerEnd < ITALIC_OPEN.length() || !line.startsWith(ITALIC_OPEN) || !line.endsWith(ITALIC_CLOSE)) {
+            return false;
+        }
+        for (int i = ITALIC_OPEN.length(); i < innerEnd; i++) {
+            if (isLineTerminator(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String applyPatterns(String line) {
+        // Remove speaker names (re-apply uppercase pattern after bracket speaker for chained labels like "[GIRL] MARY:")
+        int start = speakerNameEnd(line, 0);
+        start = bracketSpeakerNameEnd(line, start);
+        start = speakerNameEnd(line, start);
+
+        // Remove sound descriptions in parens and brackets, gating each occurrence on song info.
+        // The bracket pass runs over the paren pass output, as the chained replaceAll calls did.
+        String result = replaceSoundsInParens(line, start);
+        return replaceMidLineSoundBrackets(result);
+    }
+
+    /**
+     * {@code ^\p{Lu}[\p{Lu}\d\s#.'&-]+(?:\([^)]+\))?:\s*} anchored at {@code from}.
+     * Returns the position past the label, or {@code from} when there is none.
+     */
+    private int speakerNameEnd(String line, int from) {
+        int length = line.length();
+        if (from >= length || !isUppercaseLetter(line.codePointAt(from))) {
+            return from;
+        }
+        int runStart = from + Character.charCount(line.codePointAt(from));
+        int p = runStart;
+        while (p < length) {
+            int codePoint = line.codePointAt(p);
+            if (!isSpeakerNameChar(codePoint)) {
+                break;
+            }
+            p += Character.charCount(codePoint);
+        }
+        if (p == runStart || p == length) {
+            return from;
+        }
+        // The name run cannot contain '(' or ':', so backtracking into it never helps
+        if (line.charAt(p) == '(') {
+            int close = line.indexOf(')', p + 1);
+            if (close < p + 2) {
+                return from;
+            }
+            p = close + 1;
+        }
+        if (p < length && line.charAt(p) == ':') {
+            return skipWhitespace(line, p + 1);
+        }
+        return from;
+    }
+
+    // ^\[([^]]+)]\s*:?\s* anchored at from, kept when the label carries song info
+    private int bracketSpeakerNameEnd(String line, int from) {
+        if (from >= line.length() || line.charAt(from) != '[') {
+            return from;
+        }
+        int close = line.indexOf(']', from + 1);
+        if (close < from + 2 || line.indexOf('"', from + 1, close) >= 0) {
+            return from;
+        }
+        int p = skipWhitespace(line, close + 1);
+        if (p < line.length() && line.charAt(p) == ':') {
+            p = skipWhitespace(line, p + 1);
+        }
+        return p;
+    }
+
+    /**
+     * {@code \s*\([^)]+\)\s*} replaced by a single space, scanning {@code line} from {@code start}.
+     * Occurrences containing a quote are kept as they are.
+     */
+    private String replaceSoundsInParens(String line, int start) {
+        int length = line.length();
+        StringBuilder result = null;
+        int copied = start;
+        int p = start;
+        while (p < length) {
+            int open = skipWhitespace(line, p);
+            if (open == length) {
+                break;
+            }
+            if (line.charAt(open) != '(') {
+                p = open + 1;
+                continue;
+            }
+            int close = line.indexOf(')', open + 1);
+            if (close < 0) {
+                // No ')' left, so no later occurrence can match either
+                break;
+            }
+            if (close == open + 1) {
+                p = open + 1;
+                continue;
+            }
+            int end = skipWhitespace(line, close + 1);
+            if (line.indexOf('"', open + 1, close) < 0) {
+                if (result == null) {
+                    result = new StringBuilder(length);
+                }
+                result.append(line, copied, p).append(' ');
+                copied = end;
+            }
+            p = end;
+        }
+        return finish(line, start, copied, result);
+    }
+
+    // \s*\[([a-z][^]]*)]\s* replaced by a single space; occurrences whose label contains a quote are kept
+    private String replaceMidLineSoundBrackets(String line) {
+        int length = line.length();
+        StringBuilder result = null;
+        int copied = 0;
+        int p = 0;
+        while (p < length) {
+            int open = skipWhitespace(line, p);
+            if (open == length) {
+                break;
+            }
+            if (line.charAt(open) != '[' || open + 1 == length || !isLowercaseAscii(line.charAt(open + 1))) {
+                p = open + 1;
+                continue;
+            }
+            int close = line.indexOf(']', open + 2);
+            if (close < 0) {
+                break;
+            }
+            int end = skipWhitespace(line, close + 1);
+            if (line.indexOf('"', open + 1, close) < 0) {
+                if (result == null) {
+                    result = new StringBuilder(length);
+                }
+                result.append(line, copied, p).append(' ');
+                copied = end;
+            }
+            p = end;
+        }
+        return finish(line, 0, copied, result);
+    }
+
+    private String finish(String line, int start, int copied, StringBuilder result) {
+        if (result == null) {
+            return start == 0 ? line : line.substring(start);
+        }
+        return result.append(line, copied, line.length()).toString();
+    }
+
+    // </?i> removed everywhere
+    private String removeItalicTags(String text) {
+        int tag = text.indexOf('<');
+        if (tag < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        int copied = 0;
+        while (tag >= 0) {
+            int tagLength = text.startsWith(ITALIC_OPEN, tag) ? ITALIC_OPEN.length()
+                    : text.startsWith(ITALIC_CLOSE, tag) ? ITALIC_CLOSE.length()
+                    : 0;
+            if (tagLength > 0) {
+                result.append(text, copied, tag);
+                copied = tag + tagLength;
+            }
+            tag = text.indexOf('<', tag + Math.max(tagLength, 1));
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    private int skipWhitespace(String line, int from) {
+        int p = from;
+        while (p < line.length() && isWhitespace(line.charAt(p))) {
+            p++;
+        }
+        return p;
+    }
+
+    private boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private boolean isLowercaseAscii(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private boolean isUppercaseLetter(int codePoint) {
+        return Character.getType(codePoint) == Character.UPPERCASE_LETTER;
+    }
+
+    private boolean isSpeakerNameChar(int codePoint) {
+        return isUppercaseLetter(codePoint)
+                || (codePoint >= '0' && codePoint <= '9')
+                || (codePoint < 128 && isWhitespace((char) codePoint))
+                || "#.'&-".indexOf(codePoint) >= 0;
+    }
+}
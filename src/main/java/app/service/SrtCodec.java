@@ -0,0 +1,56 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * SubRip, the format everything else is converted through. Reading is {@link SrtReader}; files are written by
+ * {@link SrtWriter} straight to bytes, this writer serves callers that hand over a character stream.
+ */
+public class SrtCodec implements SubtitleCodec {
+
+    @Override
+    public String name() {
+        return "srt";
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("srt");
+    }
+
+    // A cue number line followed by a timeline
+    @Override
+    public boolean recognizes(String head) {
+        String[] lines = StringUtils.stripStart(head, "\uFEFF \t\r\n").split("\r?\n|\r", 3);
+        return lines.length >= 2 && StringUtils.isNumeric(lines[0].strip()) && lines[1].contains("-->");
+    }
+
+    @Override
+    public CueReader newReader(Reader input, CodecOptions options) {
+        return new SrtReader(input);
+    }
+
+    @Override
+    public CueWriter newWriter(Writer output, CodecOptions options) {
+        char[] head = new char[SrtWriter.HEAD_CAPACITY];
+        return new CueWriter() {
+            @Override
+            public void write(SubtitleEntry entry) throws IOException {
+                output.write(head, 0, SrtWriter.writeHead(entry, head));
+                output.write(entry.text());
+                output.write("\n\n");
+            }
+
+            @Override
+            public void finish() throws IOException {
+                output.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package app.service;
+
+import app.exception.InvalidSubtitleException;
+import app.model.SubtitleEntry;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based SRT parser: reads one cue block per {@link #next()} call, so memory use does not grow with the file.
+ * Follows the same rules as the original list-based parser — a numeric line starts a block, the line after it is
+ * the timeline and text runs until the next blank line. I/O failures surface as {@link UncheckedIOException}.
+ * <p>
+ * Lines come either from a {@link Reader} or, via {@link #of(ByteBuffer, Charset)}, straight from file bytes.
+ * Invalid cues are reported with the line their block starts on.
+ */
+public class SrtReader implements CueReader {
+
+    /**
+     * Where the parser pulls lines from: a line without its terminator, or {@code null} at the end of input.
+     */
+    interface LineSource extends Closeable {
+        String readLine() throws IOException;
+
+        /**
+         * Share of the input consumed so far, or negative when the total is unknown.
+         */
+        default double progress() {
+            return -1;
+        }
+    }
+
+    // Entries between two progress reports
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private final LineSource lines;
+    private ProgressListener progressListener = ProgressListener.NONE;
+    private int entriesSinceProgress;
+    private boolean firstLine;
+    private int lineNumber;
+    private SubtitleEntry nextEntry;
+    private boolean exhausted;
+
+    public SrtReader(Reader reader) {
+        this(readerLines(reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader)));
+    }
+
+    SrtReader(LineSource lines) {
+        this(lines, true);
+    }
+
+    /**
+     * @param startOfInput whether the lines begin the input, i.e. may start with a byte order mark; false for
+     *                     the later chunks of a split input
+     */
+    SrtReader(LineSource lines, boolean startOfInput) {
+        this.lines = lines;
+        this.firstLine = startOfInput;
+    }
+
+    /**
+     * Parses file content that is already in memory. UTF-8 and single-byte codepages are scanned for line breaks
+     * directly on the bytes; any other charset is decoded in one go first.
+     *
+     * @throws CharacterCodingException when a multi-byte charset cannot decode the content
+     */
+    public static SrtReader of(ByteBuffer content, Charset charset) throws IOException {
+        if (ByteLineReader.supports(charset)) {
+            return new SrtReader(new ByteLineReader(content, charset));
+        }
+        CharBuffer chars = charset.newDecoder().decode(content.duplicate());
+        return new SrtReader(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+    }
+
+    static LineSource readerLines(BufferedReader reader) {
+        return new LineSource() {
+            @Override
+            public String readLine() throws IOException {
+                return reader.readLine();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntry == null && !exhausted) {
+            nextEntry = readEntry();
+            exhausted = nextEntry == null;
+        }
+        return nextEntry != null;
+    }
+
+    /**
+     * Reports progress to the listener every few hundred entries; the listener may abort parsing by throwing.
+     */
+    @Override
+    public SrtReader withProgress(ProgressListener listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    @Override
+    public SubtitleEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SubtitleEntry entry = nextEntry;
+        nextEntry = null;
+        if (++entriesSinceProgress == PROGRESS_INTERVAL) {
+            entriesSinceProgress = 0;
+            progressListener.onProgress(lines.progress());
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lines.close();
+    }
+
+    /**
+     * How many lines have been consumed so far.
+     */
+    int linesRead() {
+        return lineNumber;
+    }
+
+    private SubtitleEntry readEntry() {
+        String line;
+        while ((line = readLine()) != null) {
+            line = StringUtils.trim(line);
+
+            // Handle BOM
+            if (firstLine) {
+                firstLine = false;
+                if (StringUtils.isNotEmpty(line) && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+            }
+
+            if (StringUtils.isNumeric(line)) {
+                int blockLine = lineNumber;
+                int index = Integer.parseInt(line);
+                String timeLine = StringUtils.trim(readLine());
+                StringBuilder text = new StringBuilder();
+                String textLine;
+                while ((textLine = readLine()) != null && StringUtils.isNotBlank(textLine)) {
+                    text.append(textLine).append("\n");
+                }
+                try {
+                    return SubtitleEntry.parse(index, timeLine, StringUtils.trim(text.toString()));
+                } catch (InvalidSubtitleException e) {
+                    throw e.atLine(blockLine);
+                }
+            }
+        }
+        return null;
+    }
+
+    private String readLine() {
+        try {
+            String line = lines.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+import app.model.TimestampCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Push-based SRT writer, the counterpart of {@link SrtReader}: encodes each cue as UTF-8 straight into one reusable
+ * buffer — cue numbers and timestamps digit by digit, text char by char — and hands the buffer to the channel only
+ * when it fills up, so writing allocates nothing per cue. Blocks are separated by a blank line and the output ends
+ * with one, as the other writers in this package do.
+ * <p>
+ * Writes to any {@link WritableByteChannel} or {@link OutputStream}. {@link #toFile(Path)} writes to a temporary
+ * file next to the target and only moves it into place on {@link #commit()}, so readers never see half-written
+ * output and a failed run leaves an existing target untouched.
+ */
+public class SrtWriter implements Closeable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // Ten-digit cue number, two timestamps with the widest hours, the arrow and two line breaks
+    static final int HEAD_CAPACITY = 64;
+
+    // Longest UTF-8 encoding of one char, or of a surrogate pair once its high half is held back
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private final WritableByteChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    // Cue number and timeline lines of the block being written
+    private final char[] head = new char[HEAD_CAPACITY];
+    private int position;
+
+    // Only for atomic file output
+    private final Path temporary;
+    private final Path target;
+    private boolean committed;
+    private boolean closed;
+
+    private SrtWriter(WritableByteChannel channel, Path temporary, Path target) {
+        this.channel = channel;
+        this.temporary = temporary;
+        this.target = target;
+    }
+
+    /**
+     * Writes to the channel; {@link #close()} flushes and closes it.
+     */
+    public static SrtWriter to(WritableByteChannel channel) {
+        return new SrtWriter(channel, null, null);
+    }
+
+    /**
+     * Writes to the stream; {@link #close()} flushes and closes it.
+     */
+    public static SrtWriter to(OutputStream out) {
+        return new SrtWriter(Channels.newChannel(out), null, null);
+    }
+
+    /**
+     * Writes to a temporary file in the target's directory. {@link #commit()} moves it over the target — atomically
+     * where the file system supports it; closing without committing deletes it.
+     */
+    public static SrtWriter toFile(Path target) throws IOException {
+        Path temporary = createTemporary(target);
+        try {
+            return new SrtWriter(FileChannel.open(temporary, StandardOpenOption.WRITE), temporary, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    public void write(SubtitleEntry entry) throws IOException {
+        writeHead(entry);
+        writeText(entry.text());
+        writeByte('\n');
+        writeByte('\n');
+    }
+
+    /**
+     * Writes every remaining entry; failures from the iterator, e.g. a lazily parsed input, propagate unchanged.
+     */
+    public void writeAll(Iterator<SubtitleEntry> entries) throws IOException {
+        while (entries.hasNext()) {
+            write(entries.next());
+        }
+    }
+
+    /**
+     * Hands everything buffered so far to the channel.
+     */
+    public void flush() throws IOException {
+        buffer.clear().limit(position);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        position = 0;
+    }
+
+    /**
+     * Flushes, syncs and closes the temporary file and moves it over the target.
+     *
+     * @throws IllegalStateException when the writer was not created by {@link #toFile(Path)} or is already closed
+     */
+    public void commit() throws IOException {
+        if (target == null || closed) {
+            throw new IllegalStateException(target == null ? "Not writing to a file" : "Writer is closed");
+        }
+        flush();
+        ((FileChannel) channel).force(false);
+        closed = true;
+        channel.close();
+        try {
+            moveIntoPlace(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        committed = true;
+    }
+
+    /**
+     * An empty hidden file in the target's directory, so that {@link #moveIntoPlace} stays on one file system.
+     * Shared with the output of the other formats in {@link SubtitleService} and the CLI's {@code -o FILE}.
+     * <p>
+     * Not {@link Files#createTempFile}, whose owner-only mode would end up on the output: the file gets the
+     * permissions of the target it will replace, or the umask default like any newly written file.
+     */
+    public static Path createTemporary(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path temporary = Files.createFile(absolute.resolveSibling(
+                "." + absolute.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+        try {
+            if (Files.exists(absolute)
+                    && Files.getFileStore(temporary).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(absolute));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return temporary;
+    }
+
+    /**
+     * Moves the complete temporary file over the target, atomically where the file system supports it.
+     */
+    public static void moveIntoPlace(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Flushes and closes the channel; for file output, an uncommitted temporary file is discarded instead.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (target != null) {
+            try {
+                channel.close();
+            } finally {
+                if (!committed) {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (position == bytes.length) {
+            flush();
+        }
+        bytes[position++] = (byte) c;
+    }
+
+    /**
+     * Writes a block's cue number and timeline lines, with their line breaks, into the scratch array and returns
+     * the number of chars written. Shared with the {@link java.io.Writer} output of {@link SubtitleService}.
+     */
+    static int writeHead(SubtitleEntry entry, char[] head) {
+        // The cue number is always positive
+        int rest = entry.index();
+        int width = 1;
+        for (int limit = 10; limit <= rest && width < 10; limit *= 10) {
+            width++;
+        }
+        for (int i = width - 1; i >= 0; i--) {
+            head[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        int p = width;
+        head[p++] = '\n';
+        p = TimestampCodec.writeTime(entry.start().toMillis(), head, p);
+        TimestampCodec.ARROW.getChars(0, TimestampCodec.ARROW.length(), head, p);
+        p = TimestampCodec.writeTime(entry.end().toMillis(), head, p + TimestampCodec.ARROW.length());
+        head[p++] = '\n';
+        return p;
+    }
+
+    // The head is ASCII, so each char is one byte
+    private void writeHead(SubtitleEntry entry) throws IOException {
+        int length = writeHead(entry, head);
+        if (position + length > bytes.length) {
+            flush();
+        }
+        for (int i = 0; i < length; i++) {
+            bytes[position++] = (byte) head[i];
+        }
+    }
+
+    /**
+     * UTF-8 encodes the text; an unpaired surrogate becomes {@code ?}, as {@link String#getBytes} does.
+     */
+    private void writeText(String text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (position + MAX_CHAR_BYTES > bytes.length) {
+                flush();
+            }
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | c >> 6);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (!Character.isSurrogate(c)) {
+                bytes[position++] = (byte) (0xE0 | c >> 12);
+                bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                bytes[position++] = '?';
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package app.service;
+
+import app.model.FrameRate;
+import app.model.SubtitleTrack;
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lines a drifted subtitle track up with a correctly timed reference — typically the same film in another
+ * language — without looking at the audio. Both tracks are reduced to cue on/off activity; the best drift and
+ * offset are those under which the target's activity overlaps the reference's most.
+ * <p>
+ * Drift is searched over the conversions between the standard frame rates. For each one the activity timelines
+ * are binned coarsely and cross-correlated with an FFT, which scores every possible offset at once; the best few
+ * candidates are then refined to the millisecond on the exact cue intervals. A feature-length pair takes a few
+ * tens of milliseconds.
+ */
+@UtilityClass
+public class SubtitleAligner {
+
+    static final long COARSE_BIN_MILLIS = 500;
+
+    private static final long FINE_STEP_MILLIS = 10;
+    private static final int REFINED_CANDIDATES = 3;
+    // Conversions further apart than 25/30 are not drift between two cuts of one film
+    private static final double MAX_SPEED_CHANGE = 1.25;
+
+    private static final List<Optional<BatchOperation.FrameRateConversion>> DRIFT_CANDIDATES = driftCandidates();
+
+    /**
+     * Finds the frame rate conversion and offset that best match target to reference.
+     *
+     * @throws IllegalArgumentException when either track is empty
+     */
+    public Alignment align(SubtitleTrack reference, SubtitleTrack target) {
+        if (reference.isEmpty() || target.isEmpty()) {
+            throw new IllegalArgumentException("Cannot align an empty subtitle track");
+        }
+        long[] referenceActivity = activity(reference);
+        long[] targetActivity = activity(target);
+        long referenceTotal = totalLength(referenceActivity);
+
+        // The slowest candidate stretches the target the most, which sizes the padding for every candidate
+        long longestTarget = 0;
+        for (Optional<BatchOperation.FrameRateConversion> candidate : DRIFT_CANDIDATES) {
+            longestTarget = Math.max(longestTarget, ratioOf(candidate).apply(targetActivity[targetActivity.length - 1]));
+        }
+        int referenceBins = binCount(referenceActivity[referenceActivity.length - 1]);
+        int length = Fft.paddedLength(referenceBins + binCount(longestTarget));
+
+        double[] referenceRe = bin(referenceActivity, length);
+        double referenceEnergy = energy(referenceRe);
+        double[] referenceIm = new double[length];
+        Fft.forward(referenceRe, referenceIm);
+
+        List<Coarse> coarse = new ArrayList<>(DRIFT_CANDIDATES.size());
+        double[] re = new double[length];
+        double[] im = new double[length];
+        for (Optional<BatchOperation.FrameRateConversion> candidate : DRIFT_CANDIDATES) {
+            long[] scaled = targetActivity.clone();
+            ratioOf(candidate).apply(scaled, 0, scaled.length);
+
+            double[] targetRe = bin(scaled, length);
+            double targetEnergy = energy(targetRe);
+            double[] targetIm = new double[length];
+            Fft.forward(targetRe, targetIm);
+
+            System.arraycopy(referenceRe, 0, re, 0, length);
+            System.arraycopy(referenceIm, 0, im, 0, length);
+            Fft.multiplyConjugate(re, im, targetRe, targetIm);
+            Fft.inverse(re, im);
+
+            int best = 0;
+            for (int k = 1; k < length; k++) {
+                if (re[k] > re[best]) {
+                    best = k;
+                }
+            }
+            int lag = best < referenceBins ? best : best - length;
+            double score = re[best] / Math.sqrt(referenceEnergy * targetEnergy);
+            coarse.add(new Coarse(candidate, scaled, lag * COARSE_BIN_MILLIS, score));
+        }
+
+        // Stable sort keeps "no drift" first among equals
+        coarse.sort(Comparator.comparingDouble(Coarse::score).reversed());
+        Alignment best = null;
+        for (Coarse candidate : coarse.subList(0, Math.min(REFINED_CANDIDATES, coarse.size()))) {
+            Alignment refined = refine(referenceActivity, referenceTotal, candidate);
+            if (best == null || refined.score() > best.score()) {
+                best = refined;
+            }
+        }
+        return best;
+    }
+
+    private record Coarse(Optional<BatchOperation.FrameRateConversion> conversion, long[] activity,
+                          long offsetMillis, double score) {
+    }
+
+    /**
+     * Searches one coarse bin either side of the FFT peak on the exact intervals, first in 10 ms then in 1 ms steps.
+     */
+    private Alignment refine(long[] reference, long referenceTotal, Coarse candidate) {
+        long[] target = candidate.activity();
+        long best = candidate.offsetMillis();
+        best = bestOffset(reference, target, best - COARSE_BIN_MILLIS, best + COARSE_BIN_MILLIS, FINE_STEP_MILLIS);
+        best = bestOffset(reference, target, best - FINE_STEP_MILLIS, best + FINE_STEP_MILLIS, 1);
+        double norm = Math.sqrt((double) referenceTotal * totalLength(target));
+        double score = norm == 0 ? 0 : overlap(reference, target, best) / norm;
+        return new Alignment(candidate.conversion(), best, score);
+    }
+
+    // Ties go to the offset closest to the centre, i.e. the earlier estimate
+    private long bestOffset(long[] reference, long[] target, long from, long to, long step) {
+        long centre = (from + to) / 2;
+        long best = centre;
+        long bestOverlap = overlap(reference, target, centre);
+        for (long offset = from; offset <= to; offset += step) {
+            long overlap = overlap(reference, target, offset);
+            if (overlap > bestOverlap
+                    || overlap == bestOverlap && Math.abs(offset - centre) < Math.abs(best - centre)) {
+                best = offset;
+                bestOverlap = overlap;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Milliseconds during which both interval sets are active, with target moved by offset. Both are sorted,
+     * disjoint {@code [start, end)} pairs flattened into one array.
+     */
+    static long overlap(long[] reference, long[] target, long offset) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < reference.length && j < target.length) {
+            long start = Math.max(reference[i], target[j] + offset);
+            long end = Math.min(reference[i + 1], target[j + 1] + offset);
+            if (end > start) {
+                total += end - start;
+            }
+            if (reference[i + 1] < target[j + 1] + offset) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Union of the track's cues as sorted, disjoint {@code [start, end)} pairs flattened into one array. Sorting
+     * starts and ends separately is enough for a union, so overlapping or out-of-order cues need no pairing.
+     */
+    static long[] activity(SubtitleTrack track) {
+        int size = track.size();
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        for (int row = 0; row < size; row++) {
+            starts[row] = track.startMillis(row);
+            ends[row] = track.endMillis(row);
+        }
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+
+        long[] union = new long[2 * size];
+        int length = 0;
+        int depth = 0;
+        long open = 0;
+        int i = 0;
+        int j = 0;
+        while (j < size) {
+            // Starting first on ties merges touching cues into one interval
+            if (i < size && starts[i] <= ends[j]) {
+                if (depth++ == 0) {
+                    open = starts[i];
+                }
+                i++;
+            } else {
+                if (--depth == 0) {
+                    union[length++] = open;
+                    union[length++] = ends[j];
+                }
+                j++;
+            }
+        }
+        return Arrays.copyOf(union, length);
+    }
+
+    private long totalLength(long[] intervals) {
+        long total = 0;
+        for (int i = 0; i < intervals.length; i += 2) {
+            total += intervals[i + 1] - intervals[i];
+        }
+        return total;
+    }
+
+    private int binCount(long endMillis) {
+        return Math.toIntExact(endMillis / COARSE_BIN_MILLIS + 1);
+    }
+
+    // Milliseconds of activity per coarse bin, zero-padded to length
+    private double[] bin(long[] intervals, int length) {
+        double[] bins = new double[length];
+        for (int i = 0; i < intervals.length; i += 2) {
+            long start = intervals[i];
+            long end = intervals[i + 1];
+            for (long bin = start / COARSE_BIN_MILLIS; bin * COARSE_BIN_MILLIS < end; bin++) {
+                long binStart = bin * COARSE_BIN_MILLIS;
+                bins[(int) bin] += Math.min(end, binStart + COARSE_BIN_MILLIS) - Math.max(start, binStart);
+            }
+        }
+        return bins;
+    }
+
+    private double energy(double[] signal) {
+        double sum = 0;
+        for (double value : signal) {
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    private FrameRate.Ratio ratioOf(Optional<BatchOperation.FrameRateConversion> conversion) {
+        return conversion.map(c -> FrameRate.ratio(c.from(), c.to())).orElse(FrameRate.Ratio.IDENTITY);
+    }
+
+    // "No drift" first, then one conversion per distinct ratio, in FrameRate.values() order
+    private static List<Optional<BatchOperation.FrameRateConversion>> driftCandidates() {
+        Map<FrameRate.Ratio, Optional<BatchOperation.FrameRateConversion>> candidates = new LinkedHashMap<>();
+        candidates.put(FrameRate.Ratio.IDENTITY, Optional.empty());
+        for (FrameRate from : FrameRate.values()) {
+            for (FrameRate to : FrameRate.values()) {
+                double speedChange = from.doubleValue() / to.doubleValue();
+                if (!from.equals(to) && speedChange <= MAX_SPEED_CHANGE && speedChange >= 1 / MAX_SPEED_CHANGE) {
+                    candidates.putIfAbsent(FrameRate.ratio(from, to),
+                            Optional.of(new BatchOperation.FrameRateConversion(from, to)));
+                }
+            }
+        }
+        return List.copyOf(candidates.values());
+    }
+}
@@ -0,0 +1,175 @@
+package app.service;
+
+import app.service.BatchResult.FileFailure;
+import app.service.BatchResult.FileResult;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs a {@link BatchOperation} over a whole directory tree on a bounded worker pool.
+ * A failing file never aborts the run — it is reported in {@link BatchResult#failed()} instead.
+ */
+@Log
+public class SubtitleBatchService {
+
+    public static final String DEFAULT_GLOB = "*.srt";
+
+    private final SubtitleService subtitleService;
+    private final int parallelism;
+
+    public SubtitleBatchService(SubtitleService subtitleService) {
+        this(subtitleService, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SubtitleBatchService(SubtitleService subtitleService, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, got: " + parallelism);
+        }
+        this.subtitleService = subtitleService;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Collects regular files under root matching the glob, sorted by path. A glob without a directory part
+     * (e.g. {@code *.srt}) matches file names at any depth; otherwise it is matched against the path relative to root.
+     * A file named like the output of an earlier run ({@link SubtitleService#generatedFrom(String)}) is left out when
+     * its input matched as well, so running the same batch again does not shift or clean its own results; each
+     * skipped file is logged.
+     */
+    public List<File> findFiles(Path root, String glob) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Not a directory: " + root);
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        boolean matchNameOnly = !glob.contains("/");
+
+        List<Path> candidates;
+        try (Stream<Path> paths = Files.walk(root)) {
+            candidates = paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(matchNameOnly ? path.getFileName() : root.relativize(path)))
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+        }
+        // Outputs may be in another format than their input, so inputs are looked up without their extension
+        Set<Path> baseNames = candidates.stream().map(SubtitleBatchService::withoutExtension).collect(Collectors.toSet());
+        return candidates.stream()
+                .filter(path -> !isEarlierOutput(path, baseNames))
+                .map(Path::toFile)
+                .toList();
+    }
+
+    private static boolean isEarlierOutput(Path path, Set<Path> baseNames) {
+        Optional<Path> input = SubtitleService.generatedFrom(path.getFileName().toString())
+                .map(path::resolveSibling)
+                .filter(baseNames::contains);
+        input.ifPresent(base -> log.info(() -> "Skipping " + path + ", the output of an earlier run on " + base + ".*"));
+        return input.isPresent();
+    }
+
+    private static Path withoutExtension(Path path) {
+        String name = path.getFileName().toString();
+        int dotIndex = name.lastIndexOf('.');
+        return dotIndex == -1 ? path : path.resolveSibling(name.substring(0, dotIndex));
+    }
+
+    public BatchResult process(Path root, String glob, BatchOperation operation,
+                               BatchProgressListener listener) throws IOException, InterruptedException {
+        return process(findFiles(root, glob), operation, listener);
+    }
+
+    /**
+     * Processes the files concurrently. The file list is fixed up front, so outputs written during the run
+     * are never picked up as inputs.
+     */
+    public BatchResult process(List<File> files, BatchOperation operation,
+                               BatchProgressListener listener) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        int workers = Math.max(1, Math.min(parallelism, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                int position = i;
+                File file = files.get(i);
+                completionService.submit(() -> processFile(position, file, operation));
+            }
+
+            Outcome[] outcomes = new Outcome[files.size()];
+            int failed = 0;
+            for (int completed = 1; completed <= files.size(); completed++) {
+                Outcome outcome = takeOutcome(completionService);
+                outcomes[outcome.position()] = outcome;
+                if (outcome.failure() != null) {
+                    failed++;
+                }
+                listener.onProgress(new BatchProgress(outcome.file(), completed, failed, files.size(), elapsedSince(startNanos)));
+            }
+
+            return toResult(outcomes, elapsedSince(startNanos));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Outcome processFile(int position, File file, BatchOperation operation) {
+        long startNanos = System.nanoTime();
+        try {
+            Optional<File> output = operation.apply(subtitleService, file);
+            return new Outcome(position, file, new FileResult(file, output, elapsedSince(startNanos)), null);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Batch processing failed for file: " + file, e);
+            return new Outcome(position, file, null, new FileFailure(file, e));
+        }
+    }
+
+    private Outcome takeOutcome(CompletionService<Outcome> completionService) throws InterruptedException {
+        try {
+            return completionService.take().get();
+        } catch (ExecutionException e) {
+            // processFile catches everything but Errors; let those propagate as they are
+            throw new IllegalStateException("Batch worker failed unexpectedly", e.getCause());
+        }
+    }
+
+    private BatchResult toResult(Outcome[] outcomes, Duration elapsed) {
+        List<FileResult> succeeded = new ArrayList<>();
+        List<FileFailure> failed = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.failure() != null) {
+                failed.add(outcome.failure());
+            } else {
+                succeeded.add(outcome.result());
+            }
+        }
+        return new BatchResult(succeeded, failed, elapsed);
+    }
+
+    private static Duration elapsedSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    private record Outcome(int position, File file, FileResult result, FileFailure failure) {
+    }
+}
@@ -4,11 +4,13 @@ import app.model.SubtitleEntry;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Aggregated diff of a subtitle cleaning operation. Drives the changes log written next to the output file.
  * outputFile is empty when no output SRT was written (input contained nothing to clean).
+ * ruleHits holds the per-rule hit counters of the pass, as in {@link ChangeCounts#ruleHits()}.
  */
 public record SubtitleChanges(
         File inputFile,
@@ -17,9 +19,20 @@ public record SubtitleChanges(
         boolean removedSpam,
         List<RemovedEntry> removedEntries,
         List<ModifiedEntry> modifiedEntries,
-        int unchangedCount
+        int unchangedCount,
+        Map<String, Integer> ruleHits
 ) {
 
+    public SubtitleChanges(File inputFile, Optional<File> outputFile, boolean removedSdh, boolean removedSpam,
+                           List<RemovedEntry> removedEntries, List<ModifiedEntry> modifiedEntries, int unchangedCount) {
+        this(inputFile, outputFile, removedSdh, removedSpam, removedEntries, modifiedEntries, unchangedCount, Map.of());
+    }
+
+    public ChangeCounts counts() {
+        int sdh = (int) removedEntries.stream().filter(re -> re.reason() == RemovalReason.SDH).count();
+        return new ChangeCounts(sdh, removedEntries.size() - sdh, modifiedEntries.size(), unchangedCount, ruleHits);
+    }
+
     public enum RemovalReason {
         SDH("SDH"),
         SPAM("spam");
@@ -0,0 +1,58 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+import app.service.SubtitleChanges.ModifiedEntry;
+import app.service.SubtitleChanges.RemovalReason;
+import app.service.SubtitleChanges.RemovedEntry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory sink that gathers the events into a {@link SubtitleChanges}, for callers that want the whole diff.
+ */
+class SubtitleChangesCollector implements ChangesSink {
+
+    private final File inputFile;
+    private final boolean removeSdh;
+    private final boolean removeSpam;
+    private final List<RemovedEntry> removed = new ArrayList<>();
+    private final List<ModifiedEntry> modified = new ArrayList<>();
+    private SubtitleChanges changes;
+
+    SubtitleChangesCollector(File inputFile, boolean removeSdh, boolean removeSpam) {
+        this.inputFile = inputFile;
+        this.removeSdh = removeSdh;
+        this.removeSpam = removeSpam;
+    }
+
+    @Override
+    public void removed(SubtitleEntry entry, RemovalReason reason) {
+        removed.add(new RemovedEntry(entry, reason));
+    }
+
+    @Override
+    public void modified(SubtitleEntry before, SubtitleEntry after) {
+        modified.add(new ModifiedEntry(before, after));
+    }
+
+    @Override
+    public void finish(Optional<File> outputFile, ChangeCounts counts) {
+        changes = new SubtitleChanges(inputFile, outputFile, removeSdh, removeSpam, removed, modified,
+                counts.unchanged(), counts.ruleHits());
+    }
+
+    SubtitleChanges changes() {
+        if (changes == null) {
+            throw new IllegalStateException("Changes are not finished yet");
+        }
+        return changes;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
@@ -1,104 +1,267 @@
 package app.service;
 
+import app.model.SubtitleEntry;
+import app.model.TimestampCodec;
 import app.service.SubtitleChanges.ModifiedEntry;
 import app.service.SubtitleChanges.RemovalReason;
 import app.service.SubtitleChanges.RemovedEntry;
-import lombok.experimental.UtilityClass;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-@UtilityClass
-class SubtitleChangesLogWriter {
+/**
+ * Human-readable changes log ({@link ChangesLogFormat#TEXT}), written as a stream. The report opens with a header
+ * and summary that are only known once cleaning is over, so removed and modified entries are rendered into two
+ * spools as they arrive — in memory while small, spilled to a temp file next to the log beyond that — and the
+ * final file is assembled in {@link #finish}.
+ */
+class SubtitleChangesLogWriter implements ChangesSink {
 
-    public void write(File destination, SubtitleChanges changes) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        appendHeader(sb, changes);
-        appendSummary(sb, changes);
-        appendRemoved(sb, changes);
-        appendModified(sb, changes);
-        Files.writeString(destination.toPath(), sb.toString(), StandardCharsets.UTF_8);
+    private static final String INDENT = "    ";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final File destination;
+    private final File inputFile;
+    private final boolean removeSdh;
+    private final boolean removeSpam;
+    private final Spool removedSpool;
+    private final Spool modifiedSpool;
+    // Reused for each entry's "#index  timeline" line
+    private final StringBuilder line = new StringBuilder(64);
+
+    SubtitleChangesLogWriter(File destination, File inputFile, boolean removeSdh, boolean removeSpam) {
+        this.destination = destination;
+        this.inputFile = inputFile;
+        this.removeSdh = removeSdh;
+        this.removeSpam = removeSpam;
+        Path directory = destination.getAbsoluteFile().getParentFile().toPath();
+        this.removedSpool = new Spool(directory);
+        this.modifiedSpool = new Spool(directory);
+    }
+
+    /**
+     * Writes a complete report for changes collected up front.
+     */
+    public static void write(File destination, SubtitleChanges changes) throws IOException {
+        try (SubtitleChangesLogWriter writer = new SubtitleChangesLogWriter(
+                destination, changes.inputFile(), changes.removedSdh(), changes.removedSpam())) {
+            for (RemovedEntry re : changes.removedEntries()) {
+                writer.removed(re.entry(), re.reason());
+            }
+            for (ModifiedEntry me : changes.modifiedEntries()) {
+                writer.modified(me.before(), me.after());
+            }
+            writer.finish(changes.outputFile(), changes.counts());
+        }
     }
 
-    private void appendHeader(StringBuilder sb, SubtitleChanges c) {
-        sb.append("Subtitle Cleaning Report\n");
-        sb.append("========================\n");
-        sb.append("Input:   ").append(c.inputFile().getName()).append("\n");
-        sb.append("Output:  ").append(formatOutput(c)).append("\n");
-        sb.append("Options: ").append(formatOptions(c)).append("\n\n");
+    @Override
+    public void removed(SubtitleEntry entry, RemovalReason reason) throws IOException {
+        appendEntryLine(entry).append("  (via ").append(reason.displayName()).append(')').append(LINE_SEPARATOR);
+        removedSpool.append(line);
+        writeIndented(removedSpool, entry.text());
+        removedSpool.write('\n');
     }
 
-    private String formatOutput(SubtitleChanges c) {
-        return c.outputFile().map(File::getName).orElse("(not written — no changes)");
+    @Override
+    public void modified(SubtitleEntry before, SubtitleEntry after) throws IOException {
+        appendEntryLine(before).append(LINE_SEPARATOR);
+        modifiedSpool.append(line);
+        writeIndented(modifiedSpool, before.text());
+        modifiedSpool.write("  →\n");
+        writeIndented(modifiedSpool, after.text());
+        modifiedSpool.write('\n');
+    }
+
+    private StringBuilder appendEntryLine(SubtitleEntry entry) {
+        line.setLength(0);
+        line.append('#').append(entry.index()).append("  ");
+        return TimestampCodec.appendTimeline(line, entry.start().toMillis(), entry.end().toMillis());
+    }
+
+    @Override
+    public void finish(Optional<File> outputFile, ChangeCounts counts) throws IOException {
+        try (Writer out = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8)) {
+            writeHeader(out, outputFile);
+            writeSummary(out, counts);
+            if (!removedSpool.isEmpty()) {
+                out.write("Removed entries\n");
+                out.write("---------------\n\n");
+                removedSpool.transferTo(out);
+            }
+            if (!modifiedSpool.isEmpty()) {
+                out.write("Modified entries\n");
+                out.write("----------------\n\n");
+                modifiedSpool.transferTo(out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(destination.toPath());
+            throw e;
+        }
     }
 
-    private String formatOptions(SubtitleChanges c) {
+    private void writeHeader(Writer out, Optional<File> outputFile) throws IOException {
+        out.write("Subtitle Cleaning Report\n");
+        out.write("========================\n");
+        out.write("Input:   " + inputFile.getName() + "\n");
+        out.write("Output:  " + outputFile.map(File::getName).orElse("(not written — no changes)") + "\n");
+        out.write("Options: " + formatOptions() + "\n\n");
+    }
+
+    private String formatOptions() {
         List<String> opts = new ArrayList<>();
-        if (c.removedSdh()) opts.add("Remove SDH");
-        if (c.removedSpam()) opts.add("Remove spam");
+        if (removeSdh) opts.add("Remove SDH");
+        if (removeSpam) opts.add("Remove spam");
         return String.join(", ", opts);
     }
 
-    private void appendSummary(StringBuilder sb, SubtitleChanges c) {
-        long sdh = c.removedEntries().stream().filter(re -> re.reason() == RemovalReason.SDH).count();
-        long spam = c.removedEntries().stream().filter(re -> re.reason() == RemovalReason.SPAM).count();
-        int modified = c.modifiedEntries().size();
+    private void writeSummary(Writer out, ChangeCounts counts) throws IOException {
+        out.write("Summary\n");
+        out.write("-------\n");
+        writeCount(out, "Removed via SDH:    ", counts.sdhRemoved());
+        writeCount(out, "Removed via spam:   ", counts.spamRemoved());
+        writeCount(out, "Modified by SDH:    ", counts.modified());
+        writeCount(out, "Kept unchanged:     ", counts.unchanged());
+        writeRuleHits(out, counts.ruleHits());
 
-        sb.append("Summary\n");
-        sb.append("-------\n");
-        sb.append(String.format("Removed via SDH:    %d %s%n", sdh, plural(sdh)));
-        sb.append(String.format("Removed via spam:   %d %s%n", spam, plural(spam)));
-        sb.append(String.format("Modified by SDH:    %d %s%n", modified, plural(modified)));
-        sb.append(String.format("Kept unchanged:     %d %s%n", c.unchangedCount(), plural(c.unchangedCount())));
+        if (!counts.hasChanges()) {
+            out.write("\nNo changes were made.\n");
+        }
+        out.write("\n");
+    }
 
-        if (sdh == 0 && spam == 0 && modified == 0) {
-            sb.append("\nNo changes were made.\n");
+    private void writeRuleHits(Writer out, Map<String, Integer> ruleHits) throws IOException {
+        if (ruleHits.isEmpty()) {
+            return;
         }
-        sb.append("\n");
+        out.write("\nRule hits\n");
+        for (Map.Entry<String, Integer> hit : ruleHits.entrySet()) {
+            out.write(INDENT + hit.getKey() + ": " + hit.getValue() + LINE_SEPARATOR);
+        }
+    }
+
+    private void writeCount(Writer out, String label, int count) throws IOException {
+        out.write(label + count + " " + plural(count) + LINE_SEPARATOR);
     }
 
     private String plural(long count) {
         return count == 1 ? "entry" : "entries";
     }
 
-    private void appendRemoved(StringBuilder sb, SubtitleChanges c) {
-        if (c.removedEntries().isEmpty()) {
-            return;
+    private void writeIndented(Writer out, String text) throws IOException {
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            out.write(INDENT);
+            out.write(text, start, end - start);
+            out.write('\n');
+            start = end + 1;
         }
-        sb.append("Removed entries\n");
-        sb.append("---------------\n\n");
-        for (RemovedEntry re : c.removedEntries()) {
-            sb.append(String.format("#%d  %s  (via %s)%n",
-                    re.entry().index(),
-                    re.entry().formattedTimeline(),
-                    re.reason().displayName()));
-            appendIndented(sb, re.entry().text(), "    ");
-            sb.append("\n");
+        out.write(INDENT);
+        out.write(text, start, text.length() - start);
+        out.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            removedSpool.close();
+        } finally {
+            modifiedSpool.close();
         }
     }
 
-    private void appendModified(StringBuilder sb, SubtitleChanges c) {
-        if (c.modifiedEntries().isEmpty()) {
-            return;
+    /**
+     * Append-only text buffer that moves to a temp file once it outgrows {@link #SPILL_THRESHOLD} chars,
+     * so a huge report never sits in memory while small ones never touch the disk twice.
+     */
+    private static final class Spool extends Writer {
+
+        private static final int SPILL_THRESHOLD = 256 * 1024;
+
+        private final Path directory;
+        private final StringBuilder memory = new StringBuilder();
+        private Path spillFile;
+        private Writer spill;
+
+        Spool(Path directory) {
+            this.directory = directory;
         }
-        sb.append("Modified entries\n");
-        sb.append("----------------\n\n");
-        for (ModifiedEntry me : c.modifiedEntries()) {
-            sb.append(String.format("#%d  %s%n", me.before().index(), me.before().formattedTimeline()));
-            appendIndented(sb, me.before().text(), "    ");
-            sb.append("  →\n");
-            appendIndented(sb, me.after().text(), "    ");
-            sb.append("\n");
+
+        boolean isEmpty() {
+            return spill == null && memory.isEmpty();
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (spill == null && memory.length() + length > SPILL_THRESHOLD) {
+                spillFile = Files.createTempFile(directory, ".changes-", ".tmp");
+                spill = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+                spill.append(memory);
+                memory.setLength(0);
+            }
+            if (spill != null) {
+                spill.write(chars, offset, length);
+            } else {
+                memory.append(chars, offset, length);
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            if (spill == null && memory.length() + length <= SPILL_THRESHOLD) {
+                memory.append(text, offset, offset + length);
+            } else {
+                super.write(text, offset, length);
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence text) throws IOException {
+            if (spill == null && memory.length() + text.length() <= SPILL_THRESHOLD) {
+                memory.append(text);
+                return this;
+            }
+            return super.append(text);
+        }
+
+        void transferTo(Writer out) throws IOException {
+            if (spill == null) {
+                out.append(memory);
+                return;
+            }
+            spill.flush();
+            try (Reader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                reader.transferTo(out);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (spill != null) {
+                spill.flush();
+            }
         }
-    }
 
-    private void appendIndented(StringBuilder sb, String text, String indent) {
-        for (String line : text.split("\n", -1)) {
-            sb.append(indent).append(line).append("\n");
+        @Override
+        public void close() throws IOException {
+            if (spill != null) {
+                try {
+                    spill.close();
+                } finally {
+                    Files.deleteIfExists(spillFile);
+                    spill = null;
+                }
+            }
         }
     }
 }
@@ -1,85 +1,69 @@
 package app.service;
 
+import app.metrics.Stage;
+import app.metrics.StageTimer;
 import app.model.SubtitleEntry;
 import io.vavr.control.Option;
 import lombok.experimental.UtilityClass;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Entry-level SDH and spam cleaning. Spam and per-locale speaker labels come from a compiled {@link RuleEngine};
+ * the variants without one use {@link RuleEngine#defaultEngine()}.
+ */
 @UtilityClass
 public class SubtitleCleanerService {
 
-    private static final Pattern URL_PATTERN = Pattern.compile("(?:https?://|www\\.)\\S+");
-    private static final Pattern DASH_PREFIX = Pattern.compile("^-\\s*");
-
     public List<SubtitleEntry> removeSpam(List<SubtitleEntry> entries) {
-        return entries.stream()
-                .filter(entry -> !containsUrl(entry.text()))
+        return removeSpam(entries, RuleEngine.defaultEngine());
+    }
+
+    public List<SubtitleEntry> removeSpam(List<SubtitleEntry> entries, RuleEngine rules) {
+        StageTimer timer = StageTimer.start(Stage.SPAM_MATCHING);
+        List<SubtitleEntry> kept = entries.stream()
+                .filter(entry -> !rules.isSpam(entry.text()))
                 .toList();
+        timer.stop(null, 0, entries.size());
+        return kept;
     }
 
-    private boolean containsUrl(String text) {
-        return URL_PATTERN.matcher(text).find();
+    public boolean isSpam(SubtitleEntry entry) {
+        return RuleEngine.defaultEngine().isSpam(entry.text());
     }
 
     public List<SubtitleEntry> removeSdh(List<SubtitleEntry> entries) {
-        return entries.stream()
-                .map(SubtitleCleanerService::cleanSdhFromEntry)
+        return removeSdh(entries, RuleEngine.defaultEngine());
+    }
+
+    public List<SubtitleEntry> removeSdh(List<SubtitleEntry> entries, RuleEngine rules) {
+        StageTimer timer = StageTimer.start(Stage.SDH_MATCHING);
+        RuleEngine.Hits hits = rules.newHits();
+        List<SubtitleEntry> kept = entries.stream()
+                .map(entry -> cleanSdh(entry, rules, hits))
                 .filter(Option::isDefined)
                 .map(Option::get)
                 .toList();
+        timer.stop(null, 0, entries.size());
+        return kept;
     }
 
-    private Option<SubtitleEntry> cleanSdhFromEntry(SubtitleEntry entry) {
-        String[] lines = entry.text().split("\n");
-        List<String> cleanedLines = new ArrayList<>();
-        // Per-line original dash prefix so untouched dialog lines round-trip byte-for-byte
-        List<String> dashPrefixes = new ArrayList<>();
-
-        for (String line : lines) {
-            String dashPrefix = extractDashPrefix(line);
-            String withoutDash = line.substring(dashPrefix.length());
-            String processedLine = processLine(withoutDash);
-            if (StringUtils.isNotBlank(processedLine)) {
-                cleanedLines.add(processedLine);
-                dashPrefixes.add(dashPrefix);
-            }
-        }
-
-        // Restore each line's original dash prefix only when multiple dialog lines remain
-        if (cleanedLines.size() > 1) {
-            for (int i = 0; i < cleanedLines.size(); i++) {
-                cleanedLines.set(i, dashPrefixes.get(i) + cleanedLines.get(i));
-            }
-        }
+    /**
+     * Strips SDH from a single entry. Empty when nothing but SDH was left; otherwise the entry with cleaned text.
+     */
+    public Option<SubtitleEntry> cleanSdh(SubtitleEntry entry) {
+        return cleanSdh(entry, RuleEngine.defaultEngine(), RuleEngine.defaultEngine().newHits());
+    }
 
-        String cleanedText = String.join("\n", cleanedLines);
+    /**
+     * Like {@link #cleanSdh(SubtitleEntry)}, stripping the engine's speaker labels first and counting them in
+     * {@code hits}, which must come from the same engine.
+     */
+    public Option<SubtitleEntry> cleanSdh(SubtitleEntry entry, RuleEngine rules, RuleEngine.Hits hits) {
+        String cleanedText = SdhScanner.cleanText(rules.stripSpeakerLabels(entry.text(), hits));
         return Option.of(cleanedText)
                 .filter(StringUtils::isNotBlank)
                 .map(entry::withText);
     }
-
-    private String extractDashPrefix(String line) {
-        Matcher m = DASH_PREFIX.matcher(line);
-        return m.find() ? m.group() : "";
-    }
-
-    private String processLine(String withoutDash) {
-        if (SdhPatternMatcher.isOnlySdhContent(withoutDash)) {
-            return "";
-        }
-
-        String cleaned = SdhPatternMatcher.cleanLine(withoutDash);
-
-        // Cleaning may leave residual SDH (e.g. decorative ♪♪, an uppercase [SOUND] after speaker strip) — drop those too
-        if (SdhPatternMatcher.isOnlySdhContent(cleaned)) {
-            return "";
-        }
-
-        return cleaned;
-    }
 }
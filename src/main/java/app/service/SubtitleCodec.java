@@ -0,0 +1,39 @@
+package app.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Service provider for one subtitle format, found through {@link java.util.ServiceLoader} by {@link SubtitleCodecs}.
+ * Cues cross formats as {@link app.model.SubtitleEntry}: millisecond timing and SRT-style text, with line breaks
+ * as {@code \n} and {@code <i>}, {@code <b>}, {@code <u>} for styling. Codecs map their own markup to and from that
+ * and drop what it cannot express. Readers number cues 1, 2, 3... when the format has no cue numbers.
+ * <p>
+ * Implementations must be stateless and have a public no-argument constructor.
+ */
+public interface SubtitleCodec {
+
+    /**
+     * Short lower-case name used on the command line, e.g. {@code srt} or {@code vtt}.
+     */
+    String name();
+
+    /**
+     * File extensions without the dot, lower case; the first is used for output files.
+     */
+    List<String> extensions();
+
+    /**
+     * Whether the start of a text (its first few lines) looks like this format, for input without a file name.
+     */
+    boolean recognizes(String head);
+
+    CueReader newReader(Reader input, CodecOptions options);
+
+    /**
+     * @throws IllegalArgumentException when the options lack something the format needs, e.g. a frame rate
+     */
+    CueWriter newWriter(Writer output, CodecOptions options) throws IOException;
+}
@@ -0,0 +1,73 @@
+package app.service;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the {@link SubtitleCodec}s on the class path, loaded once. A codec listed later under a name already
+ * taken is ignored, so the built-in ones cannot be replaced by accident.
+ */
+@UtilityClass
+public class SubtitleCodecs {
+
+    private static final Map<String, SubtitleCodec> BY_NAME = load();
+
+    private static Map<String, SubtitleCodec> load() {
+        Map<String, SubtitleCodec> codecs = new LinkedHashMap<>();
+        for (SubtitleCodec codec : ServiceLoader.load(SubtitleCodec.class, SubtitleCodecs.class.getClassLoader())) {
+            codecs.putIfAbsent(codec.name(), codec);
+        }
+        if (!codecs.containsKey("srt")) {
+            codecs.put("srt", new SrtCodec());
+        }
+        return Collections.unmodifiableMap(codecs);
+    }
+
+    public List<SubtitleCodec> all() {
+        return List.copyOf(BY_NAME.values());
+    }
+
+    public SubtitleCodec srt() {
+        return BY_NAME.get("srt");
+    }
+
+    /**
+     * @throws IllegalArgumentException when no codec has that name
+     */
+    public SubtitleCodec forName(String name) {
+        SubtitleCodec codec = BY_NAME.get(name.strip().toLowerCase(Locale.ROOT));
+        if (codec == null) {
+            throw new IllegalArgumentException("Unsupported subtitle format: " + name);
+        }
+        return codec;
+    }
+
+    public Optional<SubtitleCodec> forExtension(String extension) {
+        String wanted = extension.toLowerCase(Locale.ROOT);
+        return BY_NAME.values().stream().filter(codec -> codec.extensions().contains(wanted)).findFirst();
+    }
+
+    /**
+     * The codec for the file's extension; SRT for unknown or missing extensions, as before formats were pluggable.
+     */
+    public SubtitleCodec forFile(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? srt() : forExtension(name.substring(dot + 1)).orElseGet(SubtitleCodecs::srt);
+    }
+
+    /**
+     * The first codec that recognizes the start of a text, for input that comes without a file name.
+     */
+    public Optional<SubtitleCodec> detect(String head) {
+        return BY_NAME.values().stream().filter(codec -> codec.recognizes(head)).findFirst();
+    }
+}
@@ -0,0 +1,84 @@
+package app.service;
+
+import app.model.FrameRate;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A subtitle format together with the options to read or write it with.
+ */
+public record SubtitleFormat(SubtitleCodec codec, CodecOptions options) {
+
+    public static final SubtitleFormat SRT = new SubtitleFormat(SubtitleCodecs.srt(), CodecOptions.DEFAULT);
+
+    // Enough of a text to recognize its format by
+    private static final int DETECTION_CHARS = 4096;
+
+    public SubtitleFormat {
+        Objects.requireNonNull(codec, "codec");
+        Objects.requireNonNull(options, "options");
+    }
+
+    /**
+     * The format the file's extension names; SRT when the extension is unknown.
+     */
+    public static SubtitleFormat of(File file) {
+        return new SubtitleFormat(SubtitleCodecs.forFile(file), CodecOptions.DEFAULT);
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown format name
+     */
+    public static SubtitleFormat parse(String name) {
+        return new SubtitleFormat(SubtitleCodecs.forName(name), CodecOptions.DEFAULT);
+    }
+
+    /**
+     * The format the start of the text looks like, SRT when none recognizes it; the reader is reset to where it was.
+     */
+    public static SubtitleFormat detect(BufferedReader reader) throws IOException {
+        char[] head = new char[DETECTION_CHARS];
+        reader.mark(head.length);
+        int length = 0;
+        int read;
+        while (length < head.length && (read = reader.read(head, length, head.length - length)) > 0) {
+            length += read;
+        }
+        reader.reset();
+        return SubtitleCodecs.detect(new String(head, 0, length))
+                .map(codec -> new SubtitleFormat(codec, CodecOptions.DEFAULT))
+                .orElse(SRT);
+    }
+
+    public SubtitleFormat withFrameRate(FrameRate frameRate) {
+        return new SubtitleFormat(codec, CodecOptions.withFrameRate(frameRate));
+    }
+
+    /**
+     * This format with the frame rate, unless it already has one.
+     */
+    public SubtitleFormat withDefaultFrameRate(Optional<FrameRate> frameRate) {
+        return options.frameRate().isPresent() || frameRate.isEmpty() ? this : withFrameRate(frameRate.get());
+    }
+
+    public Optional<FrameRate> frameRate() {
+        return options.frameRate();
+    }
+
+    public boolean isSrt() {
+        return codec instanceof SrtCodec;
+    }
+
+    public String extension() {
+        return codec.extensions().getFirst();
+    }
+
+    @Override
+    public String toString() {
+        return codec.name();
+    }
+}
@@ -1,17 +1,29 @@
 package app.service;
 
+import app.metrics.Stage;
+import app.metrics.StageTimer;
 import app.model.SubtitleEntry;
-import app.util.CharsetDetector;
+import app.model.SubtitleTrack;
+import app.util.CharsetDetectionCache;
+import app.util.FileContent;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
-import org.apache.commons.lang3.StringUtils;
 
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Log
 @UtilityClass
@@ -19,47 +31,159 @@ public class SubtitleParserService {
 
     private static final Charset DEFAULT_FALLBACK_CHARSET = Charset.forName("windows-1250");
 
+    // Repeated operations on the same file detect its charset once
+    private static final CharsetDetectionCache DETECTION_CACHE = new CharsetDetectionCache(256);
+
+    /**
+     * Parses the whole file. Files of {@link ParallelSrtParser#PARALLEL_THRESHOLD_BYTES} and more are split into
+     * chunks parsed in parallel on the common fork/join pool, when it has more than one worker; the result is the
+     * same either way.
+     */
     public List<SubtitleEntry> parseFile(File file) throws IOException {
-        List<String> lines = readAllLines(file);
-        return parseSrtLines(lines);
+        ByteBuffer content = FileContent.read(file.toPath());
+        Charset charset = detectCharset(file, content);
+        long size = content.remaining();
+        StageTimer timer = StageTimer.start(Stage.PARSING);
+        try {
+            List<SubtitleEntry> entries;
+            if (ParallelSrtParser.worthSplitting(size)) {
+                entries = ParallelSrtParser.parse(content, charset);
+            } else {
+                entries = new ArrayList<>();
+                try (SrtReader reader = SrtReader.of(content, charset)) {
+                    reader.forEachRemaining(entries::add);
+                }
+            }
+            timer.stop(file.getPath(), size, entries.size());
+            return entries;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    private List<String> readAllLines(File file) throws IOException {
-        Charset charset = CharsetDetector.detectCharsetWithFallback(
-                file.toPath(),
-                DEFAULT_FALLBACK_CHARSET
-        );
+    /**
+     * Parses the file straight into a column-oriented {@link SubtitleTrack} for bulk timeline operations.
+     * Large files are parsed in parallel, as in {@link #parseFile(File)}.
+     */
+    public SubtitleTrack parseTrack(File file) throws IOException {
+        ByteBuffer content = FileContent.read(file.toPath());
+        Charset charset = detectCharset(file, content);
+        long size = content.remaining();
+        StageTimer timer = StageTimer.start(Stage.PARSING);
+        try {
+            SubtitleTrack track;
+            if (ParallelSrtParser.worthSplitting(size)) {
+                track = SubtitleTrack.of(ParallelSrtParser.parse(content, charset));
+            } else {
+                track = new SubtitleTrack();
+                try (SrtReader reader = SrtReader.of(content, charset)) {
+                    reader.forEachRemaining(track::add);
+                }
+            }
+            timer.stop(file.getPath(), size, track.size());
+            return track;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
 
-        log.info(() -> "Detected file encoding '%s': %s".formatted(file.toPath(), charset.name()));
-        return Files.readAllLines(file.toPath(), charset);
+    /**
+     * Opens a pull-based reader over the file; entries are parsed lazily, one block at a time.
+     * The file is read once — the same bytes serve charset detection and parsing.
+     * The caller owns the returned reader and must close it.
+     */
+    public SrtReader openFile(File file) throws IOException {
+        ByteBuffer content = FileContent.read(file.toPath());
+        return SrtReader.of(content, detectCharset(file, content));
     }
 
-    private List<SubtitleEntry> parseSrtLines(List<String> lines) {
-        List<SubtitleEntry> entries = new ArrayList<>();
-        int i = 0;
+    /**
+     * Opens a pull-based reader of the file in the given format. SRT goes through {@link #openFile(File)}; other
+     * formats read the text decoded as in {@link #openReader(File)}. The caller owns the returned reader and must
+     * close it; with instrumentation on, closing it records the time spent parsing.
+     */
+    public CueReader openFile(File file, SubtitleFormat format) throws IOException {
+        ByteBuffer content = FileContent.read(file.toPath());
+        long size = content.remaining();
+        CueReader reader = format.isSrt()
+                ? SrtReader.of(content, detectCharset(file, content))
+                : format.codec().newReader(decode(file, content), format.options());
+        return TimedCueReader.wrap(reader, file.getPath(), size);
+    }
 
-        while (i < lines.size()) {
-            String line = StringUtils.trim(lines.get(i));
+    /**
+     * Like {@link #parseTrack(File)} for a file in the given format; only SRT is parsed in parallel.
+     */
+    public SubtitleTrack parseTrack(File file, SubtitleFormat format) throws IOException {
+        if (format.isSrt()) {
+            return parseTrack(file);
+        }
+        SubtitleTrack track = new SubtitleTrack();
+        try (CueReader reader = openFile(file, format)) {
+            reader.forEachRemaining(track::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return track;
+    }
 
-            // Handle BOM
-            if (i == 0 && StringUtils.isNotEmpty(line) && line.charAt(0) == '\uFEFF') {
-                line = line.substring(1);
-            }
+    /**
+     * Opens the file as text, decoded with the detected charset (windows-1250 when detection fails).
+     */
+    public BufferedReader openReader(File file) throws IOException {
+        return decode(file, FileContent.read(file.toPath()));
+    }
 
-            if (StringUtils.isNumeric(line)) {
-                int index = Integer.parseInt(line);
-                String timeLine = StringUtils.trim(lines.get(++i));
-                StringBuilder text = new StringBuilder();
-                i++;
-                while (i < lines.size() && StringUtils.isNotBlank(lines.get(i))) {
-                    text.append(lines.get(i++)).append("\n");
-                }
-                entries.add(SubtitleEntry.parse(index, timeLine, StringUtils.trim(text.toString())));
-            } else {
-                i++;
-            }
-        }
+    private BufferedReader decode(File file, ByteBuffer content) throws IOException {
+        Charset charset = detectCharset(file, content);
+        long size = content.remaining();
+        StageTimer timer = StageTimer.start(Stage.DECODING);
+        CharBuffer chars = charset.newDecoder().decode(content);
+        timer.stop(file.getPath(), size, 0);
+        return new BufferedReader(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+    }
+
+    private Charset detectCharset(File file, ByteBuffer content) {
+        Charset charset = DETECTION_CACHE.detectCharset(file.toPath(), content)
+                .onEmpty(() -> log.info(() -> "Using fallback charset '%s' for file: %s".formatted(DEFAULT_FALLBACK_CHARSET.name(), file.toPath())))
+                .getOrElse(DEFAULT_FALLBACK_CHARSET);
+
+        log.info(() -> "Detected file encoding '%s': %s".formatted(file.toPath(), charset.name()));
+        return charset;
+    }
+
+    /**
+     * Lazily parsed entries of the file. The stream holds the file open — use it in try-with-resources.
+     * Read errors after opening are thrown as {@link UncheckedIOException}.
+     */
+    public Stream<SubtitleEntry> streamFile(File file) throws IOException {
+        return stream(openFile(file, SubtitleFormat.SRT));
+    }
+
+    /**
+     * Like {@link #streamFile(File)}, reporting how much of the file has been parsed as entries are pulled.
+     */
+    public Stream<SubtitleEntry> streamFile(File file, ProgressListener progress) throws IOException {
+        return stream(openFile(file, SubtitleFormat.SRT).withProgress(progress));
+    }
+
+    public Stream<SubtitleEntry> stream(Reader reader) {
+        return stream(new SrtReader(reader));
+    }
 
-        return entries;
+    /**
+     * Lazily parsed entries of the reader; closing the stream closes the reader.
+     */
+    public Stream<SubtitleEntry> stream(CueReader reader) {
+        Spliterator<SubtitleEntry> spliterator = Spliterators.spliteratorUnknownSize(
+                reader, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
     }
 }
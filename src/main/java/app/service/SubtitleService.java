@@ -1,105 +1,345 @@
 package app.service;
 
+import app.metrics.Stage;
+import app.metrics.StageTimer;
 import app.model.FrameRate;
 import app.model.SubtitleEntry;
-import app.service.SubtitleChanges.ModifiedEntry;
+import app.model.TimeMap;
 import app.service.SubtitleChanges.RemovalReason;
-import app.service.SubtitleChanges.RemovedEntry;
+import io.vavr.control.Option;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+/**
+ * File and stream operations on subtitles. Every operation is a single pass: cues are read in the input's format,
+ * retimed or cleaned, and written in the output's format as they go, so converting between formats costs nothing
+ * extra. File operations read the format the input's extension names and, unless told otherwise, write the same.
+ */
 public class SubtitleService {
 
+    // Roles of the files a cache entry holds
+    private static final String OUTPUT = "output";
+    private static final String CHANGES_LOG = "changes-log";
+
+    // The suffixes file operations add to their output names, and the changes log written next to cleaned output
+    private static final Pattern GENERATED_NAME = Pattern.compile(
+            "(.*)(?:_shifted|_converted|_cleaned|_no_sdh|_no_spam|_synced|_aligned|_[0-9_]+_fps_to_[0-9_]+_fps)"
+                    + "(?:_changes)?\\.[^.]*");
+
+    private final Optional<ResultCache> cache;
+    private final RuleEngine rules;
+
+    public SubtitleService() {
+        this(Optional.empty(), RuleEngine.defaultEngine());
+    }
+
+    /**
+     * File operations look their results up in the cache before doing any work, and store them there after.
+     * Stream operations are never cached.
+     */
+    public SubtitleService(ResultCache cache) {
+        this(Optional.of(cache), RuleEngine.defaultEngine());
+    }
+
+    private SubtitleService(Optional<ResultCache> cache, RuleEngine rules) {
+        this.cache = cache;
+        this.rules = rules;
+    }
+
+    public SubtitleService withCache(ResultCache cache) {
+        return new SubtitleService(Optional.of(cache), rules);
+    }
+
+    /**
+     * Cleans with the given rules instead of the bundled default pack. The engine is shared by every operation.
+     */
+    public SubtitleService withRules(RuleEngine rules) {
+        return new SubtitleService(cache, rules);
+    }
+
     public File createShiftedSubtitles(File inputFile, double offsetSeconds) throws IOException {
-        List<SubtitleEntry> entries = SubtitleParserService.parseFile(inputFile);
-        List<SubtitleEntry> shiftedEntries = entries.stream()
-                .map(entry -> entry.shiftBySeconds(offsetSeconds))
-                .toList();
+        return createShiftedSubtitles(inputFile, offsetSeconds, ProgressListener.NONE);
+    }
 
-        File outputFile = generateOutputFile(inputFile, "_shifted");
-        writeSrt(outputFile, shiftedEntries);
-        return outputFile;
+    /**
+     * Reports progress while shifting; a listener that throws aborts the run and removes the partial output.
+     */
+    public File createShiftedSubtitles(File inputFile, double offsetSeconds, ProgressListener progress) throws IOException {
+        return createShiftedSubtitles(inputFile, SubtitleFormat.of(inputFile), offsetSeconds, progress);
+    }
+
+    /**
+     * Shifts and writes the result in the output format.
+     */
+    public File createShiftedSubtitles(File inputFile, SubtitleFormat outputFormat, double offsetSeconds,
+                                       ProgressListener progress) throws IOException {
+        return transform(inputFile, inputFormat(inputFile, outputFormat), outputFormat, "_shifted", progress,
+                "shift " + offsetSeconds, entry -> entry.shiftBySeconds(offsetSeconds));
+    }
+
+    /**
+     * Stream-to-stream variant of {@link #createShiftedSubtitles(File, double)} for piping; closes the input.
+     */
+    public void shiftSubtitles(Reader input, Writer output, double offsetSeconds) throws IOException {
+        shiftSubtitles(input, output, SubtitleFormat.SRT, SubtitleFormat.SRT, offsetSeconds);
+    }
+
+    public void shiftSubtitles(Reader input, Writer output, SubtitleFormat inputFormat, SubtitleFormat outputFormat,
+                               double offsetSeconds) throws IOException {
+        transform(input, output, inputFormat, outputFormat, entry -> entry.shiftBySeconds(offsetSeconds));
+    }
+
+    /**
+     * Rewrites the file in the output format, timing and text unchanged. The output is named after the input with
+     * the output format's extension, or gets a {@code _converted} suffix when that would be the input itself.
+     */
+    public File createTranscodedSubtitles(File inputFile, SubtitleFormat outputFormat) throws IOException {
+        return createTranscodedSubtitles(inputFile, outputFormat, ProgressListener.NONE);
+    }
+
+    public File createTranscodedSubtitles(File inputFile, SubtitleFormat outputFormat, ProgressListener progress)
+            throws IOException {
+        String suffix = generateOutputFile(inputFile, "", outputFormat).getName().equalsIgnoreCase(inputFile.getName())
+                ? "_converted"
+                : "";
+        return transform(inputFile, inputFormat(inputFile, outputFormat), outputFormat, suffix, progress,
+                "transcode", UnaryOperator.identity());
+    }
+
+    /**
+     * Stream-to-stream variant of {@link #createTranscodedSubtitles(File, SubtitleFormat)}; closes the input.
+     */
+    public void transcodeSubtitles(Reader input, Writer output, SubtitleFormat inputFormat,
+                                   SubtitleFormat outputFormat) throws IOException {
+        transform(input, output, inputFormat, outputFormat, UnaryOperator.identity());
     }
 
     public CleanResult createCleanedSubtitles(File inputFile, boolean removeSdh, boolean removeSpam) throws IOException {
-        if (!removeSdh && !removeSpam) {
-            throw new IllegalArgumentException("At least one cleaning option must be selected");
-        }
+        return createCleanedSubtitles(inputFile, removeSdh, removeSpam, ChangesLogFormat.TEXT);
+    }
 
-        List<SubtitleEntry> original = SubtitleParserService.parseFile(inputFile);
-        List<SubtitleEntry> afterSdh = removeSdh ? SubtitleCleanerService.removeSdh(original) : original;
-        List<SubtitleEntry> afterSpam = removeSpam ? SubtitleCleanerService.removeSpam(afterSdh) : afterSdh;
+    /**
+     * Cleans the file and streams the changes log, in the given format, while cleaning runs.
+     */
+    public CleanResult createCleanedSubtitles(File inputFile, boolean removeSdh, boolean removeSpam,
+                                              ChangesLogFormat changesLogFormat) throws IOException {
+        return createCleanedSubtitles(inputFile, removeSdh, removeSpam, changesLogFormat, ProgressListener.NONE);
+    }
 
-        File potentialOutput = generateOutputFile(inputFile, suffixFor(removeSdh, removeSpam));
-        SubtitleChanges changes = computeChanges(inputFile, removeSdh, removeSpam, original, afterSdh, afterSpam);
+    /**
+     * Reports progress while cleaning; a listener that throws aborts the run before anything but the unfinished
+     * changes log is written, and that log is removed.
+     */
+    public CleanResult createCleanedSubtitles(File inputFile, boolean removeSdh, boolean removeSpam,
+                                              ChangesLogFormat changesLogFormat, ProgressListener progress) throws IOException {
+        return createCleanedSubtitles(inputFile, SubtitleFormat.of(inputFile), removeSdh, removeSpam,
+                changesLogFormat, progress);
+    }
+
+    /**
+     * Cleans and writes the result in the output format.
+     */
+    public CleanResult createCleanedSubtitles(File inputFile, SubtitleFormat outputFormat, boolean removeSdh,
+                                              boolean removeSpam, ChangesLogFormat changesLogFormat,
+                                              ProgressListener progress) throws IOException {
+        requireCleaningOption(removeSdh, removeSpam);
+        SubtitleFormat inputFormat = inputFormat(inputFile, outputFormat);
+        File potentialOutput = generateOutputFile(inputFile, suffixFor(removeSdh, removeSpam), outputFormat);
+        File changesFile = changesLogFormat.fileFor(potentialOutput);
+
+        // The changes log names the input, so unlike the other operations a renamed input misses; other rules miss too
+        Optional<ResultCache.Key> key = cacheKey(inputFile, "clean %b %b %s %s %s".formatted(removeSdh, removeSpam,
+                changesLogFormat, inputFile.getName(), rules.fingerprint()), inputFormat, outputFormat);
+        Map<String, Path> files = Map.of(OUTPUT, potentialOutput.toPath(), CHANGES_LOG, changesFile.toPath());
+        Optional<Map<String, Long>> cached = key.flatMap(k -> cache.get().restore(k, files));
+        if (cached.isPresent()) {
+            progress.onProgress(1);
+            ChangeCounts counts = countsOf(cached.get());
+            return new CleanResult(counts.hasChanges() ? Optional.of(potentialOutput) : Optional.empty(), changesFile,
+                    counts.sdhRemoved(), counts.spamRemoved(), counts.modified());
+        }
 
-        // Skip writing the output SRT when nothing actually changed — an identical copy is just noise
+        StageTimer changesTimer = StageTimer.startSliced(Stage.CHANGES_LOG);
+        ChangeCounts counts;
         Optional<File> writtenOutput = Optional.empty();
-        if (!changes.removedEntries().isEmpty() || !changes.modifiedEntries().isEmpty()) {
-            writeSrt(potentialOutput, afterSpam);
-            writtenOutput = Optional.of(potentialOutput);
+        try (ChangesSink changesLog = changesLogFormat.open(changesFile, inputFile, removeSdh, removeSpam)) {
+            CleaningPass pass;
+            SubtitleFormat writtenFormat;
+            try (CueReader entries = SubtitleParserService.openFile(inputFile, inputFormat).withProgress(progress)) {
+                pass = clean(entries, removeSdh, removeSpam, changesLog, changesTimer, inputFile.getPath());
+                writtenFormat = outputFormat(outputFormat, inputFormat, entries);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            counts = pass.counts();
+
+            // Skip writing the output when nothing actually changed — an identical copy is just noise
+            if (counts.hasChanges()) {
+                write(potentialOutput, writtenFormat, pass.kept().stream());
+                writtenOutput = Optional.of(potentialOutput);
+            }
+
+            long entered = changesTimer.enter();
+            changesLog.finish(writtenOutput, counts);
+            changesTimer.exit(entered);
+            changesTimer.stop(changesFile.getPath(), changesFile.length(), counts.removed() + counts.modified());
         }
 
-        SubtitleChanges changesWithOutput = withOutput(changes, writtenOutput);
-        File changesFile = changesLogFor(potentialOutput);
-        SubtitleChangesLogWriter.write(changesFile, changesWithOutput);
+        if (key.isPresent()) {
+            cache.get().store(key.get(), writtenOutput.isPresent() ? files : Map.of(CHANGES_LOG, changesFile.toPath()),
+                    Map.of("sdhRemoved", (long) counts.sdhRemoved(), "spamRemoved", (long) counts.spamRemoved(),
+                            "modified", (long) counts.modified(), "unchanged", (long) counts.unchanged()));
+        }
+        return new CleanResult(writtenOutput, changesFile, counts.sdhRemoved(), counts.spamRemoved(), counts.modified());
+    }
 
-        long sdhRemoved = changes.removedEntries().stream().filter(re -> re.reason() == RemovalReason.SDH).count();
-        long spamRemoved = changes.removedEntries().stream().filter(re -> re.reason() == RemovalReason.SPAM).count();
-        return new CleanResult(writtenOutput, changesFile, (int) sdhRemoved, (int) spamRemoved, changes.modifiedEntries().size());
+    private static ChangeCounts countsOf(Map<String, Long> values) {
+        return new ChangeCounts(values.get("sdhRemoved").intValue(), values.get("spamRemoved").intValue(),
+                values.get("modified").intValue(), values.get("unchanged").intValue());
     }
 
-    private SubtitleChanges withOutput(SubtitleChanges c, Optional<File> outputFile) {
-        return new SubtitleChanges(c.inputFile(), outputFile, c.removedSdh(), c.removedSpam(),
-                c.removedEntries(), c.modifiedEntries(), c.unchangedCount());
+    /**
+     * Stream-to-stream variant of {@link #createCleanedSubtitles(File, boolean, boolean)} for piping. Unlike the
+     * file variant it always writes the cleaned subtitles, even when nothing changed; closes the input.
+     *
+     * @param inputFile where the input came from — only used to label the returned changes
+     */
+    public SubtitleChanges cleanSubtitles(Reader input, Writer output, File inputFile,
+                                          boolean removeSdh, boolean removeSpam) throws IOException {
+        SubtitleChangesCollector collector = new SubtitleChangesCollector(inputFile, removeSdh, removeSpam);
+        ChangeCounts counts = cleanSubtitles(input, output, removeSdh, removeSpam, collector);
+        collector.finish(Optional.empty(), counts);
+        return collector.changes();
     }
 
-    private SubtitleChanges computeChanges(File inputFile, boolean removeSdh, boolean removeSpam,
-                                           List<SubtitleEntry> original, List<SubtitleEntry> afterSdh,
-                                           List<SubtitleEntry> afterSpam) {
-        Set<Integer> survivedSdh = indices(afterSdh);
-        Set<Integer> survivedSpam = indices(afterSpam);
+    /**
+     * Like {@link #cleanSubtitles(Reader, Writer, File, boolean, boolean)}, but reports each change to the sink as it
+     * happens instead of collecting them. The caller finishes and closes the sink.
+     */
+    public ChangeCounts cleanSubtitles(Reader input, Writer output, boolean removeSdh, boolean removeSpam,
+                                       ChangesSink changes) throws IOException {
+        return cleanSubtitles(input, output, SubtitleFormat.SRT, SubtitleFormat.SRT, removeSdh, removeSpam, changes);
+    }
 
-        List<RemovedEntry> removed = new ArrayList<>();
-        for (SubtitleEntry origEntry : original) {
-            if (!survivedSdh.contains(origEntry.index())) {
-                removed.add(new RemovedEntry(origEntry, RemovalReason.SDH));
-            } else if (!survivedSpam.contains(origEntry.index())) {
-                removed.add(new RemovedEntry(origEntry, RemovalReason.SPAM));
-            }
+    public ChangeCounts cleanSubtitles(Reader input, Writer output, SubtitleFormat inputFormat,
+                                       SubtitleFormat outputFormat, boolean removeSdh, boolean removeSpam,
+                                       ChangesSink changes) throws IOException {
+        requireCleaningOption(removeSdh, removeSpam);
+
+        CleaningPass pass;
+        SubtitleFormat writtenFormat;
+        StageTimer changesTimer = StageTimer.startSliced(Stage.CHANGES_LOG);
+        try (CueReader entries = TimedCueReader.wrap(inputFormat.codec().newReader(input, inputFormat.options()), null, 0)) {
+            pass = clean(entries, removeSdh, removeSpam, changes, changesTimer, null);
+            writtenFormat = outputFormat(outputFormat, inputFormat, entries);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        // The caller finishes the sink, so only the changes themselves are timed here
+        changesTimer.stop(null, 0, pass.counts().removed() + pass.counts().modified());
+
+        writeCues(output, writtenFormat, pass.kept().stream());
+        return pass.counts();
+    }
 
-        Map<Integer, SubtitleEntry> originalByIndex = original.stream()
-                .collect(Collectors.toMap(SubtitleEntry::index, Function.identity()));
-        List<ModifiedEntry> modified = new ArrayList<>();
-        for (SubtitleEntry finalEntry : afterSpam) {
-            SubtitleEntry origEntry = originalByIndex.get(finalEntry.index());
-            if (origEntry != null && !origEntry.text().equals(finalEntry.text())) {
-                modified.add(new ModifiedEntry(origEntry, finalEntry));
+    public void writeChangesLog(File destination, SubtitleChanges changes) throws IOException {
+        SubtitleChangesLogWriter.write(destination, changes);
+    }
+
+    private void requireCleaningOption(boolean removeSdh, boolean removeSpam) {
+        if (!removeSdh && !removeSpam) {
+            throw new IllegalArgumentException("At least one cleaning option must be selected");
+        }
+    }
+
+    /**
+     * Single fused pass: each entry goes through SDH cleaning, then the spam check, and reports its own removal
+     * or modification right away. Entries are never matched up by cue number, so duplicate numbers are harmless.
+     * SDH and spam matching are timed here; time spent in the sink goes to the caller's timer. Rule hits are
+     * counted per pass, so the shared engine is never written to.
+     */
+    private CleaningPass clean(Iterator<SubtitleEntry> entries, boolean removeSdh, boolean removeSpam,
+                               ChangesSink changes, StageTimer changesTimer, String source) throws IOException {
+        StageTimer sdhTimer = StageTimer.startSliced(Stage.SDH_MATCHING);
+        StageTimer spamTimer = StageTimer.startSliced(Stage.SPAM_MATCHING);
+        List<SubtitleEntry> kept = new ArrayList<>();
+        RuleEngine.Hits hits = rules.newHits();
+        int sdhRemoved = 0;
+        int spamRemoved = 0;
+        int modified = 0;
+
+        while (entries.hasNext()) {
+            SubtitleEntry original = entries.next();
+            SubtitleEntry current = original;
+
+            if (removeSdh) {
+                long entered = sdhTimer.enter();
+                Option<SubtitleEntry> cleaned = SubtitleCleanerService.cleanSdh(original, rules, hits);
+                sdhTimer.exit(entered);
+                if (cleaned.isEmpty()) {
+                    entered = changesTimer.enter();
+                    changes.removed(original, RemovalReason.SDH);
+                    changesTimer.exit(entered);
+                    sdhRemoved++;
+                    continue;
+                }
+                current = cleaned.get();
             }
+
+            if (removeSpam) {
+                long entered = spamTimer.enter();
+                int spamRule = rules.spamRule(current.text());
+                spamTimer.exit(entered);
+                if (spamRule >= 0) {
+                    hits.record(spamRule);
+                    entered = changesTimer.enter();
+                    changes.removed(original, RemovalReason.SPAM);
+                    changesTimer.exit(entered);
+                    spamRemoved++;
+                    continue;
+                }
+            }
+
+            if (!current.text().equals(original.text())) {
+                long entered = changesTimer.enter();
+                changes.modified(original, current);
+                changesTimer.exit(entered);
+                modified++;
+            }
+            kept.add(current);
         }
 
-        int unchanged = afterSpam.size() - modified.size();
-        return new SubtitleChanges(inputFile, Optional.empty(), removeSdh, removeSpam, removed, modified, unchanged);
+        if (removeSdh) {
+            sdhTimer.stop(source, 0, kept.size() + sdhRemoved + spamRemoved);
+        }
+        if (removeSpam) {
+            spamTimer.stop(source, 0, kept.size() + spamRemoved);
+        }
+        return new CleaningPass(kept, new ChangeCounts(sdhRemoved, spamRemoved, modified, kept.size() - modified,
+                hits.toMap()));
     }
 
-    private Set<Integer> indices(List<SubtitleEntry> entries) {
-        Set<Integer> result = new HashSet<>();
-        for (SubtitleEntry e : entries) result.add(e.index());
-        return result;
+    private record CleaningPass(List<SubtitleEntry> kept, ChangeCounts counts) {
     }
 
     private String suffixFor(boolean removeSdh, boolean removeSpam) {
@@ -108,49 +348,296 @@ public class SubtitleService {
         return "_no_spam";
     }
 
-    private File changesLogFor(File outputFile) {
-        String name = outputFile.getName();
-        int dotIndex = name.lastIndexOf('.');
-        String baseName = (dotIndex == -1) ? name : name.substring(0, dotIndex);
-        return new File(outputFile.getParentFile(), baseName + "_changes.log");
+    public File createFrameRateConvertedSubtitles(File inputFile, FrameRate fromFrameRate, FrameRate toFrameRate) throws IOException {
+        return createFrameRateConvertedSubtitles(inputFile, fromFrameRate, toFrameRate, ProgressListener.NONE);
     }
 
-    public File createFrameRateConvertedSubtitles(File inputFile, FrameRate fromFrameRate, FrameRate toFrameRate) throws IOException {
-        if (fromFrameRate == toFrameRate) {
+    /**
+     * Reports progress while converting; a listener that throws aborts the run and removes the partial output.
+     */
+    public File createFrameRateConvertedSubtitles(File inputFile, FrameRate fromFrameRate, FrameRate toFrameRate,
+                                                  ProgressListener progress) throws IOException {
+        return createFrameRateConvertedSubtitles(inputFile, SubtitleFormat.of(inputFile), fromFrameRate, toFrameRate,
+                progress);
+    }
+
+    /**
+     * Converts and writes the result in the output format. Frame-based formats are read at the source frame rate
+     * and written at the target one, unless the input declares its own or the output format names one.
+     */
+    public File createFrameRateConvertedSubtitles(File inputFile, SubtitleFormat outputFormat, FrameRate fromFrameRate,
+                                                  FrameRate toFrameRate, ProgressListener progress) throws IOException {
+        if (fromFrameRate.equals(toFrameRate)) {
             throw new IllegalArgumentException("Source and target frame rate are identical");
         }
 
-        List<SubtitleEntry> entries = SubtitleParserService.parseFile(inputFile);
-        BigDecimal conversionRatio = FrameRate.getPreciseConversionRatio(fromFrameRate, toFrameRate);
-
-        List<SubtitleEntry> convertedEntries = entries.stream()
-                .map(entry -> entry.convertFrameRate(conversionRatio))
-                .toList();
+        FrameRate.Ratio conversionRatio = FrameRate.ratio(fromFrameRate, toFrameRate);
 
         String suffix = String.format("_%s_to_%s",
                 fromFrameRate.getNameWithFpsSuffix().replace(" ", "_").replace(".", "_"),
                 toFrameRate.getNameWithFpsSuffix().replace(" ", "_").replace(".", "_"));
 
-        File outputFile = generateOutputFile(inputFile, suffix);
-        writeSrt(outputFile, convertedEntries);
+        return transform(inputFile, SubtitleFormat.of(inputFile).withFrameRate(fromFrameRate),
+                outputFormat.withDefaultFrameRate(Optional.of(toFrameRate)), suffix, progress,
+                "convert " + fromFrameRate.toRationalString() + " " + toFrameRate.toRationalString(),
+                entry -> entry.convertFrameRate(conversionRatio));
+    }
+
+    /**
+     * Stream-to-stream variant of {@link #createFrameRateConvertedSubtitles(File, FrameRate, FrameRate)} for piping;
+     * closes the input.
+     */
+    public void convertFrameRate(Reader input, Writer output, FrameRate fromFrameRate, FrameRate toFrameRate) throws IOException {
+        convertFrameRate(input, output, SubtitleFormat.SRT, SubtitleFormat.SRT, fromFrameRate, toFrameRate);
+    }
+
+    public void convertFrameRate(Reader input, Writer output, SubtitleFormat inputFormat, SubtitleFormat outputFormat,
+                                 FrameRate fromFrameRate, FrameRate toFrameRate) throws IOException {
+        if (fromFrameRate.equals(toFrameRate)) {
+            throw new IllegalArgumentException("Source and target frame rate are identical");
+        }
+
+        FrameRate.Ratio conversionRatio = FrameRate.ratio(fromFrameRate, toFrameRate);
+        transform(input, output, inputFormat.withDefaultFrameRate(Optional.of(fromFrameRate)),
+                outputFormat.withDefaultFrameRate(Optional.of(toFrameRate)),
+                entry -> entry.convertFrameRate(conversionRatio));
+    }
+
+    public File createSyncedSubtitles(File inputFile, TimeMap timeMap) throws IOException {
+        return createSyncedSubtitles(inputFile, timeMap, ProgressListener.NONE);
+    }
+
+    /**
+     * Retimes through a time map fitted from anchors, correcting offset and drift in the same pass. Reports progress
+     * like the other operations; a listener that throws aborts the run and removes the partial output.
+     */
+    public File createSyncedSubtitles(File inputFile, TimeMap timeMap, ProgressListener progress) throws IOException {
+        return createSyncedSubtitles(inputFile, SubtitleFormat.of(inputFile), timeMap, progress);
+    }
+
+    /**
+     * Retimes and writes the result in the output format.
+     */
+    public File createSyncedSubtitles(File inputFile, SubtitleFormat outputFormat, TimeMap timeMap,
+                                      ProgressListener progress) throws IOException {
+        return transform(inputFile, inputFormat(inputFile, outputFormat), outputFormat, "_synced", progress,
+                "sync " + timeMap, entry -> entry.remap(timeMap));
+    }
+
+    /**
+     * Stream-to-stream variant of {@link #createSyncedSubtitles(File, TimeMap)} for piping; closes the input.
+     */
+    public void syncSubtitles(Reader input, Writer output, TimeMap timeMap) throws IOException {
+        syncSubtitles(input, output, SubtitleFormat.SRT, SubtitleFormat.SRT, timeMap);
+    }
+
+    public void syncSubtitles(Reader input, Writer output, SubtitleFormat inputFormat, SubtitleFormat outputFormat,
+                              TimeMap timeMap) throws IOException {
+        transform(input, output, inputFormat, outputFormat, entry -> entry.remap(timeMap));
+    }
+
+    /**
+     * Finds the drift and offset that line the target up with a correctly timed reference; see {@link SubtitleAligner}.
+     * Either file may be in any supported format.
+     */
+    public Alignment alignSubtitles(File referenceFile, File targetFile) throws IOException {
+        return SubtitleAligner.align(SubtitleParserService.parseTrack(referenceFile, SubtitleFormat.of(referenceFile)),
+                SubtitleParserService.parseTrack(targetFile, SubtitleFormat.of(targetFile)));
+    }
+
+    /**
+     * Writes the input retimed by the alignment: the frame rate conversion, if any, then the shift, as the
+     * FPS-conversion and shift operations would do them one after the other.
+     */
+    public File createAlignedSubtitles(File inputFile, Alignment alignment) throws IOException {
+        return createAlignedSubtitles(inputFile, SubtitleFormat.of(inputFile), alignment);
+    }
+
+    public File createAlignedSubtitles(File inputFile, SubtitleFormat outputFormat, Alignment alignment) throws IOException {
+        return transform(inputFile, inputFormat(inputFile, outputFormat), outputFormat, "_aligned",
+                ProgressListener.NONE, "align " + alignment.offsetMillis() + " " + alignment.frameRateConversion()
+                        .map(c -> c.from().toRationalString() + " " + c.to().toRationalString()).orElse("-"),
+                entry -> applyAlignment(entry, alignment));
+    }
+
+    /**
+     * Stream-to-stream variant of {@link #createAlignedSubtitles(File, Alignment)} for piping; closes the input.
+     */
+    public void alignSubtitles(Reader input, Writer output, Alignment alignment) throws IOException {
+        alignSubtitles(input, output, SubtitleFormat.SRT, SubtitleFormat.SRT, alignment);
+    }
+
+    public void alignSubtitles(Reader input, Writer output, SubtitleFormat inputFormat, SubtitleFormat outputFormat,
+                               Alignment alignment) throws IOException {
+        transform(input, output, inputFormat, outputFormat, entry -> applyAlignment(entry, alignment));
+    }
+
+    private SubtitleEntry applyAlignment(SubtitleEntry entry, Alignment alignment) {
+        SubtitleEntry converted = alignment.frameRateConversion().isPresent()
+                ? entry.convertFrameRate(alignment.ratio())
+                : entry;
+        return converted.shiftByMillis(alignment.offsetMillis());
+    }
+
+    // The input file's own format, read at the output's frame rate when it is frame-based and declares none
+    private SubtitleFormat inputFormat(File inputFile, SubtitleFormat outputFormat) {
+        return SubtitleFormat.of(inputFile).withDefaultFrameRate(outputFormat.frameRate());
+    }
+
+    // A frame-based output without a rate of its own takes the one the input declares, else the one it was read at
+    private SubtitleFormat outputFormat(SubtitleFormat outputFormat, SubtitleFormat inputFormat, CueReader reader) {
+        return outputFormat.withDefaultFrameRate(reader.declaredFrameRate()).withDefaultFrameRate(inputFormat.frameRate());
+    }
+
+    /**
+     * @param description the operation and its parameters, for the cache key
+     */
+    private File transform(File inputFile, SubtitleFormat inputFormat, SubtitleFormat outputFormat, String suffix,
+                           ProgressListener progress, String description,
+                           UnaryOperator<SubtitleEntry> operation) throws IOException {
+        File outputFile = generateOutputFile(inputFile, suffix, outputFormat);
+        Optional<ResultCache.Key> key = cacheKey(inputFile, description, inputFormat, outputFormat);
+        if (key.isPresent() && cache.get().restore(key.get(), Map.of(OUTPUT, outputFile.toPath())).isPresent()) {
+            progress.onProgress(1);
+            return outputFile;
+        }
+
+        CueReader reader = SubtitleParserService.openFile(inputFile, inputFormat).withProgress(progress);
+        try (Stream<SubtitleEntry> entries = SubtitleParserService.stream(reader)) {
+            write(outputFile, outputFormat(outputFormat, inputFormat, reader), entries.map(operation));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        key.ifPresent(k -> cache.get().store(k, Map.of(OUTPUT, outputFile.toPath()), Map.of()));
         return outputFile;
     }
 
-    private File generateOutputFile(File inputFile, String suffix) {
+    // Everything the result depends on besides the input's bytes; empty when there is no cache
+    private Optional<ResultCache.Key> cacheKey(File inputFile, String description, SubtitleFormat inputFormat,
+                                               SubtitleFormat outputFormat) throws IOException {
+        if (cache.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(cache.get().key(inputFile.toPath(),
+                description + "\n" + describe(inputFormat) + "\n" + describe(outputFormat)));
+    }
+
+    private static String describe(SubtitleFormat format) {
+        return format.codec().name() + " " + format.frameRate().map(FrameRate::toRationalString).orElse("-");
+    }
+
+    private void transform(Reader input, Writer output, SubtitleFormat inputFormat, SubtitleFormat outputFormat,
+                           UnaryOperator<SubtitleEntry> operation) throws IOException {
+        CueReader reader = TimedCueReader.wrap(inputFormat.codec().newReader(input, inputFormat.options()), null, 0);
+        try (Stream<SubtitleEntry> entries = SubtitleParserService.stream(reader)) {
+            writeCues(output, outputFormat(outputFormat, inputFormat, reader), entries.map(operation));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * The base name of the input a file of this name would be the output of, e.g. {@code movie} for
+     * {@code movie_shifted.srt} or {@code movie_25_fps_to_23_976_fps.srt}; empty for a name no file operation
+     * gives its output. A transcoded file that simply took another extension is not recognised.
+     */
+    public static Optional<String> generatedFrom(String fileName) {
+        Matcher matcher = GENERATED_NAME.matcher(fileName);
+        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    private File generateOutputFile(File inputFile, String suffix, SubtitleFormat outputFormat) {
         String name = inputFile.getName();
         int dotIndex = name.lastIndexOf('.');
         String baseName = (dotIndex == -1) ? name : name.substring(0, dotIndex);
-        String outputName = baseName + suffix + ".srt";
+        String outputName = baseName + suffix + "." + outputFormat.extension();
 
         return new File(inputFile.getParentFile(), outputName);
     }
 
-    private void writeSrt(File file, List<SubtitleEntry> entries) throws IOException {
-        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
-            for (SubtitleEntry entry : entries) {
-                writer.write(entry.toSrtBlock());
-                writer.write("\n\n");
+    // Package-private for the write benchmark
+    void writeSrt(File file, List<SubtitleEntry> entries) throws IOException {
+        write(file, SubtitleFormat.SRT, entries.stream());
+    }
+
+    /**
+     * Writes entries as they are pulled from the stream, so a lazily parsed input is never held in memory.
+     * The output goes to a temporary file that replaces the target only once complete: a parse or read failure
+     * midway leaves no partial file, and an earlier output of the same name untouched. SRT is encoded by
+     * {@link SrtWriter}, other formats by their codec through a UTF-8 writer. Only the writing itself counts
+     * towards {@link Stage#WRITING}, not pulling the entries.
+     */
+    private void write(File file, SubtitleFormat format, Stream<SubtitleEntry> entries) throws IOException {
+        StageTimer timer = StageTimer.startSliced(Stage.WRITING);
+        long written;
+        if (format.isSrt()) {
+            try (SrtWriter writer = SrtWriter.toFile(file.toPath())) {
+                written = 0;
+                Iterator<SubtitleEntry> it = entries.iterator();
+                while (it.hasNext()) {
+                    SubtitleEntry entry = it.next();
+                    long entered = timer.enter();
+                    writer.write(entry);
+                    timer.exit(entered);
+                    written++;
+                }
+                long entered = timer.enter();
+                writer.commit();
+                timer.exit(entered);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            Path target = file.toPath();
+            Path temporary = SrtWriter.createTemporary(target);
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    // Unpaired surrogates become '?', as in SrtWriter
+                    Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE), SrtWriter.BUFFER_SIZE);
+                    written = writeCues(writer, format, entries, timer);
+                    long entered = timer.enter();
+                    channel.force(false);
+                    timer.exit(entered);
+                }
+                long entered = timer.enter();
+                SrtWriter.moveIntoPlace(temporary, target);
+                timer.exit(entered);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                Files.deleteIfExists(temporary);
             }
         }
+        timer.stop(file.getPath(), file.length(), written);
+    }
+
+    // Flushes the writer but leaves it open
+    private void writeCues(Writer writer, SubtitleFormat format, Stream<SubtitleEntry> entries) throws IOException {
+        StageTimer timer = StageTimer.startSliced(Stage.WRITING);
+        long written = writeCues(writer, format, entries, timer);
+        timer.stop(null, 0, written);
+    }
+
+    // Returns the number of cues written
+    private long writeCues(Writer writer, SubtitleFormat format, Stream<SubtitleEntry> entries, StageTimer timer)
+            throws IOException {
+        long entered = timer.enter();
+        CueWriter cues = format.codec().newWriter(writer, format.options());
+        timer.exit(entered);
+        long written = 0;
+        Iterator<SubtitleEntry> it = entries.iterator();
+        while (it.hasNext()) {
+            SubtitleEntry entry = it.next();
+            entered = timer.enter();
+            cues.write(entry);
+            timer.exit(entered);
+            written++;
+        }
+        entered = timer.enter();
+        cues.finish();
+        timer.exit(entered);
+        return written;
     }
 }
@@ -0,0 +1,115 @@
+package app.service;
+
+import app.model.SubtitleEntry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Line-based groundwork for the {@link CueReader}s of formats other than SRT: one cue of lookahead, line counting
+ * for error messages, a stripped byte order mark, one line of push-back and cue numbering for formats without it.
+ * Progress is reported as unknown, since a {@link Reader} does not tell how much input is left.
+ */
+abstract class TextCueReader implements CueReader {
+
+    // Cues between two progress reports, as for SrtReader
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private final BufferedReader reader;
+    private ProgressListener progressListener = ProgressListener.NONE;
+    private int entriesSinceProgress;
+    private int lineNumber;
+    private String pushedBack;
+    private int nextIndex = 1;
+    private SubtitleEntry nextEntry;
+    private boolean exhausted;
+
+    TextCueReader(Reader input) {
+        this.reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+    }
+
+    /**
+     * Reads the next cue, or returns null at the end of input.
+     */
+    protected abstract SubtitleEntry readEntry();
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntry == null && !exhausted) {
+            nextEntry = readEntry();
+            exhausted = nextEntry == null;
+        }
+        return nextEntry != null;
+    }
+
+    @Override
+    public SubtitleEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SubtitleEntry entry = nextEntry;
+        nextEntry = null;
+        if (++entriesSinceProgress == PROGRESS_INTERVAL) {
+            entriesSinceProgress = 0;
+            progressListener.onProgress(-1);
+        }
+        return entry;
+    }
+
+    @Override
+    public TextCueReader withProgress(ProgressListener listener) {
+        this.progressListener = listener;
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Next line without its terminator, or null at the end of input.
+     */
+    protected String readLine() {
+        if (pushedBack != null) {
+            String line = pushedBack;
+            pushedBack = null;
+            lineNumber++;
+            return line;
+        }
+        try {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            if (++lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                line = line.substring(1);
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the line just read, so the next {@link #readLine()} gives it again.
+     */
+    protected void pushBack(String line) {
+        pushedBack = line;
+        lineNumber--;
+    }
+
+    /**
+     * Number of the line last read, counting from 1.
+     */
+    protected int lineNumber() {
+        return lineNumber;
+    }
+
+    protected int nextIndex() {
+        return nextIndex++;
+    }
+}
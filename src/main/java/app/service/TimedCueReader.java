@@ -0,0 +1,91 @@
+package app.service;
+
+import app.metrics.Stage;
+import app.metrics.StageTimer;
+import app.model.FrameRate;
+import app.model.SubtitleEntry;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Charges the time spent pulling cues to {@link Stage#PARSING}, recorded when the reader is closed.
+ */
+class TimedCueReader implements CueReader {
+
+    private final CueReader delegate;
+    private final StageTimer timer;
+    private final String file;
+    private final long bytes;
+    private long cues;
+    private boolean closed;
+
+    private TimedCueReader(CueReader delegate, StageTimer timer, String file, long bytes) {
+        this.delegate = delegate;
+        this.timer = timer;
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    /**
+     * The reader itself when instrumentation is off.
+     *
+     * @param file  the file read, or null for a stream
+     * @param bytes its size, or 0 when unknown
+     */
+    static CueReader wrap(CueReader reader, String file, long bytes) {
+        StageTimer timer = StageTimer.startSliced(Stage.PARSING);
+        return timer.isOff() ? reader : new TimedCueReader(reader, timer, file, bytes);
+    }
+
+    @Override
+    public CueReader withProgress(ProgressListener listener) {
+        delegate.withProgress(listener);
+        return this;
+    }
+
+    @Override
+    public Optional<FrameRate> declaredFrameRate() {
+        long entered = timer.enter();
+        try {
+            return delegate.declaredFrameRate();
+        } finally {
+            timer.exit(entered);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        long entered = timer.enter();
+        try {
+            return delegate.hasNext();
+        } finally {
+            timer.exit(entered);
+        }
+    }
+
+    @Override
+    public SubtitleEntry next() {
+        long entered = timer.enter();
+        try {
+            SubtitleEntry entry = delegate.next();
+            cues++;
+            return entry;
+        } finally {
+            timer.exit(entered);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            delegate.close();
+        } finally {
+            timer.stop(file, bytes, cues);
+        }
+    }
+}
@@ -4,75 +4,186 @@ import app.model.FrameRate;
 import lombok.extern.java.Log;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
+/**
+ * Reads video frame rates with ffprobe. Each probe is a single ffprobe run; results are remembered on disk per
+ * path, size and modification time, so re-probing an unchanged video costs no process at all. Whether ffprobe
+ * can be started is learned from the first attempt and remembered for the life of the JVM.
+ */
 @Log
 public class VideoMetadataService {
 
-    public Optional<FrameRate> detectFrameRate(File videoFile) {
-        if (videoFile == null || !videoFile.exists()) {
-            return Optional.empty();
+    public static final String DEFAULT_FFPROBE = "ffprobe";
+    public static final int DEFAULT_MAX_CONCURRENT_PROBES = 4;
+
+    private static final long PROBE_TIMEOUT_SECONDS = 30;
+
+    // ffprobe executable -> whether it could be started
+    private static final Map<String, Boolean> AVAILABILITY = new ConcurrentHashMap<>();
+
+    private final String ffprobe;
+    private final FrameRateProbeCache cache;
+    private final Semaphore probeSlots;
+    private final int maxConcurrentProbes;
+
+    public VideoMetadataService() {
+        this(DEFAULT_FFPROBE, defaultCacheFile(), DEFAULT_MAX_CONCURRENT_PROBES);
+    }
+
+    /**
+     * @param ffprobe             executable name looked up on the PATH, or a path to it
+     * @param cacheFile           where probe results are kept between runs
+     * @param maxConcurrentProbes upper bound on ffprobe processes this service runs at once
+     */
+    public VideoMetadataService(String ffprobe, Path cacheFile, int maxConcurrentProbes) {
+        if (maxConcurrentProbes < 1) {
+            throw new IllegalArgumentException("Probe concurrency must be positive, got: " + maxConcurrentProbes);
         }
+        this.ffprobe = ffprobe;
+        this.cache = new FrameRateProbeCache(cacheFile);
+        this.probeSlots = new Semaphore(maxConcurrentProbes);
+        this.maxConcurrentProbes = maxConcurrentProbes;
+    }
 
+    private static Path defaultCacheFile() {
+        return Path.of(System.getProperty("user.home"), ".subtitle-sync", "ffprobe-cache.tsv");
+    }
+
+    public Optional<FrameRate> detectFrameRate(File videoFile) {
+        return probe(videoFile).flatMap(FrameRateProbe::frameRate);
+    }
+
+    /**
+     * Detects frame rates of many videos, running up to the configured number of ffprobe processes at once.
+     *
+     * @return detected frame rate per input file, in input order
+     */
+    public Map<File, Optional<FrameRate>> detectFrameRates(List<File> videoFiles) throws InterruptedException {
+        Map<File, Future<Optional<FrameRate>>> pending = new LinkedHashMap<>();
+        int workers = Math.max(1, Math.min(maxConcurrentProbes, videoFiles.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
         try {
-            if (!isFFprobeAvailable()) {
-                log.warning("FFprobe is not available on the system");
-                return Optional.empty();
+            for (File videoFile : videoFiles) {
+                pending.put(videoFile, executor.submit(() -> detectFrameRate(videoFile)));
             }
+            Map<File, Optional<FrameRate>> results = new LinkedHashMap<>();
+            for (Map.Entry<File, Future<Optional<FrameRate>>> entry : pending.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            // detectFrameRate catches everything but Errors
+            throw new IllegalStateException("Frame rate probe failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            double fps = extractFrameRateWithFFprobe(videoFile);
-            return findClosestFrameRate(fps);
-        } catch (Exception e) {
-            log.log(Level.WARNING, "Failed to read frame rate from file: " + videoFile.getName(), e);
+    /**
+     * Probes the video, or answers from the cache when the same file was probed before.
+     *
+     * @return empty when the file is missing, ffprobe is unavailable or it reported no usable frame rate
+     */
+    public Optional<FrameRateProbe> probe(File videoFile) {
+        if (videoFile == null || !videoFile.exists()) {
             return Optional.empty();
         }
-    }
+        if (Boolean.FALSE.equals(AVAILABILITY.get(ffprobe))) {
+            log.fine("FFprobe is not available on the system");
+            return Optional.empty();
+        }
+
+        Optional<FrameRateProbeCache.Key> key = FrameRateProbeCache.Key.of(videoFile.toPath());
+        Optional<FrameRateProbe> cached = key.flatMap(cache::get);
+        if (cached.isPresent()) {
+            return cached;
+        }
 
-    private boolean isFFprobeAvailable() {
         try {
-            Process process = new ProcessBuilder("ffprobe", "-version").start();
-            int exitCode = process.waitFor();
-            return exitCode == 0;
+            Optional<FrameRateProbe> probed = runFFprobe(videoFile);
+            probed.ifPresent(probe -> key.ifPresent(k -> cache.put(k, probe)));
+            return probed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
         } catch (Exception e) {
-            return false;
+            log.log(Level.WARNING, "Failed to read frame rate from file: " + videoFile.getName(), e);
+            return Optional.empty();
         }
     }
 
-    private double extractFrameRateWithFFprobe(File videoFile) throws IOException, InterruptedException {
+    private Optional<FrameRateProbe> runFFprobe(File videoFile) throws IOException, InterruptedException {
         ProcessBuilder pb = new ProcessBuilder(
-                "ffprobe",
+                ffprobe,
                 "-v", "quiet",
                 "-show_entries", "stream=r_frame_rate",
                 "-select_streams", "v:0",
                 "-of", "csv=p=0",
                 videoFile.getAbsolutePath()
-        );
-
-        Process process = pb.start();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String output = reader.readLine();
+        ).redirectError(ProcessBuilder.Redirect.DISCARD);
 
-            if (StringUtils.isNotBlank(output)) {
-                String[] parts = StringUtils.split(StringUtils.trim(output), "/");
-                if (parts.length == 2) {
-                    double numerator = Double.parseDouble(parts[0]);
-                    double denominator = Double.parseDouble(parts[1]);
-                    return numerator / denominator;
+        probeSlots.acquire();
+        try {
+            Process process = start(pb);
+            try {
+                // Output is a single short line, well within the pipe buffer, so waiting first cannot deadlock
+                if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IOException("FFprobe did not finish within " + PROBE_TIMEOUT_SECONDS + " s");
+                }
+                String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                if (process.exitValue() != 0) {
+                    throw new IOException("FFprobe ended with error (code: " + process.exitValue() + ")");
                 }
+                return parseFrameRate(output);
+            } finally {
+                process.destroyForcibly();
             }
+        } finally {
+            probeSlots.release();
         }
+    }
 
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new IOException("FFprobe ended with error (code: " + exitCode + ")");
+    private Process start(ProcessBuilder pb) throws IOException {
+        try {
+            Process process = pb.start();
+            AVAILABILITY.put(ffprobe, true);
+            return process;
+        } catch (IOException e) {
+            if (AVAILABILITY.putIfAbsent(ffprobe, false) == null) {
+                log.warning("FFprobe is not available on the system");
+            }
+            throw e;
         }
+    }
 
+    private Optional<FrameRateProbe> parseFrameRate(String output) throws IOException {
+        String raw = StringUtils.trim(StringUtils.substringBefore(output, "\n"));
+        if (StringUtils.isNotBlank(raw)) {
+            String[] parts = StringUtils.split(raw, "/");
+            if (parts.length == 2) {
+                double numerator = Double.parseDouble(parts[0]);
+                double denominator = Double.parseDouble(parts[1]);
+                if (numerator > 0 && denominator > 0) {
+                    return Optional.of(new FrameRateProbe(raw, findClosestFrameRate(numerator / denominator)));
+                }
+            }
+        }
         throw new IOException("Failed to extract frame rate from metadata");
     }
 
@@ -81,7 +192,7 @@ public class VideoMetadataService {
         double smallestDifference = Double.MAX_VALUE;
 
         for (FrameRate frameRate : FrameRate.values()) {
-            double difference = Math.abs(frameRate.getPreciseValue().doubleValue() - detectedFps);
+            double difference = Math.abs(frameRate.doubleValue() - detectedFps);
             if (difference < smallestDifference) {
                 smallestDifference = difference;
                 closestFrameRate = frameRate;
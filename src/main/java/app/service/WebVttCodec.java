@@ -0,0 +1,281 @@
+package app.service;
+
+import app.exception.InvalidSubtitleException;
+import app.model.SubtitleEntry;
+import app.model.TimestampCodec;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * WebVTT as served by streaming sources. Reading skips the header, NOTE, STYLE and REGION blocks, cue identifiers
+ * and cue settings, and empty cues; voice, class, language and ruby spans are unwrapped to their text, karaoke
+ * timestamps dropped and character references decoded. Writing numbers the cues as identifiers, uses
+ * {@code HH:MM:SS.mmm} timestamps and escapes text outside the style tags.
+ */
+public class WebVttCodec implements SubtitleCodec {
+
+    private static final String FORMAT = "WebVTT";
+    private static final String SIGNATURE = "WEBVTT";
+
+    private static final Pattern TIMESTAMP_TAG = Pattern.compile("<\\d[^<>]*>");
+    private static final Map<String, String> ENTITIES = Map.of(
+            "amp", "&", "lt", "<", "gt", ">", "quot", "\"", "apos", "'",
+            "nbsp", "\u00A0", "lrm", "\u200E", "rlm", "\u200F");
+
+    @Override
+    public String name() {
+        return "vtt";
+    }
+
+    @Override
+    public List<String> extensions() {
+        return List.of("vtt");
+    }
+
+    @Override
+    public boolean recognizes(String head) {
+        String text = head.startsWith("\uFEFF") ? head.substring(1) : head;
+        return startsWithKeyword(text, SIGNATURE);
+    }
+
+    @Override
+    public CueReader newReader(Reader input, CodecOptions options) {
+        return new VttReader(input);
+    }
+
+    @Override
+    public CueWriter newWriter(Writer output, CodecOptions options) throws IOException {
+        output.write(SIGNATURE + "\n\n");
+        char[] timeline = new char[64];
+        return new CueWriter() {
+            @Override
+            public void write(SubtitleEntry entry) throws IOException {
+                int p = writeTime(entry.start().toMillis(), timeline, 0);
+                TimestampCodec.ARROW.getChars(0, TimestampCodec.ARROW.length(), timeline, p);
+                p = writeTime(entry.end().toMillis(), timeline, p + TimestampCodec.ARROW.length());
+                output.write(Integer.toString(entry.index()));
+                output.write('\n');
+                output.write(timeline, 0, p);
+                output.write('\n');
+                output.write(escape(entry.text()));
+                output.write("\n\n");
+            }
+
+            @Override
+            public void finish() throws IOException {
+                output.flush();
+            }
+        };
+    }
+
+    // A keyword alone on its line or followed by a space or tab
+    private static boolean startsWithKeyword(String line, String keyword) {
+        if (!line.startsWith(keyword)) {
+            return false;
+        }
+        if (line.length() == keyword.length()) {
+            return true;
+        }
+        char next = line.charAt(keyword.length());
+        return next == ' ' || next == '\t' || next == '\n' || next == '\r';
+    }
+
+    // SRT's HH:MM:SS,mmm with the WebVTT decimal point
+    private static int writeTime(long millis, char[] buffer, int offset) {
+        int end = TimestampCodec.writeTime(millis, buffer, offset);
+        buffer[end - 4] = '.';
+        return end;
+    }
+
+    /**
+     * Parses {@code [hh:]mm:ss.ttt}; hours may be wider than two digits.
+     *
+     * @return the millis, or -1 when the value is not a WebVTT timestamp
+     */
+    static long parseTime(String value) {
+        String[] parts = value.split(":", -1);
+        if (parts.length < 2 || parts.length > 3) {
+            return -1;
+        }
+        String secondsPart = parts[parts.length - 1];
+        if (secondsPart.length() != 6 || secondsPart.charAt(2) != '.') {
+            return -1;
+        }
+        long hours = parts.length == 3 ? digits(parts[0], 1, 9) : 0;
+        long minutes = digits(parts[parts.length - 2], 2, 2);
+        long seconds = digits(secondsPart.substring(0, 2), 2, 2);
+        long millis = digits(secondsPart.substring(3), 3, 3);
+        if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59 || millis < 0) {
+            return -1;
+        }
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    private static long digits(String value, int minLength, int maxLength) {
+        if (value.length() < minLength || value.length() > maxLength) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Escapes {@code &}, {@code <} and {@code >}, keeping the style tags and dropping any other tag.
+     */
+    static String escape(String text) {
+        StringBuilder result = new StringBuilder(text.length() + 8);
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '<' ? CueMarkup.tagEnd(text, i) : -1;
+            if (end >= 0) {
+                String name = CueMarkup.tagName(text, i, end);
+                if (CueMarkup.isStyle(name)) {
+                    result.append('<').append(name).append('>');
+                }
+                i = end + 1;
+                continue;
+            }
+            switch (c) {
+                case '&' -> result.append("&amp;");
+                case '<' -> result.append("&lt;");
+                case '>' -> result.append("&gt;");
+                default -> result.append(c);
+            }
+            i++;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Decodes the named references WebVTT defines for cue text plus numeric ones; anything else is left as is.
+     */
+    static String decodeReferences(String text) {
+        int amp = text.indexOf('&');
+        if (amp < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        int i = 0;
+        while (amp >= 0) {
+            int semicolon = text.indexOf(';', amp);
+            String decoded = semicolon > amp + 1 && semicolon - amp <= 10 ? reference(text.substring(amp + 1, semicolon)) : null;
+            result.append(text, i, amp);
+            if (decoded != null) {
+                result.append(decoded);
+                i = semicolon + 1;
+            } else {
+                result.append('&');
+                i = amp + 1;
+            }
+            amp = text.indexOf('&', i);
+        }
+        return result.append(text, i, text.length()).toString();
+    }
+
+    private static String reference(String name) {
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.startsWith("#x") || name.startsWith("#X")
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ENTITIES.get(name);
+    }
+
+    private static final class VttReader extends TextCueReader {
+
+        private boolean headerRead;
+
+        VttReader(Reader input) {
+            super(input);
+        }
+
+        @Override
+        protected SubtitleEntry readEntry() {
+            if (!headerRead) {
+                readHeader();
+            }
+            String line;
+            while ((line = readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int blockLine = lineNumber();
+                if (startsWithKeyword(line, "NOTE") || startsWithKeyword(line, "STYLE")
+                        || startsWithKeyword(line, "REGION")) {
+                    skipBlock();
+                    continue;
+                }
+                String timing = line;
+                if (!line.contains("-->")) {
+                    // A cue identifier comes first
+                    timing = readLine();
+                    if (timing == null || !timing.contains("-->")) {
+                        throw InvalidSubtitleException.malformedLine(FORMAT, line).atLine(blockLine);
+                    }
+                }
+                int arrow = timing.indexOf("-->");
+                String[] endAndSettings = timing.substring(arrow + 3).strip().split("[ \t]+", 2);
+                long start = parseTime(timing.substring(0, arrow).strip());
+                long end = parseTime(endAndSettings[0]);
+                if (start < 0 || end < 0) {
+                    throw InvalidSubtitleException.malformedLine(FORMAT, timing).atLine(lineNumber());
+                }
+
+                StringBuilder text = new StringBuilder();
+                String textLine;
+                while ((textLine = readLine()) != null && !textLine.isBlank()) {
+                    text.append(textLine).append('\n');
+                }
+                String cleaned = TIMESTAMP_TAG.matcher(text).replaceAll("");
+                String cueText = CueMarkup.tidyLines(decodeReferences(CueMarkup.keepStyles(cleaned)));
+                if (cueText.isEmpty()) {
+                    continue;
+                }
+                try {
+                    return new SubtitleEntry(nextIndex(), Duration.ofMillis(start), Duration.ofMillis(end), cueText);
+                } catch (InvalidSubtitleException e) {
+                    throw e.atLine(blockLine);
+                }
+            }
+            return null;
+        }
+
+        private void readHeader() {
+            headerRead = true;
+            String first = readLine();
+            if (first == null) {
+                return;
+            }
+            if (!startsWithKeyword(first, SIGNATURE)) {
+                throw InvalidSubtitleException.malformedLine(FORMAT, first).atLine(1);
+            }
+            skipBlock();
+        }
+
+        private void skipBlock() {
+            String line;
+            while ((line = readLine()) != null && !line.isBlank()) {
+                // skipped
+            }
+        }
+    }
+}
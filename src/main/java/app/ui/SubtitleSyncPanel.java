@@ -1,7 +1,9 @@
 package app.ui;
 
 import app.model.FrameRate;
+import app.presenter.BackgroundTasks;
 import app.presenter.SubtitleSyncPresenter;
+import app.service.SubtitleCodecs;
 import app.service.SubtitleService;
 import app.service.VideoMetadataService;
 import app.ui.view.SubtitleSyncView;
@@ -33,12 +35,16 @@ public class SubtitleSyncPanel extends JPanel implements SubtitleSyncView {
     private JComboBox<FrameRate> toFrameRateCombo;
     private JButton detectFromVideoButton;
     private JTabbedPane tabbedPane;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private JPanel progressPanel;
 
     public SubtitleSyncPanel() {
         this.presenter = new SubtitleSyncPresenter(
                 this,
                 new SubtitleService(),
-                new VideoMetadataService()
+                new VideoMetadataService(),
+                BackgroundTasks.withWorkerThread(SwingUtilities::invokeLater)
         );
         initializeComponents();
         layoutComponents();
@@ -87,6 +93,10 @@ public class SubtitleSyncPanel extends JPanel implements SubtitleSyncView {
         detectFromVideoButton.setMinimumSize(buttonSize);
 
         tabbedPane = new JTabbedPane();
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        cancelButton = new JButton("Cancel");
     }
 
 
@@ -103,6 +113,16 @@ public class SubtitleSyncPanel extends JPanel implements SubtitleSyncView {
         tabbedPane.addTab("🧹 Clean Subtitles", createCleanPanel());
 
         add(tabbedPane, BorderLayout.CENTER);
+        add(createProgressPanel(), BorderLayout.SOUTH);
+    }
+
+    private JPanel createProgressPanel() {
+        progressPanel = new JPanel(new BorderLayout(10, 0));
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelButton, BorderLayout.EAST);
+        progressPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+        progressPanel.setVisible(false);
+        return progressPanel;
     }
 
     private JPanel createFileSelectionPanel() {
@@ -200,6 +220,7 @@ public class SubtitleSyncPanel extends JPanel implements SubtitleSyncView {
         saveCleanedButton.addActionListener(e -> presenter.onSaveCleanedSubtitles());
         removeSdhCheckBox.addItemListener(e -> updateSaveCleanedEnabled());
         removeSpamCheckBox.addItemListener(e -> updateSaveCleanedEnabled());
+        cancelButton.addActionListener(e -> presenter.onCancelTask());
     }
 
     private void updateSaveCleanedEnabled() {
@@ -278,11 +299,36 @@ public class SubtitleSyncPanel extends JPanel implements SubtitleSyncView {
                 Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) :
                 Cursor.getDefaultCursor()
         );
+        subtitleButton.setEnabled(!busy);
+        saveButton.setEnabled(!busy);
+        saveFrameRateButton.setEnabled(!busy);
+        detectFromVideoButton.setEnabled(!busy);
+        if (busy) {
+            saveCleanedButton.setEnabled(false);
+        } else {
+            updateSaveCleanedEnabled();
+        }
+
+        showProgress(-1);
+        cancelButton.setEnabled(true);
+        progressPanel.setVisible(busy);
+        revalidate();
+    }
+
+    @Override
+    public void showProgress(double fraction) {
+        boolean known = fraction >= 0;
+        progressBar.setIndeterminate(!known);
+        progressBar.setValue(known ? (int) Math.round(fraction * 100) : 0);
+        progressBar.setString(known ? null : "Working…");
     }
 
     @Override
     public Optional<File> chooseSubtitleFile() {
-        File file = FileChooserHelper.chooseFile(this, "Select SRT File", "srt");
+        String[] subtitleExtensions = SubtitleCodecs.all().stream()
+                .flatMap(codec -> codec.extensions().stream())
+                .toArray(String[]::new);
+        File file = FileChooserHelper.chooseFile(this, "Select Subtitle File", subtitleExtensions);
         if (file != null) {
             currentSubtitleFile = file;
         }
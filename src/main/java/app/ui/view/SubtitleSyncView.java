@@ -93,12 +93,19 @@ public interface SubtitleSyncView {
     void showSuccess(String message);
 
     /**
-     * Set UI busy state (e.g., show wait cursor during processing).
+     * Set UI busy state while a background operation runs (e.g., wait cursor, progress and a cancel action).
      *
      * @param busy true to show busy state, false to restore normal state
      */
     void setBusy(boolean busy);
 
+    /**
+     * Update progress of the running operation.
+     *
+     * @param fraction completed share from 0 to 1, or negative when unknown
+     */
+    void showProgress(double fraction);
+
     /**
      * Show file chooser dialog for selecting subtitle file.
      *
@@ -0,0 +1,85 @@
+package app.util;
+
+import io.vavr.control.Option;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers {@link CharsetDetector} results per file, keyed by the file's absolute path, size and modification
+ * time, so running shift, clean and convert on the same file detects its charset once. Touching or replacing the
+ * file invalidates its entry; failed detections are remembered too. Holds at most the given number of files,
+ * dropping the least recently used. Safe for concurrent use.
+ */
+public final class CharsetDetectionCache {
+
+    private final Map<Key, Option<Charset>> entries;
+
+    public CharsetDetectionCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry: " + maxEntries);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Option<Charset>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    record Key(String path, long size, long modifiedNanos) {
+
+        static Option<Key> of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return Option.of(new Key(file.toAbsolutePath().normalize().toString(),
+                        attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS)));
+            } catch (IOException e) {
+                return Option.none();
+            }
+        }
+    }
+
+    /**
+     * Detects the charset of the file's content, read by the caller, or returns the remembered result.
+     * Content whose length differs from the file's current size was not read from this version of the file and is
+     * detected without touching the cache.
+     */
+    public Option<Charset> detectCharset(Path file, ByteBuffer content) {
+        Option<Key> key = Key.of(file).filter(k -> k.size() == content.remaining());
+        if (key.isEmpty()) {
+            return CharsetDetector.detectCharset(content, file);
+        }
+        Option<Charset> cached;
+        synchronized (entries) {
+            cached = entries.get(key.get());
+        }
+        if (cached != null) {
+            return cached;
+        }
+        Option<Charset> detected = CharsetDetector.detectCharset(content, file);
+        synchronized (entries) {
+            entries.put(key.get(), detected);
+        }
+        return detected;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
@@ -1,40 +1,211 @@
 package app.util;
 
+import app.metrics.Stage;
+import app.metrics.StageTimer;
 import io.vavr.control.Option;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
 import org.mozilla.universalchardet.UniversalDetector;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 
+/**
+ * Detects the charset of subtitle content. BOMs, pure ASCII and valid UTF-8 are recognised by a single scan without
+ * juniversalchardet, with the names it would report for them; anything else goes to its detector, fed a bounded
+ * window starting at the first non-ASCII line and stopped as soon as it is confident.
+ */
 @Log
 @UtilityClass
 public class CharsetDetector {
 
     private static final int BUFFER_SIZE = 4096;
 
-    public static Option<Charset> detectCharset(Path filePath) {
-        UniversalDetector detector = new UniversalDetector();
+    // Most bytes handed to UniversalDetector; its statistics settle long before this on subtitle text
+    static final int DETECTION_WINDOW_BYTES = 64 * 1024;
 
-        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(filePath))) {
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int bytesRead;
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+    private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
 
-            while ((bytesRead = inputStream.read(buffer)) > 0 && !detector.isDone()) {
-                detector.handleData(buffer, 0, bytesRead);
-            }
+    private static final byte ESC = 0x1B;
 
-            detector.dataEnd();
+    public static Option<Charset> detectCharset(Path filePath) {
+        ByteBuffer content;
+        try {
+            content = FileContent.read(filePath);
         } catch (IOException e) {
             log.severe(() -> "Error reading file for encoding detection: %s - %s".formatted(filePath, e.getMessage()));
             return Option.none();
         }
+        return detectCharset(content, filePath);
+    }
+
+    /**
+     * Same detection over content that is already in memory, e.g. from {@link FileContent#read(Path)}.
+     * The buffer's position is left untouched; {@code source} only labels log messages and stage timings.
+     */
+    public static Option<Charset> detectCharset(ByteBuffer content, Path source) {
+        StageTimer timer = StageTimer.start(Stage.CHARSET_DETECTION);
+        Option<Charset> charset = detect(content.slice(), source);
+        timer.stop(String.valueOf(source), content.remaining(), 0);
+        return charset;
+    }
+
+    private static Option<Charset> detect(ByteBuffer bytes, Path source) {
+
+        Option<Charset> bom = byteOrderMark(bytes);
+        if (bom.isDefined()) {
+            return bom;
+        }
+
+        int special = firstSpecialByte(bytes);
+        if (special == bytes.limit()) {
+            return Option.of(StandardCharsets.US_ASCII);
+        }
+        if (bytes.get(special) >= 0) {
+            // An escape sequence in 7-bit text may be ISO-2022 or HZ, which only the detector recognises
+            return probe(bytes, 0, source);
+        }
+        if (isValidUtf8(bytes, special)) {
+            return Option.of(StandardCharsets.UTF_8);
+        }
+        return probe(bytes, lineStart(bytes, special), source);
+    }
 
+    // The BOMs UniversalDetector recognises, apart from the two unusual UCS-4 orders it reports by names Java lacks
+    private static Option<Charset> byteOrderMark(ByteBuffer bytes) {
+        int length = bytes.limit();
+        int b0 = length > 0 ? bytes.get(0) & 0xFF : -1;
+        int b1 = length > 1 ? bytes.get(1) & 0xFF : -1;
+        int b2 = length > 2 ? bytes.get(2) & 0xFF : -1;
+        int b3 = length > 3 ? bytes.get(3) & 0xFF : -1;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            return Option.of(StandardCharsets.UTF_8);
+        }
+        if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+            return Option.of(UTF_32LE);
+        }
+        if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+            return Option.of(UTF_32BE);
+        }
+        if (b0 == 0xFE && b1 == 0xFF) {
+            return Option.of(StandardCharsets.UTF_16BE);
+        }
+        if (b0 == 0xFF && b1 == 0xFE) {
+            return Option.of(StandardCharsets.UTF_16LE);
+        }
+        return Option.none();
+    }
+
+    /**
+     * Index of the first byte that ends pure ASCII: a high byte, ESC, or a brace right after a tilde (the HZ
+     * shift-in); the limit when there is none.
+     */
+    private static int firstSpecialByte(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        byte previous = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = bytes.get(i);
+            if (b < 0 || b == ESC || b == '{' && previous == '~') {
+                return i;
+            }
+            previous = b;
+        }
+        return limit;
+    }
+
+    /**
+     * Strict UTF-8 check from the given index (RFC 3629): no overlong forms, surrogates, code points past U+10FFFF
+     * or sequences cut off at the end.
+     */
+    static boolean isValidUtf8(ByteBuffer bytes, int from) {
+        int limit = bytes.limit();
+        int i = from;
+        while (i < limit) {
+            int lead = bytes.get(i) & 0xFF;
+            if (lead < 0x80) {
+                i++;
+                continue;
+            }
+            int continuations;
+            int secondMin = 0x80;
+            int secondMax = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                continuations = 1;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                continuations = 2;
+                if (lead == 0xE0) {
+                    secondMin = 0xA0;
+                } else if (lead == 0xED) {
+                    secondMax = 0x9F;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                continuations = 3;
+                if (lead == 0xF0) {
+                    secondMin = 0x90;
+                } else if (lead == 0xF4) {
+                    secondMax = 0x8F;
+                }
+            } else {
+                return false;
+            }
+            if (i + continuations >= limit) {
+                return false;
+            }
+            int second = bytes.get(i + 1) & 0xFF;
+            if (second < secondMin || second > secondMax) {
+                return false;
+            }
+            for (int k = 2; k <= continuations; k++) {
+                if ((bytes.get(i + k) & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuations + 1;
+        }
+        return true;
+    }
+
+    // Start of the line holding the byte, so the detector sees whole lines
+    private static int lineStart(ByteBuffer bytes, int index) {
+        int i = index;
+        while (i > 0 && bytes.get(i - 1) != '\n' && bytes.get(i - 1) != '\r') {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Feeds UniversalDetector at most {@link #DETECTION_WINDOW_BYTES} from the given index, stopping early once it
+     * is done, i.e. confident of its answer.
+     */
+    private static Option<Charset> probe(ByteBuffer bytes, int from, Path source) {
+        UniversalDetector detector = new UniversalDetector();
+        int end = (int) Math.min(bytes.limit(), (long) from + DETECTION_WINDOW_BYTES);
+
+        if (bytes.hasArray()) {
+            byte[] array = bytes.array();
+            int offset = bytes.arrayOffset();
+            for (int p = from; p < end && !detector.isDone(); p += BUFFER_SIZE) {
+                detector.handleData(array, offset + p, Math.min(BUFFER_SIZE, end - p));
+            }
+        } else {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int p = from; p < end && !detector.isDone(); p += BUFFER_SIZE) {
+                int length = Math.min(BUFFER_SIZE, end - p);
+                bytes.get(p, buffer, 0, length);
+                detector.handleData(buffer, 0, length);
+            }
+        }
+        detector.dataEnd();
+
+        return toCharset(detector, source);
+    }
+
+    private static Option<Charset> toCharset(UniversalDetector detector, Path filePath) {
         String detectedCharsetName = detector.getDetectedCharset();
 
         if (detectedCharsetName == null) {
@@ -56,4 +227,10 @@ public class CharsetDetector {
                 .onEmpty(() -> log.info(() -> "Using fallback charset '%s' for file: %s".formatted(fallbackCharset.name(), filePath)))
                 .getOrElse(fallbackCharset);
     }
+
+    public static Charset detectCharsetWithFallback(ByteBuffer content, Path source, Charset fallbackCharset) {
+        return detectCharset(content, source)
+                .onEmpty(() -> log.info(() -> "Using fallback charset '%s' for file: %s".formatted(fallbackCharset.name(), source)))
+                .getOrElse(fallbackCharset);
+    }
 }
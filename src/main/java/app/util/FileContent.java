@@ -0,0 +1,38 @@
+package app.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads a whole file into one {@link ByteBuffer} with a single open, so charset sniffing and decoding
+ * can share the same bytes instead of each reading the file again.
+ */
+@UtilityClass
+public class FileContent {
+
+    // Subtitle files are almost always far below this; mapping small files costs more than one plain read
+    static final long MAP_THRESHOLD = 8L * 1024 * 1024;
+
+    /**
+     * Returns the file content, positioned at 0. Files above {@link #MAP_THRESHOLD} are memory-mapped read-only,
+     * smaller ones are read into a heap buffer of exactly the file size.
+     */
+    public ByteBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file turns out shorter than reported
+            }
+            return buffer.flip();
+        }
+    }
+}
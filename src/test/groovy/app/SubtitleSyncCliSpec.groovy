@@ -0,0 +1,277 @@
+package app
+
+import app.service.SubtitleService
+import app.util.TestFileUtils
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SubtitleSyncCliSpec extends Specification {
+
+    private static final String INPUT = '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+00:00:03,000 --> 00:00:04,000
+Hello there
+'''
+
+    @TempDir
+    Path tempDir
+
+    ByteArrayOutputStream stdout = new ByteArrayOutputStream()
+    ByteArrayOutputStream stderr = new ByteArrayOutputStream()
+
+    private int run(String stdin = '', String... args) {
+        def cli = new SubtitleSyncCli(new SubtitleService(),
+                new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(stdout, true, StandardCharsets.UTF_8),
+                new PrintStream(stderr, true, StandardCharsets.UTF_8))
+        cli.run(args)
+    }
+
+    private String out() {
+        stdout.toString(StandardCharsets.UTF_8)
+    }
+
+    def 'should shift subtitles piped through stdin to stdout'() {
+        when:
+            def exitCode = run(INPUT, 'shift', '--offset', '1.5')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out() == '''1
+00:00:02,500 --> 00:00:03,500
+[door slams]
+
+2
+00:00:04,500 --> 00:00:05,500
+Hello there
+
+'''
+    }
+
+    def 'should fix offset and drift from anchors'() {
+        when: 'the subtitles start 1 s late and run 1 % fast'
+            def exitCode = run(INPUT, 'sync', '--anchors', '00:00:01,000=00:00:00,000;00:00:03,000=00:00:02,020')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out() == '''1
+00:00:00,000 --> 00:00:01,010
+[door slams]
+
+2
+00:00:02,020 --> 00:00:03,030
+Hello there
+
+'''
+    }
+
+    def 'should write next to the input file when no output is given'() {
+        given:
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+
+        when:
+            def exitCode = run('', 'convert', '--from', '25', '--to', '23.976', input.path)
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            def output = new File(tempDir.toFile(), 'movie_25_fps_to_23_976_fps.srt')
+            output.exists()
+            out().trim() == output.path
+    }
+
+    def 'should clean a file into an explicit output with a changes log'() {
+        given:
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+            def output = tempDir.resolve('out.srt').toFile()
+            def log = tempDir.resolve('out.log').toFile()
+
+        when:
+            def exitCode = run('', 'clean', '--sdh', input.path, '-o', output.path, '--changes-log', log.path)
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            output.text == '2\n00:00:03,000 --> 00:00:04,000\nHello there\n\n'
+            log.text.contains('Output:  out.srt')
+            log.text.contains('Options: Remove SDH\n')
+            log.text.contains('#1  00:00:01,000 --> 00:00:02,000  (via SDH)')
+    }
+
+    def 'should stream a JSON Lines changes log when cleaning to an explicit output'() {
+        given:
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+            def output = tempDir.resolve('out.srt').toFile()
+            def log = tempDir.resolve('out.jsonl').toFile()
+
+        when:
+            def exitCode = run('', 'clean', '--sdh', input.path, '-o', output.path,
+                    '--changes-log', log.path, '--changes-format', 'jsonl')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            def lines = log.readLines()
+            lines.first() == '{"type":"header","input":"movie.srt","removeSdh":true,"removeSpam":false}'
+            lines[1].startsWith('{"type":"removed","index":1,')
+            lines.last() == '{"type":"summary","output":"out.srt","removedSdh":1,"removedSpam":0,"modified":0,"unchanged":1,"ruleHits":{}}'
+    }
+
+    def 'should recognize the format of stdin and write the requested one'() {
+        when:
+            def exitCode = run('WEBVTT\n\n00:01.000 --> 00:02.000\n<i>Hi</i>\n', 'shift', '--offset', '1', '--format', 'ass')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out().startsWith('[Script Info]')
+            out().endsWith('Dialogue: 0,0:00:02.00,0:00:03.00,Default,,0,0,0,,{\\i1}Hi{\\i0}\n')
+    }
+
+    def 'should transcode a file to the format its output names'() {
+        given:
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+            def output = tempDir.resolve('movie.sub')
+
+        when:
+            def exitCode = run('', 'transcode', '--fps', '25', '-o', output.toString(), input.path)
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            output.toFile().text == '{1}{1}25\n{25}{50}[door slams]\n{75}{100}Hello there\n'
+    }
+
+    def 'should reject an unknown changes log format'() {
+        when:
+            def exitCode = run('', 'clean', '--changes-format', 'xml', '-')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_USAGE
+            stderr.toString(StandardCharsets.UTF_8).contains('Unsupported changes log format: xml')
+    }
+
+    def 'should process a directory in batch mode'() {
+        given:
+            TestFileUtils.createTempSrtFile(tempDir, 'e01.srt', INPUT)
+            TestFileUtils.createTempSrtFile(tempDir, 'e02.srt', INPUT)
+
+        when:
+            def exitCode = run('', 'shift', '--offset', '2', '--jobs', '2', tempDir.toString())
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out().readLines()*.replaceAll('.*[/\\\\]', '') == ['e01_shifted.srt', 'e02_shifted.srt']
+            stderr.toString(StandardCharsets.UTF_8).contains('Processed 2 files, 0 failed')
+    }
+
+    def 'should reuse cached results across runs'() {
+        given:
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+            def cache = tempDir.resolve('cache').toString()
+            run('', 'clean', '--cache', cache, input.path)
+            def output = new File(tempDir.toFile(), 'movie_cleaned.srt')
+            def expected = output.text
+            output.delete()
+
+        when:
+            def exitCode = run('', 'clean', '--cache', cache, '--cache-size', '10', input.path)
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            output.text == expected
+            Files.getAttribute(output.toPath(), 'unix:nlink') >= 2
+    }
+
+    def 'should clean with the rule packs given'() {
+        given:
+            def rules = tempDir.resolve('studio.rules')
+            Files.writeString(rules, 'spam keyword watermark Studio XYZ\n')
+            def input = '1\n00:00:01,000 --> 00:00:02,000\nNarrator: Hello\n\n2\n00:00:03,000 --> 00:00:04,000\nStudio XYZ presents\n'
+
+        when:
+            def exitCode = run(input, 'clean', '--rules', "en, ${rules}".toString())
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out() == '1\n00:00:01,000 --> 00:00:02,000\nHello\n\n'
+    }
+
+    def 'should report invalid subtitles with a failure exit code'() {
+        when:
+            def exitCode = run('1\nnot a timeline\nText\n', 'shift', '--offset', '1')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_FAILURE
+            stderr.toString(StandardCharsets.UTF_8).startsWith('Error: Subtitle #1: Invalid timeline format')
+    }
+
+    def 'should leave an existing output file untouched when the input turns out invalid'() {
+        given:
+            def output = tempDir.resolve('out.srt')
+            Files.writeString(output, 'previous')
+
+        when:
+            def exitCode = run(INPUT + '\n3\nnot a timeline\nText\n', 'shift', '--offset', '1', '-o', output.toString())
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_FAILURE
+            Files.readString(output) == 'previous'
+            Files.list(tempDir).toList() == [output]
+    }
+
+    def 'should reject bad usage: #description'() {
+        when:
+            def exitCode = run('', args as String[])
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_USAGE
+
+        where:
+            description            | args
+            'no command'           | []
+            'unknown command'      | ['rewind']
+            'missing offset'       | ['shift']
+            'non-numeric offset'   | ['shift', '--offset', 'abc']
+            'zero frame rate'      | ['convert', '--from', '0', '--to', '25']
+            'invalid frame rate'   | ['convert', '--from', 'fast', '--to', '25']
+            'option without value' | ['shift', '--offset']
+            'missing anchors'      | ['sync']
+            'reordering anchors'   | ['sync', '--anchors', '10=20 20=15']
+            'missing reference'    | ['align']
+            'missing format'       | ['transcode']
+            'unknown format'       | ['shift', '--offset', '1', '--format', 'sami']
+            'cache size alone'     | ['shift', '--offset', '1', '--cache-size', '10']
+            'zero cache size'      | ['shift', '--offset', '1', '--cache', 'dir', '--cache-size', '0']
+            'unknown rule pack'    | ['clean', '--rules', 'klingon']
+            'empty rule packs'     | ['clean', '--rules', ',']
+            'unknown option'       | ['clean', '--sdhh', 'movie.srt']
+    }
+
+    def 'should print usage on --help'() {
+        when:
+            def exitCode = run('', '--help')
+
+        then:
+            exitCode == SubtitleSyncCli.EXIT_OK
+            out().startsWith('Usage: subtitle-sync')
+    }
+
+    def 'should never load Swing'() {
+        given: 'a fresh JVM running the CLI with class loading traced'
+            def input = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', INPUT)
+            def java = Path.of(System.getProperty('java.home'), 'bin', 'java').toString()
+            def process = new ProcessBuilder(java, '-Xlog:class+load=info', '-cp', System.getProperty('java.class.path'),
+                    'app.SubtitleSyncCli', 'shift', '--offset', '1', input.path)
+                    .redirectErrorStream(true)
+                    .start()
+            def output = process.inputStream.text
+
+        expect:
+            process.waitFor() == 0
+            output.contains('app.SubtitleSyncCli')
+            !output.contains('javax.swing')
+    }
+}
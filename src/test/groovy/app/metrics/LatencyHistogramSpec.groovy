@@ -0,0 +1,40 @@
+package app.metrics
+
+import spock.lang.Specification
+
+class LatencyHistogramSpec extends Specification {
+
+    def 'should put #value in a bucket whose bounds hold it within an eighth'() {
+        given:
+            int bucket = LatencyHistogram.bucketOf(value)
+
+        expect:
+            LatencyHistogram.upperBound(bucket) >= value
+            bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value
+            LatencyHistogram.upperBound(bucket) - value <= value / 8
+
+        where:
+            value << [0, 1, 15, 16, 17, 31, 32, 1_000, 65_535, 1_000_000, Long.MAX_VALUE]
+    }
+
+    def 'should report percentiles capped at the largest value'() {
+        given:
+            def histogram = new LatencyHistogram()
+            (1..100).each { histogram.record(it * 1_000L) }
+
+        when:
+            def snapshot = histogram.snapshot()
+
+        then:
+            snapshot.count() == 100
+            snapshot.mean() == 50_500
+            snapshot.p50() >= 50_000 && snapshot.p50() <= 50_000 * 9 / 8
+            snapshot.p99() >= 99_000 && snapshot.p99() <= 100_000
+            snapshot.max() == 100_000
+    }
+
+    def 'should report zeros before anything is recorded'() {
+        expect:
+            new LatencyHistogram().snapshot() == new LatencyHistogram.Snapshot(0, 0, 0, 0, 0, 0)
+    }
+}
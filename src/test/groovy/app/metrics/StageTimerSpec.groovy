@@ -0,0 +1,122 @@
+package app.metrics
+
+import app.service.SubtitleService
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.lang.management.ManagementFactory
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+class StageTimerSpec extends Specification {
+
+    private static final String INPUT = '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+00:00:03,000 --> 00:00:04,000
+Zażółć gęślą jaźń
+
+3
+00:00:05,000 --> 00:00:06,000
+Visit www.example.com
+'''
+
+    @TempDir
+    Path tempDir
+
+    SubtitleService subtitleService = new SubtitleService()
+
+    def cleanup() {
+        Instrumentation.setStatisticsEnabled(false)
+    }
+
+    private File input() {
+        def file = tempDir.resolve('movie.srt')
+        Files.writeString(file, INPUT, StandardCharsets.UTF_8)
+        file.toFile()
+    }
+
+    def 'should hand out an inert timer when neither statistics nor JFR want it'() {
+        given:
+            def runs = Instrumentation.statistics(Stage.PARSING).runs
+
+        when:
+            def timer = StageTimer.start(Stage.PARSING)
+            timer.exit(timer.enter())
+            timer.stop('movie.srt', 10, 1)
+
+        then:
+            timer.isOff()
+            timer.enter() == 0
+            Instrumentation.statistics(Stage.PARSING).runs == runs
+    }
+
+    def 'should add every stage of a cleaning run to the statistics'() {
+        given:
+            def file = input()
+            def before = Stage.values().collectEntries { [(it): Instrumentation.statistics(it).cues] }
+            def runsBefore = Stage.values().collectEntries { [(it): Instrumentation.statistics(it).runs] }
+            Instrumentation.setStatisticsEnabled(true)
+
+        when:
+            def result = subtitleService.createCleanedSubtitles(file, true, true)
+
+        then:
+            result.sdhRemoved() == 1
+            result.spamRemoved() == 1
+            Instrumentation.statistics(Stage.CHARSET_DETECTION).runs == runsBefore[Stage.CHARSET_DETECTION] + 1
+            Instrumentation.statistics(Stage.PARSING).cues == before[Stage.PARSING] + 3
+            Instrumentation.statistics(Stage.SDH_MATCHING).cues == before[Stage.SDH_MATCHING] + 3
+            Instrumentation.statistics(Stage.SPAM_MATCHING).cues == before[Stage.SPAM_MATCHING] + 2
+            Instrumentation.statistics(Stage.CHANGES_LOG).cues == before[Stage.CHANGES_LOG] + 2
+            Instrumentation.statistics(Stage.WRITING).cues == before[Stage.WRITING] + 1
+            Instrumentation.statistics(Stage.WRITING).bytes > 0
+            Instrumentation.statistics(Stage.DECODING).runs == runsBefore[Stage.DECODING]
+    }
+
+    def 'should expose the statistics over JMX'() {
+        given:
+            Instrumentation.setStatisticsEnabled(true)
+            subtitleService.createShiftedSubtitles(input(), 1)
+            def server = ManagementFactory.platformMBeanServer
+            def name = Instrumentation.objectName(Stage.PARSING)
+
+        expect:
+            server.isRegistered(name)
+            server.getAttribute(name, 'Runs') == Instrumentation.statistics(Stage.PARSING).runs
+            server.getAttribute(name, 'Runs') > 0
+            server.getAttribute(name, 'P99Micros') <= server.getAttribute(name, 'MaxMicros')
+    }
+
+    def 'should emit a JFR event per stage with the file, bytes and cues'() {
+        given:
+            def file = input()
+            def recordingFile = tempDir.resolve('stages.jfr')
+
+        when:
+            def recording = new Recording()
+            recording.enable(StageEvent.NAME)
+            recording.start()
+            subtitleService.createShiftedSubtitles(file, 1)
+            recording.stop()
+            recording.dump(recordingFile)
+            recording.close()
+            def events = RecordingFile.readAllEvents(recordingFile)
+                    .findAll { it.eventType.name == StageEvent.NAME }
+                    .collectEntries { [(it.getString('stage')): it] }
+
+        then:
+            events.keySet() == ['charset-detection', 'parsing', 'writing'] as Set
+            events['parsing'].getString('file') == file.path
+            events['parsing'].getLong('bytes') == file.length()
+            events['parsing'].getLong('cues') == 3
+            events['writing'].getLong('cues') == 3
+            events['writing'].getString('file').endsWith('movie_shifted.srt')
+            events['writing'].getDuration('activeTime') <= events['writing'].duration
+    }
+}
@@ -0,0 +1,151 @@
+package app.model
+
+import app.util.TestFileUtils
+import spock.lang.Specification
+
+class CueIntervalIndexSpec extends Specification {
+
+    /**
+     * Dense random cues in shuffled order, many of them overlapping, some very long.
+     */
+    private static SubtitleTrack randomTrack(int size, long seed) {
+        def random = new Random(seed)
+        def track = new SubtitleTrack()
+        size.times {
+            long start = random.nextInt(600_000)
+            long length = 1 + (random.nextInt(20) == 0 ? random.nextInt(120_000) : random.nextInt(4_000))
+            track.add(it + 1, start, start + length, 'x')
+        }
+        track
+    }
+
+    private static List<Integer> scan(SubtitleTrack track, Closure<Boolean> matches) {
+        (0..<track.size())
+                .findAll { matches(track.startMillis(it), track.endMillis(it)) }
+                .sort { a, b -> track.startMillis(a) <=> track.startMillis(b) ?: track.endMillis(a) <=> track.endMillis(b) ?: a <=> b }
+    }
+
+    def 'should find the cues showing at a time'() {
+        given:
+            def index = CueIntervalIndex.of([
+                    TestFileUtils.entry(1, 1_000, 3_000),
+                    TestFileUtils.entry(2, 2_000, 2_500),
+                    TestFileUtils.entry(3, 3_000, 4_000)])
+
+        expect: 'ends are exclusive'
+            index.activeAt(millis) as List == rows
+
+        where:
+            millis | rows
+            999    | []
+            1_000  | [0]
+            2_000  | [0, 1]
+            2_999  | [0]
+            3_000  | [2]
+            4_000  | []
+    }
+
+    def 'should agree with a linear scan on #description'() {
+        given:
+            def track = randomTrack(2_000, seed)
+            def index = CueIntervalIndex.of(track)
+            def random = new Random(seed + 1)
+
+        expect:
+            (0..<300).every {
+                long t = random.nextInt(750_000)
+                long length = 1 + random.nextInt(10_000)
+                index.activeAt(t) as List == scan(track) { long s, long e -> s <= t && t < e } &&
+                        index.overlapping(t, t + length) as List == scan(track) { long s, long e -> s < t + length && e > t }
+            }
+
+        where:
+            description    | seed
+            'dense cues'   | 1
+            'another seed' | 2
+    }
+
+    def 'should report every overlapping pair once'() {
+        given:
+            def track = randomTrack(1_000, 5)
+            def index = CueIntervalIndex.of(track)
+
+        when:
+            def overlaps = index.overlaps()
+
+        then:
+            def expected = [] as Set
+            for (int a = 0; a < track.size(); a++) {
+                for (int b = a + 1; b < track.size(); b++) {
+                    long overlap = Math.min(track.endMillis(a), track.endMillis(b)) - Math.max(track.startMillis(a), track.startMillis(b))
+                    if (overlap > 0) {
+                        expected << [Math.min(a, b), Math.max(a, b), overlap]
+                    }
+                }
+            }
+            overlaps.collect { [Math.min(it.firstRow(), it.secondRow()), Math.max(it.firstRow(), it.secondRow()), it.overlapMillis()] } as Set == expected
+            overlaps.size() == expected.size()
+            overlaps.every { track.startMillis(it.firstRow()) <= track.startMillis(it.secondRow()) }
+            index.hasOverlaps()
+    }
+
+    def 'should find no overlaps in a clean track'() {
+        given:
+            def index = CueIntervalIndex.of([
+                    TestFileUtils.entry(1, 0, 1_000),
+                    TestFileUtils.entry(2, 1_000, 2_000),
+                    TestFileUtils.entry(3, 2_500, 3_000)])
+
+        expect:
+            index.overlaps().isEmpty()
+            !index.hasOverlaps()
+    }
+
+    def 'should report gaps between covered stretches'() {
+        given: 'cue 2 is inside cue 1, cue 3 touches cue 1, cue 4 follows after a gap, the rows are out of order'
+            def index = CueIntervalIndex.of([
+                    TestFileUtils.entry(1, 10_000, 11_000),
+                    TestFileUtils.entry(2, 1_000, 4_000),
+                    TestFileUtils.entry(3, 2_000, 3_000),
+                    TestFileUtils.entry(4, 4_000, 5_000),
+                    TestFileUtils.entry(5, 5_080, 6_000)])
+
+        expect:
+            index.gapsShorterThan(100) == [new CueIntervalIndex.Gap(3, 4, 80)]
+            index.gapsShorterThan(80).isEmpty()
+            index.gapsShorterThan(10_000) == [new CueIntervalIndex.Gap(3, 4, 80), new CueIntervalIndex.Gap(4, 0, 4_000)]
+            index.gapStatistics() == new CueIntervalIndex.GapStatistics(2, 80, 4_000, 2_040, 2_040.0)
+    }
+
+    def 'should not change when the track is edited afterwards'() {
+        given:
+            def track = SubtitleTrack.of([TestFileUtils.entry(1, 1_000, 2_000)])
+            def index = CueIntervalIndex.of(track)
+
+        when:
+            track.shift(10_000)
+
+        then:
+            index.activeAt(1_500) as List == [0]
+    }
+
+    def 'should handle an empty track'() {
+        given:
+            def index = CueIntervalIndex.of(new SubtitleTrack())
+
+        expect:
+            index.size() == 0
+            index.activeAt(0).length == 0
+            index.overlapping(0, 1_000).length == 0
+            index.overlaps().isEmpty()
+            index.gapStatistics() == new CueIntervalIndex.GapStatistics(0, 0, 0, 0, 0)
+    }
+
+    def 'should reject an empty range'() {
+        when:
+            CueIntervalIndex.of(new SubtitleTrack()).overlapping(5, 5)
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,107 @@
+package app.model
+
+import spock.lang.Specification
+
+class FrameRateSpec extends Specification {
+
+    def 'should resolve "#value" to #expected'() {
+        expect:
+            FrameRate.parse(value) == expected
+
+        where:
+            value        | expected
+            '23.976'     | FrameRate.FPS_23_976
+            '24000/1001' | FrameRate.FPS_23_976
+            '2997/125'   | FrameRate.of(2997, 125)
+            '29.970'     | FrameRate.FPS_29_97
+            '59.94'      | FrameRate.FPS_59_94
+            ' 25 '       | FrameRate.FPS_25
+            '50/2'       | FrameRate.FPS_25
+            '24.000'     | FrameRate.FPS_24
+    }
+
+    def 'should use exact 1001-based fractions for the NTSC rates'() {
+        expect:
+            FrameRate.FPS_23_976.toRationalString() == '24000/1001'
+            FrameRate.FPS_29_97.toRationalString() == '30000/1001'
+            FrameRate.FPS_59_94.toRationalString() == '60000/1001'
+    }
+
+    def 'should accept custom rates in reduced form'() {
+        when:
+            def rate = FrameRate.parse('12.5')
+
+        then:
+            rate.custom
+            rate.numerator == 25
+            rate.denominator == 2
+            rate.nameWithFpsSuffix == '12.5 fps'
+            rate.nameWithDescription == '12.5 (custom)'
+            rate == FrameRate.of(50, 4)
+            FrameRate.parse(rate.toRationalString()) == rate
+    }
+
+    def 'should reject "#value"'() {
+        when:
+            FrameRate.parse(value)
+
+        then:
+            def e = thrown(IllegalArgumentException)
+            e.message == "Unsupported frame rate: ${value}"
+
+        where:
+            value << ['0', '-25', 'fast', '25/0', '', '1/2/3']
+    }
+
+    def 'should rescale with half-up rounding to the millisecond'() {
+        given:
+            def ratio = new FrameRate.Ratio(numerator, denominator)
+
+        expect:
+            ratio.apply(millis) == expected
+
+        where:
+            numerator | denominator | millis | expected
+            1         | 2           | 1      | 1   // 0.5 rounds up
+            1         | 2           | 3      | 2   // 1.5 rounds up
+            1         | 3           | 1      | 0   // 0.333 rounds down
+            2         | 3           | 1      | 1   // 0.667 rounds up
+            1001      | 960         | 0      | 0
+            1001      | 960         | -5     | 0   // negatives clamp like the old BigDecimal path
+    }
+
+    def 'should reduce the conversion ratio between two rates'() {
+        expect:
+            FrameRate.ratio(FrameRate.FPS_25, FrameRate.FPS_23_976) == new FrameRate.Ratio(1001, 960)
+            FrameRate.ratio(FrameRate.FPS_23_976, FrameRate.FPS_24) == new FrameRate.Ratio(1000, 1001)
+            FrameRate.ratio(FrameRate.FPS_30, FrameRate.FPS_30).identity
+    }
+
+    def 'should apply the array kernel exactly like the scalar path, including values that need wide arithmetic'() {
+        given:
+            def ratio = new FrameRate.Ratio(1_000_000_007, 999_999_937)
+            long[] values = [-1, 0, 1, 7_199_999, Long.MAX_VALUE.intdiv(2_000_000_007), 9_000_000_000_000]
+            def expected = values.collect { ratio.apply(it) }
+
+        when:
+            ratio.apply(values, 0, values.length)
+
+        then:
+            values as List == expected
+    }
+
+    def 'should convert between frames and milliseconds at #frameRate.name fps'() {
+        expect:
+            frameRate.frameToMillis(frame) == millis
+            frameRate.millisToFrame(millis) == frame
+            (0..<100_000).step(997).every { frameRate.millisToFrame(frameRate.frameToMillis(it)) == it }
+
+        where:
+            frameRate            | frame  | millis
+            FrameRate.FPS_25     | 250    | 10_000
+            FrameRate.FPS_23_976 | 24     | 1_001
+            FrameRate.FPS_23_976 | 1      | 42      // 41.708 rounds up
+            FrameRate.FPS_29_97  | 17_982 | 599_999 // 599_999.4 rounds down
+            FrameRate.FPS_60     | 0      | 0
+    }
+}
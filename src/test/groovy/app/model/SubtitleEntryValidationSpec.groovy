@@ -204,7 +204,7 @@ class SubtitleEntryValidationSpec extends Specification {
     def 'should maintain subtitle properties during frame rate conversion'() {
         given: 'valid subtitle entry'
             def entry = new SubtitleEntry(1, Duration.ofSeconds(60), Duration.ofSeconds(65), 'Frame rate test')
-            def conversionRatio = new BigDecimal('0.8')
+            def conversionRatio = new FrameRate.Ratio(4, 5)
 
         when: 'converting frame rate'
             def converted = entry.convertFrameRate(conversionRatio)
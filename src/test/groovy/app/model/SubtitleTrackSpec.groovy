@@ -0,0 +1,117 @@
+package app.model
+
+import app.exception.InvalidSubtitleException
+import app.util.TestFileUtils
+import spock.lang.Specification
+
+class SubtitleTrackSpec extends Specification {
+
+    def 'should expose each row as a SubtitleEntry view'() {
+        given:
+            def entries = [TestFileUtils.entry(1, 1_000, 2_500, 'First'),
+                           TestFileUtils.entry(2, 3_000, 4_000, 'Second\nline')]
+
+        when:
+            def track = SubtitleTrack.of(entries)
+
+        then:
+            track.size() == 2
+            track.startMillis(1) == 3_000
+            track.entry(0) == entries[0]
+            track.asEntries() == entries
+    }
+
+    def 'should grow beyond its initial capacity'() {
+        given:
+            def track = new SubtitleTrack(1)
+
+        when:
+            (1..100).each { track.add(it, it * 1_000L, it * 1_000L + 500, "Cue ${it}") }
+
+        then:
+            track.size() == 100
+            track.index(99) == 100
+            track.endMillis(99) == 100_500
+    }
+
+    def 'should shift in place with the same result as SubtitleEntry.shiftBySeconds'() {
+        given:
+            def entries = [TestFileUtils.entry(1, 1_000, 5_000), TestFileUtils.entry(2, 59_999, 61_000),
+                           TestFileUtils.entry(3, 3_600_000, 3_601_250)]
+            def track = SubtitleTrack.of(entries)
+
+        when:
+            track.shiftBySeconds(offset)
+
+        then:
+            track.asEntries() == entries.collect { it.shiftBySeconds(offset) }
+
+        where:
+            offset << [0.0, 3.7, -0.999, 0.002, 3661.25]
+    }
+
+    def 'should clamp shifted times to zero like the per-entry shift'() {
+        given:
+            def track = SubtitleTrack.of([TestFileUtils.entry(1, 2_000, 5_000)])
+
+        when:
+            track.shiftBySeconds(-4.0)
+
+        then:
+            track.startMillis(0) == 0
+            track.endMillis(0) == 1_000
+    }
+
+    def 'should scale in place with the same result as SubtitleEntry.convertFrameRate for #from -> #to'() {
+        given:
+            def random = new Random(42)
+            def entries = (1..500).collect {
+                long start = random.nextInt(4 * 3_600_000)
+                TestFileUtils.entry(it, start, start + 1 + random.nextInt(10_000))
+            }
+            def ratio = FrameRate.ratio(from, to)
+            def track = SubtitleTrack.of(entries)
+
+        when:
+            track.scale(ratio)
+
+        then:
+            track.asEntries() == entries.collect { it.convertFrameRate(ratio) }
+
+        where:
+            from                 | to
+            FrameRate.FPS_25     | FrameRate.FPS_23_976
+            FrameRate.FPS_23_976 | FrameRate.FPS_25
+            FrameRate.FPS_24     | FrameRate.FPS_60
+            FrameRate.FPS_59_94  | FrameRate.FPS_29_97
+            FrameRate.of(125, 8) | FrameRate.parse('12.5')
+    }
+
+    def 'should fall back to wide arithmetic for timestamps that would overflow the kernel'() {
+        given:
+            def ratio = new FrameRate.Ratio(1_000_000_007, 999_999_937)
+            def entries = [TestFileUtils.entry(1, 1_000, 2_000),
+                           TestFileUtils.entry(2, 9_000_000_000_000, 9_000_000_000_001)]
+            def track = SubtitleTrack.of(entries)
+
+        when:
+            track.scale(ratio)
+
+        then:
+            track.asEntries() == entries.collect { it.convertFrameRate(ratio) }
+            track.startMillis(1) == new BigDecimal(9_000_000_000_000).multiply(1_000_000_007)
+                    .divide(999_999_937, 0, java.math.RoundingMode.HALF_UP).longValueExact()
+    }
+
+    def 'should validate rows only when they are materialised'() {
+        given:
+            def track = SubtitleTrack.of([TestFileUtils.entry(1, 1_000, 2_000)])
+            track.shiftBySeconds(-10.0)
+
+        when:
+            track.entry(0)
+
+        then:
+            thrown(InvalidSubtitleException)
+    }
+}
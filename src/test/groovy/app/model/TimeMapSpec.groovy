@@ -0,0 +1,173 @@
+package app.model
+
+import app.exception.InvalidSubtitleException
+import spock.lang.Specification
+
+import java.time.Duration
+
+class TimeMapSpec extends Specification {
+
+    private static TimeMap.Anchor anchor(long subtitleMillis, long targetMillis) {
+        new TimeMap.Anchor(subtitleMillis, targetMillis)
+    }
+
+    def 'should shift by a constant offset from a single anchor'() {
+        given:
+            def map = TimeMap.fit(anchor(10_000, 12_500))
+
+        expect:
+            map.segmentCount() == 1
+            map.apply(0) == 2_500
+            map.apply(10_000) == 12_500
+            map.apply(7_200_000) == 7_202_500
+    }
+
+    def 'should fix offset and drift together from two anchors'() {
+        given: 'subtitles timed for 25 fps, 2 s early, played at 23.976'
+            def map = TimeMap.fit(anchor(0, 2_000), anchor(3_600_000, 2_000 + 3_753_750))
+
+        expect:
+            map.apply(0) == 2_000
+            map.apply(1_800_000) == 2_000 + 1_876_875
+            map.apply(3_600_000) == 3_755_750
+            map.apply(7_200_000) == 2_000 + 7_507_500
+    }
+
+    def 'should pass through every anchor and stay linear between them'() {
+        given:
+            def map = TimeMap.fit(anchor(60_000, 61_000), anchor(0, 500), anchor(120_000, 119_000))
+
+        expect: 'anchors may be given in any order'
+            map.anchors() == [anchor(0, 500), anchor(60_000, 61_000), anchor(120_000, 119_000)]
+            map.segmentCount() == 2
+            map.apply(0) == 500
+            map.apply(30_000) == 30_750
+            map.apply(60_000) == 61_000
+            map.apply(90_000) == 90_000
+            map.apply(120_000) == 119_000
+    }
+
+    def 'should extrapolate the outer segments'() {
+        given:
+            def map = TimeMap.fit(anchor(10_000, 11_000), anchor(20_000, 21_000), anchor(30_000, 32_000))
+
+        expect:
+            map.apply(0) == 1_000
+            map.apply(40_000) == 43_000
+    }
+
+    def 'should round half-up to the millisecond and clamp at zero'() {
+        given:
+            def map = TimeMap.fit(anchor(1_000, 0), anchor(3_000, 1_001))
+
+        expect:
+            map.apply(1_001) == 1
+            map.apply(1_002) == 1
+            map.apply(1_003) == 2
+            map.apply(999) == 0
+            map.apply(0) == 0
+    }
+
+    def 'should match the single-value mapping for #description column'() {
+        given:
+            def anchors = (0..<50).collect { anchor(it * 120_000L, it * 120_000L + (it % 7) * 350L + it * 11L) }
+            def map = TimeMap.fit(anchors)
+            def random = new Random(3)
+            long[] original = (0..<5_000).collect { random.nextInt(6_500_000) as long } as long[]
+            if (sorted) {
+                Arrays.sort(original)
+            }
+            long[] values = original.clone()
+
+        when:
+            map.apply(values, 0, values.length)
+
+        then:
+            (0..<values.length).every { values[it] == map.apply(original[it]) }
+
+        where:
+            description | sorted
+            'a shuffled' | false
+            'an ordered' | true
+    }
+
+    def 'should map a column range in place'() {
+        given:
+            def map = TimeMap.fit(anchor(0, 1_000))
+            long[] values = [1, 2, 3, 4]
+
+        when:
+            map.apply(values, 1, 3)
+
+        then:
+            values as List == [1, 1_002, 1_003, 4]
+    }
+
+    def 'should not overflow on huge timestamps'() {
+        given:
+            def map = TimeMap.fit(anchor(0, 0), anchor(1, Long.MAX_VALUE.intdiv(2)))
+
+        expect:
+            map.apply(1) == Long.MAX_VALUE.intdiv(2)
+            map.apply(3) == Long.MAX_VALUE
+    }
+
+    def 'should agree between entries and tracks'() {
+        given:
+            def map = TimeMap.fit(anchor(1_000, 1_200), anchor(5_000, 5_100))
+            def entries = [
+                    new SubtitleEntry(1, Duration.ofMillis(500), Duration.ofMillis(1_500), 'a'),
+                    new SubtitleEntry(2, Duration.ofMillis(4_000), Duration.ofMillis(9_000), 'b')]
+            def track = SubtitleTrack.of(entries)
+
+        when:
+            track.remap(map)
+
+        then:
+            track.asEntries() == entries*.remap(map)
+    }
+
+    def 'should reject anchors that #description'() {
+        when:
+            TimeMap.fit(anchors)
+
+        then:
+            def e = thrown(IllegalArgumentException)
+            e.message.contains(message)
+
+        where:
+            description           | anchors                                     | message
+            'are missing'         | []                                          | 'At least one anchor'
+            'share subtitle time' | [anchor(1_000, 1_000), anchor(1_000, 2_000)] | 'share the subtitle time'
+            'reorder subtitles'   | [anchor(1_000, 2_000), anchor(2_000, 2_000)] | 'reorder subtitles'
+    }
+
+    def 'should parse anchors from #value'() {
+        expect:
+            TimeMap.Anchor.parse(value) == anchor(subtitle, target)
+
+        where:
+            value                                 | subtitle  | target
+            '00:01:02,500=00:01:04,000'           | 62_500    | 64_000
+            '01:00:00.000 = 01:00:01.250'         | 3_600_000 | 3_601_250
+            '62.5=64'                             | 62_500    | 64_000
+            '00:00:10,000=12.3456'                | 10_000    | 12_346
+    }
+
+    def 'should reject malformed anchor #value'() {
+        when:
+            TimeMap.Anchor.parse(value)
+
+        then:
+            thrown(exception)
+
+        where:
+            value                        | exception
+            '00:01:02,500'               | IllegalArgumentException
+            '00:01:02=5'                 | InvalidSubtitleException
+            '00:01:02,500x=5'            | InvalidSubtitleException
+            'soon=5'                     | IllegalArgumentException
+            'NaN=5'                      | IllegalArgumentException
+            '-1=5'                       | IllegalArgumentException
+    }
+}
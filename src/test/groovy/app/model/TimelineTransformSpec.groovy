@@ -0,0 +1,72 @@
+package app.model
+
+import spock.lang.Specification
+
+class TimelineTransformSpec extends Specification {
+
+    private static long[] randomTimeline(int length, long bound, long seed) {
+        def random = new Random(seed)
+        long[] values = new long[length]
+        for (int i = 0; i < length; i++) {
+            values[i] = Math.floorMod(random.nextLong(), bound) - bound.intdiv(20)
+        }
+        values
+    }
+
+    def 'should run the vector kernel when the incubator module is present'() {
+        expect: 'surefire adds jdk.incubator.vector, so this spec covers the SIMD path'
+            TimelineTransform.VectorSupport.AVAILABLE
+    }
+
+    def 'should match the scalar loop for #description'() {
+        given:
+            long[] vectorized = randomTimeline(length, bound, 7)
+            long[] scalar = vectorized.clone()
+
+        when:
+            transform.apply(vectorized, 0, length)
+            transform.applyScalar(scalar, 0, length)
+
+        then:
+            vectorized == scalar
+
+        where:
+            description                    | transform                                                               | length | bound
+            'NTSC slow-down'               | TimelineTransform.scale(FrameRate.ratio(FrameRate.FPS_25, FrameRate.FPS_23_976)) | 1_003 | 4 * 3_600_000L
+            'NTSC speed-up'                | TimelineTransform.scale(FrameRate.ratio(FrameRate.FPS_23_976, FrameRate.FPS_25)) | 997   | 4 * 3_600_000L
+            'shift with clamp'             | TimelineTransform.shift(-2_500)                                         | 1_001  | 3_600_000L
+            'scale, offset and clamp'      | new TimelineTransform(new FrameRate.Ratio(1001, 960), -90_000, true)    | 515    | 3_600_000L
+            'offset without clamp'         | new TimelineTransform(new FrameRate.Ratio(1, 1), -1_000, false)         | 33     | 10_000L
+            'odd ratio near half-way'      | new TimelineTransform(new FrameRate.Ratio(7, 2), 0, false)              | 1_000  | 1_000L
+            'timestamps beyond 2^53 / num' | new TimelineTransform(new FrameRate.Ratio(1_000_003, 999_983), 5, true) | 257    | Long.MAX_VALUE.intdiv(4_000_000)
+            'shorter than one vector'      | TimelineTransform.shift(1)                                              | 1      | 100L
+    }
+
+    def 'should equal the per-entry conversions'() {
+        given:
+            def entry = new SubtitleEntry(1, java.time.Duration.ofMillis(7_199_999), java.time.Duration.ofMillis(7_200_001), 'x')
+            def ratio = FrameRate.ratio(FrameRate.FPS_23_976, FrameRate.FPS_25)
+            long[] timeline = [entry.start().toMillis(), entry.end().toMillis()]
+
+        when:
+            TimelineTransform.scale(ratio).apply(timeline, 0, 2)
+
+        then:
+            def converted = entry.convertFrameRate(ratio)
+            timeline as List == [converted.start().toMillis(), converted.end().toMillis()]
+    }
+
+    def 'should leave values outside the range untouched'() {
+        given:
+            long[] values = (0..<20).collect { it * 1_000L } as long[]
+
+        when:
+            TimelineTransform.shift(5).apply(values, 3, 17)
+
+        then:
+            values[0..2] == [0L, 1_000L, 2_000L]
+            values[3] == 3_005L
+            values[16] == 16_005L
+            values[17..19] == [17_000L, 18_000L, 19_000L]
+    }
+}
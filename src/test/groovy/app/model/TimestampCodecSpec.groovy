@@ -0,0 +1,141 @@
+package app.model
+
+import app.exception.InvalidSubtitleException
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.regex.Pattern
+
+class TimestampCodecSpec extends Specification {
+
+    // Regex form of what the codec accepts: the original pattern widened to '.' separators and 2+ hour digits
+    private static final Pattern REFERENCE = Pattern.compile('(?:(?<!\\d)|\\G)(\\d{2,9}):(\\d{2}):(\\d{2})[,.](\\d{3})')
+
+    def 'should parse timeline: #timeline'() {
+        given:
+            def millis = new long[2]
+
+        when:
+            def found = TimestampCodec.parseTimeline(timeline, millis)
+
+        then:
+            found == 2
+            millis[0] == expectedStart
+            millis[1] == expectedEnd
+
+        where:
+            timeline                                    | expectedStart | expectedEnd
+            '00:00:01,000 --> 00:00:03,000'             | 1_000         | 3_000
+            '01:23:45,678 --> 01:23:50,123'             | 5_025_678     | 5_030_123
+            '00:00:01,000     -->   00:00:03,000'       | 1_000         | 3_000
+            '00:00:01,000-->00:00:03,000'               | 1_000         | 3_000
+            '00:00:01.500 --> 00:00:03.250'             | 1_500         | 3_250
+            '100:00:00,000 --> 123:59:59,999'           | 360_000_000   | 446_399_999
+            '00:00:01,000 --> 00:00:03,000 X1:40 Y1:80' | 1_000         | 3_000
+            '00:00:01,0005 --> 00:00:03,000'            | 1_000         | 3_000
+    }
+
+    def 'should report how many timestamps were found: #timeline'() {
+        expect:
+            TimestampCodec.parseTimeline(timeline, new long[2]) == expectedCount
+
+        where:
+            timeline                      | expectedCount
+            'garbage'                     | 0
+            '0:00:01,000 --> 0:00:02,000' | 0
+            '00:00:01 --> 00:00:02'       | 0
+            '00:00:01,000 -->'            | 1
+            '00:00:01,000 --> 00:00:02'   | 1
+    }
+
+    def 'should agree with the regex reference on generated timelines'() {
+        given:
+            def random = new Random(7)
+            def alphabet = '0123456789::,,. ->x'
+
+        expect:
+            (1..20_000).every {
+                def line = (1..random.nextInt(40)).collect { alphabet[random.nextInt(alphabet.length())] }.join()
+                if (random.nextBoolean()) {
+                    line = String.format('%02d:%02d:%02d,%03d', random.nextInt(120), random.nextInt(60), random.nextInt(60), random.nextInt(1000)) + line
+                }
+                referenceParse(line) == codecParse(line)
+            }
+    }
+
+    def 'should throw InvalidSubtitleException when hours do not fit an int'() {
+        when:
+            TimestampCodec.parseTimeline('99999999999:00:00,000 --> 99999999999:00:01,000', new long[2])
+
+        then:
+            thrown(InvalidSubtitleException)
+    }
+
+    def 'should parse a value that is exactly one timestamp: #value'() {
+        expect:
+            TimestampCodec.parseTime(value) == expected
+
+        where:
+            value              | expected
+            '01:02:03,456'     | 3_723_456L
+            ' 01:02:03.456 \t' | 3_723_456L
+            '100:00:00,001'    | 360_000_001L
+    }
+
+    def 'should reject anything but exactly one timestamp: #value'() {
+        when:
+            TimestampCodec.parseTime(value)
+
+        then:
+            thrown(InvalidSubtitleException)
+
+        where:
+            value << ['', '1 01:02:03,456', '7x01:02:03,456', '1:02:03,456', '01:02:03,456x', '01:02:03,456 --> 01:02:04,000']
+    }
+
+    def 'should format millis like String.format did: #millis'() {
+        given:
+            def duration = Duration.ofMillis(millis)
+            def expected = String.format('%02d:%02d:%02d,%03d',
+                    duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart(), duration.toMillisPart())
+            def buffer = new char[20]
+
+        when:
+            def end = TimestampCodec.writeTime(millis, buffer, 3)
+
+        then:
+            TimestampCodec.appendTime(new StringBuilder(), millis).toString() == expected
+            new String(buffer, 3, end - 3) == expected
+
+        where:
+            millis << [0L, 999L, 1_000L, 59_999L, 3_599_999L, 3_600_000L, 5_025_678L, 359_999_999L, 360_000_000L, 36_000_000_001L]
+    }
+
+    def 'should round-trip parsed timestamps through the formatter'() {
+        given:
+            def millis = new long[2]
+            TimestampCodec.parseTimeline(timeline, millis)
+
+        expect:
+            TimestampCodec.appendTimeline(new StringBuilder(), millis[0], millis[1]).toString() == timeline
+
+        where:
+            timeline << ['00:00:00,000 --> 00:00:00,001', '12:34:56,789 --> 99:59:59,999', '100:00:00,000 --> 101:00:00,000']
+    }
+
+    private static List<Long> referenceParse(String line) {
+        def m = REFERENCE.matcher(line)
+        def result = []
+        while (result.size() < 2 && m.find()) {
+            result << (Long.parseLong(m.group(1)) * 3_600_000 + Long.parseLong(m.group(2)) * 60_000
+                    + Long.parseLong(m.group(3)) * 1_000 + Long.parseLong(m.group(4)))
+        }
+        result
+    }
+
+    private static List<Long> codecParse(String line) {
+        def millis = new long[2]
+        def found = TimestampCodec.parseTimeline(line, millis)
+        (0..<found).collect { millis[it] }
+    }
+}
@@ -1,7 +1,9 @@
 package app.presenter
 
 import app.model.FrameRate
+import app.service.ChangesLogFormat
 import app.service.CleanResult
+import app.service.ProgressListener
 import app.service.SubtitleService
 import app.service.VideoMetadataService
 import app.ui.view.SubtitleSyncView
@@ -25,7 +27,8 @@ class SubtitleSyncPresenterSpec extends Specification {
         view = Mock(SubtitleSyncView)
         subtitleService = Mock(SubtitleService)
         videoMetadataService = Mock(VideoMetadataService)
-        presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService)
+        presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService,
+                new BackgroundTasks(Runnable::run, Runnable::run))
     }
 
     def 'should update view when subtitle file is selected'() {
@@ -70,7 +73,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.getOffsetSeconds() >> 5.0
 
         and: 'service processes the file successfully'
-            subtitleService.createShiftedSubtitles(inputFile, 5.0) >> outputFile
+            subtitleService.createShiftedSubtitles(inputFile, 5.0, _) >> outputFile
 
         when: 'user saves shifted subtitles'
             presenter.onSaveShiftedSubtitles()
@@ -86,7 +89,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.getOffsetSeconds() >> 5.0
 
         and: 'service throws exception'
-            subtitleService.createShiftedSubtitles(inputFile, 5.0) >> {
+            subtitleService.createShiftedSubtitles(inputFile, 5.0, _) >> {
                 throw new IOException("Disk full")
             }
 
@@ -131,7 +134,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.getToFrameRate() >> FrameRate.FPS_23_976
 
         and: 'service processes conversion successfully'
-            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976) >> outputFile
+            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976, _) >> outputFile
 
         when: 'user saves converted subtitles'
             presenter.onFrameRateConversion()
@@ -148,7 +151,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.getToFrameRate() >> FrameRate.FPS_23_976
 
         and: 'service throws IllegalArgumentException'
-            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976) >> {
+            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976, _) >> {
                 throw new IllegalArgumentException("Invalid frame rate")
             }
 
@@ -167,7 +170,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.getToFrameRate() >> FrameRate.FPS_23_976
 
         and: 'service throws IOException'
-            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976) >> {
+            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976, _) >> {
                 throw new IOException("File not found")
             }
 
@@ -272,7 +275,7 @@ class SubtitleSyncPresenterSpec extends Specification {
 
         then: 'error message is shown and service is not called'
             1 * view.showError("No subtitle file selected.")
-            0 * subtitleService.createCleanedSubtitles(_, _, _)
+            0 * subtitleService.createCleanedSubtitles(*_)
     }
 
     def 'should show error when no cleaning option is selected'() {
@@ -287,7 +290,7 @@ class SubtitleSyncPresenterSpec extends Specification {
 
         then: 'error message is shown and service is not called'
             1 * view.showError("Select at least one cleaning option.")
-            0 * subtitleService.createCleanedSubtitles(_, _, _)
+            0 * subtitleService.createCleanedSubtitles(*_)
     }
 
     def 'should save cleaned subtitles and show summary with both counts and modified count'() {
@@ -300,7 +303,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.isRemoveSpamSelected() >> true
 
         and: 'service returns a result with removal and modification counts'
-            subtitleService.createCleanedSubtitles(inputFile, true, true) >> new CleanResult(Optional.of(outputFile), changesFile, 12, 2, 8)
+            subtitleService.createCleanedSubtitles(inputFile, true, true, ChangesLogFormat.TEXT, _) >> new CleanResult(Optional.of(outputFile), changesFile, 12, 2, 8)
 
         when: 'user saves cleaned subtitles'
             presenter.onSaveCleanedSubtitles()
@@ -319,7 +322,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.isRemoveSpamSelected() >> false
 
         and: 'service returns a result'
-            subtitleService.createCleanedSubtitles(inputFile, true, false) >> new CleanResult(Optional.of(outputFile), changesFile, 5, 0, 3)
+            subtitleService.createCleanedSubtitles(inputFile, true, false, ChangesLogFormat.TEXT, _) >> new CleanResult(Optional.of(outputFile), changesFile, 5, 0, 3)
 
         when: 'user saves cleaned subtitles'
             presenter.onSaveCleanedSubtitles()
@@ -338,7 +341,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.isRemoveSpamSelected() >> true
 
         and: 'service returns a result'
-            subtitleService.createCleanedSubtitles(inputFile, false, true) >> new CleanResult(Optional.of(outputFile), changesFile, 0, 2, 0)
+            subtitleService.createCleanedSubtitles(inputFile, false, true, ChangesLogFormat.TEXT, _) >> new CleanResult(Optional.of(outputFile), changesFile, 0, 2, 0)
 
         when: 'user saves cleaned subtitles'
             presenter.onSaveCleanedSubtitles()
@@ -356,7 +359,7 @@ class SubtitleSyncPresenterSpec extends Specification {
             view.isRemoveSpamSelected() >> true
 
         and: 'service produced no output (nothing to clean)'
-            subtitleService.createCleanedSubtitles(inputFile, true, true) >> new CleanResult(Optional.empty(), changesFile, 0, 0, 0)
+            subtitleService.createCleanedSubtitles(inputFile, true, true, ChangesLogFormat.TEXT, _) >> new CleanResult(Optional.empty(), changesFile, 0, 0, 0)
 
         when: 'user saves cleaned subtitles'
             presenter.onSaveCleanedSubtitles()
@@ -364,4 +367,110 @@ class SubtitleSyncPresenterSpec extends Specification {
         then: 'success message explains no changes were needed and points to the log'
             1 * view.showSuccess("No changes needed — input had no SDH or spam to clean.\nChanges log: input_cleaned_changes.log")
     }
-}
\ No newline at end of file
+
+    def 'should run the operation on the worker and report its progress and result back'() {
+        given: 'a worker that runs tasks only when told to'
+            def worker = new ArrayDeque<Runnable>()
+            presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService,
+                    new BackgroundTasks(worker::add, Runnable::run))
+            def inputFile = Files.createFile(tempDir.resolve("input.srt")).toFile()
+            def outputFile = tempDir.resolve("input_shifted.srt").toFile()
+            view.getCurrentSubtitleFile() >> inputFile
+            view.getOffsetSeconds() >> 5.0
+            subtitleService.createShiftedSubtitles(inputFile, 5.0, _) >> { File file, double offset, ProgressListener progress ->
+                progress.onProgress(0.5)
+                outputFile
+            }
+
+        when: 'user saves shifted subtitles'
+            presenter.onSaveShiftedSubtitles()
+
+        then: 'the view only turns busy'
+            1 * view.setBusy(true)
+            0 * view.showSuccess(_)
+            worker.size() == 1
+
+        when: 'the worker runs the task'
+            worker.poll().run()
+
+        then: 'progress and the result reach the view, then it is idle again'
+            1 * view.showProgress(0.5)
+
+        then:
+            1 * view.showSuccess("Shifted subtitles saved as:\ninput_shifted.srt")
+
+        then:
+            1 * view.setBusy(false)
+    }
+
+    def 'should drop the result and show nothing when the operation is cancelled'() {
+        given: 'a worker that runs tasks only when told to'
+            def worker = new ArrayDeque<Runnable>()
+            presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService,
+                    new BackgroundTasks(worker::add, Runnable::run))
+            def inputFile = Files.createFile(tempDir.resolve("input.srt")).toFile()
+            view.getCurrentSubtitleFile() >> inputFile
+            view.getFromFrameRate() >> FrameRate.FPS_25
+            view.getToFrameRate() >> FrameRate.FPS_23_976
+            subtitleService.createFrameRateConvertedSubtitles(inputFile, FrameRate.FPS_25, FrameRate.FPS_23_976, _) >> {
+                File file, FrameRate from, FrameRate to, ProgressListener progress ->
+                    progress.onProgress(0.1)
+                    tempDir.resolve("never.srt").toFile()
+            }
+
+        when: 'user starts a conversion and cancels it before it runs on'
+            presenter.onFrameRateConversion()
+            presenter.onCancelTask()
+            worker.poll().run()
+
+        then: 'no message is shown and the view is idle again'
+            0 * view.showSuccess(_)
+            0 * view.showError(_)
+            0 * view.showProgress(_)
+            1 * view.setBusy(false)
+    }
+
+    def 'should stop the service through its progress listener when cancelled mid-run'() {
+        given:
+            def worker = new ArrayDeque<Runnable>()
+            presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService,
+                    new BackgroundTasks(worker::add, Runnable::run))
+            def inputFile = Files.createFile(tempDir.resolve("input.srt")).toFile()
+            view.getCurrentSubtitleFile() >> inputFile
+            view.isRemoveSdhSelected() >> true
+            view.isRemoveSpamSelected() >> false
+            subtitleService.createCleanedSubtitles(inputFile, true, false, ChangesLogFormat.TEXT, _) >> {
+                File file, boolean sdh, boolean spam, ChangesLogFormat format, ProgressListener progress ->
+                    presenter.onCancelTask()
+                    progress.onProgress(0.2)
+                    throw new IllegalStateException("listener should have aborted the run")
+            }
+
+        when:
+            presenter.onSaveCleanedSubtitles()
+            worker.poll().run()
+
+        then:
+            0 * view.showError(_)
+            0 * view.showSuccess(_)
+            1 * view.setBusy(false)
+    }
+
+    def 'should refuse to start a second operation while one is running'() {
+        given: 'a shift is queued on the worker'
+            def worker = new ArrayDeque<Runnable>()
+            presenter = new SubtitleSyncPresenter(view, subtitleService, videoMetadataService,
+                    new BackgroundTasks(worker::add, Runnable::run))
+            def inputFile = Files.createFile(tempDir.resolve("input.srt")).toFile()
+            view.getCurrentSubtitleFile() >> inputFile
+            view.getOffsetSeconds() >> 5.0
+            presenter.onSaveShiftedSubtitles()
+
+        when: 'user starts another one'
+            presenter.onSaveShiftedSubtitles()
+
+        then:
+            1 * view.showError("Another operation is still running.")
+            worker.size() == 1
+    }
+}
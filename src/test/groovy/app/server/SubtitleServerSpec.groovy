@@ -0,0 +1,256 @@
+package app.server
+
+import app.service.SubtitleService
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.PosixFilePermissions
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class SubtitleServerSpec extends Specification {
+
+    private static final String INPUT = '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+00:00:03,000 --> 00:00:04,000
+Hello there
+'''
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20)
+
+    @TempDir
+    Path tempDir
+
+    HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()
+    SubtitleServer server
+
+    def cleanup() {
+        server?.close()
+    }
+
+    private SubtitleServer start(int workers = 2, int queueCapacity = 4, String ffprobe = 'ffprobe',
+                                 long maxUploadBytes = SubtitleServer.Config.DEFAULT_MAX_UPLOAD_BYTES) {
+        server = SubtitleServer.start(new SubtitleService(), new SubtitleServer.Config(
+                new InetSocketAddress('127.0.0.1', 0), workers, queueCapacity, ffprobe, maxUploadBytes))
+    }
+
+    private String ffprobe(String script) {
+        def ffprobe = tempDir.resolve('ffprobe')
+        Files.writeString(ffprobe, "#!/bin/sh\n${script}\n")
+        Files.setPosixFilePermissions(ffprobe, PosixFilePermissions.fromString('rwxr-xr-x'))
+        ffprobe.toString()
+    }
+
+    private HttpResponse<String> post(String pathAndQuery, String body) {
+        post(pathAndQuery, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+    }
+
+    private HttpResponse<String> post(String pathAndQuery, HttpRequest.BodyPublisher body) {
+        client.send(HttpRequest.newBuilder(server.uri().resolve(pathAndQuery)).timeout(TIMEOUT).POST(body).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+    }
+
+    private HttpResponse<String> get(String path) {
+        client.send(HttpRequest.newBuilder(server.uri().resolve(path)).timeout(TIMEOUT).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+    }
+
+    def 'should shift subtitles posted as the request body'() {
+        given:
+            start()
+
+        when:
+            def response = post('shift?offset=1.5', INPUT)
+
+        then:
+            response.statusCode() == 200
+            response.headers().firstValue('X-Subtitle-Format').get() == 'srt'
+            response.body() == '''1
+00:00:02,500 --> 00:00:03,500
+[door slams]
+
+2
+00:00:04,500 --> 00:00:05,500
+Hello there
+
+'''
+    }
+
+    def 'should convert frame rate into the requested format'() {
+        given:
+            start()
+
+        when:
+            def response = post('convert?from=25&to=24&format=vtt', INPUT)
+
+        then:
+            response.statusCode() == 200
+            response.body() == '''WEBVTT
+
+1
+00:00:01.042 --> 00:00:02.083
+[door slams]
+
+2
+00:00:03.125 --> 00:00:04.167
+Hello there
+
+'''
+    }
+
+    def 'should clean and report the counts in headers'() {
+        given:
+            start()
+
+        when:
+            def response = post('clean?sdh', INPUT)
+
+        then:
+            response.statusCode() == 200
+            response.body() == '2\n00:00:03,000 --> 00:00:04,000\nHello there\n\n'
+            response.headers().firstValue('X-Removed-Sdh').get() == '1'
+            response.headers().firstValue('X-Removed-Spam').get() == '0'
+            response.headers().firstValue('X-Modified').get() == '0'
+    }
+
+    def 'should stream a response larger than the held back part'() {
+        given:
+            start()
+            def input = (1..5_000).collect { "${it}\n00:00:01,000 --> 00:00:02,000\nLine number ${it}\n" }.join('\n')
+            def expected = new StringWriter()
+            new SubtitleService().shiftSubtitles(new StringReader(input), expected, 1)
+
+        when:
+            def response = post('shift?offset=1', input)
+
+        then:
+            expected.toString().length() > SubtitleServer.RESPONSE_BUFFER_BYTES
+            response.statusCode() == 200
+            response.body() == expected.toString()
+    }
+
+    def 'should answer #status for #description'() {
+        given:
+            start()
+
+        when:
+            def response = post(path, body)
+
+        then:
+            response.statusCode() == status
+            response.body().contains(message)
+
+        where:
+            description          | path                    | body                           || status | message
+            'invalid subtitles'  | 'shift?offset=1'        | '1\nnot a timeline\nText\n'    || 400    | 'Invalid timeline format'
+            'a missing offset'   | 'shift'                 | INPUT                          || 400    | 'Missing required parameter offset'
+            'a bad frame rate'   | 'convert?from=0&to=25'  | INPUT                          || 400    | ''
+            'an unknown format'  | 'shift?offset=1&format=sami' | INPUT                     || 400    | 'Unsupported subtitle format: sami'
+            'an unknown path'    | 'rewind'                | INPUT                          || 404    | 'Not found: /rewind'
+    }
+
+    def 'should only accept POST on the subtitle endpoints'() {
+        given:
+            start()
+
+        when:
+            def response = get('shift')
+
+        then:
+            response.statusCode() == 405
+            response.headers().firstValue('Allow').get() == 'POST'
+    }
+
+    def 'should reject requests beyond the workers and the queue with 429'() {
+        given: 'one worker, no queue, and a probe holding the worker until it is released'
+            def release = tempDir.resolve('release')
+            start(1, 0, ffprobe("while [ ! -f '${release}' ]; do sleep 0.05; done\necho '25/1'"))
+            def held = client.sendAsync(HttpRequest.newBuilder(server.uri().resolve('detect-fps')).timeout(TIMEOUT)
+                    .POST(HttpRequest.BodyPublishers.ofString('video')).build(), HttpResponse.BodyHandlers.ofString())
+            def deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+            while (!get('metrics').body().startsWith('{"running":1') && System.nanoTime() < deadline) {
+                Thread.sleep(10)
+            }
+
+        when:
+            def rejected = post('shift?offset=1', INPUT)
+
+        then:
+            rejected.statusCode() == 429
+            rejected.headers().firstValue('Retry-After').get() == '1'
+            server.metrics()['/shift'].rejected() == 1
+
+        when: 'the held request completes'
+            Files.createFile(release)
+
+        then:
+            held.get(10, TimeUnit.SECONDS).statusCode() == 200
+            post('shift?offset=1', INPUT).statusCode() == 200
+    }
+
+    def 'should detect the frame rate of a posted video'() {
+        given:
+            start(2, 4, ffprobe("echo '24000/1001'"))
+
+        when:
+            def response = post('detect-fps', 'not really a video')
+
+        then:
+            response.statusCode() == 200
+            response.body() == '{"rawFrameRate":"24000/1001","frameRate":"23.976"}\n'
+    }
+
+    def 'should answer 413 for a video over the upload limit, #description'() {
+        given:
+            start(2, 4, ffprobe("echo '25/1'"), 16)
+
+        when:
+            def response = post('detect-fps', body)
+
+        then:
+            response.statusCode() == 413
+            response.body() == 'Upload larger than 16 bytes\n'
+
+        when: 'a video within the limit'
+            def accepted = post('detect-fps', 'x' * 16)
+
+        then:
+            accepted.statusCode() == 200
+
+        where:
+            description                  | body
+            'by its Content-Length'      | HttpRequest.BodyPublishers.ofString('x' * 1000)
+            'while streaming it chunked' | HttpRequest.BodyPublishers.ofInputStream { new ByteArrayInputStream(('x' * 1000).bytes) }
+    }
+
+    def 'should report per-endpoint counts and latencies'() {
+        given:
+            start()
+            post('shift?offset=1', INPUT)
+            post('shift?offset=1', INPUT)
+            post('shift', INPUT)
+
+        when:
+            def response = get('metrics')
+            def shift = server.metrics()['/shift']
+
+        then:
+            response.statusCode() == 200
+            response.headers().firstValue('Content-Type').get() == 'application/json'
+            response.body().contains('"/shift":{"succeeded":2,"failed":1,"rejected":0,"latencyMicros":{"count":3,')
+            response.body().contains('"/clean":{"succeeded":0,"failed":0,"rejected":0,"latencyMicros":{"count":0,')
+            shift.succeeded() == 2
+            shift.failed() == 1
+            shift.latency().max() > 0
+            shift.latency().p50() <= shift.latency().p99()
+    }
+}
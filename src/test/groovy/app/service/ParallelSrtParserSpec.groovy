@@ -0,0 +1,161 @@
+package app.service
+
+import app.exception.InvalidSubtitleException
+import app.util.TestFileUtils
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.ByteBuffer
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.util.concurrent.ForkJoinPool
+
+class ParallelSrtParserSpec extends Specification {
+
+    @AutoCleanup('shutdown')
+    ForkJoinPool pool = new ForkJoinPool(4)
+
+    @TempDir
+    Path tempDir
+
+    /**
+     * Cues with the awkward shapes the boundary rule has to respect: numeric text lines, whitespace-only
+     * separators, extra blank lines and non-ASCII text.
+     */
+    private static String content(int cues, String newline, boolean bom = true) {
+        def random = new Random(cues)
+        def sb = new StringBuilder(bom ? '﻿' : '')
+        for (int i = 1; i <= cues; i++) {
+            long start = i * 3_000L
+            sb.append(i).append(newline)
+            sb.append(String.format('%02d:%02d:%02d,%03d --> %02d:%02d:%02d,%03d',
+                    start.intdiv(3_600_000), start.intdiv(60_000) % 60, start.intdiv(1_000) % 60, start % 1_000,
+                    (start + 2_000).intdiv(3_600_000), (start + 2_000).intdiv(60_000) % 60, (start + 2_000).intdiv(1_000) % 60, (start + 2_000) % 1_000))
+            sb.append(newline)
+            switch (random.nextInt(5)) {
+                case 0 -> sb.append(i + 1).append(newline).append('číslo').append(newline)
+                case 1 -> sb.append('Zażółć gęślą jaźń').append(newline)
+                case 2 -> sb.append('  42  ').append(newline)
+                default -> sb.append('Line ').append(i).append(newline).append('second line').append(newline)
+            }
+            sb.append(random.nextBoolean() ? newline : ' \t' + newline)
+            if (random.nextInt(4) == 0) {
+                sb.append(newline)
+            }
+        }
+        sb.toString()
+    }
+
+    private static List sequential(String text, Charset charset) {
+        SrtReader.of(ByteBuffer.wrap(text.getBytes(charset)), charset).toList()
+    }
+
+    def 'should parse exactly like the sequential reader with #encoding and #description line breaks'() {
+        given:
+            def charset = Charset.forName(encoding)
+            def text = content(500, newline, charset.name().startsWith('UTF'))
+            def bytes = ByteBuffer.wrap(text.getBytes(charset))
+
+        when:
+            def entries = ParallelSrtParser.parse(bytes, charset, pool, 97)
+
+        then:
+            entries.size() == 500
+            entries == sequential(text, charset)
+
+        where:
+            encoding       | newline | description
+            'UTF-8'        | '\n'    | 'LF'
+            'UTF-8'        | '\r\n'  | 'CRLF'
+            'UTF-8'        | '\r'    | 'CR'
+            'windows-1250' | '\r\n'  | 'CRLF'
+            'UTF-16'       | '\n'    | 'LF'
+    }
+
+    def 'should never cut after a blank line that follows a number'() {
+        given: 'a blank timeline right after the split point would be lost if the chunk started there'
+            def text = 'x\n7\n\n1\n00:00:01,000 --> 00:00:02,000\nA\n'
+            def units = { int i -> text.charAt(i) as int } as ParallelSrtParser.Units
+            def safe = 'a\nb\n\nc\n'
+            def safeUnits = { int i -> safe.charAt(i) as int } as ParallelSrtParser.Units
+
+        expect:
+            ParallelSrtParser.boundaryAfter(units, text.length(), 1) == text.length()
+            ParallelSrtParser.boundaryAfter(safeUnits, safe.length(), 1) == safe.indexOf('c')
+    }
+
+    def 'should cover the whole input with consecutive chunks'() {
+        given:
+            def text = content(200, '\r\n')
+            def units = { int i -> text.charAt(i) as int } as ParallelSrtParser.Units
+
+        when:
+            def ranges = ParallelSrtParser.split(units, text.length(), 50)
+
+        then:
+            ranges.size() > 10
+            ranges.first()[0] == 0
+            ranges.last()[1] == text.length()
+            (1..<ranges.size()).every { ranges[it][0] == ranges[it - 1][1] }
+    }
+
+    def 'should report an invalid cue at its line in the whole input'() {
+        given:
+            def text = content(300, '\r\n') + '301\r\n00:20:00,000 --> 00:10:00,000\r\nBackwards\r\n'
+            def charset = StandardCharsets.UTF_8
+
+        when:
+            ParallelSrtParser.parse(ByteBuffer.wrap(text.getBytes(charset)), charset, pool, 64)
+
+        then:
+            InvalidSubtitleException parallel = thrown()
+
+        when:
+            sequential(text, charset)
+
+        then:
+            InvalidSubtitleException expected = thrown()
+            parallel.lineNumber == expected.lineNumber
+            parallel.lineNumber.asInt == text.readLines().size() - 2
+            parallel.message == expected.message
+    }
+
+    def 'should report the first of several invalid cues'() {
+        given:
+            def text = '1\n00:00:05,000 --> 00:00:01,000\nFirst bad\n\n' + content(100, '\n').substring(1) +
+                    '\n999\nnot a timeline\nSecond bad\n'
+            def charset = StandardCharsets.UTF_8
+
+        when:
+            ParallelSrtParser.parse(ByteBuffer.wrap(text.getBytes(charset)), charset, pool, 64)
+
+        then:
+            InvalidSubtitleException e = thrown()
+            e.lineNumber.asInt == 1
+            e.message.startsWith('Subtitle #1:')
+    }
+
+    def 'should only split large inputs for a pool with more than one worker'() {
+        expect:
+            ParallelSrtParser.worthSplitting(size, parallelism) == expected
+
+        where:
+            size                                             | parallelism | expected
+            ParallelSrtParser.PARALLEL_THRESHOLD_BYTES       | 4           | true
+            ParallelSrtParser.PARALLEL_THRESHOLD_BYTES - 1   | 4           | false
+            ParallelSrtParser.PARALLEL_THRESHOLD_BYTES * 16L | 1           | false
+    }
+
+    def 'should take the parallel path for large files'() {
+        given:
+            def text = content(24_000, '\n')
+            def file = TestFileUtils.createTempSrtFile(tempDir, 'large.srt', text)
+
+        expect:
+            file.length() >= ParallelSrtParser.PARALLEL_THRESHOLD_BYTES
+            SubtitleParserService.parseFile(file) == sequential(text, StandardCharsets.UTF_8)
+            SubtitleParserService.parseTrack(file).asEntries() == sequential(text, StandardCharsets.UTF_8)
+    }
+}
@@ -0,0 +1,206 @@
+package app.service
+
+import app.model.FrameRate
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class ResultCacheSpec extends Specification {
+
+    private static final String INPUT = '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+00:00:03,000 --> 00:00:04,000
+Hello there
+'''
+
+    @TempDir
+    Path tempDir
+
+    private Path cacheRoot() {
+        tempDir.resolve('cache')
+    }
+
+    private SubtitleService cachedService(long maxBytes = ResultCache.DEFAULT_MAX_BYTES) {
+        new SubtitleService().withCache(new ResultCache(cacheRoot(), maxBytes))
+    }
+
+    private File file(String name, String content = INPUT) {
+        def directory = Files.createDirectories(tempDir.resolve('work'))
+        def file = directory.resolve(name)
+        Files.writeString(file, content, StandardCharsets.UTF_8)
+        file.toFile()
+    }
+
+    private List<Path> cachedEntries() {
+        def entries = cacheRoot().resolve(ResultCache.VERSION).resolve('entries')
+        Files.exists(entries) ? Files.walk(entries).withCloseable { it.filter { it.fileName.toString() == 'entry.properties' }.toList() } : []
+    }
+
+    private static long links(File file) {
+        Files.getAttribute(file.toPath(), 'unix:nlink') as long
+    }
+
+    def 'should link a repeated shift from the cache, also for a renamed copy of the input'() {
+        given:
+            def service = cachedService()
+            def first = service.createShiftedSubtitles(file('movie.srt'), 1.5)
+            def expected = first.text
+
+        when:
+            first.delete()
+            def again = service.createShiftedSubtitles(file('movie.srt'), 1.5)
+            def copy = service.createShiftedSubtitles(file('copy.srt'), 1.5)
+
+        then:
+            again.text == expected
+            copy.name == 'copy_shifted.srt'
+            copy.text == expected
+            links(copy) >= 2
+            cachedEntries().size() == 1
+    }
+
+    def 'should miss on other parameters, formats or content'() {
+        given:
+            def service = cachedService()
+            def input = file('movie.srt')
+
+        when:
+            service.createShiftedSubtitles(input, 1)
+            def other = service.createShiftedSubtitles(input, 2).text
+            service.createShiftedSubtitles(input, SubtitleFormat.parse('vtt'), 1, ProgressListener.NONE)
+            service.createFrameRateConvertedSubtitles(input, FrameRate.FPS_25, FrameRate.FPS_24)
+            Files.writeString(input.toPath(), INPUT.replace('Hello', 'Bye'))
+            def changed = service.createShiftedSubtitles(input, 1)
+
+        then:
+            other.startsWith('1\n00:00:03,000 --> 00:00:04,000')
+            changed.text.contains('Bye there')
+            cachedEntries().size() == 5
+    }
+
+    def 'should restore a cleaning run with its counts and changes log'() {
+        given:
+            def service = cachedService()
+            def first = service.createCleanedSubtitles(file('movie.srt'), true, false)
+            def output = first.outputFile().get().text
+            def log = first.changesFile().text
+
+        when:
+            first.outputFile().get().delete()
+            first.changesFile().delete()
+            def again = service.createCleanedSubtitles(file('movie.srt'), true, false)
+
+        then:
+            again == first
+            again.outputFile().get().text == output
+            again.changesFile().text == log
+            links(again.changesFile()) >= 2
+    }
+
+    def 'should restore a cleaning run that changed nothing without an output'() {
+        given:
+            def service = cachedService()
+            def input = file('clean.srt', '1\n00:00:01,000 --> 00:00:02,000\nHello\n')
+            service.createCleanedSubtitles(input, true, true)
+
+        when:
+            def again = service.createCleanedSubtitles(input, true, true)
+
+        then:
+            again.outputFile().isEmpty()
+            again.changesFile().text.contains('No changes were made.')
+            !new File(input.parentFile, 'clean_cleaned.srt').exists()
+            cachedEntries().size() == 1
+    }
+
+    def 'should miss for other rule packs'() {
+        given:
+            def service = cachedService()
+            def english = service.withRules(RuleEngine.compile([RulePack.bundled('default'), RulePack.bundled('en')]))
+            def input = file('credits.srt', '1\n00:00:01,000 --> 00:00:02,000\nSynced by someone\n\n2\n00:00:03,000 --> 00:00:04,000\nHello\n')
+
+        when:
+            def plain = service.createCleanedSubtitles(input, false, true)
+            def first = english.createCleanedSubtitles(input, false, true)
+            first.changesFile().delete()
+            def again = english.createCleanedSubtitles(input, false, true)
+
+        then:
+            plain.outputFile().isEmpty()
+            first.spamRemoved() == 1
+            again == first
+            again.changesFile().text.contains('en/synced-by: 1')
+            cachedEntries().size() == 2
+    }
+
+    def 'should drop an entry whose output was edited through its link'() {
+        given:
+            def service = cachedService()
+            def input = file('movie.srt')
+            def output = service.createShiftedSubtitles(input, 1)
+            def expected = output.text
+
+        when:
+            Files.writeString(output.toPath(), 'edited', StandardOpenOption.APPEND)
+            def again = service.createShiftedSubtitles(input, 1)
+
+        then:
+            again.text == expected
+            cachedEntries().size() == 1
+    }
+
+    def 'should evict the least recently used entries beyond its size'() {
+        given: 'four entries of one size, used in order'
+            def unbounded = new ResultCache(cacheRoot(), ResultCache.DEFAULT_MAX_BYTES)
+            def input = file('movie.srt')
+            def keys = (1..5).collect { offset -> unbounded.key(input.toPath(), "shift ${offset as double}\nsrt -\nsrt -".toString()) }
+            (1..4).each { offset ->
+                new SubtitleService().withCache(unbounded).createShiftedSubtitles(input, offset)
+                Files.setLastModifiedTime(unbounded.entryDirectory(keys[offset - 1]), FileTime.fromMillis(offset * 1_000_000L))
+            }
+            long entrySize = Files.list(unbounded.entryDirectory(keys[0])).withCloseable { it.toList() }.sum { Files.size(it) }
+            def service = cachedService((long) (entrySize * 4.5))
+
+        when: 'the oldest is used again and a fifth is stored'
+            service.createShiftedSubtitles(input, 1)
+            service.createShiftedSubtitles(input, 5)
+
+        then: 'the least recently used one is gone'
+            !Files.exists(unbounded.entryDirectory(keys[1]))
+            [0, 2, 3, 4].every { Files.exists(unbounded.entryDirectory(keys[it])) }
+            cachedEntries().size() == 4
+    }
+
+    def 'should keep one complete entry when several writers store the same key at once'() {
+        given:
+            def cache = new ResultCache(cacheRoot(), ResultCache.DEFAULT_MAX_BYTES)
+            def input = file('movie.srt')
+            def key = cache.key(input.toPath(), 'test')
+            def outputs = (1..8).collect { file("out${it}.srt", "content ${it}") }
+            def pool = Executors.newFixedThreadPool(4)
+
+        when:
+            pool.invokeAll(outputs.collect { output ->
+                { -> cache.store(key, [output: output.toPath()], [n: 1L]) } as Callable
+            })*.get()
+            pool.shutdown()
+            def restored = tempDir.resolve('restored.srt')
+            def values = cache.restore(key, [output: restored])
+
+        then:
+            values.get() == [n: 1L]
+            outputs*.text.contains(Files.readString(restored))
+            cachedEntries().size() == 1
+            Files.list(cacheRoot().resolve(ResultCache.VERSION).resolve('tmp')).withCloseable { it.count() } == 0
+    }
+}
@@ -0,0 +1,206 @@
+package app.service
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class RuleEngineSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    private static RuleEngine engine(String rules) {
+        RuleEngine.compile([RulePack.parse('test', new StringReader(rules))])
+    }
+
+    private static String spamRule(RuleEngine engine, String text) {
+        int rule = engine.spamRule(text)
+        rule < 0 ? null : engine.ruleIds()[rule]
+    }
+
+    def 'should attribute spam to the rule whose match starts first: #text'() {
+        given:
+            def engine = engine('''
+                # keywords and regexes share one ordering by position
+                spam keyword he      he
+                spam keyword she     she
+                spam keyword hers    hers
+                spam keyword synced  Synced by
+                spam regex   url     (?:https?://|www\\.)\\S+
+                spam regex   groups  (a)(b)(c)z
+            ''')
+
+        expect:
+            spamRule(engine, text) == expected
+
+        where:
+            text                                  | expected
+            'she said'                            | 'test/she'
+            'it is hers'                          | 'test/hers'
+            'ushers and fishes'                   | null
+            'SYNCED BY someone'                   | 'test/synced'
+            'www.he.com'                          | 'test/url'
+            'synced by www.example.com'           | 'test/synced'
+            'abcz'                                | 'test/groups'
+            'nothing to see'                      | null
+    }
+
+    def 'should attribute overlapping keywords to the one starting first: #text'() {
+        given: 'a regex that starts between the two keywords'
+            def engine = engine('''
+                spam keyword studio    studio
+                spam keyword release   big studio release
+                spam regex   g-studio  g\\s+studio
+            ''')
+
+        expect:
+            spamRule(engine, text) == expected
+
+        where:
+            text                 | expected
+            'big studio release' | 'test/release'
+            'big studio'         | 'test/g-studio'
+            'the studio'         | 'test/studio'
+    }
+
+    def 'should only accept keywords on word boundaries'() {
+        given:
+            def engine = engine('spam keyword yify YIFY')
+
+        expect:
+            engine.isSpam('YIFY')
+            engine.isSpam('Encoded by yify.')
+            !engine.isSpam('yifying')
+            !engine.isSpam('xyify')
+    }
+
+    def 'should strip speaker labels after dialog dashes and italics and count each strip'() {
+        given:
+            def engine = RuleEngine.compile(['en', 'fr'].collect { RulePack.bundled(it) })
+            def hits = engine.newHits()
+
+        when:
+            def stripped = engine.stripSpeakerLabels('- Narrator: Once upon a time\n-<i>Femme : Oui</i>\nPlain line', hits)
+
+        then:
+            stripped == '- Once upon a time\n-<i>Oui</i>\nPlain line'
+            hits.toMap() == ['en/label': 1, 'fr/label': 1]
+    }
+
+    def 'should return the same text when no speaker rule matches'() {
+        given:
+            def engine = RuleEngine.compile([RulePack.bundled('en')])
+            def text = 'MAJOR: Not a mixed-case label'
+
+        expect:
+            engine.stripSpeakerLabels(text, engine.newHits()).is(text)
+    }
+
+    def 'should load every bundled pack into one engine'() {
+        when:
+            def engine = RuleEngine.compile(RulePack.BUNDLED.collect { RulePack.bundled(it) })
+
+        then:
+            engine.ruleIds().contains('default/url')
+            engine.ruleIds().contains('pl/label')
+            engine.ruleIds().contains('watermarks/yify')
+            spamRule(engine, 'Tłumaczenie: Jan Kowalski') == 'pl/tlumaczenie'
+    }
+
+    def 'should only drop site watermarks without a URL when the watermarks pack is chosen'() {
+        given:
+            def text = 'Ripped by YIFY'
+
+        expect:
+            !RuleEngine.defaultEngine().isSpam(text)
+            spamRule(RuleEngine.compile(['default', 'watermarks'].collect { RulePack.bundled(it) }), text) == 'watermarks/yify'
+            spamRule(RuleEngine.defaultEngine(), 'Downloaded from www.opensubtitles.org') == 'default/url'
+    }
+
+    def 'should fingerprint engines by their rules'() {
+        expect:
+            engine('spam keyword a abc').fingerprint() == engine('spam keyword a abc').fingerprint()
+            engine('spam keyword a abc').fingerprint() != engine('spam keyword a abd').fingerprint()
+    }
+
+    def 'should resolve a rule pack file by path'() {
+        given:
+            def file = tempDir.resolve('studio.rules')
+            Files.writeString(file, 'spam keyword watermark Studio XYZ\n')
+
+        when:
+            def pack = RulePack.resolve(file.toString())
+
+        then:
+            pack.name() == 'studio'
+            pack.rules() == [new CleaningRule('watermark', CleaningRule.Target.SPAM, CleaningRule.Kind.KEYWORD, 'Studio XYZ')]
+    }
+
+    def 'should reject invalid rule packs: #description'() {
+        when:
+            RuleEngine.compile([RulePack.parse('bad', new StringReader(rules))])
+
+        then:
+            def e = thrown(IllegalArgumentException)
+            e.message.contains(message)
+
+        where:
+            description             | rules                                             | message
+            'missing pattern'       | 'spam keyword only-id'                            | 'bad.rules:1:'
+            'unknown target'        | 'ads keyword a b'                                 | 'unknown target'
+            'unknown kind'          | 'spam glob a b'                                   | 'unknown kind'
+            'duplicate id'          | 'spam keyword a b\nspam keyword a c'              | 'bad.rules:2: duplicate rule id'
+            'speaker keyword'       | 'speaker keyword a Narrator:'                     | 'must be regexes'
+            'broken regex'          | 'spam regex a (unclosed'                          | 'invalid regex'
+            'numbered back ref'     | 'spam regex a (x)\\1'                             | 'back references'
+            'clashing named groups' | 'spam regex a (?<n>x)\nspam regex b (?<n>y)'      | 'cannot be combined'
+    }
+
+    def 'should reject unknown bundled packs and packs loaded twice'() {
+        when:
+            RulePack.resolve('klingon')
+
+        then:
+            thrown(IllegalArgumentException)
+
+        when:
+            RuleEngine.compile([RulePack.bundled('en'), RulePack.bundled('en')])
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def 'should be shared by concurrent passes with separate hit counters'() {
+        given:
+            def engine = RuleEngine.compile(['default', 'en'].collect { RulePack.bundled(it) })
+            def texts = ['Synced by nobody', 'visit www.example.com', 'Narrator: hello', 'plain']
+            def pool = Executors.newFixedThreadPool(4)
+
+        when:
+            def results = pool.invokeAll((1..8).collect { worker ->
+                { ->
+                    def hits = engine.newHits()
+                    1000.times {
+                        texts.each { text ->
+                            int rule = engine.spamRule(text)
+                            if (rule >= 0) {
+                                hits.record(rule)
+                            }
+                            engine.stripSpeakerLabels(text, hits)
+                        }
+                    }
+                    hits.toMap()
+                } as Callable<Map<String, Integer>>
+            })*.get()
+
+        then:
+            results.every { it == ['default/url': 1000, 'en/synced-by': 1000, 'en/label': 1000] }
+
+        cleanup:
+            pool.shutdown()
+    }
+}
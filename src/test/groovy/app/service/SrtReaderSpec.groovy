@@ -0,0 +1,169 @@
+package app.service
+
+import app.exception.InvalidSubtitleException
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.CharacterCodingException
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+class SrtReaderSpec extends Specification {
+
+    def 'should parse entries one block at a time'() {
+        given: 'SRT with a broken second block'
+            def reader = new SrtReader(new StringReader('''1
+00:00:01,000 --> 00:00:02,000
+First
+
+2
+broken timeline
+Second
+'''))
+
+        when: 'pulling the first entry only'
+            def first = reader.next()
+
+        then: 'first entry is parsed without touching the broken block'
+            first.index() == 1
+            first.start() == Duration.ofSeconds(1)
+            first.text() == 'First'
+
+        when: 'pulling the next entry'
+            reader.next()
+
+        then: 'the broken block fails only once it is reached'
+            thrown(InvalidSubtitleException)
+    }
+
+    def 'should stream the same entries as the list-based parser'() {
+        given:
+            def content = '\uFEFF1\n00:00:01,000 --> 00:00:03,000\nLine with number:\n123\n\n\n2\n00:00:04,000 --> 00:00:05,000\nOK'
+
+        when:
+            def entries = SubtitleParserService.stream(new StringReader(content)).toList()
+
+        then:
+            entries*.index() == [1, 2]
+            entries*.text() == ['Line with number:\n123', 'OK']
+            entries[1].end() == Duration.ofSeconds(5)
+    }
+
+    def 'should report missing timeline when file ends right after an index line'() {
+        given:
+            def reader = new SrtReader(new StringReader('1\n00:00:01,000 --> 00:00:02,000\nText\n\n2\n'))
+
+        when:
+            reader.toList()
+
+        then:
+            InvalidSubtitleException ex = thrown()
+            ex.message.startsWith('Subtitle #2: Timeline cannot be empty')
+    }
+
+    def 'should report the line an invalid block starts on'() {
+        given:
+            def reader = new SrtReader(new StringReader('1\r\n00:00:01,000 --> 00:00:02,000\r\nText\r\n\r\n\r\n2\r\n00:00:05,000 --> 00:00:04,000\r\nBackwards\r\n'))
+
+        when:
+            reader.toList()
+
+        then:
+            InvalidSubtitleException ex = thrown()
+            ex.lineNumber.asInt == 6
+            ex.message.startsWith('Subtitle #2: End time must be after start time')
+            ex.message.endsWith('(line 6)')
+    }
+
+    def 'should signal exhaustion after last entry'() {
+        given:
+            def reader = new SrtReader(new StringReader(''))
+
+        expect:
+            !reader.hasNext()
+
+        when:
+            reader.next()
+
+        then:
+            thrown(NoSuchElementException)
+    }
+
+    def 'should split byte content into the same lines as BufferedReader: #description'() {
+        given:
+            def bytes = content.getBytes(charset)
+
+        when:
+            def byteLines = readAll(new ByteLineReader(buffer(bytes, direct), charset))
+            def readerLines = new BufferedReader(new StringReader(content)).lines().toList()
+
+        then:
+            byteLines == readerLines
+
+        where:
+            description                  | content                              | charset                         | direct
+            'LF endings'                 | '1\nabc\n\n2\n'                     | StandardCharsets.UTF_8          | false
+            'CRLF endings'               | '1\r\nabc\r\n\r\n2'                  | StandardCharsets.UTF_8          | false
+            'lone CR endings'            | '1\rabc\r\rx'                        | StandardCharsets.UTF_8          | false
+            'no trailing newline'        | 'last line'                          | StandardCharsets.UTF_8          | false
+            'empty input'                | ''                                   | StandardCharsets.UTF_8          | false
+            'multi-byte UTF-8'           | 'Zażółć\r\ngęślą ♪ jaźń\n'            | StandardCharsets.UTF_8          | false
+            'single-byte codepage'       | 'Zażółć\ngęślą jaźń'                  | Charset.forName('windows-1250') | false
+            'mapped (direct) buffer'     | 'Zażółć\r\nascii line\n\nend'         | StandardCharsets.UTF_8          | true
+    }
+
+    def 'should parse byte content in any charset like the reader-based parser: #charset'() {
+        given:
+            def content = bom + '1\r\n00:00:01,000 --> 00:00:03,000\r\nŻółw\r\n\r\n2\r\n00:00:04,000 --> 00:00:05,000\r\nOK\r\n'
+
+        when:
+            def entries = SrtReader.of(ByteBuffer.wrap(content.getBytes(charset)), charset).toList()
+
+        then:
+            entries == new SrtReader(new StringReader(content)).toList()
+
+        where: 'single-byte codepages have no BOM to carry'
+            charset                         | bom
+            StandardCharsets.UTF_8          | '\uFEFF'
+            StandardCharsets.UTF_16LE       | '\uFEFF'
+            Charset.forName('windows-1250') | ''
+    }
+
+    def 'should not mistake single-byte codepages that remap ASCII for ASCII-compatible ones'() {
+        expect:
+            ByteLineReader.supports(StandardCharsets.UTF_8)
+            ByteLineReader.supports(Charset.forName('windows-1250'))
+            !ByteLineReader.supports(StandardCharsets.UTF_16LE)
+            !ByteLineReader.supports(Charset.forName('IBM037'))
+    }
+
+    def 'should report malformed UTF-8 as an I/O error'() {
+        given:
+            byte[] bytes = [0x31, 0x0A, 0xC3, 0x28, 0x0A]
+            def reader = SrtReader.of(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8)
+
+        when:
+            reader.toList()
+
+        then:
+            UncheckedIOException ex = thrown()
+            ex.cause instanceof CharacterCodingException
+    }
+
+    private static List<String> readAll(ByteLineReader reader) {
+        def lines = []
+        String line
+        while ((line = reader.readLine()) != null) {
+            lines << line
+        }
+        return lines
+    }
+
+    private static ByteBuffer buffer(byte[] bytes, boolean direct) {
+        if (!direct) {
+            return ByteBuffer.wrap(bytes)
+        }
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip()
+    }
+}
@@ -0,0 +1,132 @@
+package app.service
+
+import app.model.SubtitleEntry
+import app.util.TestFileUtils
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.Channels
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.PosixFilePermissions
+
+class SrtWriterSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    private static List<SubtitleEntry> entries() {
+        [
+                TestFileUtils.entry(1, 1_000, 2_500, 'Plain ASCII'),
+                TestFileUtils.entry(2, 61_001, 3_599_999, 'Zażółć gęślą jaźń\n¿Qué?'),
+                TestFileUtils.entry(42, 3_600_000, 3_600_001, 'Emoji 😀 and a lone \uD83D surrogate'),
+                TestFileUtils.entry(1_234_567_890, 400L * 3_600_000 + 5, 400L * 3_600_000 + 9, '多言語'),
+        ]
+    }
+
+    private static String expected(List<SubtitleEntry> entries) {
+        entries.collect { it.toSrtBlock() + '\n\n' }.join('')
+    }
+
+    def 'should write the same bytes as the string blocks'() {
+        given:
+            def out = new ByteArrayOutputStream()
+
+        when:
+            SrtWriter.to(out).withCloseable { it.writeAll(entries().iterator()) }
+
+        then:
+            out.toByteArray() == expected(entries()).getBytes(StandardCharsets.UTF_8)
+    }
+
+    def 'should flush across many buffer refills, including text longer than the buffer'() {
+        given:
+            def entries = (1..5_000).collect { TestFileUtils.entry(it, it * 1_000L, it * 1_000L + 500, "Cue ${it} – ünïcödé") }
+            entries << TestFileUtils.entry(5_001, 6_000_000, 6_000_001, 'é' * SrtWriter.BUFFER_SIZE)
+            def out = new ByteArrayOutputStream()
+
+        when:
+            SrtWriter.to(Channels.newChannel(out)).withCloseable { writer -> entries.each { writer.write(it) } }
+
+        then:
+            new String(out.toByteArray(), StandardCharsets.UTF_8) == expected(entries)
+    }
+
+    def 'should only show the file once committed'() {
+        given:
+            def target = tempDir.resolve('out.srt')
+
+        when:
+            def writer = SrtWriter.toFile(target)
+            writer.writeAll(entries().iterator())
+            writer.flush()
+
+        then: 'the content sits in a temporary file next to the target'
+            !Files.exists(target)
+            Files.list(tempDir).count() == 1
+
+        when:
+            writer.commit()
+            writer.close()
+
+        then:
+            Files.readAllBytes(target) == expected(entries()).getBytes(StandardCharsets.UTF_8)
+            Files.list(tempDir).toList() == [target]
+    }
+
+    def 'should leave an existing file untouched when closed without committing'() {
+        given:
+            def target = tempDir.resolve('out.srt')
+            Files.writeString(target, 'previous')
+
+        when:
+            SrtWriter.toFile(target).withCloseable { it.writeAll(entries().iterator()) }
+
+        then:
+            Files.readString(target) == 'previous'
+            Files.list(tempDir).toList() == [target]
+    }
+
+    @IgnoreIf({ os.windows })
+    def 'should keep the permissions of the file it replaces'() {
+        given:
+            def target = tempDir.resolve('out.srt')
+            Files.writeString(target, 'previous')
+            Files.setPosixFilePermissions(target, PosixFilePermissions.fromString('rw-r-----'))
+
+        when:
+            def writer = SrtWriter.toFile(target)
+            writer.writeAll(entries().iterator())
+            writer.commit()
+            writer.close()
+
+        then:
+            PosixFilePermissions.toString(Files.getPosixFilePermissions(target)) == 'rw-r-----'
+    }
+
+    @IgnoreIf({ os.windows })
+    def 'should give a new file the same permissions as any newly created file'() {
+        given:
+            def target = tempDir.resolve('out.srt')
+            def reference = Files.createFile(tempDir.resolve('reference.txt'))
+
+        when:
+            def writer = SrtWriter.toFile(target)
+            writer.writeAll(entries().iterator())
+            writer.commit()
+            writer.close()
+
+        then: 'the umask default, not the owner-only mode of a temp file'
+            Files.getPosixFilePermissions(target) == Files.getPosixFilePermissions(reference)
+    }
+
+    def 'should refuse to commit a stream'() {
+        when:
+            SrtWriter.to(new ByteArrayOutputStream()).commit()
+
+        then:
+            thrown(IllegalStateException)
+    }
+}
@@ -0,0 +1,185 @@
+package app.service
+
+import app.model.FrameRate
+import app.model.SubtitleTrack
+import app.util.TestFileUtils
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class SubtitleAlignerSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    /**
+     * Two hours of cues with irregular lengths and gaps, like dialogue.
+     */
+    private static SubtitleTrack feature(long seed) {
+        def random = new Random(seed)
+        def track = new SubtitleTrack()
+        long time = 5_000
+        int index = 1
+        while (time < 2 * 3_600_000L) {
+            long length = 800 + random.nextInt(4_500)
+            track.add(index++, time, time + length, 'line ' + index)
+            time += length + 100 + random.nextInt(random.nextInt(10) == 0 ? 40_000 : 3_000)
+        }
+        track
+    }
+
+    /**
+     * The track as it would look timed for the other frame rate and shifted, so that converting it from -> to and
+     * shifting by offsetMillis gives the original back. jitterMillis moves every cue boundary a little, like a
+     * translation timed by someone else.
+     */
+    private static SubtitleTrack drifted(SubtitleTrack reference, FrameRate from, FrameRate to, long offsetMillis,
+                                         int jitterMillis) {
+        def random = new Random(11)
+        def inverse = FrameRate.ratio(to, from)
+        def track = new SubtitleTrack()
+        for (int row = 0; row < reference.size(); row++) {
+            long start = reference.startMillis(row) + (jitterMillis ? random.nextInt(2 * jitterMillis) - jitterMillis : 0)
+            long end = reference.endMillis(row) + (jitterMillis ? random.nextInt(2 * jitterMillis) - jitterMillis : 0)
+            track.add(row + 1, inverse.apply(start - offsetMillis), inverse.apply(end - offsetMillis), reference.text(row))
+        }
+        track
+    }
+
+    def 'should recover #description'() {
+        given:
+            def reference = feature(42)
+            def target = drifted(reference, from, to, offset, 0)
+
+        when:
+            def alignment = SubtitleAligner.align(reference, target)
+
+        then:
+            alignment.frameRateConversion() == (from == to ? Optional.empty() : Optional.of(new BatchOperation.FrameRateConversion(from, to)))
+            Math.abs(alignment.offsetMillis() - offset) <= 1
+            alignment.score() > 0.99
+
+        where:
+            description                 | from                 | to                   | offset
+            'a plain offset'            | FrameRate.FPS_25     | FrameRate.FPS_25     | 1_234
+            'a negative offset'         | FrameRate.FPS_25     | FrameRate.FPS_25     | -61_500
+            'PAL speed-up drift'        | FrameRate.FPS_25     | FrameRate.FPS_23_976 | -2_500
+            'NTSC slow-down drift'      | FrameRate.FPS_23_976 | FrameRate.FPS_25     | 3_700
+            'the smallest NTSC drift'   | FrameRate.FPS_23_976 | FrameRate.FPS_24     | -800
+    }
+
+    def 'should tolerate cue timings that differ between translations'() {
+        given:
+            def reference = feature(7)
+            def target = drifted(reference, FrameRate.FPS_25, FrameRate.FPS_23_976, -4_200, 250)
+
+        when:
+            def alignment = SubtitleAligner.align(reference, target)
+
+        then:
+            alignment.frameRateConversion() == Optional.of(new BatchOperation.FrameRateConversion(FrameRate.FPS_25, FrameRate.FPS_23_976))
+            Math.abs(alignment.offsetMillis() + 4_200) <= 100
+    }
+
+    def 'should align a feature-length pair in well under a second'() {
+        given:
+            def reference = feature(1)
+            def target = drifted(reference, FrameRate.FPS_24, FrameRate.FPS_25, 900, 100)
+            3.times { SubtitleAligner.align(reference, target) }
+
+        when:
+            long started = System.nanoTime()
+            SubtitleAligner.align(reference, target)
+            long elapsedMillis = (System.nanoTime() - started).intdiv(1_000_000)
+
+        then:
+            elapsedMillis < 500
+    }
+
+    def 'should merge overlapping and touching cues into one activity interval'() {
+        given:
+            def track = SubtitleTrack.of([
+                    TestFileUtils.entry(1, 5_000, 6_000),
+                    TestFileUtils.entry(2, 1_000, 3_000),
+                    TestFileUtils.entry(3, 2_000, 4_000),
+                    TestFileUtils.entry(4, 4_000, 4_500)])
+
+        expect:
+            SubtitleAligner.activity(track) as List == [1_000L, 4_500L, 5_000L, 6_000L]
+    }
+
+    def 'should measure exact overlap at an offset'() {
+        given:
+            long[] reference = [0, 1_000, 2_000, 3_000]
+            long[] target = [0, 500, 1_500, 2_600]
+
+        expect:
+            SubtitleAligner.overlap(reference, target, offset) == overlap
+
+        where:
+            offset | overlap
+            0      | 500 + 600
+            500    | 500 + 1_000
+            -1_000 | 500 + 0
+    }
+
+    def 'should reject an empty track'() {
+        when:
+            SubtitleAligner.align(new SubtitleTrack(), feature(3))
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def 'should write the target converted and shifted like the existing operations'() {
+        given:
+            def referenceFile = TestFileUtils.createTempSrtFile(tempDir, 'reference.srt', '''1
+00:00:10,000 --> 00:00:12,000
+Hello
+
+2
+00:00:20,000 --> 00:00:25,000
+World
+
+3
+00:01:00,000 --> 00:01:02,000
+Again
+''')
+            def targetFile = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', '''1
+00:00:08,000 --> 00:00:10,000
+Hola
+
+2
+00:00:18,000 --> 00:00:23,000
+Mundo
+
+3
+00:00:58,000 --> 00:01:00,000
+Otra vez
+''')
+            def service = new SubtitleService()
+
+        when:
+            def alignment = service.alignSubtitles(referenceFile, targetFile)
+            def output = service.createAlignedSubtitles(targetFile, alignment)
+
+        then:
+            alignment.frameRateConversion().isEmpty()
+            alignment.offsetMillis() == 2_000
+            output.name == 'movie_aligned.srt'
+            output.text == '''1
+00:00:10,000 --> 00:00:12,000
+Hola
+
+2
+00:00:20,000 --> 00:00:25,000
+Mundo
+
+3
+00:01:00,000 --> 00:01:02,000
+Otra vez
+
+'''
+    }
+}
@@ -0,0 +1,142 @@
+package app.service
+
+import app.model.FrameRate
+import app.util.TestFileUtils
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CopyOnWriteArrayList
+
+class SubtitleBatchServiceSpec extends Specification {
+
+    private static final String VALID_SRT = '1\n00:00:01,000 --> 00:00:02,000\nHello\n'
+
+    @TempDir
+    Path tempDir
+
+    SubtitleBatchService batchService = new SubtitleBatchService(new SubtitleService(), 3)
+
+    private File createSrt(String relativePath, String content = VALID_SRT) {
+        def file = tempDir.resolve(relativePath)
+        Files.createDirectories(file.parent)
+        TestFileUtils.createTempSrtFile(file.parent, file.fileName.toString(), content)
+    }
+
+    def 'should find SRT files at any depth, sorted by path'() {
+        given:
+            createSrt('season1/e02.srt')
+            createSrt('season1/e01.srt')
+            createSrt('top.srt')
+            createSrt('season1/notes.txt')
+
+        when:
+            def files = batchService.findFiles(tempDir, SubtitleBatchService.DEFAULT_GLOB)
+
+        then:
+            files*.name == ['e01.srt', 'e02.srt', 'top.srt']
+    }
+
+    def 'should leave out the output of earlier runs'() {
+        given:
+            createSrt('e01.srt')
+            createSrt('e02.srt')
+            batchService.process(tempDir, SubtitleBatchService.DEFAULT_GLOB, new BatchOperation.Shift(1.0), {})
+            batchService.process(tempDir, SubtitleBatchService.DEFAULT_GLOB,
+                    new BatchOperation.FrameRateConversion(FrameRate.FPS_25, FrameRate.FPS_23_976), {})
+            ['e01_cleaned.srt', 'e01_no_sdh.srt', 'e01_no_spam.srt', 'e01_synced.srt', 'e01_aligned.srt',
+             'e01_converted.srt', 'e01_cleaned_changes.srt'].each { createSrt(it) }
+
+        when:
+            def files = batchService.findFiles(tempDir, SubtitleBatchService.DEFAULT_GLOB)
+
+        then:
+            Files.exists(tempDir.resolve('e01_shifted.srt'))
+            Files.exists(tempDir.resolve('e01_25_fps_to_23_976_fps.srt'))
+            files*.name == ['e01.srt', 'e02.srt']
+    }
+
+    def 'should keep files named like output when their input is not among the matches'() {
+        given:
+            createSrt('movie.srt')
+            createSrt('movie_cleaned.srt')
+            createSrt('director_cut_synced.srt')
+
+        expect: 'a glob naming them explicitly'
+            batchService.findFiles(tempDir, '*_cleaned.srt')*.name == ['movie_cleaned.srt']
+
+        and: 'a file whose would-be input does not exist'
+            batchService.findFiles(tempDir, SubtitleBatchService.DEFAULT_GLOB)*.name == ['director_cut_synced.srt', 'movie.srt']
+    }
+
+    def 'should match globs with a directory part against the relative path'() {
+        given:
+            createSrt('season1/e01.srt')
+            createSrt('season2/e01.srt')
+
+        when:
+            def files = batchService.findFiles(tempDir, 'season2/*.srt')
+
+        then:
+            files.size() == 1
+            files[0].parentFile.name == 'season2'
+    }
+
+    def 'should shift every file and report progress for each one'() {
+        given:
+            (1..10).each { createSrt("show/e${it}.srt") }
+            def progress = new CopyOnWriteArrayList<BatchProgress>()
+
+        when:
+            def result = batchService.process(tempDir, '*.srt', new BatchOperation.Shift(1.0), progress::add)
+
+        then:
+            result.succeeded().size() == 10
+            !result.hasFailures()
+            result.succeeded().every { it.outputFile().get().text.contains('00:00:02,000 --> 00:00:03,000') }
+
+        and: 'one progress report per file, counting up to the total'
+            progress*.completed() == (1..10).toList()
+            progress.last().remaining() == 0
+            progress.every { it.total() == 10 }
+    }
+
+    def 'should collect failures without aborting the rest of the batch'() {
+        given:
+            createSrt('a.srt')
+            def broken = createSrt('b.srt', '1\nnot a timeline\nText\n')
+            createSrt('c.srt')
+
+        when:
+            def result = batchService.process(tempDir, '*.srt', new BatchOperation.FrameRateConversion(FrameRate.FPS_25, FrameRate.FPS_24), BatchProgressListener.NONE)
+
+        then:
+            result.total() == 3
+            result.succeeded()*.inputFile()*.name == ['a.srt', 'c.srt']
+            result.failed().size() == 1
+            result.failed()[0].inputFile() == broken
+            result.failed()[0].error() instanceof IllegalArgumentException
+    }
+
+    def 'should report an empty output for files that needed no cleaning'() {
+        given:
+            createSrt('plain.srt')
+            createSrt('sdh.srt', '1\n00:00:01,000 --> 00:00:02,000\n[door slams]\n\n2\n00:00:03,000 --> 00:00:04,000\nHi\n')
+
+        when:
+            def result = batchService.process(tempDir, '*.srt', new BatchOperation.Clean(true, false), BatchProgressListener.NONE)
+
+        then:
+            result.succeeded().find { it.inputFile().name == 'plain.srt' }.outputFile().isEmpty()
+            result.succeeded().find { it.inputFile().name == 'sdh.srt' }.outputFile().get().name == 'sdh_no_sdh.srt'
+    }
+
+    def 'should reject invalid operations up front'() {
+        when:
+            new BatchOperation.Clean(false, false)
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
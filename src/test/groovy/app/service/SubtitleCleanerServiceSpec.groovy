@@ -230,6 +230,20 @@ ${dialog}""")
             result[0].text() == '- Hi, Ernie.\n- So, uh, tonight,'
     }
 
+    def 'should keep quoted sound descriptions verbatim including regex replacement characters'() {
+        given: 'song info in parens containing "$" and a backslash'
+            def entries = TestFileUtils.parseTestSrt(tempDir, '''1
+00:00:01,000 --> 00:00:03,000
+Play it (playing "$1 Blues \\ Reprise") again''')
+
+        when: 'running SDH removal'
+            def result = SubtitleCleanerService.removeSdh(entries)
+
+        then: 'the quoted group is left exactly as written'
+            result.size() == 1
+            result[0].text() == 'Play it (playing "$1 Blues \\ Reprise") again'
+    }
+
     def 'should remove entries containing URLs'() {
         given: 'subtitle entry containing URL'
             def entries = TestFileUtils.parseTestSrt(tempDir, """1
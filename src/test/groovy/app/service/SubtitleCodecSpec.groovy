@@ -0,0 +1,248 @@
+package app.service
+
+import app.exception.InvalidSubtitleException
+import app.model.FrameRate
+import app.model.SubtitleEntry
+import app.util.TestFileUtils
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class SubtitleCodecSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    SubtitleService subtitleService = new SubtitleService()
+
+    private static List<SubtitleEntry> read(SubtitleCodec codec, String text, CodecOptions options = CodecOptions.DEFAULT) {
+        def entries = []
+        codec.newReader(new StringReader(text), options).withCloseable { reader -> reader.forEachRemaining { entries << it } }
+        entries
+    }
+
+    private static String write(SubtitleCodec codec, List<SubtitleEntry> entries, CodecOptions options = CodecOptions.DEFAULT) {
+        def out = new StringWriter()
+        def writer = codec.newWriter(out, options)
+        entries.each { writer.write(it) }
+        writer.finish()
+        out.toString()
+    }
+
+    private File file(String name, String content) {
+        def file = tempDir.resolve(name)
+        Files.writeString(file, content, StandardCharsets.UTF_8)
+        file.toFile()
+    }
+
+    def 'should find every built-in codec by name, extension and content'() {
+        expect:
+            SubtitleCodecs.all()*.name() == ['srt', 'vtt', 'ass', 'microdvd']
+            SubtitleCodecs.forName(' VTT ').name() == 'vtt'
+            SubtitleCodecs.forFile(new File('movie.SSA')).name() == 'ass'
+            SubtitleCodecs.forFile(new File('movie.txt')).name() == 'srt'
+            SubtitleCodecs.detect('\uFEFFWEBVTT\n\n00:01.000 --> 00:02.000\nHi\n').get().name() == 'vtt'
+            SubtitleCodecs.detect('{1}{1}25\n{25}{50}Hi\n').get().name() == 'microdvd'
+            SubtitleCodecs.detect('[Script Info]\nTitle: x\n').get().name() == 'ass'
+            SubtitleCodecs.detect('1\n00:00:01,000 --> 00:00:02,000\nHi\n').get().name() == 'srt'
+            SubtitleCodecs.detect('plain text').isEmpty()
+
+        when:
+            SubtitleCodecs.forName('sami')
+
+        then:
+            def e = thrown(IllegalArgumentException)
+            e.message == 'Unsupported subtitle format: sami'
+    }
+
+    def 'should round-trip timing, line breaks and styles through #codecName'() {
+        given:
+            def codec = SubtitleCodecs.forName(codecName)
+            def options = CodecOptions.withFrameRate(FrameRate.FPS_25)
+            def entries = [
+                    TestFileUtils.entry(1, 1_000, 2_520, '<i>Zażółć gęślą</i>\njaźń'),
+                    TestFileUtils.entry(2, 3_600_000, 3_604_000, '<b>Second & last</b>'),
+            ]
+
+        expect:
+            read(codec, write(codec, entries, options), options) == entries
+
+        where:
+            codecName << ['srt', 'vtt', 'ass', 'microdvd']
+    }
+
+    def 'should read WebVTT skipping header, notes, styles, identifiers and settings'() {
+        given:
+            def vtt = '''WEBVTT - Some title
+Kind: captions
+
+NOTE this is
+a comment
+
+STYLE
+::cue { color: yellow }
+
+intro
+00:01.000 --> 00:02.500 align:start position:10%
+<v Roger>Hi &amp; <i>welcome</i></v>
+<c.loud>second line</c>
+
+00:00:03.000 --> 00:00:04.000
+<00:00:03.500>karaoke &lt;3
+
+1:00:00.000 --> 1:00:01.000
+<ruby>漢<rt>kan</rt></ruby>
+'''
+
+        expect:
+            read(new WebVttCodec(), vtt) == [
+                    TestFileUtils.entry(1, 1_000, 2_500, 'Hi & <i>welcome</i>\nsecond line'),
+                    TestFileUtils.entry(2, 3_000, 4_000, 'karaoke <3'),
+                    TestFileUtils.entry(3, 3_600_000, 3_601_000, '漢kan'),
+            ]
+    }
+
+    def 'should reject WebVTT without its signature'() {
+        when:
+            read(new WebVttCodec(), '00:01.000 --> 00:02.000\nHi\n')
+
+        then:
+            def e = thrown(InvalidSubtitleException)
+            e.lineNumber.asInt == 1
+    }
+
+    def 'should read ASS dialogue through its Format line and map overrides'() {
+        given:
+            def ass = '''[Script Info]
+ScriptType: v4.00+
+
+[Events]
+Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text
+Comment: 0,0:00:00.00,0:00:01.00,Default,,0,0,0,,not shown
+Dialogue: 0,0:00:01.50,0:00:03.00,Default,,0,0,0,,{\\i1}Hello{\\i0}, world\\Nsecond, line
+Dialogue: 0,0:00:04.00,0:00:05.00,Default,,0,0,0,,{\\pos(10,20)\\b1}Bold{\\b0}\\hend
+'''
+
+        expect:
+            read(new AssCodec(), ass)*.text == ['<i>Hello</i>, world\nsecond, line', '<b>Bold</b> end']
+            read(new AssCodec(), ass)[0].start() == Duration.ofMillis(1_500)
+    }
+
+    def 'should write ASS times rounded to centiseconds'() {
+        expect:
+            AssCodec.appendTime(new StringBuilder(), millis).toString() == expected
+
+        where:
+            millis     | expected
+            0          | '0:00:00.00'
+            1_234      | '0:00:01.23'
+            1_235      | '0:00:01.24'
+            3_599_999  | '1:00:00.00'
+            36_061_010 | '10:01:01.01'
+    }
+
+    def 'should read MicroDVD frames at the declared frame rate over the given one'() {
+        given:
+            def sub = '{1}{1}23.976\n{24}{48}{y:i}Italic line|{Y:b}plain\n{100}{125}{c:$0000ff}Red\n'
+
+        expect:
+            read(new MicroDvdCodec(), sub, CodecOptions.withFrameRate(FrameRate.FPS_25)) == [
+                    TestFileUtils.entry(1, 1_001, 2_002, '<b><i>Italic line</i>\nplain</b>'),
+                    TestFileUtils.entry(2, 4_171, 5_214, 'Red'),
+            ]
+    }
+
+    def 'should reject MicroDVD without any frame rate'() {
+        when:
+            read(new MicroDvdCodec(), '{25}{50}Hi\n')
+
+        then:
+            def e = thrown(InvalidSubtitleException)
+            e.lineNumber.asInt == 1
+            e.message.contains('frame rate')
+    }
+
+    def 'should transcode a WebVTT file to SRT next to it'() {
+        given:
+            def input = file('movie.vtt', 'WEBVTT\n\n00:01.000 --> 00:02.000\n<i>Hi</i> &amp; bye\n')
+
+        when:
+            def output = subtitleService.createTranscodedSubtitles(input, SubtitleFormat.SRT)
+
+        then:
+            output.name == 'movie.srt'
+            output.text == '1\n00:00:01,000 --> 00:00:02,000\n<i>Hi</i> & bye\n\n'
+    }
+
+    def 'should shift a WebVTT file into WebVTT'() {
+        given:
+            def input = file('movie.vtt', 'WEBVTT\n\n00:01.000 --> 00:02.000\nHi\n')
+
+        when:
+            def output = subtitleService.createShiftedSubtitles(input, 1.5)
+
+        then:
+            output.name == 'movie_shifted.vtt'
+            output.text == 'WEBVTT\n\n1\n00:00:02.500 --> 00:00:03.500\nHi\n\n'
+    }
+
+    def 'should convert frame rate and format in one pass, reading MicroDVD at the source rate'() {
+        given:
+            def input = file('movie.sub', '{25}{50}Hi\n')
+
+        when:
+            def output = subtitleService.createFrameRateConvertedSubtitles(input, SubtitleFormat.SRT,
+                    FrameRate.FPS_25, FrameRate.FPS_24, ProgressListener.NONE)
+
+        then:
+            output.name == 'movie_25_fps_to_24_fps.srt'
+            output.text == '1\n00:00:01,042 --> 00:00:02,083\nHi\n\n'
+    }
+
+    def 'should keep MicroDVD frames when converting its frame rate'() {
+        given:
+            def input = file('movie.sub', '{25}{50}Hi\n')
+
+        when:
+            def output = subtitleService.createFrameRateConvertedSubtitles(input, FrameRate.FPS_25, FrameRate.FPS_24)
+
+        then:
+            output.text == '{1}{1}24\n{25}{50}Hi\n'
+    }
+
+    def 'should clean an ASS file and log against the ASS output'() {
+        given:
+            def input = file('movie.ass', '''[Script Info]
+
+[Events]
+Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text
+Dialogue: 0,0:00:01.00,0:00:02.00,Default,,0,0,0,,[door slams]
+Dialogue: 0,0:00:03.00,0:00:04.00,Default,,0,0,0,,Hello there
+''')
+
+        when:
+            def result = subtitleService.createCleanedSubtitles(input, true, false)
+
+        then:
+            result.outputFile().get().name == 'movie_no_sdh.ass'
+            result.sdhRemoved() == 1
+            result.outputFile().get().text.endsWith('Dialogue: 0,0:00:03.00,0:00:04.00,Default,,0,0,0,,Hello there\n')
+            result.outputFile().get().text.count('Dialogue:') == 1
+    }
+
+    def 'should not leave a partial file when the output format needs a frame rate'() {
+        given:
+            def input = file('movie.srt', '1\n00:00:01,000 --> 00:00:02,000\nHi\n')
+
+        when:
+            subtitleService.createTranscodedSubtitles(input, SubtitleFormat.parse('microdvd'))
+
+        then:
+            thrown(IllegalArgumentException)
+            Files.list(tempDir).toList() == [input.toPath()]
+    }
+}
@@ -1,7 +1,9 @@
 package app.service
 
 import app.TestResourceUtils
+import app.exception.InvalidSubtitleException
 import app.model.FrameRate
+import app.model.TimeMap
 import app.util.TestFileUtils
 import spock.lang.Specification
 import spock.lang.TempDir
@@ -212,6 +214,19 @@ Subtitle with BOM
             thrown(IOException)
     }
 
+    def 'should not leave a partial output file when a later block is invalid'() {
+        given:
+            def inputContent = '1\n00:00:01,000 --> 00:00:02,000\nGood\n\n2\nnot a timeline\nBad\n'
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'broken.srt', inputContent)
+
+        when:
+            subtitleService.createShiftedSubtitles(inputFile, 1.0)
+
+        then:
+            thrown(IllegalArgumentException)
+            !new File(tempDir.toFile(), 'broken_shifted.srt').exists()
+    }
+
     def 'should produce empty output for empty input file'() {
         given:
             def inputContent = ''
@@ -389,11 +404,11 @@ Third subtitle at 10+ minutes
 
         and: 'expected output after frame rate conversion (times should be longer)'
             def expectedOutput = '''1
-00:01:02,562 --> 00:01:06,733
+00:01:02,563 --> 00:01:06,733
 First subtitle at 1 minute
 
 2
-00:02:36,927 --> 00:02:42,401
+00:02:36,928 --> 00:02:42,402
 Second subtitle with fractional seconds
 
 3
@@ -434,7 +449,7 @@ Third subtitle with fractional seconds
 
         and: 'expected output with shorter timing'
             def expectedOutput = '''1
-00:00:57,542 --> 00:01:01,378
+00:00:57,542 --> 00:01:01,379
 First subtitle at 1 minute
 
 2
@@ -442,7 +457,7 @@ First subtitle at 1 minute
 Second subtitle at 5 minutes
 
 3
-00:10:04,674 --> 00:10:09,230
+00:10:04,675 --> 00:10:09,231
 Third subtitle with fractional seconds
 
 '''
@@ -474,17 +489,17 @@ End credits subtitle
             def fromFrameRate = FrameRate.FPS_25
             def toFrameRate = FrameRate.FPS_23_976
 
-        and: 'expected output with longer timing for 2+ hour content'
+        and: 'expected output with longer timing for 2+ hour content (exact 1001/960, no decimal drift)'
             def expectedOutput = '''1
-02:21:18,009 --> 02:21:22,701
+02:21:18,001 --> 02:21:22,693
 Subtitle at 2h 15min mark
 
 2
-02:52:15,439 --> 02:52:22,530
+02:52:15,429 --> 02:52:22,520
 Subtitle near end of long movie
 
 3
-03:10:33,829 --> 03:10:38,521
+03:10:33,818 --> 03:10:38,510
 End credits subtitle
 
 '''
@@ -534,7 +549,7 @@ Boundary FR
             def toFrameRate = FrameRate.FPS_25
         and:
             def expectedOutput = '''1
-01:55:05,087 --> 01:55:05,088
+01:55:05,094 --> 01:55:05,096
 Boundary FR
 
 '''
@@ -548,6 +563,49 @@ Boundary FR
     }
 
 
+    def 'should create synced subtitles correcting offset and drift in one pass'() {
+        given: 'subtitles that start 2 s early and drift to 4 s early after an hour, then lose 1 s more by the end'
+            def inputContent = '''1
+00:00:10,000 --> 00:00:12,000
+Opening line
+
+2
+00:30:00,000 --> 00:30:02,500
+Middle
+
+3
+01:30:00,000 --> 01:30:01,000
+Late line
+'''
+            def timeMap = TimeMap.fit(
+                    new TimeMap.Anchor(0, 2_000),
+                    new TimeMap.Anchor(3_600_000, 3_604_000),
+                    new TimeMap.Anchor(7_200_000, 7_205_000))
+
+        and: 'expected output with each cue moved along its segment'
+            def expectedOutput = '''1
+00:00:12,006 --> 00:00:14,007
+Opening line
+
+2
+00:30:03,000 --> 00:30:05,501
+Middle
+
+3
+01:30:04,500 --> 01:30:05,500
+Late line
+
+'''
+
+        when: 'syncing subtitles through the time map'
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'test.srt', inputContent)
+            def outputFile = subtitleService.createSyncedSubtitles(inputFile, timeMap)
+
+        then: 'output file is created with correct name and content'
+            outputFile.name == 'test_synced.srt'
+            outputFile.text == expectedOutput
+    }
+
     def 'should throw IllegalArgumentException when frame rates are identical'() {
         given: 'input SRT file'
             def inputContent = '1\n00:00:01,000 --> 00:00:03,000\nTest\n'
@@ -839,6 +897,9 @@ Removed via spam:   1 entry
 Modified by SDH:    1 entry
 Kept unchanged:     1 entry
 
+Rule hits
+    default/url: 1
+
 Removed entries
 ---------------
 
@@ -930,4 +991,175 @@ since our parents died.
     since our parents died.
 ''')
     }
+
+    def 'should attribute changes per entry even when cue numbers repeat'() {
+        given: 'concatenated dump where the numbering restarts'
+            def inputContent = '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+00:00:03,000 --> 00:00:04,000
+Hello there
+
+1
+00:10:01,000 --> 00:10:02,000
+JOHN: Hello again
+
+2
+00:10:03,000 --> 00:10:04,000
+Visit www.example.com
+'''
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'dump.srt', inputContent)
+
+        when:
+            def result = subtitleService.createCleanedSubtitles(inputFile, true, true)
+
+        then: 'each duplicate-numbered entry is reported on its own'
+            result.sdhRemoved() == 1
+            result.spamRemoved() == 1
+            result.modified() == 1
+            result.outputFile().get().text == '''2
+00:00:03,000 --> 00:00:04,000
+Hello there
+
+1
+00:10:01,000 --> 00:10:02,000
+Hello again
+
+'''
+            result.changesFile().text.contains('Kept unchanged:     1 entry')
+    }
+
+    def 'should write the changes log as JSON Lines when asked'() {
+        given:
+            def inputContent = '''1
+00:00:01,000 --> 00:00:03,000
+[thunder rumbling]
+
+2
+00:00:04,000 --> 00:00:06,000
+[in Spanish] "Buenos días"
+
+3
+00:00:07,000 --> 00:00:09,000
+Downloaded from www.opensubtitles.org
+'''
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'movie.srt', inputContent)
+
+        when:
+            def result = subtitleService.createCleanedSubtitles(inputFile, true, true, ChangesLogFormat.JSON_LINES)
+
+        then: 'header first, one line per event in input order, summary last'
+            result.changesFile().name == 'movie_cleaned_changes.jsonl'
+            result.changesFile().readLines() == [
+                    '{"type":"header","input":"movie.srt","removeSdh":true,"removeSpam":true}',
+                    '{"type":"removed","index":1,"startMillis":1000,"endMillis":3000,"start":"00:00:01,000","end":"00:00:03,000","reason":"SDH","text":"[thunder rumbling]"}',
+                    '{"type":"modified","index":2,"startMillis":4000,"endMillis":6000,"start":"00:00:04,000","end":"00:00:06,000","before":"[in Spanish] \\"Buenos días\\"","after":"\\"Buenos días\\""}',
+                    '{"type":"removed","index":3,"startMillis":7000,"endMillis":9000,"start":"00:00:07,000","end":"00:00:09,000","reason":"SPAM","text":"Downloaded from www.opensubtitles.org"}',
+                    '{"type":"summary","output":"movie_cleaned.srt","removedSdh":1,"removedSpam":1,"modified":1,"unchanged":0,"ruleHits":{"default/url":1}}'
+            ]
+    }
+
+    def 'should clean with loaded rule packs and count hits per rule'() {
+        given: 'a mixed-case speaker label, an English credit line and a URL'
+            def inputContent = '''1
+00:00:01,000 --> 00:00:03,000
+Narrator: Long ago
+
+2
+00:00:04,000 --> 00:00:06,000
+Synced by someone
+
+3
+00:00:07,000 --> 00:00:09,000
+Visit www.example.com
+'''
+            def service = subtitleService.withRules(RuleEngine.compile([RulePack.bundled('default'), RulePack.bundled('en')]))
+
+        when:
+            def changes = service.cleanSubtitles(new StringReader(inputContent), Writer.nullWriter(),
+                    new File('movie.srt'), true, true)
+
+        then: 'the label is stripped, both spam lines go, and each rule reports its own hits'
+            changes.counts().spamRemoved() == 2
+            changes.modifiedEntries()*.after()*.text() == ['Long ago']
+            changes.ruleHits() == ['default/url': 1, 'en/synced-by': 1, 'en/label': 1]
+    }
+
+    def 'should stream a changes log larger than the in-memory spool and clean up its temp files'() {
+        given: 'thousands of SDH-only cues, so the removed section spills to disk'
+            def cues = 5000
+            def inputContent = (1..cues).collect { i ->
+                "${i}\n00:00:01,000 --> 00:00:02,000\n[door slams and a long description of the noise number ${i}]\n"
+            }.join('\n') + "\n${cues + 1}\n00:00:03,000 --> 00:00:04,000\nHello there\n"
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'big.srt', inputContent)
+
+        when:
+            def result = subtitleService.createCleanedSubtitles(inputFile, true, false)
+
+        then: 'the report matches the collected changes rendered in one go'
+            def expected = tempDir.resolve('expected.log').toFile()
+            def changes = subtitleService.cleanSubtitles(new StringReader(inputContent), Writer.nullWriter(), inputFile, true, false)
+            subtitleService.writeChangesLog(expected, new SubtitleChanges(changes.inputFile(), result.outputFile(),
+                    changes.removedSdh(), changes.removedSpam(), changes.removedEntries(), changes.modifiedEntries(), changes.unchangedCount()))
+            result.changesFile().text == expected.text
+            result.changesFile().text.contains("#${cues}  00:00:01,000 --> 00:00:02,000  (via SDH)")
+
+        and: 'no spool files are left behind'
+            tempDir.toFile().list().findAll { it.endsWith('.tmp') }.isEmpty()
+    }
+
+    def 'should not leave a partial changes log when the input fails to parse: #format'() {
+        given:
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'broken.srt', '''1
+00:00:01,000 --> 00:00:02,000
+[door slams]
+
+2
+not a timeline
+Text
+''')
+
+        when:
+            subtitleService.createCleanedSubtitles(inputFile, true, true, format)
+
+        then:
+            thrown(InvalidSubtitleException)
+            tempDir.toFile().list() as Set == ['broken.srt'] as Set
+
+        where:
+            format << ChangesLogFormat.values()
+    }
+
+    def 'should report increasing progress and stop without partial files when the listener cancels: #operation'() {
+        given: 'enough cues for several progress reports'
+            def inputContent = (1..2000).collect { i ->
+                "${i}\n00:00:01,000 --> 00:00:02,000\n[noise] Line ${i}\n"
+            }.join('\n')
+            def inputFile = TestFileUtils.createTempSrtFile(tempDir, 'long.srt', inputContent)
+            def reported = []
+            def listener = { double fraction ->
+                reported << fraction
+                if (fraction > 0.5) {
+                    throw new java.util.concurrent.CancellationException()
+                }
+            } as ProgressListener
+
+        when:
+            run(subtitleService, inputFile, listener)
+
+        then:
+            thrown(java.util.concurrent.CancellationException)
+            reported.size() > 1
+            reported == reported.sort(false)
+            reported.every { it > 0 && it <= 1 }
+            tempDir.toFile().list() as Set == ['long.srt'] as Set
+
+        where:
+            operation | run
+            'shift'   | { SubtitleService service, File file, ProgressListener progress -> service.createShiftedSubtitles(file, 1.0, progress) }
+            'convert' | { SubtitleService service, File file, ProgressListener progress -> service.createFrameRateConvertedSubtitles(file, FrameRate.FPS_25, FrameRate.FPS_23_976, progress) }
+            'clean'   | { SubtitleService service, File file, ProgressListener progress -> service.createCleanedSubtitles(file, true, true, ChangesLogFormat.TEXT, progress) }
+    }
 }
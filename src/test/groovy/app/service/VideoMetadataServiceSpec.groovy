@@ -0,0 +1,164 @@
+package app.service
+
+import app.model.FrameRate
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.nio.file.attribute.PosixFilePermissions
+
+@IgnoreIf({ os.windows })
+class VideoMetadataServiceSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    Path calls
+    Path cacheFile
+
+    def setup() {
+        calls = tempDir.resolve('calls.log')
+        cacheFile = tempDir.resolve('cache').resolve('ffprobe-cache.tsv')
+    }
+
+    /**
+     * A fake ffprobe that logs each run and prints the given r_frame_rate.
+     */
+    private String stubFFprobe(String frameRate, String extraScript = '') {
+        def script = tempDir.resolve('ffprobe')
+        Files.writeString(script, """#!/bin/sh
+echo "\$@" >> '${calls}'
+${extraScript}
+echo '${frameRate}'
+""")
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString('rwxr-xr-x'))
+        script.toString()
+    }
+
+    private File video(String name) {
+        Files.writeString(tempDir.resolve(name), 'not really a video').toFile()
+    }
+
+    private int probeCount() {
+        Files.exists(calls) ? Files.readAllLines(calls).size() : 0
+    }
+
+    def 'should detect the frame rate with a single ffprobe run and keep the raw value'() {
+        given:
+            def service = new VideoMetadataService(stubFFprobe('24000/1001'), cacheFile, 2)
+            def movie = video('movie.mkv')
+
+        when:
+            def probe = service.probe(movie)
+
+        then:
+            probe.get() == new FrameRateProbe('24000/1001', Optional.of(FrameRate.FPS_23_976))
+            probeCount() == 1
+            Files.readAllLines(calls).first().endsWith(movie.absolutePath)
+    }
+
+    def 'should answer repeated probes from the on-disk cache, also in a new service instance'() {
+        given:
+            def ffprobe = stubFFprobe('25/1')
+            def movie = video('movie.mkv')
+
+        when:
+            def first = new VideoMetadataService(ffprobe, cacheFile, 2).detectFrameRate(movie)
+            def service = new VideoMetadataService(ffprobe, cacheFile, 2)
+            def second = service.detectFrameRate(movie)
+            def third = service.detectFrameRate(movie)
+
+        then:
+            [first, second, third].every { it == Optional.of(FrameRate.FPS_25) }
+            probeCount() == 1
+    }
+
+    def 'should probe again when the video changed since it was cached'() {
+        given:
+            def ffprobe = stubFFprobe('30/1')
+            def movie = video('movie.mkv')
+            new VideoMetadataService(ffprobe, cacheFile, 2).detectFrameRate(movie)
+
+        when:
+            Files.setLastModifiedTime(movie.toPath(), FileTime.fromMillis(movie.lastModified() + 60_000))
+            def detected = new VideoMetadataService(ffprobe, cacheFile, 2).detectFrameRate(movie)
+
+        then:
+            detected == Optional.of(FrameRate.FPS_30)
+            probeCount() == 2
+    }
+
+    def 'should cache a rate that matches no supported frame rate'() {
+        given:
+            def service = new VideoMetadataService(stubFFprobe('15/1'), cacheFile, 2)
+            def movie = video('clip.mp4')
+
+        when:
+            def first = service.probe(movie)
+            def second = new VideoMetadataService(stubFFprobe('15/1'), cacheFile, 2).probe(movie)
+
+        then:
+            first.get() == new FrameRateProbe('15/1', Optional.empty())
+            second == first
+            probeCount() == 1
+    }
+
+    def 'should not cache failed probes'() {
+        given:
+            def service = new VideoMetadataService(stubFFprobe('', 'exit 1'), cacheFile, 2)
+            def movie = video('broken.mkv')
+
+        expect:
+            service.detectFrameRate(movie).isEmpty()
+            service.detectFrameRate(movie).isEmpty()
+            probeCount() == 2
+    }
+
+    def 'should ignore damaged cache lines'() {
+        given:
+            def movie = video('movie.mkv')
+            Files.createDirectories(cacheFile.parent)
+            Files.writeString(cacheFile, "garbage\n1\t2\tNOT_A_RATE\t25/1\t${movie.absolutePath}\n")
+            def service = new VideoMetadataService(stubFFprobe('50/1'), cacheFile, 2)
+
+        expect:
+            service.detectFrameRate(movie) == Optional.of(FrameRate.FPS_50)
+            probeCount() == 1
+    }
+
+    def 'should report no frame rate when ffprobe cannot be started'() {
+        given:
+            def service = new VideoMetadataService(tempDir.resolve('missing-ffprobe').toString(), cacheFile, 2)
+
+        expect:
+            service.detectFrameRate(video('movie.mkv')).isEmpty()
+            service.detectFrameRate(video('other.mkv')).isEmpty()
+    }
+
+    def 'should probe many videos concurrently without exceeding the process bound'() {
+        given: 'a slow ffprobe that records how many copies run at once'
+            def running = tempDir.resolve('running')
+            Files.createDirectories(running)
+            def peak = tempDir.resolve('peak.log')
+            def ffprobe = stubFFprobe('25/1', """
+touch '${running}'/\$\$
+ls '${running}' | wc -l >> '${peak}'
+sleep 0.3
+rm '${running}'/\$\$
+""")
+            def service = new VideoMetadataService(ffprobe, cacheFile, 2)
+            def videos = (1..6).collect { video("e0${it}.mkv") }
+
+        when:
+            def results = service.detectFrameRates(videos)
+
+        then:
+            results.keySet() as List == videos
+            results.values().every { it == Optional.of(FrameRate.FPS_25) }
+            probeCount() == 6
+            Files.readAllLines(peak)*.trim()*.toInteger().max() <= 2
+    }
+}
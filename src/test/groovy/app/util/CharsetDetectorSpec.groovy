@@ -4,7 +4,10 @@ import app.TestResourceUtils
 import spock.lang.Specification
 import spock.lang.TempDir
 
+import java.nio.ByteBuffer
 import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
 import java.nio.file.Path
 
 class CharsetDetectorSpec extends Specification {
@@ -48,4 +51,82 @@ class CharsetDetectorSpec extends Specification {
         then:
             detectedCharset == fallbackCharset
     }
+
+    def 'should detect the same charset from in-memory content as from the file: #subtitleFileName'() {
+        given:
+            def inputFile = TestResourceUtils.copySubtitleToTemp(subtitleFileName, tempDir)
+            def content = FileContent.read(inputFile.toPath())
+
+        expect:
+            CharsetDetector.detectCharset(content, inputFile.toPath()) == CharsetDetector.detectCharset(inputFile.toPath())
+            content.position() == 0
+
+        where:
+            subtitleFileName << ['multilingual_utf8.srt', 'central_european_windows1250.srt', 'western_european_windows1252.srt']
+    }
+
+    def 'should recognise #description without the detector'() {
+        expect:
+            CharsetDetector.detectCharset(ByteBuffer.wrap(bytes as byte[]), tempDir).get() == Charset.forName(expected)
+
+        where:
+            description      | bytes                                                       | expected
+            'a UTF-8 BOM'    | [0xEF, 0xBB, 0xBF, 0x31]                                    | 'UTF-8'
+            'a UTF-16LE BOM' | [0xFF, 0xFE, 0x31, 0x00]                                    | 'UTF-16LE'
+            'a UTF-16BE BOM' | [0xFE, 0xFF, 0x00, 0x31]                                    | 'UTF-16BE'
+            'a UTF-32LE BOM' | [0xFF, 0xFE, 0x00, 0x00]                                    | 'UTF-32LE'
+            'pure ASCII'     | '1\n00:00:01,000 --> 00:00:02,000\nHello\n'.bytes          | 'US-ASCII'
+            'short UTF-8'    | 'Zażółć gęślą jaźń'.getBytes(StandardCharsets.UTF_8)       | 'UTF-8'
+            'UTF-8 late'     | ('a' * 100_000 + 'é').getBytes(StandardCharsets.UTF_8)      | 'UTF-8'
+    }
+
+    def 'should validate UTF-8 strictly: #description'() {
+        expect:
+            CharsetDetector.isValidUtf8(ByteBuffer.wrap(bytes as byte[]), 0) == valid
+
+        where:
+            description             | bytes                    | valid
+            'two-byte sequence'     | [0xC3, 0xA9]             | true
+            'four-byte sequence'    | [0xF0, 0x9F, 0x98, 0x80] | true
+            'overlong encoding'     | [0xC0, 0xAF]             | false
+            'overlong three bytes'  | [0xE0, 0x80, 0xAF]       | false
+            'surrogate'             | [0xED, 0xA0, 0x80]       | false
+            'beyond U+10FFFF'       | [0xF4, 0x90, 0x80, 0x80] | false
+            'missing continuation'  | [0xC3, 0x41]             | false
+            'cut off at the end'    | [0xE2, 0x82]             | false
+            'windows-1250 letter'   | [0x9C, 0x20]             | false
+    }
+
+    def 'should detect the charset of a file once until it changes'() {
+        given:
+            def cache = new CharsetDetectionCache(8)
+            def file = TestResourceUtils.copySubtitleToTemp('western_european_windows1252.srt', tempDir).toPath()
+
+        when:
+            def first = cache.detectCharset(file, FileContent.read(file))
+            def second = cache.detectCharset(file, FileContent.read(file))
+
+        then:
+            first.get() == Charset.forName('windows-1252')
+            second.is(first)
+            cache.size() == 1
+
+        when: 'the file is replaced with UTF-8 content'
+            Files.write(file, 'Zażółć gęślą jaźń'.getBytes(StandardCharsets.UTF_8))
+
+        then:
+            cache.detectCharset(file, FileContent.read(file)).get() == StandardCharsets.UTF_8
+    }
+
+    def 'should keep only the most recently used files'() {
+        given:
+            def cache = new CharsetDetectionCache(2)
+            def files = (1..3).collect { Files.writeString(tempDir.resolve("f${it}.srt"), "file ${it}") }
+
+        when:
+            files.each { cache.detectCharset(it, FileContent.read(it)) }
+
+        then:
+            cache.size() == 2
+    }
 }
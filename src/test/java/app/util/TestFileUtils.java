@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
 @UtilityClass
@@ -42,4 +43,12 @@ public class TestFileUtils {
             throw new RuntimeException("Failed to parse test SRT content", e);
         }
     }
+
+    public SubtitleEntry entry(int index, long startMillis, long endMillis) {
+        return entry(index, startMillis, endMillis, "Cue " + index);
+    }
+
+    public SubtitleEntry entry(int index, long startMillis, long endMillis, String text) {
+        return new SubtitleEntry(index, Duration.ofMillis(startMillis), Duration.ofMillis(endMillis), text);
+    }
 }